@@ -0,0 +1,192 @@
+package com.transitnet.rpdemo.controller;
+
+import com.transitnet.rpdemo.model.ETransportationMode;
+import com.transitnet.rpdemo.pojo.ProfileResponse;
+import com.transitnet.rpdemo.pojo.RouteResponse;
+import com.transitnet.rpdemo.service.route.ModelNotPreparedException;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryTimeoutException;
+import com.transitnet.rpdemo.service.route.routingService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 路径查询的REST接口。<br>
+ * <br>
+ * 坐标以纬度和经度给出，会被吸附到最近的路网节点或站点上。出发时间为自epoch以来的毫秒数，
+ * 缺省时为当前时间。交通模态以逗号分隔，例如<code>modes=CAR,FOOT</code>。找不到路径时
+ * 返回404，参数无效时返回400，模型尚未准备好时返回503，查询超时时返回504。
+ */
+@RestController
+@RequestMapping("/route")
+public class routingController {
+    /**
+     * Gets the given route or answers with 404 if there is none.
+     *
+     * @param route The route, if present
+     * @return The route
+     */
+    private static RouteResponse orNotFound(final Optional<RouteResponse> route) {
+        return route.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No route found"));
+    }
+
+    /**
+     * Gets the given departure time or the current time if there is none.
+     *
+     * @param depTime The departure time in milliseconds since epoch, or
+     *                <code>null</code>
+     * @return The departure time in milliseconds since epoch
+     */
+    private static long orNow(final Long depTime) {
+        return depTime == null ? System.currentTimeMillis() : depTime;
+    }
+
+    /**
+     * 进程内的路径查询服务
+     */
+    private final routingService mRoutingService;
+
+    /**
+     * Creates a new controller which answers requests using the given service.
+     *
+     * @param routingService The service to compute routes with
+     */
+    public routingController(final routingService routingService) {
+        mRoutingService = routingService;
+    }
+
+    /**
+     * Answers requests with invalid parameters.
+     *
+     * @param exception The exception thrown by the service
+     * @return The response with status 400 and the message of the exception
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(final IllegalArgumentException exception) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(exception.getMessage());
+    }
+
+    /**
+     * Answers requests which arrive before the model is prepared.
+     *
+     * @param exception The exception thrown by the service
+     * @return The response with status 503 and the message of the exception
+     */
+    @ExceptionHandler(ModelNotPreparedException.class)
+    public ResponseEntity<String> handleModelNotPrepared(final ModelNotPreparedException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(exception.getMessage());
+    }
+
+    /**
+     * Answers requests whose query exceeded the timeout.
+     *
+     * @param exception The exception thrown by the service
+     * @return The response with status 504 and the message of the exception
+     */
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ResponseEntity<String> handleQueryTimeout(final QueryTimeoutException exception) {
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(exception.getMessage());
+    }
+
+    /**
+     * Computes a route which combines roads and transit.
+     *
+     * @param fromLatitude  The latitude to start at
+     * @param fromLongitude The longitude to start at
+     * @param toLatitude    The latitude to route to
+     * @param toLongitude   The longitude to route to
+     * @param depTime       The departure time in milliseconds since epoch, or
+     *                      <code>null</code> for now
+     * @param modes         The transportation mode restrictions
+     * @return The route
+     * @throws InterruptedException If the request was interrupted while waiting
+     *                              for a free query slot
+     */
+    @GetMapping("/multimodal")
+    public RouteResponse routeMultimodal(@RequestParam("fromLat") final float fromLatitude,
+            @RequestParam("fromLon") final float fromLongitude, @RequestParam("toLat") final float toLatitude,
+            @RequestParam("toLon") final float toLongitude,
+            @RequestParam(name = "depTime", required = false) final Long depTime,
+            @RequestParam("modes") final Set<ETransportationMode> modes) throws InterruptedException {
+        return routingController.orNotFound(mRoutingService.computeMultimodalRoute(fromLatitude, fromLongitude,
+                toLatitude, toLongitude, routingController.orNow(depTime), modes));
+    }
+
+    /**
+     * Computes a route on roads.
+     *
+     * @param fromLatitude  The latitude to start at
+     * @param fromLongitude The longitude to start at
+     * @param toLatitude    The latitude to route to
+     * @param toLongitude   The longitude to route to
+     * @param modes         The transportation mode restrictions
+     * @return The route
+     * @throws InterruptedException If the request was interrupted while waiting
+     *                              for a free query slot
+     */
+    @GetMapping
+    public RouteResponse routeRoad(@RequestParam("fromLat") final float fromLatitude,
+            @RequestParam("fromLon") final float fromLongitude, @RequestParam("toLat") final float toLatitude,
+            @RequestParam("toLon") final float toLongitude,
+            @RequestParam("modes") final Set<ETransportationMode> modes) throws InterruptedException {
+        return routingController.orNotFound(
+                mRoutingService.computeRoute(fromLatitude, fromLongitude, toLatitude, toLongitude, modes));
+    }
+
+    /**
+     * Computes a route on the timetable.
+     *
+     * @param fromLatitude  The latitude to start at
+     * @param fromLongitude The longitude to start at
+     * @param toLatitude    The latitude to route to
+     * @param toLongitude   The longitude to route to
+     * @param depTime       The departure time in milliseconds since epoch, or
+     *                      <code>null</code> for now
+     * @return The route
+     * @throws InterruptedException If the request was interrupted while waiting
+     *                              for a free query slot
+     */
+    @GetMapping("/transit")
+    public RouteResponse routeTransit(@RequestParam("fromLat") final float fromLatitude,
+            @RequestParam("fromLon") final float fromLongitude, @RequestParam("toLat") final float toLatitude,
+            @RequestParam("toLon") final float toLongitude,
+            @RequestParam(name = "depTime", required = false) final Long depTime) throws InterruptedException {
+        return routingController.orNotFound(mRoutingService.computeTransitRoute(fromLatitude, fromLongitude,
+                toLatitude, toLongitude, routingController.orNow(depTime)));
+    }
+
+    /**
+     * Computes the best routes on the timetable for every departure time within
+     * the given window.
+     *
+     * @param fromLatitude  The latitude to start at
+     * @param fromLongitude The longitude to start at
+     * @param toLatitude    The latitude to route to
+     * @param toLongitude   The longitude to route to
+     * @param depTime       The begin of the departure window in milliseconds
+     *                      since epoch, or <code>null</code> for now
+     * @param latestDepTime The end of the departure window in milliseconds
+     *                      since epoch, less than a day after its begin
+     * @return The profile
+     * @throws InterruptedException If the request was interrupted while waiting
+     *                              for a free query slot
+     */
+    @GetMapping("/transit/profile")
+    public ProfileResponse routeTransitProfile(@RequestParam("fromLat") final float fromLatitude,
+            @RequestParam("fromLon") final float fromLongitude, @RequestParam("toLat") final float toLatitude,
+            @RequestParam("toLon") final float toLongitude,
+            @RequestParam(name = "depTime", required = false) final Long depTime,
+            @RequestParam("latestDepTime") final long latestDepTime) throws InterruptedException {
+        return mRoutingService.computeTransitProfile(fromLatitude, fromLongitude, toLatitude, toLongitude,
+                routingController.orNow(depTime), latestDepTime)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No route found"));
+    }
+}
@@ -12,8 +12,7 @@ import java.util.stream.Stream;
  * methods and everything related to edges.<br>
  * <br>
  * The core methods that deal with nodes like {@link #addNode(INode)},
- * {@link #removeNode(INode)} and {@link #getNodes()} as well as
- * {@link #reverse()} are not implemented.
+ * {@link #removeNode(INode)} and {@link #getNodes()} are not implemented.
  *
  * @author Daniel Tischner {@literal <zabuza.dev@gmail.com>}
  * @param <N> The type of nodes
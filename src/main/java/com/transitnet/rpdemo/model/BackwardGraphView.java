@@ -0,0 +1,82 @@
+package com.transitnet.rpdemo.model;
+
+import java.util.stream.Stream;
+
+/**
+ * Implementation of a {@link IGraphView} which presents all edges of the graph with source and destination switched.<br>
+ * <br>
+ * The view is stateless apart from the graph it wraps and can be shared
+ * between threads.
+ *
+ * @param <N> Type of the node
+ * @param <E> Type of the edge
+ */
+public final class BackwardGraphView<N extends INode, E extends IEdge<N>> implements IGraphView<N, E> {
+  /**
+   * The graph this view wraps.
+   */
+  private final IGraph<N, E> mGraph;
+
+  /**
+   * Creates a new backward view on the given graph.
+   *
+   * @param graph The graph to wrap
+   */
+  public BackwardGraphView(final IGraph<N, E> graph) {
+    mGraph = graph;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.model.IGraphView#getDestination(com.transitnet.rpdemo.model.IEdge)
+   */
+  @Override
+  public N getDestination(final E edge) {
+    return edge.getSource();
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.model.IGraphView#getGraph()
+   */
+  @Override
+  public IGraph<N, E> getGraph() {
+    return mGraph;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.model.IGraphView#getIncomingEdges(com.transitnet.rpdemo.model.INode)
+   */
+  @Override
+  public Stream<E> getIncomingEdges(final N destination) {
+    return mGraph.getOutgoingEdges(destination);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.model.IGraphView#getOutgoingEdges(com.transitnet.rpdemo.model.INode)
+   */
+  @Override
+  public Stream<E> getOutgoingEdges(final N source) {
+    return mGraph.getIncomingEdges(source);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.model.IGraphView#getSource(com.transitnet.rpdemo.model.IEdge)
+   */
+  @Override
+  public N getSource(final E edge) {
+    return edge.getDestination();
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.model.IGraphView#isBackward()
+   */
+  @Override
+  public boolean isBackward() {
+    return true;
+  }
+}
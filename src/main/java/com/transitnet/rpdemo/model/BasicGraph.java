@@ -4,7 +4,6 @@ import org.eclipse.collections.api.map.primitive.MutableIntObjectMap;
 import org.eclipse.collections.impl.factory.primitive.IntObjectMaps;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Basic implementation of a graph which operates on {@link BasicNode}s and
@@ -104,25 +103,6 @@ public final class BasicGraph extends AGraph<BasicNode, BasicEdge<BasicNode>> im
     return true;
   }
 
-  /**
-   * Reverses the graph. That is, all directed edges switch source with
-   * destination.<br>
-   * <br>
-   * The implementation runs in <code>O(|E|)</code>, that is in the amount of edges.
-   * Edge reversal is made explicit by replacing all previous edges with new
-   * edges that have the same ID but are reversed.
-   */
-  @Override
-  public void reverse() {
-    final List<BasicEdge<BasicNode>> currentEdges = getEdges().collect(Collectors.toList());
-    final List<BasicEdge<BasicNode>> reversedEdges = new ArrayList<>();
-    currentEdges.forEach(edge -> reversedEdges
-        .add(new BasicEdge<>(edge.getId(), edge.getDestination(), edge.getSource(), edge.getCost())));
-
-    currentEdges.forEach(this::removeEdge);
-    reversedEdges.forEach(this::addEdge);
-  }
-
   /*
    * (non-Javadoc)
    * @see de.unifreiburg.informatik.cobweb.routing.model.graph.AGraph#
@@ -9,6 +9,6 @@ import java.io.Serializable;
  * @param <N> The type of the nodes
  */
 public interface ICoreEdge<N extends ICoreNode>
-    extends IEdge<N>, IHasId, IHasTransportationMode, IReversedConsumer, Serializable {
+    extends IEdge<N>, IHasId, IHasTransportationMode, Serializable {
   // Grouping interface, does not contain own methods at the moment
 }
@@ -30,6 +30,20 @@ public interface IGraph<N extends INode, E extends IEdge<N>> {
    */
   boolean addNode(N node);
 
+  /**
+   * Gets a view on this graph in which all directed edges switch source with
+   * destination.<br>
+   * <br>
+   * The view does not modify the graph and holds no state of its own, it can
+   * thus be shared between threads and used concurrently with
+   * {@link #forwardView()}.
+   *
+   * @return A backward view on this graph
+   */
+  default IGraphView<N, E> backwardView() {
+    return new BackwardGraphView<>(this);
+  }
+
   /**
    * Whether or not the given edge is contained in the graph.
    *
@@ -39,6 +53,16 @@ public interface IGraph<N extends INode, E extends IEdge<N>> {
    */
   boolean containsEdge(E edge);
 
+  /**
+   * Gets a view on this graph which presents all directed edges in their
+   * original direction.
+   *
+   * @return A forward view on this graph
+   */
+  default IGraphView<N, E> forwardView() {
+    return new ForwardGraphView<>(this);
+  }
+
   /**
    * Gets the amount of edges contained in the graph. This operation should run
    * in <code>O(1)</code>.
@@ -99,18 +123,6 @@ public interface IGraph<N extends INode, E extends IEdge<N>> {
    */
   boolean removeNode(N node);
 
-  /**
-   * Reverses the graph. That is, all directed edges switch source with
-   * destination.<br>
-   * <br>
-   * There are no requirements made on the time complexity. It is up to the
-   * implementing class if this method runs fast or if it explicitly reverses
-   * each edge. However, edges retrieved before the reversal still need to
-   * remain equal to the edges after the reversal, according to their
-   * <code>equals</code> method.
-   */
-  void reverse();
-
   /**
    * Gets the amount of nodes contained in the graph. This operation should run
    * in <code>O(1)</code>.
@@ -0,0 +1,66 @@
+package com.transitnet.rpdemo.model;
+
+import java.util.stream.Stream;
+
+/**
+ * Interface for a directed view on a {@link IGraph}. A view presents the edges
+ * of the underlying graph either in their original direction or with source and
+ * destination switched.<br>
+ * <br>
+ * Views never modify the underlying graph. Searches in both directions can
+ * thus run concurrently on the same graph by using different views.
+ *
+ * @param <N> Type of the node
+ * @param <E> Type of the edge
+ */
+public interface IGraphView<N extends INode, E extends IEdge<N>> {
+  /**
+   * Gets the destination of the given edge as seen by this view.
+   *
+   * @param edge The edge in question
+   * @return The destination of the edge in the direction of this view
+   */
+  N getDestination(E edge);
+
+  /**
+   * Gets the underlying graph of this view.
+   *
+   * @return The underlying graph
+   */
+  IGraph<N, E> getGraph();
+
+  /**
+   * Gets a stream of all edges that have the given node as destination, as
+   * seen by this view.
+   *
+   * @param destination The destination node
+   * @return A stream of all edges that have the given node as destination
+   */
+  Stream<E> getIncomingEdges(N destination);
+
+  /**
+   * Gets a stream of all edges that have the given node as source, as seen by
+   * this view.
+   *
+   * @param source The source node
+   * @return A stream of all edges that have the given node as source
+   */
+  Stream<E> getOutgoingEdges(N source);
+
+  /**
+   * Gets the source of the given edge as seen by this view.
+   *
+   * @param edge The edge in question
+   * @return The source of the edge in the direction of this view
+   */
+  N getSource(E edge);
+
+  /**
+   * Whether or not this view presents the edges with source and destination
+   * switched.
+   *
+   * @return <code>True</code> if the view is a backward view, <code>false</code>
+   *         otherwise
+   */
+  boolean isBackward();
+}
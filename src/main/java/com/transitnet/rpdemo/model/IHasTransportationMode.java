@@ -10,6 +10,20 @@ import java.util.Set;
  * @author Daniel Tischner {@literal <zabuza.dev@gmail.com>}
  */
 public interface IHasTransportationMode {
+  /**
+   * Gets the transportation modes allowed for this instance, encoded as bit
+   * mask as defined by {@link TransportationModeMask}.<br>
+   * <br>
+   * The default implementation encodes {@link #getTransportationModes()}.
+   * Implementations should override this method with an allocation-free
+   * variant, it is used in the inner loop of shortest path computations.
+   *
+   * @return The transportation modes allowed for this instance as bit mask
+   */
+  default byte getTransportationModeMask() {
+    return TransportationModeMask.of(getTransportationModes());
+  }
+
   /**
    * Gets the transportation modes allowed for this instance.<br>
    * <br>
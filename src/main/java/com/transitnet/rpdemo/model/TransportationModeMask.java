@@ -0,0 +1,122 @@
+package com.transitnet.rpdemo.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Utility class which offers methods for transportation modes encoded as bit
+ * mask.<br>
+ * <br>
+ * The mode with ordinal <code>i</code> is represented by the bit
+ * <code>1 &lt;&lt; i</code>. A mask fits into a single <code>byte</code> and can
+ * be queried without allocating or boxing, which makes it suited for the inner
+ * loops of shortest path computations.
+ */
+public final class TransportationModeMask {
+  /**
+   * The empty mask, containing no modes.
+   */
+  public static final byte EMPTY = 0;
+  /**
+   * The amount of modes that can be encoded in a mask, which also is the amount
+   * of slots needed for storing a value per mode.
+   */
+  public static final int SIZE = ETransportationMode.values().length;
+  /**
+   * All modes that have a typical speed, ordered descending in their speed.
+   * Compatible to {@link SpeedTransportationModeComparator}.
+   */
+  private static final ETransportationMode[] MODES_BY_SPEED = { ETransportationMode.CAR, ETransportationMode.TRAM,
+      ETransportationMode.BIKE, ETransportationMode.FOOT };
+  /**
+   * All modes, indexed by their ordinal.
+   */
+  private static final ETransportationMode[] MODES = ETransportationMode.values();
+
+  /**
+   * Whether the given mask contains the given mode.
+   *
+   * @param mask The mask in question
+   * @param mode The mode in question
+   * @return <code>True</code> if the mask contains the mode, <code>false</code>
+   *         otherwise
+   */
+  public static boolean contains(final byte mask, final ETransportationMode mode) {
+    return (mask & (1 << mode.ordinal())) != 0;
+  }
+
+  /**
+   * Gets the fastest mode contained in the given mask, according to
+   * {@link SpeedTransportationModeComparator}.
+   *
+   * @param mask The mask in question
+   * @return The fastest mode contained in the mask or <code>null</code> if the
+   *         mask contains no mode with a typical speed
+   */
+  public static ETransportationMode getFastestMode(final byte mask) {
+    for (final ETransportationMode mode : MODES_BY_SPEED) {
+      if (TransportationModeMask.contains(mask, mode)) {
+        return mode;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Encodes the given modes into a mask.
+   *
+   * @param modes The modes to encode
+   * @return The mask containing exactly the given modes
+   */
+  public static byte of(final Iterable<ETransportationMode> modes) {
+    int mask = EMPTY;
+    for (final ETransportationMode mode : modes) {
+      mask |= 1 << mode.ordinal();
+    }
+    return (byte) mask;
+  }
+
+  /**
+   * Encodes the given mode into a mask.
+   *
+   * @param mode The mode to encode
+   * @return The mask containing only the given mode
+   */
+  public static byte of(final ETransportationMode mode) {
+    return (byte) (1 << mode.ordinal());
+  }
+
+  /**
+   * Gets the amount of modes contained in the given mask.
+   *
+   * @param mask The mask in question
+   * @return The amount of modes contained in the mask
+   */
+  public static int size(final byte mask) {
+    return Integer.bitCount(mask & 0xFF);
+  }
+
+  /**
+   * Decodes the given mask into a set of modes. The method allocates a new set
+   * and should thus not be used in performance critical code.
+   *
+   * @param mask The mask to decode
+   * @return A set containing exactly the modes of the mask
+   */
+  public static Set<ETransportationMode> toSet(final byte mask) {
+    final Set<ETransportationMode> modes = EnumSet.noneOf(ETransportationMode.class);
+    for (final ETransportationMode mode : MODES) {
+      if (TransportationModeMask.contains(mask, mode)) {
+        modes.add(mode);
+      }
+    }
+    return modes;
+  }
+
+  /**
+   * Utility class. No implementation.
+   */
+  private TransportationModeMask() {
+
+  }
+}
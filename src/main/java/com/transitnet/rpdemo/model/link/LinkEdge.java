@@ -3,7 +3,7 @@ package com.transitnet.rpdemo.model.link;
 import com.transitnet.rpdemo.model.ETransportationMode;
 import com.transitnet.rpdemo.model.ICoreEdge;
 import com.transitnet.rpdemo.model.ICoreNode;
-import com.transitnet.rpdemo.model.IReversedProvider;
+import com.transitnet.rpdemo.model.TransportationModeMask;
 
 
 import java.util.EnumSet;
@@ -23,6 +23,11 @@ public final class LinkEdge<N extends ICoreNode> implements ICoreEdge<N> {
    * The serial version UID.
    */
   private static final long serialVersionUID = 1L;
+  /**
+   * The transportation modes allowed by this edge, encoded as bit mask.
+   */
+  private static final byte MODE_MASK = TransportationModeMask.of(EnumSet.of(ETransportationMode.CAR, ETransportationMode.BIKE,
+      ETransportationMode.FOOT));
   /**
    * The destination of this edge.
    */
@@ -31,12 +36,6 @@ public final class LinkEdge<N extends ICoreNode> implements ICoreEdge<N> {
    * The transportation modes this edge offers.
    */
   private final Set<ETransportationMode> mModes;
-  /**
-   * An object that provides a reversed flag or <code>null</code> if not present.
-   * Can be used to determine if the edge should be interpreted as reversed to
-   * implement implicit edge reversal at constant time.
-   */
-  private IReversedProvider mReversedProvider;
   /**
    * The source of the edge.
    */
@@ -64,9 +63,6 @@ public final class LinkEdge<N extends ICoreNode> implements ICoreEdge<N> {
 
   @Override
   public N getDestination() {
-    if (mReversedProvider != null && mReversedProvider.isReversed()) {
-      return mSource;
-    }
     return mDestination;
   }
 
@@ -80,25 +76,22 @@ public final class LinkEdge<N extends ICoreNode> implements ICoreEdge<N> {
 
   @Override
   public N getSource() {
-    if (mReversedProvider != null && mReversedProvider.isReversed()) {
-      return mDestination;
-    }
     return mSource;
   }
 
   @Override
-  public Set<ETransportationMode> getTransportationModes() {
-    return mModes;
+  public byte getTransportationModeMask() {
+    return MODE_MASK;
   }
 
   @Override
-  public boolean hasTransportationMode(final ETransportationMode mode) {
-    return mModes.contains(mode);
+  public Set<ETransportationMode> getTransportationModes() {
+    return mModes;
   }
 
   @Override
-  public void setReversedProvider(final IReversedProvider provider) {
-    mReversedProvider = provider;
+  public boolean hasTransportationMode(final ETransportationMode mode) {
+    return TransportationModeMask.contains(MODE_MASK, mode);
   }
 
 }
@@ -20,7 +20,7 @@ import java.util.stream.Stream;
  * @author Daniel Tischner {@literal <zabuza.dev@gmail.com>}
  */
 public final class LinkGraph
-    implements IGetNodeById<ICoreNode>, IReversedProvider, IGraph<ICoreNode, ICoreEdge<ICoreNode>> {
+    implements IGetNodeById<ICoreNode>, IGraph<ICoreNode, ICoreEdge<ICoreNode>> {
   /**
    * The serial version UID.
    */
@@ -56,10 +56,6 @@ public final class LinkGraph
    */
   private int mAmountOfLinkEdges;
 
-  /**
-   * Whether or not the graph is currently reversed.
-   */
-  private boolean mIsReversed;
   /**
    * A map connecting nodes to their incoming link edges.
    */
@@ -241,8 +237,6 @@ public final class LinkGraph
       transitNodes.getArrivalNodes().stream().map(NodeTime::getNode).forEach(transitNode -> {
         final LinkEdge<ICoreNode> roadToTransitLink = new LinkEdge<>(roadNode, transitNode);
         final LinkEdge<ICoreNode> transitToRoadLink = new LinkEdge<>(transitNode, roadNode);
-        roadToTransitLink.setReversedProvider(this);
-        transitToRoadLink.setReversedProvider(this);
         mAmountOfLinkEdges += 2;
 
         mNodeToOutgoingLinks.computeIfAbsent(roadNode, k -> new HashSet<>()).add(roadToTransitLink);
@@ -253,11 +247,6 @@ public final class LinkGraph
     });
   }
 
-  @Override
-  public boolean isReversed() {
-    return mIsReversed;
-  }
-
   @Override
   public boolean removeEdge(final ICoreEdge<ICoreNode> edge) {
     if (edge instanceof RoadEdge) {
@@ -289,13 +278,6 @@ public final class LinkGraph
     }
   }
 
-  @Override
-  public void reverse() {
-    mIsReversed = !mIsReversed;
-    mRoadGraph.reverse();
-    mTransitGraph.reverse();
-  }
-
   @Override
   public int size() {
     return mRoadGraph.size() + mTransitGraph.size();
@@ -321,9 +303,6 @@ public final class LinkGraph
    * @return A backed map connecting nodes to their incoming link edges
    */
   private Map<ICoreNode, Set<LinkEdge<ICoreNode>>> getNodeToIncomingLinks() {
-    if (mIsReversed) {
-      return mNodeToOutgoingLinks;
-    }
     return mNodeToIncomingLinks;
   }
 
@@ -335,9 +314,6 @@ public final class LinkGraph
    * @return A backed map connecting nodes to their outgoing link edges
    */
   private Map<ICoreNode, Set<LinkEdge<ICoreNode>>> getNodeToOutgoingLinks() {
-    if (mIsReversed) {
-      return mNodeToIncomingLinks;
-    }
     return mNodeToOutgoingLinks;
   }
 
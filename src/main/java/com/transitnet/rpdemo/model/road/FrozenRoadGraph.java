@@ -0,0 +1,601 @@
+package com.transitnet.rpdemo.model.road;
+
+import com.transitnet.rpdemo.model.*;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Immutable snapshot of a {@link RoadGraph} in the compressed sparse row (CSR)
+ * layout, intended for query serving.<br>
+ * <br>
+ * Nodes are assigned dense indices <code>0</code> to <code>size() - 1</code> in
+ * ascending order of their IDs. The outgoing edges of a node are stored
+ * consecutively, edge <code>i</code> of node <code>u</code> is located in the
+ * range <code>[getFirstOutgoingEdge(u), getFirstOutgoingEdge(u + 1))</code>.
+ * Edge targets, costs per transportation mode and node coordinates are held in
+ * flat primitive arrays which can be used by search algorithms directly,
+ * without any boxing or pointer chasing.<br>
+ * <br>
+ * The class also implements {@link IGraph} as read-only view for existing
+ * callers. All modifying methods throw an
+ * {@link UnsupportedOperationException}. Searches in backward direction use
+ * {@link #backwardView()}, the primitive accessors always refer to the forward
+ * direction.
+ *
+ * @param <N> Type of the nodes which must have an ID and be spatial
+ * @param <E> Type of the edges which must have an ID
+ */
+public final class FrozenRoadGraph<N extends INode & IHasId & ISpatial & Serializable,
+    E extends IEdge<N> & IHasId & Serializable>
+    implements IGraph<N, E>, IGetNodeById<N>, Serializable {
+  /**
+   * Constant for an index of a node that is not contained in the graph.
+   */
+  public static final int NO_INDEX = -1;
+  /**
+   * The serial version UID.
+   */
+  private static final long serialVersionUID = 1L;
+  /**
+   * The transportation modes for which costs are stored. Modes are encoded in
+   * bit masks using their ordinal.
+   */
+  private static final ETransportationMode[] MODES = ETransportationMode.values();
+
+  /**
+   * The default cost of each edge, indexed by edge index.
+   */
+  private final float[] mDefaultCost;
+  /**
+   * The cost of each edge when taking the cheapest of the modes of a bit mask,
+   * see {@link #getEdgeCosts(byte)}. Filled on demand.
+   */
+  private final Map<Byte, float[]> mEdgeCostsOfModeMask;
+  /**
+   * The modes allowed on each edge as bit mask over the ordinals of
+   * {@link ETransportationMode}, indexed by edge index.
+   */
+  private final byte[] mEdgeModes;
+  /**
+   * All edges, indexed by edge index.
+   */
+  private final E[] mEdges;
+  /**
+   * The dense index of the source of each edge, indexed by edge index.
+   */
+  private final int[] mEdgeSource;
+  /**
+   * The dense index of the destination of each edge, indexed by edge index.
+   */
+  private final int[] mEdgeTarget;
+  /**
+   * Offsets into {@link #mIncomingEdge} for each node, the last entry is the
+   * total amount of edges.
+   */
+  private final int[] mFirstIncomingEdge;
+  /**
+   * Offsets into the edge arrays for each node, the last entry is the total
+   * amount of edges.
+   */
+  private final int[] mFirstOutgoingEdge;
+  /**
+   * Maps node IDs to their dense index, {@link #NO_INDEX} for gaps.
+   */
+  private final int[] mIdToIndex;
+  /**
+   * Edge indices of the incoming edges, grouped by destination.
+   */
+  private final int[] mIncomingEdge;
+  /**
+   * The latitude of each node, indexed by dense node index.
+   */
+  private final float[] mLatitudes;
+  /**
+   * The longitude of each node, indexed by dense node index.
+   */
+  private final float[] mLongitudes;
+  /**
+   * The cost of each edge per transportation mode, indexed by the mode ordinal
+   * and then the edge index. The entry of a mode is <code>null</code> if no edge
+   * allows it, the cost is {@link Float#POSITIVE_INFINITY} for edges which do
+   * not allow the mode.
+   */
+  private final float[][] mModeCosts;
+  /**
+   * All nodes, indexed by dense node index.
+   */
+  private final N[] mNodes;
+
+  /**
+   * Creates a frozen snapshot of the given graph.<br>
+   * <br>
+   * The nodes and edges are shared with the given graph, which should thus not
+   * be modified anymore afterwards. Callers should drop the given graph, its
+   * adjacency structures are not needed anymore and the node and edge objects
+   * are then only referenced by this graph.
+   *
+   * @param <N>   Type of the nodes which must have an ID and be spatial
+   * @param <E>   Type of the edges which must have an ID
+   * @param graph The graph to freeze
+   * @return The frozen snapshot
+   */
+  @SuppressWarnings("unchecked")
+  static <N extends INode & IHasId & ISpatial & Serializable, E extends IEdge<N> & IHasId & Serializable>
+      FrozenRoadGraph<N, E> of(final RoadGraph<N, E> graph) {
+    // Nodes, ordered by ID
+    final N[] nodes = graph.getNodes().toArray((N[]) new INode[graph.size()]);
+    Arrays.sort(nodes, Comparator.comparingInt(IHasId::getId));
+    final int amountOfNodes = nodes.length;
+    final int[] idToIndex = new int[amountOfNodes == 0 ? 0 : nodes[amountOfNodes - 1].getId() + 1];
+    for (int i = 0; i < amountOfNodes; i++) {
+      idToIndex[nodes[i].getId()] = i;
+    }
+
+    // Outgoing edges, grouped by source and ordered by destination
+    final int amountOfEdges = graph.getAmountOfEdges();
+    final E[] edges = (E[]) new IEdge<?>[amountOfEdges];
+    final int[] edgeTarget = new int[amountOfEdges];
+    final int[] firstOutgoingEdge = new int[amountOfNodes + 1];
+    int edgeIndex = 0;
+    for (int i = 0; i < amountOfNodes; i++) {
+      firstOutgoingEdge[i] = edgeIndex;
+      final List<E> outgoingEdges = new ArrayList<>();
+      graph.getOutgoingEdges(nodes[i]).forEach(outgoingEdges::add);
+      outgoingEdges.sort(Comparator.comparingInt(edge -> idToIndex[edge.getDestination().getId()]));
+      for (final E edge : outgoingEdges) {
+        edges[edgeIndex] = edge;
+        edgeTarget[edgeIndex] = idToIndex[edge.getDestination().getId()];
+        edgeIndex++;
+      }
+    }
+    firstOutgoingEdge[amountOfNodes] = edgeIndex;
+
+    return new FrozenRoadGraph<>(nodes, edges, firstOutgoingEdge, edgeTarget);
+  }
+
+  /**
+   * Creates a frozen graph directly from its compressed sparse row layout, as
+   * for example restored from a model snapshot. The given arrays are used by
+   * the graph and must not be modified anymore afterwards.
+   *
+   * @param nodes             All nodes, ascending in their IDs. Their position
+   *                          is their dense index.
+   * @param edges             All edges, grouped by the index of their source
+   *                          and ordered by the index of their destination
+   * @param firstOutgoingEdge The index of the first outgoing edge of each
+   *                          node, followed by the amount of edges
+   * @param edgeTarget        The dense index of the destination of each edge
+   * @throws IllegalArgumentException If the arrays do not describe a graph in
+   *                                  the layout described above
+   */
+  public FrozenRoadGraph(final N[] nodes, final E[] edges, final int[] firstOutgoingEdge, final int[] edgeTarget)
+      throws IllegalArgumentException {
+    final int amountOfNodes = nodes.length;
+    final int amountOfEdges = edges.length;
+    if (firstOutgoingEdge.length != amountOfNodes + 1 || edgeTarget.length != amountOfEdges
+        || firstOutgoingEdge[0] != 0 || firstOutgoingEdge[amountOfNodes] != amountOfEdges) {
+      throw new IllegalArgumentException("The edge arrays do not match the amount of nodes and edges");
+    }
+    mNodes = nodes;
+    mEdges = edges;
+    mFirstOutgoingEdge = firstOutgoingEdge;
+    mEdgeTarget = edgeTarget;
+
+    // Node coordinates and the dense index of each ID
+    final int greatestId = amountOfNodes == 0 ? -1 : mNodes[amountOfNodes - 1].getId();
+    mIdToIndex = new int[greatestId + 1];
+    Arrays.fill(mIdToIndex, NO_INDEX);
+    mLatitudes = new float[amountOfNodes];
+    mLongitudes = new float[amountOfNodes];
+    for (int i = 0; i < amountOfNodes; i++) {
+      final N node = mNodes[i];
+      if (i > 0 && node.getId() <= mNodes[i - 1].getId()) {
+        throw new IllegalArgumentException("The nodes are not ascending in their IDs");
+      }
+      mIdToIndex[node.getId()] = i;
+      mLatitudes[i] = node.getLatitude();
+      mLongitudes[i] = node.getLongitude();
+    }
+
+    // The source of each edge follows from the offsets
+    mEdgeSource = new int[amountOfEdges];
+    for (int i = 0; i < amountOfNodes; i++) {
+      if (mFirstOutgoingEdge[i + 1] < mFirstOutgoingEdge[i]) {
+        throw new IllegalArgumentException("The edge offsets are not ascending");
+      }
+      Arrays.fill(mEdgeSource, mFirstOutgoingEdge[i], mFirstOutgoingEdge[i + 1], i);
+    }
+    for (final int target : mEdgeTarget) {
+      if (target < 0 || target >= amountOfNodes) {
+        throw new IllegalArgumentException("The edge target is not a node index: " + target);
+      }
+    }
+
+    // Incoming edges, by counting sort over the destinations
+    mFirstIncomingEdge = new int[amountOfNodes + 1];
+    mIncomingEdge = new int[amountOfEdges];
+    for (int edge = 0; edge < amountOfEdges; edge++) {
+      mFirstIncomingEdge[mEdgeTarget[edge] + 1]++;
+    }
+    for (int i = 0; i < amountOfNodes; i++) {
+      mFirstIncomingEdge[i + 1] += mFirstIncomingEdge[i];
+    }
+    final int[] insertionPosition = Arrays.copyOf(mFirstIncomingEdge, amountOfNodes);
+    for (int edge = 0; edge < amountOfEdges; edge++) {
+      mIncomingEdge[insertionPosition[mEdgeTarget[edge]]++] = edge;
+    }
+
+    // Costs per transportation mode
+    mDefaultCost = new float[amountOfEdges];
+    mEdgeModes = new byte[amountOfEdges];
+    mModeCosts = new float[MODES.length][];
+    mEdgeCostsOfModeMask = new ConcurrentHashMap<>();
+    for (int edge = 0; edge < amountOfEdges; edge++) {
+      final E edgeObject = mEdges[edge];
+      mDefaultCost[edge] = (float) edgeObject.getCost();
+      for (final ETransportationMode mode : MODES) {
+        if (!FrozenRoadGraph.allowsMode(edgeObject, mode)) {
+          continue;
+        }
+        float[] costs = mModeCosts[mode.ordinal()];
+        if (costs == null) {
+          costs = new float[amountOfEdges];
+          Arrays.fill(costs, Float.POSITIVE_INFINITY);
+          mModeCosts[mode.ordinal()] = costs;
+        }
+        if (edgeObject instanceof IRoadEdge) {
+          costs[edge] = (float) ((IRoadEdge) edgeObject).getCost(mode);
+        } else {
+          costs[edge] = mDefaultCost[edge];
+        }
+        mEdgeModes[edge] |= 1 << mode.ordinal();
+      }
+    }
+  }
+
+  /**
+   * Whether the given edge allows the given mode. Edges without transportation
+   * mode information allow every mode except {@link ETransportationMode#IRRELEVANT}.
+   *
+   * @param edge The edge in question
+   * @param mode The mode in question
+   * @return <code>True</code> if the edge allows the mode, <code>false</code>
+   *         otherwise
+   */
+  private static boolean allowsMode(final IEdge<?> edge, final ETransportationMode mode) {
+    if (edge instanceof IHasTransportationMode) {
+      return TransportationModeMask.contains(((IHasTransportationMode) edge).getTransportationModeMask(), mode);
+    }
+    return mode != ETransportationMode.IRRELEVANT;
+  }
+
+  /**
+   * Not supported, the graph is immutable.
+   */
+  @Override
+  public boolean addEdge(final E edge) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Not supported, the graph is immutable.
+   */
+  @Override
+  public boolean addNode(final N node) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean containsEdge(final E edge) {
+    return getOutgoingEdges(edge.getSource()).anyMatch(edge::equals);
+  }
+
+  @Override
+  public boolean containsNodeWithId(final int id) {
+    return getIndexOfId(id) != NO_INDEX;
+  }
+
+  @Override
+  public int getAmountOfEdges() {
+    return mEdges.length;
+  }
+
+  /**
+   * Gets the edge with the given index.
+   *
+   * @param edge The index of the edge
+   * @return The edge with the given index
+   */
+  public E getEdge(final int edge) {
+    return mEdges[edge];
+  }
+
+  /**
+   * Gets the default cost of the edge with the given index, see
+   * {@link IEdge#getCost()}.
+   *
+   * @param edge The index of the edge
+   * @return The default cost of the edge
+   */
+  public float getEdgeCost(final int edge) {
+    return mDefaultCost[edge];
+  }
+
+  /**
+   * Gets the cost of the edge with the given index when using the given mode.
+   *
+   * @param edge The index of the edge
+   * @param mode The mode to use
+   * @return The cost of the edge or {@link Float#POSITIVE_INFINITY} if the edge
+   *         does not allow the mode
+   */
+  public float getEdgeCost(final int edge, final ETransportationMode mode) {
+    final float[] costs = mModeCosts[mode.ordinal()];
+    if (costs == null) {
+      return Float.POSITIVE_INFINITY;
+    }
+    return costs[edge];
+  }
+
+  /**
+   * Gets the cost of each edge when it may be taken with any of the given
+   * transportation modes, the cheapest of those modes is used.<br>
+   * <br>
+   * The costs are computed once per bit mask and shared by all callers, the
+   * returned array must thus not be modified.
+   *
+   * @param modeMask The allowed transportation modes, as bit mask
+   * @return The cost of each edge, indexed by edge index. The cost is
+   *         {@link Float#POSITIVE_INFINITY} for edges which allow none of the
+   *         modes
+   */
+  public float[] getEdgeCosts(final byte modeMask) {
+    return mEdgeCostsOfModeMask.computeIfAbsent(modeMask, this::computeEdgeCosts);
+  }
+
+  /**
+   * Gets the modes allowed on the edge with the given index, as bit mask over
+   * the ordinals of {@link ETransportationMode}.
+   *
+   * @param edge The index of the edge
+   * @return The bit mask of allowed modes
+   */
+  public byte getEdgeModes(final int edge) {
+    return mEdgeModes[edge];
+  }
+
+  @Override
+  public Stream<E> getEdges() {
+    return Arrays.stream(mEdges);
+  }
+
+  /**
+   * Gets the dense index of the source of the edge with the given index.
+   *
+   * @param edge The index of the edge
+   * @return The index of the source node
+   */
+  public int getEdgeSource(final int edge) {
+    return mEdgeSource[edge];
+  }
+
+  /**
+   * Gets the dense index of the destination of the edge with the given index.
+   *
+   * @param edge The index of the edge
+   * @return The index of the destination node
+   */
+  public int getEdgeTarget(final int edge) {
+    return mEdgeTarget[edge];
+  }
+
+  /**
+   * Gets the position of the first incoming edge of the given node, to be used
+   * with {@link #getIncomingEdge(int)}. The incoming edges of a node
+   * <code>v</code> are located in
+   * <code>[getFirstIncomingEdge(v), getFirstIncomingEdge(v + 1))</code>.
+   *
+   * @param node The index of the node, <code>size()</code> is allowed and
+   *             yields the end of the last node
+   * @return The position of the first incoming edge
+   */
+  public int getFirstIncomingEdge(final int node) {
+    return mFirstIncomingEdge[node];
+  }
+
+  /**
+   * Gets the index of the first outgoing edge of the given node. The outgoing
+   * edges of a node <code>u</code> are located in
+   * <code>[getFirstOutgoingEdge(u), getFirstOutgoingEdge(u + 1))</code>.
+   *
+   * @param node The index of the node, <code>size()</code> is allowed and
+   *             yields the end of the last node
+   * @return The index of the first outgoing edge
+   */
+  public int getFirstOutgoingEdge(final int node) {
+    return mFirstOutgoingEdge[node];
+  }
+
+  /**
+   * Gets the index of the incoming edge at the given position.
+   *
+   * @param position The position, see {@link #getFirstIncomingEdge(int)}
+   * @return The index of the edge
+   */
+  public int getIncomingEdge(final int position) {
+    return mIncomingEdge[position];
+  }
+
+  @Override
+  public Stream<E> getIncomingEdges(final N destination) {
+    final int index = getIndex(destination);
+    if (index == NO_INDEX) {
+      return Stream.empty();
+    }
+    return streamIncoming(index);
+  }
+
+  /**
+   * Gets the dense index of the given node.
+   *
+   * @param node The node in question
+   * @return The index of the node or {@link #NO_INDEX} if not contained
+   */
+  public int getIndex(final N node) {
+    return getIndexOfId(node.getId());
+  }
+
+  /**
+   * Gets the dense index of the node with the given ID.
+   *
+   * @param id The ID of the node
+   * @return The index of the node or {@link #NO_INDEX} if not contained
+   */
+  public int getIndexOfId(final int id) {
+    if (id < 0 || id >= mIdToIndex.length) {
+      return NO_INDEX;
+    }
+    return mIdToIndex[id];
+  }
+
+  /**
+   * Gets the latitude of the node with the given index.
+   *
+   * @param node The index of the node
+   * @return The latitude, in degrees
+   */
+  public float getLatitude(final int node) {
+    return mLatitudes[node];
+  }
+
+  /**
+   * Gets the longitude of the node with the given index.
+   *
+   * @param node The index of the node
+   * @return The longitude, in degrees
+   */
+  public float getLongitude(final int node) {
+    return mLongitudes[node];
+  }
+
+  /**
+   * Gets the node with the given index.
+   *
+   * @param node The index of the node
+   * @return The node with the given index
+   */
+  public N getNode(final int node) {
+    return mNodes[node];
+  }
+
+  @Override
+  public Optional<N> getNodeById(final int id) {
+    final int index = getIndexOfId(id);
+    if (index == NO_INDEX) {
+      return Optional.empty();
+    }
+    return Optional.of(mNodes[index]);
+  }
+
+  /**
+   * Gets an unmodifiable collection of all nodes, ordered by their index.
+   */
+  @Override
+  public Collection<N> getNodes() {
+    return Collections.unmodifiableList(Arrays.asList(mNodes));
+  }
+
+  @Override
+  public Stream<E> getOutgoingEdges(final N source) {
+    final int index = getIndex(source);
+    if (index == NO_INDEX) {
+      return Stream.empty();
+    }
+    return streamOutgoing(index);
+  }
+
+  /**
+   * Not supported, the graph is immutable.
+   */
+  @Override
+  public boolean removeEdge(final E edge) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Not supported, the graph is immutable.
+   */
+  @Override
+  public boolean removeNode(final N node) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int size() {
+    return mNodes.length;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+    builder.append(getClass().getSimpleName());
+    builder.append("[nodes=");
+    builder.append(size());
+    builder.append(", edges=");
+    builder.append(getAmountOfEdges());
+    builder.append("]");
+    return builder.toString();
+  }
+
+  /**
+   * Computes the cost of each edge when it may be taken with any of the given
+   * transportation modes, the cheapest of those modes is used.
+   *
+   * @param modeMask The allowed transportation modes, as bit mask
+   * @return The cost of each edge, indexed by edge index
+   */
+  private float[] computeEdgeCosts(final byte modeMask) {
+    final float[] edgeCost = new float[mEdges.length];
+    Arrays.fill(edgeCost, Float.POSITIVE_INFINITY);
+    for (final ETransportationMode mode : ETransportationMode.values()) {
+      final float[] costs = mModeCosts[mode.ordinal()];
+      if (costs == null || !TransportationModeMask.contains(modeMask, mode)) {
+        continue;
+      }
+      for (int edge = 0; edge < edgeCost.length; edge++) {
+        edgeCost[edge] = Math.min(edgeCost[edge], costs[edge]);
+      }
+    }
+    return edgeCost;
+  }
+
+  /**
+   * Streams the incoming edges of the node with the given index.
+   *
+   * @param node The index of the node
+   * @return A stream over the incoming edges
+   */
+  private Stream<E> streamIncoming(final int node) {
+    return IntStream.range(mFirstIncomingEdge[node], mFirstIncomingEdge[node + 1])
+        .mapToObj(position -> mEdges[mIncomingEdge[position]]);
+  }
+
+  /**
+   * Streams the outgoing edges of the node with the given index.
+   *
+   * @param node The index of the node
+   * @return A stream over the outgoing edges
+   */
+  private Stream<E> streamOutgoing(final int node) {
+    return Arrays.stream(mEdges, mFirstOutgoingEdge[node], mFirstOutgoingEdge[node + 1]);
+  }
+
+}
@@ -4,9 +4,7 @@ import com.transitnet.rpdemo.model.*;
 import com.transitnet.rpdemo.service.parse.osm.EHighwayType;
 import com.transitnet.rpdemo.util.RoutingUtil;
 
-import java.util.Collections;
-import java.util.EnumMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Set;
 
 /**
@@ -15,9 +13,14 @@ import java.util.Set;
  */
 public final class RoadEdge<N extends ICoreNode> implements ICoreEdge<N>, IRoadEdge {
   /**
-   * 这条边在各种交通模态下的成本。以秒为单位，解释为给定高速公路类型的最大允许或平均速度的行驶时间。
+   * 所有交通模态，按序数索引
    */
-  private final Map<ETransportationMode, Double> mCost;
+  private static final ETransportationMode[] MODES = ETransportationMode.values();
+
+  /**
+   * 这条边在各种交通模态下的成本，按交通模态的序数索引，不支持的模态为{@link Float#POSITIVE_INFINITY}。以秒为单位，解释为给定高速公路类型的最大允许或平均速度的行驶时间。
+   */
+  private final float[] mCost;
   /**
    * 这条边无视交通模态的的成本。以秒为单位，解释为给定高速公路类型的最大允许或平均速度的行驶时间。
    */
@@ -35,9 +38,9 @@ public final class RoadEdge<N extends ICoreNode> implements ICoreEdge<N>, IRoadE
    */
   private final int mMaxSpeed;
   /**
-   * 一个提供了一个reversed标志的对象，如果不存在则为<code>null</code>。可以用来确定是否应该将边解释为反向的，以实现常数时间的隐式边反转。
+   * 这条边支持的交通模态，编码为{@link TransportationModeMask}位掩码
    */
-  private IReversedProvider mReversedProvider;
+  private final byte mModes;
   /**
    * 边的源
    */
@@ -59,16 +62,30 @@ public final class RoadEdge<N extends ICoreNode> implements ICoreEdge<N>, IRoadE
    */
   public RoadEdge(final int id, final N source, final N destination, final EHighwayType type, final int maxSpeed,
       final Set<ETransportationMode> modes) {
+    this(id, source, destination, type, maxSpeed, TransportationModeMask.of(modes));
+  }
+
+  /**
+   * 创建一个新的道路边。
+   *
+   * @param id          一个id，用于表示edge，这个id对于edge所属的way是唯一的。一条way可以由多个edge组成。
+   * @param source      源节点
+   * @param destination 目的节点
+   * @param type        道路类型
+   * @param maxSpeed    最大速度，以<code>km/h</code>为单位
+   * @param modes       这条边支持的交通模态，编码为{@link TransportationModeMask}位掩码
+   */
+  public RoadEdge(final int id, final N source, final N destination, final EHighwayType type, final int maxSpeed,
+      final byte modes) {
     mId = id;
     mSource = source;
     mDestination = destination;
     mType = type;
     mMaxSpeed = maxSpeed;
+    mModes = modes;
 
-    mCost = new EnumMap<>(ETransportationMode.class);
-    for (final ETransportationMode mode : modes) {
-      mCost.put(mode, -1.0);
-    }
+    mCost = new float[TransportationModeMask.SIZE];
+    Arrays.fill(mCost, Float.POSITIVE_INFINITY);
 
     updateCost();
   }
@@ -121,9 +138,13 @@ public final class RoadEdge<N extends ICoreNode> implements ICoreEdge<N>, IRoadE
     return mDefaultCost;
   }
 
+  /**
+   * The cost of this edge when taken with the given mode. Measured in seconds,
+   * {@link Double#POSITIVE_INFINITY} if the edge does not allow the mode.
+   */
   @Override
   public double getCost(final ETransportationMode mode) {
-    return mCost.get(mode);
+    return mCost[mode.ordinal()];
   }
 
   /*
@@ -134,12 +155,18 @@ public final class RoadEdge<N extends ICoreNode> implements ICoreEdge<N>, IRoadE
    */
   @Override
   public N getDestination() {
-    if (mReversedProvider != null && mReversedProvider.isReversed()) {
-      return mSource;
-    }
     return mDestination;
   }
 
+  /**
+   * Gets the highway type of this edge.
+   *
+   * @return The highway type, or <code>null</code> if unknown
+   */
+  public EHighwayType getHighwayType() {
+    return mType;
+  }
+
   /**
    * Gets the ID of this edge which is unique to the way it belongs to. A way
    * can consist of several edges.
@@ -149,21 +176,37 @@ public final class RoadEdge<N extends ICoreNode> implements ICoreEdge<N>, IRoadE
     return mId;
   }
 
+  /**
+   * Gets the maximal speed of this edge.
+   *
+   * @return The maximal speed, in <code>km/h</code>
+   */
+  public int getMaxSpeed() {
+    return mMaxSpeed;
+  }
+
   /*
    * (non-Javadoc)
    * @see de.unifreiburg.informatik.cobweb.model.graph.IEdge#getSource()
    */
   @Override
   public N getSource() {
-    if (mReversedProvider != null && mReversedProvider.isReversed()) {
-      return mDestination;
-    }
     return mSource;
   }
 
+  @Override
+  public byte getTransportationModeMask() {
+    return mModes;
+  }
+
+  /**
+   * Gets the transportation modes allowed for this edge. The set is created on
+   * each call, use {@link #getTransportationModeMask()} in performance critical
+   * code.
+   */
   @Override
   public Set<ETransportationMode> getTransportationModes() {
-    return mCost.keySet();
+    return TransportationModeMask.toSet(mModes);
   }
 
   /*
@@ -183,19 +226,7 @@ public final class RoadEdge<N extends ICoreNode> implements ICoreEdge<N>, IRoadE
 
   @Override
   public boolean hasTransportationMode(final ETransportationMode mode) {
-    return mCost.containsKey(mode);
-  }
-
-  /*
-   * (non-Javadoc)
-   * @see de.unifreiburg.informatik.cobweb.routing.model.graph.road.
-   * IReversedConsumer#
-   * setReversedProvider(de.unifreiburg.informatik.cobweb.routing.model.graph.
-   * road. IReversedProvider)
-   */
-  @Override
-  public void setReversedProvider(final IReversedProvider provider) {
-    mReversedProvider = provider;
+    return TransportationModeMask.contains(mModes, mode);
   }
 
   /*
@@ -210,7 +241,19 @@ public final class RoadEdge<N extends ICoreNode> implements ICoreEdge<N>, IRoadE
     builder.append(", ");
     builder.append(getSource().getId());
     builder.append(" -(");
-    builder.append(mCost);
+    builder.append("{");
+    boolean isFirst = true;
+    for (final ETransportationMode mode : MODES) {
+      if (!TransportationModeMask.contains(mModes, mode)) {
+        continue;
+      }
+      if (!isFirst) {
+        builder.append(", ");
+      }
+      builder.append(mode).append("=").append(mCost[mode.ordinal()]);
+      isFirst = false;
+    }
+    builder.append("}");
     builder.append(")-> ");
     builder.append(getDestination().getId());
     builder.append("]");
@@ -227,12 +270,15 @@ public final class RoadEdge<N extends ICoreNode> implements ICoreEdge<N>, IRoadE
    */
   public void updateCost() {
     final double distance = RoutingUtil.distanceEquiRect(mSource, mDestination);
-    for (final ETransportationMode mode : mCost.keySet()) {
-      mCost.put(mode, computeCost(distance, mode));
+    for (final ETransportationMode mode : MODES) {
+      if (TransportationModeMask.contains(mModes, mode)) {
+        mCost[mode.ordinal()] = (float) computeCost(distance, mode);
+      }
     }
 
-    final ETransportationMode fastestMode = Collections.max(mCost.keySet(), new SpeedTransportationModeComparator());
-    mDefaultCost = mCost.get(fastestMode);
+    // The default cost is kept in full precision
+    final ETransportationMode fastestMode = TransportationModeMask.getFastestMode(mModes);
+    mDefaultCost = computeCost(distance, fastestMode == null ? ETransportationMode.IRRELEVANT : fastestMode);
   }
 
   /**
@@ -15,17 +15,17 @@ import java.util.stream.Stream;
  * Implementation of a {@link IGraph} model which consists of road nodes and
  * edges.<br>
  * <br>
- * It offers access to the nodes by their unique ID and is capable of implicitly
- * reversing nodes in constant time. The class is fully serializable.
+ * It offers access to the nodes by their unique ID. Searches in backward
+ * direction use {@link #backwardView()} instead of reversing the graph. The
+ * class is fully serializable.
  *
  * @author Daniel Tischner {@literal <zabuza.dev@gmail.com>}
  * @param <N> Type of the nodes which must have an ID and be spatial
- * @param <E> Type of the edges which must have an ID and be able to consume a
- *        {@link IReversedProvider}
+ * @param <E> Type of the edges which must have an ID
  */
 public final class RoadGraph<N extends INode & IHasId & ISpatial & Serializable,
-    E extends IEdge<N> & IHasId & IReversedConsumer & Serializable> extends AGraph<N, E>
-    implements IGetNodeById<N>, IReversedProvider, IRoadIdGenerator {
+    E extends IEdge<N> & IHasId & Serializable> extends AGraph<N, E>
+    implements IGetNodeById<N>, IRoadIdGenerator {
   /**
    * The serial version UID.
    */
@@ -34,10 +34,6 @@ public final class RoadGraph<N extends INode & IHasId & ISpatial & Serializable,
    * A map connecting node IDs to their corresponding nodes.
    */
   private final MutableIntObjectMap<N> mIdToNode;
-  /**
-   * Whether or not the graph is currently reversed.
-   */
-  private boolean mIsReversed;
   /**
    * The unique ID generated used for nodes.
    */
@@ -72,12 +68,6 @@ public final class RoadGraph<N extends INode & IHasId & ISpatial & Serializable,
     mNodeToOutgoingEdges = new IdMap<>();
   }
 
-  @Override
-  public boolean addEdge(final E edge) {
-    edge.setReversedProvider(this);
-    return super.addEdge(edge);
-  }
-
   @Override
   public boolean addNode(final N node) {
     final int id = node.getId();
@@ -93,6 +83,19 @@ public final class RoadGraph<N extends INode & IHasId & ISpatial & Serializable,
     return mIdToNode.containsKey(id);
   }
 
+  /**
+   * Creates an immutable snapshot of this graph in the compressed sparse row
+   * layout, intended for query serving.<br>
+   * <br>
+   * The edges are shared with the snapshot, afterwards this graph should not be
+   * modified anymore.
+   *
+   * @return The frozen snapshot of this graph
+   */
+  public FrozenRoadGraph<N, E> freeze() {
+    return FrozenRoadGraph.of(this);
+  }
+
   @Override
   public int generateUniqueNodeId() throws NoSuchElementException {
     return mNodeIdGenerator.generateUniqueId();
@@ -131,11 +134,6 @@ public final class RoadGraph<N extends INode & IHasId & ISpatial & Serializable,
     return mIdToNode.values();
   }
 
-  @Override
-  public boolean isReversed() {
-    return mIsReversed;
-  }
-
   @Override
   public boolean removeNode(final N node) {
     final int id = node.getId();
@@ -151,18 +149,6 @@ public final class RoadGraph<N extends INode & IHasId & ISpatial & Serializable,
     return true;
   }
 
-  /**
-   * Reverses the graph. That is, all directed edges switch source with
-   * destination.<br>
-   * <br>
-   * The implementation runs in constant time, edge reversal is only made
-   * implicit.
-   */
-  @Override
-  public void reverse() {
-    mIsReversed = !mIsReversed;
-  }
-
   @Override
   protected Set<E> constructEdgeSetWith(final E edge) {
     // Assume that edge sets only contain a very limited amount of edges.
@@ -171,17 +157,11 @@ public final class RoadGraph<N extends INode & IHasId & ISpatial & Serializable,
 
   @Override
   protected Map<N, Set<E>> getNodeToIncomingEdges() {
-    if (mIsReversed) {
-      return mNodeToOutgoingEdges;
-    }
     return mNodeToIncomingEdges;
   }
 
   @Override
   protected Map<N, Set<E>> getNodeToOutgoingEdges() {
-    if (mIsReversed) {
-      return mNodeToIncomingEdges;
-    }
     return mNodeToOutgoingEdges;
   }
 
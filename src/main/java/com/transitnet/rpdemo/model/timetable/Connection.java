@@ -10,9 +10,9 @@ public final class Connection implements Comparable<Connection>, Serializable {
      * that all other fields.
      */
     private static final Comparator<Connection> DEP_TIME_ASCENDING =
-            Comparator.comparing(Connection::getDepTime).thenComparing(Connection::getTripId)
-                    .thenComparing(Connection::getSequenceIndex).thenComparing(Connection::getArrTime)
-                    .thenComparing(Connection::getDepStopId).thenComparing(Connection::getArrStopId);
+            Comparator.comparingInt(Connection::getDepTime).thenComparingInt(Connection::getTripId)
+                    .thenComparingInt(Connection::getSequenceIndex).thenComparingInt(Connection::getArrTime)
+                    .thenComparingInt(Connection::getDepStopId).thenComparingInt(Connection::getArrStopId);
     /**
      * The serial version UID.
      */
@@ -0,0 +1,251 @@
+package com.transitnet.rpdemo.model.timetable;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按出发时间排序的connection，以并行的基本类型数组存储。<br>
+ * <br>
+ * The connection at an index is the connection at the same index of the sorted
+ * list of the {@link Timetable}. Scanning the arrays sequentially avoids
+ * dereferencing a separate object per connection.<br>
+ * <br>
+ * Times are given modulo a day. For trips running past midnight
+ * {@link #getDepDays(int)} tells the day a connection departs on, relative to
+ * the day its trip departs at its first stop.
+ */
+public final class ConnectionStore implements Serializable {
+    /**
+     * Amount of seconds of a day.
+     */
+    private static final int SECONDS_OF_DAY = 24 * 60 * 60;
+    /**
+     * The serial version UID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Computes the amount of days each connection departs after its trip
+     * departs at its first stop. The times of a trip are shifted by whole days
+     * such that they never decrease along the trip.
+     *
+     * @param tripIds         The IDs of the trips of the connections
+     * @param sequenceIndices The indices of the connections in the sequence of
+     *                        their trip
+     * @param depTimes        The departure times of the connections
+     * @param arrTimes        The arrival times of the connections
+     * @return The amount of days of each connection
+     */
+    private static byte[] computeDepDays(final int[] tripIds, final int[] sequenceIndices, final int[] depTimes,
+            final int[] arrTimes) {
+        final int size = tripIds.length;
+        final byte[] depDays = new byte[size];
+        int greatestTripId = -1;
+        for (final int tripId : tripIds) {
+            greatestTripId = Math.max(greatestTripId, tripId);
+        }
+
+        // Order the connections by trip and sequence index, each trip occupies
+        // the positions up to its greatest sequence index
+        final int[] tripOffsets = new int[greatestTripId + 2];
+        for (int i = 0; i < size; i++) {
+            tripOffsets[tripIds[i] + 1] = Math.max(tripOffsets[tripIds[i] + 1], sequenceIndices[i] + 1);
+        }
+        for (int trip = 0; trip <= greatestTripId; trip++) {
+            tripOffsets[trip + 1] += tripOffsets[trip];
+        }
+        final int[] sequences = new int[tripOffsets[greatestTripId + 1]];
+        Arrays.fill(sequences, -1);
+        for (int i = 0; i < size; i++) {
+            sequences[tripOffsets[tripIds[i]] + sequenceIndices[i]] = i;
+        }
+
+        for (int trip = 0; trip <= greatestTripId; trip++) {
+            long time = Long.MIN_VALUE;
+            for (int position = tripOffsets[trip]; position < tripOffsets[trip + 1]; position++) {
+                final int connection = sequences[position];
+                if (connection == -1) {
+                    continue;
+                }
+                final long depTime = ConnectionStore.shiftNotBefore(depTimes[connection], time);
+                depDays[connection] = (byte) ((depTime - depTimes[connection]) / SECONDS_OF_DAY);
+                time = ConnectionStore.shiftNotBefore(arrTimes[connection], depTime);
+            }
+        }
+        return depDays;
+    }
+
+    /**
+     * Shifts the given time by whole days such that it is not before the given
+     * threshold.
+     *
+     * @param time      The time in seconds since midnight
+     * @param threshold The threshold in seconds, possibly shifted by days
+     * @return The shifted time
+     */
+    private static long shiftNotBefore(final int time, final long threshold) {
+        long shiftedTime = time;
+        while (shiftedTime < threshold) {
+            shiftedTime += SECONDS_OF_DAY;
+        }
+        return shiftedTime;
+    }
+    /**
+     * The IDs of the arrival stops.
+     */
+    private final int[] mArrStopIds;
+    /**
+     * The arrival times, in seconds since midnight.
+     */
+    private final int[] mArrTimes;
+    /**
+     * The amount of days each connection departs after its trip departs at its
+     * first stop.
+     */
+    private final byte[] mDepDays;
+    /**
+     * The IDs of the departure stops.
+     */
+    private final int[] mDepStopIds;
+    /**
+     * The departure times, in seconds since midnight, ascending.
+     */
+    private final int[] mDepTimes;
+    /**
+     * The indices of the connections in the sequence of their trip.
+     */
+    private final int[] mSequenceIndices;
+    /**
+     * The IDs of the trips.
+     */
+    private final int[] mTripIds;
+
+    /**
+     * Creates a new store of the given connections.
+     *
+     * @param connections The connections to store, ascending in departure time
+     */
+    public ConnectionStore(final List<Connection> connections) {
+        final int size = connections.size();
+        mArrStopIds = new int[size];
+        mArrTimes = new int[size];
+        mDepStopIds = new int[size];
+        mDepTimes = new int[size];
+        mSequenceIndices = new int[size];
+        mTripIds = new int[size];
+        for (int i = 0; i < size; i++) {
+            final Connection connection = connections.get(i);
+            mArrStopIds[i] = connection.getArrStopId();
+            mArrTimes[i] = connection.getArrTime();
+            mDepStopIds[i] = connection.getDepStopId();
+            mDepTimes[i] = connection.getDepTime();
+            mSequenceIndices[i] = connection.getSequenceIndex();
+            mTripIds[i] = connection.getTripId();
+        }
+        mDepDays = ConnectionStore.computeDepDays(mTripIds, mSequenceIndices, mDepTimes, mArrTimes);
+    }
+
+    /**
+     * Gets the ID of the arrival stop of the given connection.
+     *
+     * @param connection The index of the connection
+     * @return The ID of the arrival stop
+     */
+    public int getArrStopId(final int connection) {
+        return mArrStopIds[connection];
+    }
+
+    /**
+     * Gets the arrival time of the given connection.
+     *
+     * @param connection The index of the connection
+     * @return The arrival time, in seconds since midnight
+     */
+    public int getArrTime(final int connection) {
+        return mArrTimes[connection];
+    }
+
+    /**
+     * Gets the amount of days the given connection departs after its trip
+     * departs at its first stop. It is only positive for trips running past
+     * midnight.
+     *
+     * @param connection The index of the connection
+     * @return The amount of days
+     */
+    public int getDepDays(final int connection) {
+        return mDepDays[connection];
+    }
+
+    /**
+     * Gets the ID of the departure stop of the given connection.
+     *
+     * @param connection The index of the connection
+     * @return The ID of the departure stop
+     */
+    public int getDepStopId(final int connection) {
+        return mDepStopIds[connection];
+    }
+
+    /**
+     * Gets the departure time of the given connection.
+     *
+     * @param connection The index of the connection
+     * @return The departure time, in seconds since midnight
+     */
+    public int getDepTime(final int connection) {
+        return mDepTimes[connection];
+    }
+
+    /**
+     * Gets the index of the given connection in the sequence of its trip.
+     *
+     * @param connection The index of the connection
+     * @return The index in the sequence of the trip
+     */
+    public int getSequenceIndex(final int connection) {
+        return mSequenceIndices[connection];
+    }
+
+    /**
+     * Gets the ID of the trip of the given connection.
+     *
+     * @param connection The index of the connection
+     * @return The ID of the trip
+     */
+    public int getTripId(final int connection) {
+        return mTripIds[connection];
+    }
+
+    /**
+     * Gets the index of the first connection departing after, or exactly at,
+     * the given time.
+     *
+     * @param time The time, in seconds since midnight
+     * @return The index of the first connection departing not before the given
+     *         time, or {@link #size()} if all depart before it
+     */
+    public int indexOfFirstDepartingSince(final int time) {
+        int low = 0;
+        int high = mDepTimes.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (mDepTimes[middle] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the amount of stored connections.
+     *
+     * @return The amount of connections
+     */
+    public int size() {
+        return mDepTimes.length;
+    }
+}
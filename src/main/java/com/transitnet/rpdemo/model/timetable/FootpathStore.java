@@ -0,0 +1,197 @@
+package com.transitnet.rpdemo.model.timetable;
+
+import com.transitnet.rpdemo.model.Footpath;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntFunction;
+
+/**
+ * 按出发站点分组的footpath，以压缩行（CSR）形式的基本类型数组存储。<br>
+ * <br>
+ * The footpaths going out of a stop are at the indices from
+ * {@link #getFirstOutgoing(int)}, inclusive, to {@link #getLastOutgoing(int)},
+ * exclusive. The footpaths coming into a stop are given likewise by
+ * {@link #getIncoming(int)} for the positions from
+ * {@link #getFirstIncoming(int)} to {@link #getLastIncoming(int)}. Iterating
+ * them does not create any objects.
+ */
+public final class FootpathStore {
+    /**
+     * The IDs of the arrival stops.
+     */
+    private final int[] mArrStopIds;
+    /**
+     * The IDs of the departure stops.
+     */
+    private final int[] mDepStopIds;
+    /**
+     * The durations, in seconds.
+     */
+    private final int[] mDurations;
+    /**
+     * The footpaths at their indices.
+     */
+    private final Footpath[] mFootpaths;
+    /**
+     * The indices of the footpaths grouped by their arrival stop.
+     */
+    private final int[] mIncoming;
+    /**
+     * The position of the first incoming footpath of each stop in
+     * {@link #mIncoming}, followed by the amount of footpaths.
+     */
+    private final int[] mIncomingOffsets;
+    /**
+     * The index of the first outgoing footpath of each stop, followed by the
+     * amount of footpaths.
+     */
+    private final int[] mOffsets;
+
+    /**
+     * Creates a new store of the outgoing footpaths of the given stops.
+     *
+     * @param greatestStopId    The greatest ID of a stop
+     * @param amountOfFootpaths The total amount of footpaths
+     * @param outgoing          Function providing the outgoing footpaths of a
+     *                          stop, <code>null</code> if there are none
+     */
+    public FootpathStore(final int greatestStopId, final int amountOfFootpaths,
+            final IntFunction<Collection<Footpath>> outgoing) {
+        mOffsets = new int[greatestStopId + 2];
+        mArrStopIds = new int[amountOfFootpaths];
+        mDepStopIds = new int[amountOfFootpaths];
+        mDurations = new int[amountOfFootpaths];
+        mFootpaths = new Footpath[amountOfFootpaths];
+        int index = 0;
+        for (int stopId = 0; stopId <= greatestStopId; stopId++) {
+            mOffsets[stopId] = index;
+            final Collection<Footpath> footpaths = outgoing.apply(stopId);
+            if (footpaths == null) {
+                continue;
+            }
+            for (final Footpath footpath : footpaths) {
+                mArrStopIds[index] = footpath.getArrStopId();
+                mDepStopIds[index] = stopId;
+                mDurations[index] = footpath.getDuration();
+                mFootpaths[index] = footpath;
+                index++;
+            }
+        }
+        mOffsets[greatestStopId + 1] = index;
+
+        // Group the footpaths by their arrival stop by counting sort
+        mIncomingOffsets = new int[greatestStopId + 2];
+        mIncoming = new int[index];
+        for (int footpath = 0; footpath < index; footpath++) {
+            mIncomingOffsets[mArrStopIds[footpath] + 1]++;
+        }
+        for (int stopId = 0; stopId <= greatestStopId; stopId++) {
+            mIncomingOffsets[stopId + 1] += mIncomingOffsets[stopId];
+        }
+        final int[] position = Arrays.copyOf(mIncomingOffsets, greatestStopId + 1);
+        for (int footpath = 0; footpath < index; footpath++) {
+            mIncoming[position[mArrStopIds[footpath]]++] = footpath;
+        }
+    }
+
+    /**
+     * Gets the ID of the arrival stop of the given footpath.
+     *
+     * @param footpath The index of the footpath
+     * @return The ID of the arrival stop
+     */
+    public int getArrStopId(final int footpath) {
+        return mArrStopIds[footpath];
+    }
+
+    /**
+     * Gets the ID of the departure stop of the given footpath.
+     *
+     * @param footpath The index of the footpath
+     * @return The ID of the departure stop
+     */
+    public int getDepStopId(final int footpath) {
+        return mDepStopIds[footpath];
+    }
+
+    /**
+     * Gets the duration of the given footpath.
+     *
+     * @param footpath The index of the footpath
+     * @return The duration, in seconds
+     */
+    public int getDuration(final int footpath) {
+        return mDurations[footpath];
+    }
+
+    /**
+     * Gets the position of the first footpath coming into the given stop.
+     *
+     * @param stopId The ID of the stop
+     * @return The position of the first incoming footpath, inclusive
+     */
+    public int getFirstIncoming(final int stopId) {
+        return mIncomingOffsets[stopId];
+    }
+
+    /**
+     * Gets the index of the first footpath going out of the given stop.
+     *
+     * @param stopId The ID of the stop
+     * @return The index of the first outgoing footpath, inclusive
+     */
+    public int getFirstOutgoing(final int stopId) {
+        return mOffsets[stopId];
+    }
+
+    /**
+     * Gets the footpath at the given index.
+     *
+     * @param footpath The index of the footpath
+     * @return The footpath
+     */
+    public Footpath getFootpath(final int footpath) {
+        return mFootpaths[footpath];
+    }
+
+    /**
+     * Gets the index of the incoming footpath at the given position.
+     *
+     * @param position The position, between {@link #getFirstIncoming(int)} and
+     *                 {@link #getLastIncoming(int)} of the arrival stop
+     * @return The index of the footpath
+     */
+    public int getIncoming(final int position) {
+        return mIncoming[position];
+    }
+
+    /**
+     * Gets the position after the last footpath coming into the given stop.
+     *
+     * @param stopId The ID of the stop
+     * @return The position of the last incoming footpath, exclusive
+     */
+    public int getLastIncoming(final int stopId) {
+        return mIncomingOffsets[stopId + 1];
+    }
+
+    /**
+     * Gets the index after the last footpath going out of the given stop.
+     *
+     * @param stopId The ID of the stop
+     * @return The index of the last outgoing footpath, exclusive
+     */
+    public int getLastOutgoing(final int stopId) {
+        return mOffsets[stopId + 1];
+    }
+
+    /**
+     * Gets the amount of stored footpaths.
+     *
+     * @return The amount of footpaths
+     */
+    public int size() {
+        return mFootpaths.length;
+    }
+}
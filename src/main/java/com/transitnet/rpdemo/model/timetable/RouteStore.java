@@ -0,0 +1,412 @@
+package com.transitnet.rpdemo.model.timetable;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按站点序列分组的旅程（route pattern），以基本类型数组存储。<br>
+ * <br>
+ * All trips of a route visit the same sequence of stops and no trip of a route
+ * overtakes another, hence the trips are ordered by their time at every stop.
+ * The times of all trips at a stop of a route are stored consecutively, the
+ * time of the trip with index <code>t</code> at the stop with index
+ * <code>i</code> of its route is at {@link #getStopTimes(int, int)} plus
+ * <code>t</code>. Boarding searches and route scans thus read consecutive
+ * memory.<br>
+ * <br>
+ * Times are in seconds since midnight of the day the trip departs at its first
+ * stop, they exceed a day for trips running past midnight. The routes serving a
+ * stop are given by {@link #getRouteAt(int)} for the positions from
+ * {@link #getFirstRouteOf(int)} to {@link #getLastRouteOf(int)}.
+ */
+public final class RouteStore {
+    /**
+     * Amount of seconds of a day.
+     */
+    private static final int SECONDS_OF_DAY = 24 * 60 * 60;
+
+    /**
+     * The stops and times of a single trip, used while grouping trips.
+     */
+    private static final class TripTimes {
+        /**
+         * The arrival times at the stops, not decreasing.
+         */
+        private final int[] mArrTimes;
+        /**
+         * The departure times at the stops, not decreasing.
+         */
+        private final int[] mDepTimes;
+        /**
+         * The IDs of the visited stops, in travel order.
+         */
+        private final int[] mStopIds;
+        /**
+         * The ID of the trip.
+         */
+        private final int mTripId;
+
+        /**
+         * Creates the times of the given trip.
+         *
+         * @param trip The trip, must have connections
+         */
+        TripTimes(final Trip trip) {
+            final List<Connection> sequence = trip.getSequence();
+            final int amountOfStops = sequence.size() + 1;
+            mTripId = trip.getId();
+            mStopIds = new int[amountOfStops];
+            mArrTimes = new int[amountOfStops];
+            mDepTimes = new int[amountOfStops];
+
+            mStopIds[0] = sequence.get(0).getDepStopId();
+            mArrTimes[0] = sequence.get(0).getDepTime();
+            for (int i = 0; i < sequence.size(); i++) {
+                final Connection connection = sequence.get(i);
+                // Times are given modulo a day, they are shifted to never
+                // decrease along the trip
+                mDepTimes[i] = RouteStore.shiftNotBefore(connection.getDepTime(), mArrTimes[i]);
+                mStopIds[i + 1] = connection.getArrStopId();
+                mArrTimes[i + 1] = RouteStore.shiftNotBefore(connection.getArrTime(), mDepTimes[i]);
+            }
+            mDepTimes[amountOfStops - 1] = mArrTimes[amountOfStops - 1];
+        }
+
+        /**
+         * Whether the given trip overtakes this trip, i.e. arrives or departs
+         * earlier at any stop. Both trips must visit the same stops.
+         *
+         * @param other The trip to check, not departing earlier at the first
+         *              stop
+         * @return <code>True</code> if the given trip overtakes this trip,
+         *         <code>false</code> otherwise
+         */
+        boolean isOvertakenBy(final TripTimes other) {
+            for (int i = 0; i < mStopIds.length; i++) {
+                if (other.mArrTimes[i] < mArrTimes[i] || other.mDepTimes[i] < mDepTimes[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Shifts the given time by whole days such that it is not before the given
+     * threshold.
+     *
+     * @param time      The time in seconds since midnight
+     * @param threshold The threshold in seconds since midnight, possibly shifted
+     *                  by days
+     * @return The shifted time
+     */
+    private static int shiftNotBefore(final int time, final int threshold) {
+        int shiftedTime = time;
+        while (shiftedTime < threshold) {
+            shiftedTime += SECONDS_OF_DAY;
+        }
+        return shiftedTime;
+    }
+
+    /**
+     * The arrival times of the trips at the stops of their route.
+     */
+    private final int[] mArrTimes;
+    /**
+     * The departure times of the trips at the stops of their route.
+     */
+    private final int[] mDepTimes;
+    /**
+     * The position of the first stop of each route in {@link #mRouteStopIds},
+     * followed by the amount of route stops.
+     */
+    private final int[] mRouteStopOffsets;
+    /**
+     * The IDs of the stops of all routes, in travel order.
+     */
+    private final int[] mRouteStopIds;
+    /**
+     * The position of the first trip of each route in {@link #mTripIds},
+     * followed by the amount of trips.
+     */
+    private final int[] mRouteTripOffsets;
+    /**
+     * The position of the first route serving each stop in
+     * {@link #mStopRoutes}, followed by the amount of positions.
+     */
+    private final int[] mStopRouteOffsets;
+    /**
+     * The routes serving the stops, grouped by stop.
+     */
+    private final int[] mStopRoutes;
+    /**
+     * The index of the stop in the route at the same position of
+     * {@link #mStopRoutes}.
+     */
+    private final int[] mStopRouteIndices;
+    /**
+     * The position of the first time of each route in {@link #mArrTimes} and
+     * {@link #mDepTimes}.
+     */
+    private final int[] mStopTimeOffsets;
+    /**
+     * The IDs of the trips of all routes, each route ascending in departure
+     * time.
+     */
+    private final int[] mTripIds;
+
+    /**
+     * Creates a new store by grouping the given trips into routes.
+     *
+     * @param greatestStopId The greatest ID of a stop
+     * @param trips          The trips to group, trips without connections are
+     *                       ignored
+     */
+    public RouteStore(final int greatestStopId, final Collection<Trip> trips) {
+        // Group the trips by their sequence of stops
+        final Map<IntArrayList, List<TripTimes>> stopsToTrips = new LinkedHashMap<>();
+        for (final Trip trip : trips) {
+            if (trip.getSequence().isEmpty()) {
+                continue;
+            }
+            final TripTimes tripTimes = new TripTimes(trip);
+            stopsToTrips.computeIfAbsent(IntArrayList.newListWith(tripTimes.mStopIds), stops -> new ArrayList<>())
+                    .add(tripTimes);
+        }
+
+        // Split each group into routes without overtaking trips, each trip is
+        // appended to the first route it does not overtake
+        final List<List<TripTimes>> routes = new ArrayList<>();
+        for (final List<TripTimes> group : stopsToTrips.values()) {
+            group.sort(Comparator.comparingInt((TripTimes tripTimes) -> tripTimes.mDepTimes[0])
+                    .thenComparingInt(tripTimes -> tripTimes.mArrTimes[tripTimes.mArrTimes.length - 1]));
+            final int firstRoute = routes.size();
+            for (final TripTimes tripTimes : group) {
+                List<TripTimes> route = null;
+                for (int i = firstRoute; i < routes.size(); i++) {
+                    final List<TripTimes> candidate = routes.get(i);
+                    if (!candidate.get(candidate.size() - 1).isOvertakenBy(tripTimes)) {
+                        route = candidate;
+                        break;
+                    }
+                }
+                if (route == null) {
+                    route = new ArrayList<>();
+                    routes.add(route);
+                }
+                route.add(tripTimes);
+            }
+        }
+
+        // Store the routes consecutively
+        final int amountOfRoutes = routes.size();
+        mRouteStopOffsets = new int[amountOfRoutes + 1];
+        mRouteTripOffsets = new int[amountOfRoutes + 1];
+        mStopTimeOffsets = new int[amountOfRoutes + 1];
+        for (int route = 0; route < amountOfRoutes; route++) {
+            final List<TripTimes> routeTrips = routes.get(route);
+            final int amountOfStops = routeTrips.get(0).mStopIds.length;
+            mRouteStopOffsets[route + 1] = mRouteStopOffsets[route] + amountOfStops;
+            mRouteTripOffsets[route + 1] = mRouteTripOffsets[route] + routeTrips.size();
+            mStopTimeOffsets[route + 1] = mStopTimeOffsets[route] + amountOfStops * routeTrips.size();
+        }
+        mRouteStopIds = new int[mRouteStopOffsets[amountOfRoutes]];
+        mTripIds = new int[mRouteTripOffsets[amountOfRoutes]];
+        mArrTimes = new int[mStopTimeOffsets[amountOfRoutes]];
+        mDepTimes = new int[mStopTimeOffsets[amountOfRoutes]];
+        for (int route = 0; route < amountOfRoutes; route++) {
+            final List<TripTimes> routeTrips = routes.get(route);
+            final int[] stopIds = routeTrips.get(0).mStopIds;
+            System.arraycopy(stopIds, 0, mRouteStopIds, mRouteStopOffsets[route], stopIds.length);
+            for (int trip = 0; trip < routeTrips.size(); trip++) {
+                final TripTimes tripTimes = routeTrips.get(trip);
+                mTripIds[mRouteTripOffsets[route] + trip] = tripTimes.mTripId;
+                for (int stopIndex = 0; stopIndex < stopIds.length; stopIndex++) {
+                    final int stopTime = mStopTimeOffsets[route] + stopIndex * routeTrips.size() + trip;
+                    mArrTimes[stopTime] = tripTimes.mArrTimes[stopIndex];
+                    mDepTimes[stopTime] = tripTimes.mDepTimes[stopIndex];
+                }
+            }
+        }
+
+        // Group the route stops by their stop by counting sort
+        mStopRouteOffsets = new int[greatestStopId + 2];
+        mStopRoutes = new int[mRouteStopIds.length];
+        mStopRouteIndices = new int[mRouteStopIds.length];
+        for (final int stopId : mRouteStopIds) {
+            mStopRouteOffsets[stopId + 1]++;
+        }
+        for (int stopId = 0; stopId <= greatestStopId; stopId++) {
+            mStopRouteOffsets[stopId + 1] += mStopRouteOffsets[stopId];
+        }
+        final int[] position = Arrays.copyOf(mStopRouteOffsets, greatestStopId + 1);
+        for (int route = 0; route < amountOfRoutes; route++) {
+            for (int index = mRouteStopOffsets[route]; index < mRouteStopOffsets[route + 1]; index++) {
+                final int stopPosition = position[mRouteStopIds[index]]++;
+                mStopRoutes[stopPosition] = route;
+                mStopRouteIndices[stopPosition] = index - mRouteStopOffsets[route];
+            }
+        }
+    }
+
+    /**
+     * Gets the amount of stops of the given route.
+     *
+     * @param route The index of the route
+     * @return The amount of stops
+     */
+    public int getAmountOfStops(final int route) {
+        return mRouteStopOffsets[route + 1] - mRouteStopOffsets[route];
+    }
+
+    /**
+     * Gets the amount of trips of the given route.
+     *
+     * @param route The index of the route
+     * @return The amount of trips
+     */
+    public int getAmountOfTrips(final int route) {
+        return mRouteTripOffsets[route + 1] - mRouteTripOffsets[route];
+    }
+
+    /**
+     * Gets the arrival time at the given stop time.
+     *
+     * @param stopTime The index of the stop time
+     * @return The arrival time in seconds since midnight of the day the trip
+     *         departs
+     */
+    public int getArrTime(final int stopTime) {
+        return mArrTimes[stopTime];
+    }
+
+    /**
+     * Gets the departure time at the given stop time.
+     *
+     * @param stopTime The index of the stop time
+     * @return The departure time in seconds since midnight of the day the trip
+     *         departs
+     */
+    public int getDepTime(final int stopTime) {
+        return mDepTimes[stopTime];
+    }
+
+    /**
+     * Gets the position of the first route serving the given stop.
+     *
+     * @param stopId The ID of the stop
+     * @return The position of the first route, inclusive
+     */
+    public int getFirstRouteOf(final int stopId) {
+        return mStopRouteOffsets[stopId];
+    }
+
+    /**
+     * Gets the position after the last route serving the given stop.
+     *
+     * @param stopId The ID of the stop
+     * @return The position of the last route, exclusive
+     */
+    public int getLastRouteOf(final int stopId) {
+        return mStopRouteOffsets[stopId + 1];
+    }
+
+    /**
+     * Gets the route serving a stop at the given position.
+     *
+     * @param position The position, between {@link #getFirstRouteOf(int)} and
+     *                 {@link #getLastRouteOf(int)} of the stop
+     * @return The index of the route
+     */
+    public int getRouteAt(final int position) {
+        return mStopRoutes[position];
+    }
+
+    /**
+     * Gets the index of the stop in the route at the given position.
+     *
+     * @param position The position, between {@link #getFirstRouteOf(int)} and
+     *                 {@link #getLastRouteOf(int)} of the stop
+     * @return The index of the stop in the route
+     */
+    public int getStopIndexAt(final int position) {
+        return mStopRouteIndices[position];
+    }
+
+    /**
+     * Gets the ID of the stop with the given index in the given route.
+     *
+     * @param route     The index of the route
+     * @param stopIndex The index of the stop in the route
+     * @return The ID of the stop
+     */
+    public int getStopId(final int route, final int stopIndex) {
+        return mRouteStopIds[mRouteStopOffsets[route] + stopIndex];
+    }
+
+    /**
+     * Gets the index of the stop time of the first trip of the given route at
+     * the given stop. The stop times of the following trips at the stop follow
+     * consecutively.
+     *
+     * @param route     The index of the route
+     * @param stopIndex The index of the stop in the route
+     * @return The index of the stop time
+     */
+    public int getStopTimes(final int route, final int stopIndex) {
+        return mStopTimeOffsets[route] + stopIndex * getAmountOfTrips(route);
+    }
+
+    /**
+     * Gets the ID of the given trip.
+     *
+     * @param route The index of the route
+     * @param trip  The index of the trip in the route
+     * @return The ID of the trip
+     */
+    public int getTripId(final int route, final int trip) {
+        return mTripIds[mRouteTripOffsets[route] + trip];
+    }
+
+    /**
+     * Gets the index of the first trip of the given route departing at the
+     * given stop after, or exactly at, the given time.
+     *
+     * @param route     The index of the route
+     * @param stopIndex The index of the stop in the route
+     * @param time      The time in seconds since midnight of the day the trip
+     *                  departs
+     * @return The index of the trip, or the amount of trips of the route if
+     *         all depart before the given time
+     */
+    public int indexOfFirstDepartingSince(final int route, final int stopIndex, final int time) {
+        final int stopTimes = getStopTimes(route, stopIndex);
+        int low = 0;
+        int high = getAmountOfTrips(route);
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (mDepTimes[stopTimes + middle] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the amount of stored routes.
+     *
+     * @return The amount of routes
+     */
+    public int size() {
+        return mRouteTripOffsets.length - 1;
+    }
+}
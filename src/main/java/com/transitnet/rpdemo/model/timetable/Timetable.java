@@ -27,6 +27,10 @@ public final class Timetable implements ITimetableIdGenerator, Serializable {
      * 时刻表模型中包含的footpath总数
      */
     private int mAmountOfFootpaths;
+    /**
+     * 以并行数组存储的connection，与{@link #mConnections}顺序相同
+     */
+    private ConnectionStore mConnectionStore;
     /**
      * 按照出发时间升序排列的所有connection
      */
@@ -35,6 +39,10 @@ public final class Timetable implements ITimetableIdGenerator, Serializable {
      * 一个数据结构，用于建立反映站点间可达性的映射
      */
     private final MutableIntObjectMap<MutableIntSet> mFootpathReachability;
+    /**
+     * 以压缩行形式存储的footpath，在footpath改变后延迟重建
+     */
+    private transient volatile FootpathStore mFootpathStore;
     /**
      * 目前时刻表中最大的站点ID
      */
@@ -51,6 +59,10 @@ public final class Timetable implements ITimetableIdGenerator, Serializable {
      * 一个数据结构，用于将ID映射到其对应的旅程
      */
     private final MutableIntObjectMap<Trip> mIdToTrip;
+    /**
+     * 按站点序列分组的旅程，在旅程或connection改变后延迟重建
+     */
+    private transient volatile RouteStore mRouteStore;
     /**
      * 站点id生成器
      */
@@ -71,6 +83,7 @@ public final class Timetable implements ITimetableIdGenerator, Serializable {
         mStopIdGenerator = new UniqueIdGenerator();
         mTripIdGenerator = new UniqueIdGenerator();
         mConnections = new ArrayList<>();
+        mConnectionStore = new ConnectionStore(mConnections);
         mIdToStop = IntObjectMaps.mutable.empty();
         mIdToTrip = IntObjectMaps.mutable.empty();
         mStopIdToOutgoingFootpaths = IntObjectMaps.mutable.empty();
@@ -87,6 +100,8 @@ public final class Timetable implements ITimetableIdGenerator, Serializable {
         final boolean hasChanged = mConnections.addAll(connections);
         if (hasChanged) {
             Collections.sort(mConnections);
+            mConnectionStore = new ConnectionStore(mConnections);
+            mRouteStore = null;
         }
     }
 
@@ -97,6 +112,7 @@ public final class Timetable implements ITimetableIdGenerator, Serializable {
         mStopIdToOutgoingFootpaths.getIfAbsentPut(footpath.getDepStopId(), FastList::new).add(footpath);
         mFootpathReachability.getIfAbsentPut(footpath.getDepStopId(), IntSets.mutable.empty()).add(footpath.getArrStopId());
         mAmountOfFootpaths++;
+        mFootpathStore = null;
     }
 
     /**
@@ -104,6 +120,12 @@ public final class Timetable implements ITimetableIdGenerator, Serializable {
      */
     public void addStop(final Stop stop) {
         mIdToStop.put(stop.getId(), stop);
+        if (stop.getId() > mGreatestStopId) {
+            mGreatestStopId = stop.getId();
+            // 两个存储的大小由最大站点id决定，需要重建
+            mFootpathStore = null;
+            mRouteStore = null;
+        }
     }
 
     /**
@@ -111,6 +133,10 @@ public final class Timetable implements ITimetableIdGenerator, Serializable {
      */
     public void addTrip(final Trip trip) {
         mIdToTrip.put(trip.getId(), trip);
+        if (trip.getId() > mGreatestTripId) {
+            mGreatestTripId = trip.getId();
+        }
+        mRouteStore = null;
     }
 
     /**
@@ -128,6 +154,7 @@ public final class Timetable implements ITimetableIdGenerator, Serializable {
                     incorrectFootpathCounter.incrementAndGet();
                 });
         LOGGER.debug("Corrected durations of {} footpaths", incorrectFootpathCounter.get());
+        mFootpathStore = null;
 
         // Add missing self-loops
         LOGGER.debug("Computing missing self-loops");
@@ -224,6 +251,8 @@ public final class Timetable implements ITimetableIdGenerator, Serializable {
         final int id = mStopIdGenerator.generateUniqueId();
         if (id > mGreatestStopId) {
             mGreatestStopId = id;
+            mFootpathStore = null;
+            mRouteStore = null;
         }
         return id;
     }
@@ -237,6 +266,24 @@ public final class Timetable implements ITimetableIdGenerator, Serializable {
         return id;
     }
 
+    /**
+     * 获取以并行数组存储的所有connection，其下标与{@link #getConnections()}中的相同
+     *
+     * @return The connections of this table, ascending in departure time
+     */
+    public ConnectionStore getConnectionStore() {
+        return mConnectionStore;
+    }
+
+    /**
+     * 获取所有按出发时间升序排列的connection，返回的列表不可修改
+     *
+     * @return All connections of this table, ascending in departure time
+     */
+    public List<Connection> getConnections() {
+        return Collections.unmodifiableList(mConnections);
+    }
+
     /**
      * Creates an iterator which returns all connections of this table, starting
      * with the first connection departing after, or exactly at, the given
@@ -250,8 +297,7 @@ public final class Timetable implements ITimetableIdGenerator, Serializable {
      *         connection departing not before the given time
      */
     public Iterator<Connection> getConnectionsStartingSince(final int time) {
-        final Connection searchNeedle = new Connection(-1, -1, -1, -1, time, time);
-        final int indexOfNext = -1 * Collections.binarySearch(mConnections, searchNeedle) - 1;
+        final int indexOfNext = mConnectionStore.indexOfFirstDepartingSince(time);
 
         // If all connections are before the given time
         if (indexOfNext == mConnections.size()) {
@@ -281,6 +327,29 @@ public final class Timetable implements ITimetableIdGenerator, Serializable {
         return mGreatestTripId;
     }
 
+    /**
+     * 获取以压缩行形式存储的所有footpath，若footpath在上次获取后改变则重建
+     *
+     * @return The footpaths of this table, grouped by their departure stop
+     */
+    public FootpathStore getFootpathStore() {
+        FootpathStore store = mFootpathStore;
+        if (store == null) {
+            store = new FootpathStore(mGreatestStopId, mAmountOfFootpaths, mStopIdToOutgoingFootpaths::get);
+            mFootpathStore = store;
+        }
+        return store;
+    }
+
+    /**
+     * 获取时刻表中所有footpath的流
+     *
+     * @return A stream over all footpaths of this table
+     */
+    public Stream<Footpath> getFootpaths() {
+        return mStopIdToOutgoingFootpaths.stream().flatMap(Collection::stream);
+    }
+
     /**
      * Gets a stream over all footpaths going out of the given stop.
      *
@@ -291,6 +360,20 @@ public final class Timetable implements ITimetableIdGenerator, Serializable {
         return mStopIdToOutgoingFootpaths.get(stopId).stream();
     }
 
+    /**
+     * 获取按站点序列分组为route的所有旅程，若旅程或connection在上次获取后改变则重建
+     *
+     * @return The trips of this table, grouped into routes
+     */
+    public RouteStore getRouteStore() {
+        RouteStore store = mRouteStore;
+        if (store == null) {
+            store = new RouteStore(mGreatestStopId, mIdToTrip.values());
+            mRouteStore = store;
+        }
+        return store;
+    }
+
     /**
      * Gets a human readable string that contains size information of the table,
      * i.e. the amount of stops, trips and connections.
@@ -330,6 +413,15 @@ public final class Timetable implements ITimetableIdGenerator, Serializable {
         return mIdToTrip.get(id);
     }
 
+    /**
+     * 获取时刻表中所有的旅程
+     *
+     * @return A collection of all trips contained in the table
+     */
+    public Collection<Trip> getTrips() {
+        return mIdToTrip.values();
+    }
+
     /*
      * (non-Javadoc)
      * @see java.lang.Object#toString()
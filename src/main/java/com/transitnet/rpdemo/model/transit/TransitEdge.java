@@ -3,7 +3,7 @@ package com.transitnet.rpdemo.model.transit;
 import com.transitnet.rpdemo.model.ETransportationMode;
 import com.transitnet.rpdemo.model.ICoreEdge;
 import com.transitnet.rpdemo.model.ICoreNode;
-import com.transitnet.rpdemo.model.IReversedProvider;
+import com.transitnet.rpdemo.model.TransportationModeMask;
 
 import java.util.EnumSet;
 import java.util.Set;
@@ -14,6 +14,10 @@ public class TransitEdge<N extends ICoreNode> implements ICoreEdge<N> {
    * The serial version UID.
    */
   private static final long serialVersionUID = 1L;
+  /**
+   * The transportation modes allowed by this edge, encoded as bit mask.
+   */
+  private static final byte MODE_MASK = TransportationModeMask.of(ETransportationMode.TRAM);
   /**
    * The cost of this edge. Measured in seconds, interpreted as travel time.
    */
@@ -30,12 +34,6 @@ public class TransitEdge<N extends ICoreNode> implements ICoreEdge<N> {
    * The transportation modes allowed by this edge.
    */
   private final Set<ETransportationMode> mModes;
-  /**
-   * An object that provides a reversed flag or <code>null</code> if not present.
-   * Can be used to determine if the edge should be interpreted as reversed to
-   * implement implicit edge reversal at constant time.
-   */
-  private IReversedProvider mReversedProvider;
   /**
    * The source of the edge.
    */
@@ -97,9 +95,6 @@ public class TransitEdge<N extends ICoreNode> implements ICoreEdge<N> {
    */
   @Override
   public N getDestination() {
-    if (mReversedProvider != null && mReversedProvider.isReversed()) {
-      return mSource;
-    }
     return mDestination;
   }
 
@@ -114,12 +109,14 @@ public class TransitEdge<N extends ICoreNode> implements ICoreEdge<N> {
    */
   @Override
   public N getSource() {
-    if (mReversedProvider != null && mReversedProvider.isReversed()) {
-      return mDestination;
-    }
     return mSource;
   }
 
+  @Override
+  public byte getTransportationModeMask() {
+    return MODE_MASK;
+  }
+
   @Override
   public Set<ETransportationMode> getTransportationModes() {
     return mModes;
@@ -139,19 +136,7 @@ public class TransitEdge<N extends ICoreNode> implements ICoreEdge<N> {
 
   @Override
   public boolean hasTransportationMode(final ETransportationMode mode) {
-    return mModes.contains(mode);
-  }
-
-  /*
-   * (non-Javadoc)
-   * @see de.unifreiburg.informatik.cobweb.routing.model.graph.road.
-   * IReversedConsumer#
-   * setReversedProvider(de.unifreiburg.informatik.cobweb.routing.model.graph.
-   * road. IReversedProvider)
-   */
-  @Override
-  public void setReversedProvider(final IReversedProvider provider) {
-    mReversedProvider = provider;
+    return TransportationModeMask.contains(MODE_MASK, mode);
   }
 
   /*
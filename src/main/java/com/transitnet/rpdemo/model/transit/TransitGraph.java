@@ -17,18 +17,17 @@ import java.util.stream.Stream;
  * Implementation of a {@link IGraph} model which consists of transit nodes and
  * edges.<br>
  * <br>
- * It offers access to the nodes by their unique station ID together with a time
- * and is capable of implicitly reversing nodes in constant time. The class is
- * fully serializable.
+ * It offers access to the nodes by their unique station ID together with a time.
+ * Searches in backward direction use {@link #backwardView()} instead of
+ * reversing the graph. The class is fully serializable.
  *
  * @author Daniel Tischner {@literal <zabuza.dev@gmail.com>}
  * @param <N> Type of the nodes which must have an ID and be spatial
- * @param <E> Type of the edges which must have an ID and be able to consume a
- *        {@link IReversedProvider}
+ * @param <E> Type of the edges which must have an ID
  */
 public final class TransitGraph<N extends INode & IHasId & ISpatial & Serializable,
-    E extends IEdge<N> & IReversedConsumer & Serializable> extends AGraph<N, E>
-    implements IGetNodeById<N>, IReversedProvider, ITransitIdGenerator, IHasTransitStops<N> {
+    E extends IEdge<N> & Serializable> extends AGraph<N, E>
+    implements IGetNodeById<N>, ITransitIdGenerator, IHasTransitStops<N> {
   /**
    * The serial version UID.
    */
@@ -41,10 +40,6 @@ public final class TransitGraph<N extends INode & IHasId & ISpatial & Serializab
    * A map connecting node IDs to their corresponding nodes.
    */
   private final MutableIntObjectMap<N> mIdToNode;
-  /**
-   * Whether or not the graph is currently reversed.
-   */
-  private boolean mIsReversed;
   /**
    * The unique ID generator used for nodes.
    */
@@ -80,12 +75,6 @@ public final class TransitGraph<N extends INode & IHasId & ISpatial & Serializab
     mStops = Sets.mutable.empty();
   }
 
-  @Override
-  public boolean addEdge(final E edge) {
-    edge.setReversedProvider(this);
-    return super.addEdge(edge);
-  }
-
   @Override
   public boolean addNode(final N node) {
     final int id = node.getId();
@@ -149,11 +138,6 @@ public final class TransitGraph<N extends INode & IHasId & ISpatial & Serializab
     return mStops;
   }
 
-  @Override
-  public boolean isReversed() {
-    return mIsReversed;
-  }
-
   @Override
   public boolean removeNode(final N node) {
     final int id = node.getId();
@@ -174,18 +158,6 @@ public final class TransitGraph<N extends INode & IHasId & ISpatial & Serializab
     return mStops.remove(stop);
   }
 
-  /**
-   * Reverses the graph. That is, all directed edges switch source with
-   * destination.<br>
-   * <br>
-   * The implementation runs in constant time, edge reversal is only made
-   * implicit.
-   */
-  @Override
-  public void reverse() {
-    mIsReversed = !mIsReversed;
-  }
-
   @Override
   protected Set<E> constructEdgeSetWith(final E edge) {
     // Assume that edge sets only contain a very limited amount of edges.
@@ -194,17 +166,11 @@ public final class TransitGraph<N extends INode & IHasId & ISpatial & Serializab
 
   @Override
   protected Map<N, Set<E>> getNodeToIncomingEdges() {
-    if (mIsReversed) {
-      return mNodeToOutgoingEdges;
-    }
     return mNodeToIncomingEdges;
   }
 
   @Override
   protected Map<N, Set<E>> getNodeToOutgoingEdges() {
-    if (mIsReversed) {
-      return mNodeToIncomingEdges;
-    }
     return mNodeToOutgoingEdges;
   }
 
@@ -0,0 +1,44 @@
+package com.transitnet.rpdemo.pojo;
+
+/**
+ * POJO for a journey of a profile, given by its departure and arrival time.
+ */
+public final class ProfileElement {
+    /**
+     * The arrival time, in milliseconds since epoch.
+     */
+    private final long mArrTime;
+    /**
+     * The departure time, in milliseconds since epoch.
+     */
+    private final long mDepTime;
+
+    /**
+     * Creates a new profile element with the given attributes.
+     *
+     * @param depTime The departure time, in milliseconds since epoch
+     * @param arrTime The arrival time, in milliseconds since epoch
+     */
+    public ProfileElement(final long depTime, final long arrTime) {
+        mDepTime = depTime;
+        mArrTime = arrTime;
+    }
+
+    /**
+     * Gets the arrival time.
+     *
+     * @return The arrival time, in milliseconds since epoch
+     */
+    public long getArrTime() {
+        return mArrTime;
+    }
+
+    /**
+     * Gets the departure time.
+     *
+     * @return The departure time, in milliseconds since epoch
+     */
+    public long getDepTime() {
+        return mDepTime;
+    }
+}
@@ -0,0 +1,70 @@
+package com.transitnet.rpdemo.pojo;
+
+import java.util.List;
+
+/**
+ * POJO for the answer to a profile request, i.e. the best journeys for
+ * departing within a time window.
+ */
+public final class ProfileResponse {
+    /**
+     * The time it took to compute the profile, in milliseconds.
+     */
+    private final long mComputationTime;
+    /**
+     * The journeys which are not beaten by one departing later, ascending in
+     * departure time.
+     */
+    private final List<ProfileElement> mJourneys;
+    /**
+     * The travel time when walking directly, in seconds, or <code>null</code> if
+     * the destination can not be walked to.
+     */
+    private final Double mWalkingDuration;
+
+    /**
+     * Creates a new profile response with the given attributes.
+     *
+     * @param journeys        The journeys which are not beaten by one departing
+     *                        later, ascending in departure time
+     * @param walkingDuration The travel time when walking directly, in seconds,
+     *                        or <code>null</code> if the destination can not be
+     *                        walked to
+     * @param computationTime The time it took to compute the profile, in
+     *                        milliseconds
+     */
+    public ProfileResponse(final List<ProfileElement> journeys, final Double walkingDuration,
+            final long computationTime) {
+        mJourneys = journeys;
+        mWalkingDuration = walkingDuration;
+        mComputationTime = computationTime;
+    }
+
+    /**
+     * Gets the time it took to compute the profile.
+     *
+     * @return The computation time, in milliseconds
+     */
+    public long getComputationTime() {
+        return mComputationTime;
+    }
+
+    /**
+     * Gets the journeys which are not beaten by one departing later.
+     *
+     * @return The journeys, ascending in departure time
+     */
+    public List<ProfileElement> getJourneys() {
+        return mJourneys;
+    }
+
+    /**
+     * Gets the travel time when walking directly.
+     *
+     * @return The travel time in seconds, or <code>null</code> if the
+     *         destination can not be walked to
+     */
+    public Double getWalkingDuration() {
+        return mWalkingDuration;
+    }
+}
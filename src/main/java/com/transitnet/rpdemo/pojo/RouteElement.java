@@ -0,0 +1,62 @@
+package com.transitnet.rpdemo.pojo;
+
+/**
+ * POJO for a part of a route which is travelled with a single transportation
+ * mode. The geometry is stored compactly as flat array of coordinates.
+ */
+public final class RouteElement {
+    /**
+     * The travel time of this part, in seconds.
+     */
+    private final double mDuration;
+    /**
+     * The coordinates of the nodes of this part, alternating latitude and
+     * longitude.
+     */
+    private final float[] mGeometry;
+    /**
+     * The value of the transportation mode of this part.
+     */
+    private final int mMode;
+
+    /**
+     * Creates a new route element with the given attributes.
+     *
+     * @param mode     The value of the transportation mode of this part
+     * @param duration The travel time of this part, in seconds
+     * @param geometry The coordinates of the nodes of this part, alternating
+     *                 latitude and longitude
+     */
+    public RouteElement(final int mode, final double duration, final float[] geometry) {
+        mMode = mode;
+        mDuration = duration;
+        mGeometry = geometry;
+    }
+
+    /**
+     * Gets the travel time of this part.
+     *
+     * @return The travel time, in seconds
+     */
+    public double getDuration() {
+        return mDuration;
+    }
+
+    /**
+     * Gets the coordinates of the nodes of this part.
+     *
+     * @return The coordinates, alternating latitude and longitude
+     */
+    public float[] getGeometry() {
+        return mGeometry;
+    }
+
+    /**
+     * Gets the value of the transportation mode of this part.
+     *
+     * @return The value of the transportation mode
+     */
+    public int getMode() {
+        return mMode;
+    }
+}
@@ -0,0 +1,78 @@
+package com.transitnet.rpdemo.pojo;
+
+import java.util.List;
+
+/**
+ * POJO for the answer to a route request.
+ */
+public final class RouteResponse {
+    /**
+     * The time it took to compute the route, in milliseconds.
+     */
+    private final long mComputationTime;
+    /**
+     * The departure time, in milliseconds since epoch.
+     */
+    private final long mDepTime;
+    /**
+     * The travel time of the whole route, in seconds.
+     */
+    private final double mDuration;
+    /**
+     * The parts of the route, in travel order.
+     */
+    private final List<RouteElement> mRoute;
+
+    /**
+     * Creates a new route response with the given attributes.
+     *
+     * @param depTime         The departure time, in milliseconds since epoch
+     * @param duration        The travel time of the whole route, in seconds
+     * @param route           The parts of the route, in travel order
+     * @param computationTime The time it took to compute the route, in
+     *                        milliseconds
+     */
+    public RouteResponse(final long depTime, final double duration, final List<RouteElement> route,
+            final long computationTime) {
+        mDepTime = depTime;
+        mDuration = duration;
+        mRoute = route;
+        mComputationTime = computationTime;
+    }
+
+    /**
+     * Gets the time it took to compute the route.
+     *
+     * @return The computation time, in milliseconds
+     */
+    public long getComputationTime() {
+        return mComputationTime;
+    }
+
+    /**
+     * Gets the departure time.
+     *
+     * @return The departure time, in milliseconds since epoch
+     */
+    public long getDepTime() {
+        return mDepTime;
+    }
+
+    /**
+     * Gets the travel time of the whole route.
+     *
+     * @return The travel time, in seconds
+     */
+    public double getDuration() {
+        return mDuration;
+    }
+
+    /**
+     * Gets the parts of the route.
+     *
+     * @return The parts of the route, in travel order
+     */
+    public List<RouteElement> getRoute() {
+        return mRoute;
+    }
+}
@@ -53,11 +53,22 @@ public class prework implements CommandLineRunner {
             parseService.parseData();
             logger.info("[START]OSM数据解析完成 TimeStamp(ms): "+System.currentTimeMillis());
 
+            logger.info("[START]开始构建路由模型并写入快照 TimeStamp(ms): "+System.currentTimeMillis());
+            routingModelService.prepareModelAfterData();
+            routingModelService.finishModel();
+            logger.info("[START]路由模型构建完成 TimeStamp(ms): "+System.currentTimeMillis());
+
+        } else if (setupMode.equals("load")) {
+            logger.info("[LOAD]从快照加载路由模型，跳过OSM解析 TimeStamp(ms): "+System.currentTimeMillis());
+            routingModelService.loadModel();
+            logger.info("[LOAD]路由模型加载完成 TimeStamp(ms): "+System.currentTimeMillis());
+
         } else if(setupMode.equals("clean")) {
             logger.info("[CLEAN]清理应用数据库与缓存 TimeStamp(ms): "+System.currentTimeMillis());
             ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
             populator.addScript(new ClassPathResource("scripts/cleanDb.sql"));
             populator.populate(dataSource.getConnection());
+            routingModelService.deleteSnapshot();
             logger.info("[CLEAN]清理应用数据库与缓存完成 TimeStamp(ms): "+System.currentTimeMillis());
         }
     }
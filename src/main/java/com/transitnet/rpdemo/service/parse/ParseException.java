@@ -19,6 +19,15 @@ public final class ParseException extends RuntimeException {
     super();
   }
 
+  /**
+   * Creates a new parse exception with a given message.
+   *
+   * @param message The message of the parse exception
+   */
+  public ParseException(final String message) {
+    super(message);
+  }
+
   /**
    * Creates a new parse exception with a given cause.
    *
@@ -0,0 +1,388 @@
+package com.transitnet.rpdemo.service.parse.gtfs;
+
+import com.transitnet.rpdemo.service.parse.ParseException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tokenizer for the CSV files of a GTFS feed which works directly on the bytes
+ * of a buffer, usually a memory mapped part of a file.<br>
+ * <br>
+ * Records are read one after another with {@link #nextRecord()}. A field is
+ * only given by its start and end index in the buffer, numbers and times are
+ * parsed from the bytes directly, such that reading a record does not
+ * allocate. Quoted fields are supported, escaped quotes inside them are kept
+ * as they are. Not thread-safe, but multiple readers can read disjoint parts of
+ * the same file concurrently.
+ */
+public final class GtfsCsvReader {
+  /**
+   * Index of a column which is not contained in the header.
+   */
+  public static final int NO_COLUMN = -1;
+  /**
+   * Byte which separates fields.
+   */
+  private static final byte COMMA = ',';
+  /**
+   * Byte which separates records.
+   */
+  private static final byte LINE_FEED = '\n';
+  /**
+   * Powers of ten which are exactly representable as double.
+   */
+  private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+  /**
+   * Byte which encloses quoted fields.
+   */
+  private static final byte QUOTE = '"';
+  /**
+   * Byte which may precede the line feed separating records.
+   */
+  private static final byte RETURN = '\r';
+
+  /**
+   * Whether the given byte ends a field.
+   *
+   * @param value The byte to test
+   * @return <code>True</code> if the byte ends a field, <code>false</code>
+   *         otherwise
+   */
+  private static boolean isDelimiter(final byte value) {
+    return value == COMMA || value == LINE_FEED || value == RETURN;
+  }
+
+  /**
+   * The buffer to read from.
+   */
+  private final ByteBuffer mBuffer;
+  /**
+   * The index after the last byte to read.
+   */
+  private final int mEnd;
+  /**
+   * The amount of fields of the current record.
+   */
+  private int mFieldCount;
+  /**
+   * The end indices of the fields of the current record, exclusive.
+   */
+  private int[] mFieldEnd;
+  /**
+   * The start indices of the fields of the current record, inclusive.
+   */
+  private int[] mFieldStart;
+  /**
+   * The index of the next byte to read.
+   */
+  private int mPosition;
+
+  /**
+   * Creates a new reader which reads the given part of the given buffer.
+   *
+   * @param buffer The buffer to read from
+   * @param start  The index of the first byte to read, it must start a record
+   * @param end    The index after the last byte to read, it must end a record
+   */
+  public GtfsCsvReader(final ByteBuffer buffer, final int start, final int end) {
+    mBuffer = buffer;
+    mPosition = start;
+    mEnd = end;
+    mFieldStart = new int[16];
+    mFieldEnd = new int[16];
+  }
+
+  /**
+   * Gets the buffer the reader reads from.
+   *
+   * @return The buffer
+   */
+  public ByteBuffer getBuffer() {
+    return mBuffer;
+  }
+
+  /**
+   * Gets the end index of the given field of the current record.
+   *
+   * @param column The index of the field
+   * @return The index after the last byte of the field
+   */
+  public int getFieldEnd(final int column) {
+    return mFieldEnd[column];
+  }
+
+  /**
+   * Gets the start index of the given field of the current record.
+   *
+   * @param column The index of the field
+   * @return The index of the first byte of the field
+   */
+  public int getFieldStart(final int column) {
+    return mFieldStart[column];
+  }
+
+  /**
+   * Gets the index of the next byte to read, which starts the next record.
+   *
+   * @return The current position of the reader
+   */
+  public int getPosition() {
+    return mPosition;
+  }
+
+  /**
+   * Gets the given field of the current record as string. Allocates, intended
+   * for headers and error messages.
+   *
+   * @param column The index of the field
+   * @return The content of the field
+   */
+  public String getString(final int column) {
+    final byte[] content = new byte[mFieldEnd[column] - mFieldStart[column]];
+    mBuffer.get(mFieldStart[column], content);
+    return new String(content, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Whether the given field of the current record is empty or not present.
+   *
+   * @param column The index of the field, may be {@link #NO_COLUMN}
+   * @return <code>True</code> if the field is empty or not present,
+   *         <code>false</code> otherwise
+   */
+  public boolean isEmpty(final int column) {
+    return column == NO_COLUMN || column >= mFieldCount || mFieldStart[column] == mFieldEnd[column];
+  }
+
+  /**
+   * Reads the next record, its fields can be accessed afterwards. Empty lines
+   * are skipped.
+   *
+   * @return <code>True</code> if a record was read, <code>false</code> if the
+   *         end was reached
+   */
+  public boolean nextRecord() {
+    while (mPosition < mEnd && (mBuffer.get(mPosition) == LINE_FEED || mBuffer.get(mPosition) == RETURN)) {
+      mPosition++;
+    }
+    if (mPosition >= mEnd) {
+      return false;
+    }
+
+    mFieldCount = 0;
+    while (true) {
+      int position = mPosition;
+      if (position < mEnd && mBuffer.get(position) == QUOTE) {
+        // Quoted field, ends at the first quote which is not escaped by another
+        final int start = position + 1;
+        position = start;
+        while (position < mEnd) {
+          if (mBuffer.get(position) == QUOTE) {
+            if (position + 1 < mEnd && mBuffer.get(position + 1) == QUOTE) {
+              position += 2;
+              continue;
+            }
+            break;
+          }
+          position++;
+        }
+        addField(start, Math.min(position, mEnd));
+        // Ignore everything between the closing quote and the delimiter
+        while (position < mEnd && !GtfsCsvReader.isDelimiter(mBuffer.get(position))) {
+          position++;
+        }
+      } else {
+        final int start = position;
+        while (position < mEnd && !GtfsCsvReader.isDelimiter(mBuffer.get(position))) {
+          position++;
+        }
+        addField(start, position);
+      }
+
+      if (position >= mEnd) {
+        mPosition = position;
+        return true;
+      }
+      mPosition = position + 1;
+      if (mBuffer.get(position) != COMMA) {
+        // Line break, a following line feed is skipped with the next record
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Parses the given field of the current record as decimal number.
+   *
+   * @param column The index of the field
+   * @return The parsed number
+   * @throws ParseException If the field is not a number
+   */
+  public double parseDouble(final int column) throws ParseException {
+    int position = skipSpaces(mFieldStart[column], mFieldEnd[column]);
+    final int end = mFieldEnd[column];
+    final boolean isNegative = position < end && mBuffer.get(position) == '-';
+    if (isNegative || position < end && mBuffer.get(position) == '+') {
+      position++;
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int fractionDigits = 0;
+    boolean isFraction = false;
+    for (; position < end; position++) {
+      final byte value = mBuffer.get(position);
+      if (value >= '0' && value <= '9') {
+        mantissa = 10 * mantissa + value - '0';
+        digits++;
+        if (isFraction) {
+          fractionDigits++;
+        }
+      } else if (value == '.' && !isFraction) {
+        isFraction = true;
+      } else {
+        break;
+      }
+    }
+    if (digits == 0 || digits > 18 || skipSpaces(position, end) != end) {
+      // Exponents, very long numbers and malformed fields take the slow path
+      try {
+        return Double.parseDouble(getString(column).trim());
+      } catch (final NumberFormatException e) {
+        throw new ParseException(e);
+      }
+    }
+    final double result = mantissa / POWERS_OF_TEN[fractionDigits];
+    return isNegative ? -result : result;
+  }
+
+  /**
+   * Parses the given field of the current record as non-negative integer.
+   *
+   * @param column The index of the field
+   * @return The parsed integer
+   * @throws ParseException If the field is not a non-negative integer
+   */
+  public int parseInt(final int column) throws ParseException {
+    final int end = mFieldEnd[column];
+    int position = skipSpaces(mFieldStart[column], end);
+    final int start = position;
+    int result = 0;
+    for (; position < end; position++) {
+      final byte value = mBuffer.get(position);
+      if (value < '0' || value > '9') {
+        break;
+      }
+      result = 10 * result + value - '0';
+    }
+    if (position == start || skipSpaces(position, end) != end) {
+      throw new ParseException("Expected an integer but got '" + getString(column) + "'");
+    }
+    return result;
+  }
+
+  /**
+   * Parses the given field of the current record as GTFS time, given as
+   * <code>H:MM:SS</code>. The hours may exceed <code>24</code> for trips which
+   * run past midnight.
+   *
+   * @param column The index of the field
+   * @return The parsed time in seconds since midnight of the service day
+   * @throws ParseException If the field is not a time
+   */
+  public int parseTime(final int column) throws ParseException {
+    final int end = mFieldEnd[column];
+    int position = skipSpaces(mFieldStart[column], end);
+    int result = 0;
+    for (int part = 0; part < 3; part++) {
+      final int start = position;
+      int value = 0;
+      while (position < end && mBuffer.get(position) >= '0' && mBuffer.get(position) <= '9') {
+        value = 10 * value + mBuffer.get(position) - '0';
+        position++;
+      }
+      if (position == start) {
+        throw new ParseException("Expected a time but got '" + getString(column) + "'");
+      }
+      result = 60 * result + value;
+      if (part < 2) {
+        if (position >= end || mBuffer.get(position) != ':') {
+          throw new ParseException("Expected a time but got '" + getString(column) + "'");
+        }
+        position++;
+      }
+    }
+    if (skipSpaces(position, end) != end) {
+      throw new ParseException("Expected a time but got '" + getString(column) + "'");
+    }
+    return result;
+  }
+
+  /**
+   * Reads the header record and gets the indices of the given columns.
+   *
+   * @param columns The names of the columns to get
+   * @return The index of each given column in the same order, or
+   *         {@link #NO_COLUMN} if the header does not contain it
+   * @throws ParseException If there is no header
+   */
+  public int[] readHeader(final String... columns) throws ParseException {
+    if (!nextRecord()) {
+      throw new ParseException("The file has no header");
+    }
+    // Skip the optional UTF-8 byte order mark
+    if (mFieldCount > 0 && mFieldEnd[0] - mFieldStart[0] >= 3 && mBuffer.get(mFieldStart[0]) == (byte) 0xEF
+        && mBuffer.get(mFieldStart[0] + 1) == (byte) 0xBB && mBuffer.get(mFieldStart[0] + 2) == (byte) 0xBF) {
+      mFieldStart[0] += 3;
+    }
+
+    final int[] indices = new int[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      indices[i] = NO_COLUMN;
+      for (int column = 0; column < mFieldCount; column++) {
+        if (getString(column).trim().equals(columns[i])) {
+          indices[i] = column;
+          break;
+        }
+      }
+    }
+    return indices;
+  }
+
+  /**
+   * Adds a field to the current record.
+   *
+   * @param start The index of the first byte of the field
+   * @param end   The index after the last byte of the field
+   */
+  private void addField(final int start, final int end) {
+    if (mFieldCount == mFieldStart.length) {
+      final int[] fieldStart = new int[2 * mFieldCount];
+      final int[] fieldEnd = new int[2 * mFieldCount];
+      System.arraycopy(mFieldStart, 0, fieldStart, 0, mFieldCount);
+      System.arraycopy(mFieldEnd, 0, fieldEnd, 0, mFieldCount);
+      mFieldStart = fieldStart;
+      mFieldEnd = fieldEnd;
+    }
+    mFieldStart[mFieldCount] = start;
+    mFieldEnd[mFieldCount] = end;
+    mFieldCount++;
+  }
+
+  /**
+   * Skips spaces starting at the given index.
+   *
+   * @param start The index to start at
+   * @param end   The index to stop at
+   * @return The index of the first byte which is not a space, or the end
+   */
+  private int skipSpaces(final int start, final int end) {
+    int position = start;
+    while (position < end && mBuffer.get(position) == ' ') {
+      position++;
+    }
+    return position;
+  }
+}
@@ -0,0 +1,183 @@
+package com.transitnet.rpdemo.service.parse.gtfs;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Map from the textual IDs of a GTFS feed to the dense integer IDs used by the
+ * timetable.<br>
+ * <br>
+ * Keys are looked up directly by their bytes in a buffer, such that parsing
+ * does not need to create a {@link String} per referenced ID. Uses open
+ * addressing with linear probing. Lookups may be done concurrently as long as
+ * no key is added at the same time.
+ */
+public final class GtfsIdMap {
+  /**
+   * Value returned for keys which are not contained in the map.
+   */
+  public static final int NO_ID = -1;
+  /**
+   * Odd constant derived from the golden ratio, used to spread the hashes of
+   * similar keys, like consecutive numbers, over the table.
+   */
+  private static final int SPREAD = 0x9E3779B9;
+
+  /**
+   * Computes the hash of the given bytes.
+   *
+   * @param buffer The buffer which contains the bytes
+   * @param start  The index of the first byte, inclusive
+   * @param end    The index of the last byte, exclusive
+   * @return The hash of the bytes
+   */
+  private static int hash(final ByteBuffer buffer, final int start, final int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + buffer.get(i);
+    }
+    return hash * SPREAD;
+  }
+
+  /**
+   * Whether the given key equals the bytes in the given buffer.
+   *
+   * @param key    The key to compare
+   * @param buffer The buffer which contains the bytes
+   * @param start  The index of the first byte, inclusive
+   * @param end    The index of the last byte, exclusive
+   * @return <code>True</code> if they are equal, <code>false</code> otherwise
+   */
+  private static boolean matches(final byte[] key, final ByteBuffer buffer, final int start, final int end) {
+    if (key.length != end - start) {
+      return false;
+    }
+    for (int i = 0; i < key.length; i++) {
+      if (key[i] != buffer.get(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The keys of the slots, <code>null</code> for empty slots.
+   */
+  private byte[][] mKeys;
+  /**
+   * The amount of bits to shift a hash by to get its slot, i.e. the upper bits
+   * of the hash are used.
+   */
+  private int mShift;
+  /**
+   * The amount of contained keys.
+   */
+  private int mSize;
+  /**
+   * The values of the slots.
+   */
+  private int[] mValues;
+
+  /**
+   * Creates a new empty map.
+   */
+  public GtfsIdMap() {
+    mKeys = new byte[1 << 10][];
+    mValues = new int[1 << 10];
+    mShift = Integer.SIZE - 10;
+  }
+
+  /**
+   * Gets the value of the key given by the bytes in the given buffer.
+   *
+   * @param buffer The buffer which contains the key
+   * @param start  The index of the first byte of the key, inclusive
+   * @param end    The index of the last byte of the key, exclusive
+   * @return The value of the key or {@link #NO_ID} if it is not contained
+   */
+  public int get(final ByteBuffer buffer, final int start, final int end) {
+    final int mask = mKeys.length - 1;
+    int slot = GtfsIdMap.hash(buffer, start, end) >>> mShift;
+    while (mKeys[slot] != null) {
+      if (GtfsIdMap.matches(mKeys[slot], buffer, start, end)) {
+        return mValues[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return NO_ID;
+  }
+
+  /**
+   * Puts the key given by the bytes in the given buffer with the given value
+   * into the map. The bytes are copied.
+   *
+   * @param buffer The buffer which contains the key
+   * @param start  The index of the first byte of the key, inclusive
+   * @param end    The index of the last byte of the key, exclusive
+   * @param value  The value of the key, not negative
+   * @return <code>True</code> if the key was added, <code>false</code> if it
+   *         was already contained, the value is not changed then
+   */
+  public boolean put(final ByteBuffer buffer, final int start, final int end, final int value) {
+    if (get(buffer, start, end) != NO_ID) {
+      return false;
+    }
+    if (2 * (mSize + 1) > mKeys.length) {
+      grow();
+    }
+    final byte[] key = new byte[end - start];
+    buffer.get(start, key);
+    insert(key, value);
+    mSize++;
+    return true;
+  }
+
+  /**
+   * Gets the amount of contained keys.
+   *
+   * @return The amount of keys
+   */
+  public int size() {
+    return mSize;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "GtfsIdMap [size=" + mSize + ", capacity=" + mKeys.length + "]";
+  }
+
+  /**
+   * Doubles the size of the table and reinserts all keys.
+   */
+  private void grow() {
+    final byte[][] keys = mKeys;
+    final int[] values = mValues;
+    mKeys = new byte[2 * keys.length][];
+    mValues = new int[2 * values.length];
+    mShift--;
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null) {
+        insert(keys[i], values[i]);
+      }
+    }
+  }
+
+  /**
+   * Inserts the given key, which is not contained yet, into a free slot.
+   *
+   * @param key   The key to insert
+   * @param value The value of the key
+   */
+  private void insert(final byte[] key, final int value) {
+    final int mask = mKeys.length - 1;
+    int slot = GtfsIdMap.hash(ByteBuffer.wrap(key), 0, key.length) >>> mShift;
+    while (mKeys[slot] != null) {
+      slot = (slot + 1) & mask;
+    }
+    mKeys[slot] = key;
+    mValues[slot] = value;
+  }
+}
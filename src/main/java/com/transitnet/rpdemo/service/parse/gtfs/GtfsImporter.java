@@ -0,0 +1,684 @@
+package com.transitnet.rpdemo.service.parse.gtfs;
+
+import com.transitnet.rpdemo.model.Footpath;
+import com.transitnet.rpdemo.model.timetable.Connection;
+import com.transitnet.rpdemo.model.timetable.Stop;
+import com.transitnet.rpdemo.model.timetable.Timetable;
+import com.transitnet.rpdemo.model.timetable.Trip;
+import com.transitnet.rpdemo.service.parse.ParseException;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Imports a GTFS feed into a {@link Timetable}.<br>
+ * <br>
+ * Reads <code>stops.txt</code>, <code>trips.txt</code>,
+ * <code>stop_times.txt</code> and the optional <code>transfers.txt</code> of an
+ * extracted feed. The files are memory mapped and tokenized by
+ * {@link GtfsCsvReader} without creating objects per record. The stop times
+ * are split into chunks at record boundaries which are parsed in parallel into
+ * primitive lists, grouped by trip with a counting sort and turned into
+ * {@link Connection}s. All connections are sorted once at the end.<br>
+ * <br>
+ * Quoted fields may contain line breaks, so a line feed only ends a record if
+ * it is preceded by an even amount of quotes. The quotes of the stop times are
+ * counted in parallel first, which determines for every chunk whether it
+ * starts inside a quoted field.<br>
+ * <br>
+ * The timetable only models a single day, the calendar of the feed is
+ * ignored. Times past midnight are wrapped around. Stop times without times
+ * are interpolated evenly between the surrounding time points.
+ */
+public final class GtfsImporter {
+  /**
+   * The name of the file that contains the stops.
+   */
+  public static final String STOPS_FILE = "stops.txt";
+  /**
+   * The name of the file that contains the stop times.
+   */
+  public static final String STOP_TIMES_FILE = "stop_times.txt";
+  /**
+   * The name of the optional file that contains the transfers.
+   */
+  public static final String TRANSFERS_FILE = "transfers.txt";
+  /**
+   * The name of the file that contains the trips.
+   */
+  public static final String TRIPS_FILE = "trips.txt";
+  /**
+   * The default size of the chunks the stop times are parsed in, in bytes.
+   */
+  private static final long CHUNK_SIZE = 1L << 26;
+  /**
+   * The amount of bytes read at once when searching a record boundary or the
+   * header.
+   */
+  private static final int HEADER_WINDOW = 1 << 16;
+  /**
+   * Logger used for logging.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(GtfsImporter.class);
+  /**
+   * Byte which encloses quoted fields.
+   */
+  private static final byte QUOTE = '"';
+  /**
+   * Value for a stop time without time.
+   */
+  private static final int NO_TIME = -1;
+  /**
+   * The amount of seconds of a day.
+   */
+  private static final int SECONDS_OF_DAY = 24 * 60 * 60;
+  /**
+   * Transfer type of transfers which are not possible.
+   */
+  private static final int TRANSFER_NOT_POSSIBLE = 3;
+
+  /**
+   * Counts the quotes in the given range of the given file.
+   *
+   * @param channel The channel of the file
+   * @param start   The position of the first byte of the range
+   * @param end     The position after the last byte of the range
+   * @return The amount of quotes in the range
+   * @throws IOException If an I/O exception occurred while reading
+   */
+  private static long countQuotes(final FileChannel channel, final long start, final long end) throws IOException {
+    final MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, start, end - start);
+    final int limit = buffer.limit();
+    long quotes = 0;
+    for (int i = 0; i < limit; i++) {
+      if (buffer.get(i) == QUOTE) {
+        quotes++;
+      }
+    }
+    return quotes;
+  }
+
+  /**
+   * Finds the start of the first record which starts after the given position,
+   * i.e. after the first line feed at or after the position that is not inside
+   * a quoted field.
+   *
+   * @param channel  The channel of the file
+   * @param position The position to start searching at
+   * @param isQuoted Whether the position is inside a quoted field, i.e. whether
+   *                 an odd amount of quotes precedes it
+   * @return The position of the first byte of the record, or the size of the
+   *         file if there is none
+   * @throws IOException If an I/O exception occurred while reading
+   */
+  private static long findRecordStart(final FileChannel channel, final long position, final boolean isQuoted)
+      throws IOException {
+    final ByteBuffer window = ByteBuffer.allocate(HEADER_WINDOW);
+    boolean isInsideQuotes = isQuoted;
+    long current = position;
+    while (current < channel.size()) {
+      window.clear();
+      final int read = channel.read(window, current);
+      if (read <= 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        final byte value = window.get(i);
+        if (value == QUOTE) {
+          isInsideQuotes = !isInsideQuotes;
+        } else if (value == '\n' && !isInsideQuotes) {
+          return current + i + 1;
+        }
+      }
+      current += read;
+    }
+    return channel.size();
+  }
+
+  /**
+   * Reads all records of the given file.
+   *
+   * @param file      The file to read
+   * @param columns   The names of the columns to read
+   * @param processor Processor to call with the reader positioned at each
+   *                  record and the indices of the columns
+   * @throws IOException    If an I/O exception occurred while reading
+   * @throws ParseException If the file could not be parsed
+   */
+  private static void forEachRecord(final Path file, final String[] columns,
+      final BiConsumer<GtfsCsvReader, int[]> processor) throws IOException, ParseException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new ParseException("The file is too large: " + file);
+      }
+      final MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      final GtfsCsvReader reader = new GtfsCsvReader(buffer, 0, buffer.limit());
+      final int[] indices = reader.readHeader(columns);
+      GtfsImporter.requireColumns(file, columns, indices);
+      while (reader.nextRecord()) {
+        processor.accept(reader, indices);
+      }
+    }
+  }
+
+  /**
+   * Ensures that all columns were found in the header, except the optional
+   * ones which are given after the required ones.
+   *
+   * @param file     The file the header belongs to
+   * @param columns  The names of the columns
+   * @param indices  The indices of the columns in the header
+   * @param optional The amount of optional columns at the end
+   * @throws ParseException If a required column is missing
+   */
+  private static void requireColumns(final Path file, final String[] columns, final int[] indices,
+      final int optional) throws ParseException {
+    for (int i = 0; i < columns.length - optional; i++) {
+      if (indices[i] == GtfsCsvReader.NO_COLUMN) {
+        throw new ParseException("The file " + file + " has no column " + columns[i]);
+      }
+    }
+  }
+
+  /**
+   * Ensures that all columns were found in the header.
+   *
+   * @param file    The file the header belongs to
+   * @param columns The names of the columns
+   * @param indices The indices of the columns in the header
+   * @throws ParseException If a column is missing
+   */
+  private static void requireColumns(final Path file, final String[] columns, final int[] indices)
+      throws ParseException {
+    GtfsImporter.requireColumns(file, columns, indices, 0);
+  }
+
+  /**
+   * The size of the chunks the stop times are parsed in, in bytes.
+   */
+  private final long mChunkSize;
+  /**
+   * Maps the GTFS stop IDs to the IDs of the stops in the timetable.
+   */
+  private final GtfsIdMap mStopIds;
+  /**
+   * The timetable to import into.
+   */
+  private final Timetable mTable;
+  /**
+   * Maps the GTFS trip IDs to the index of the trip in {@link #mTrips}.
+   */
+  private final GtfsIdMap mTripIds;
+  /**
+   * The imported trips.
+   */
+  private final List<Trip> mTrips;
+
+  /**
+   * Creates a new importer which imports into the given timetable.
+   *
+   * @param table The timetable to import into
+   */
+  public GtfsImporter(final Timetable table) {
+    this(table, CHUNK_SIZE);
+  }
+
+  /**
+   * Creates a new importer which imports into the given timetable and parses
+   * the stop times in chunks of the given size.
+   *
+   * @param table     The timetable to import into
+   * @param chunkSize The size of the chunks in bytes, must be positive
+   */
+  GtfsImporter(final Timetable table, final long chunkSize) {
+    mTable = table;
+    mChunkSize = chunkSize;
+    mStopIds = new GtfsIdMap();
+    mTripIds = new GtfsIdMap();
+    mTrips = new ArrayList<>();
+  }
+
+  /**
+   * Imports the feed in the given directory into the timetable.
+   *
+   * @param directory The directory which contains the extracted feed
+   * @throws IOException    If an I/O exception occurred while reading
+   * @throws ParseException If the feed could not be parsed
+   */
+  public void importFeed(final Path directory) throws IOException, ParseException {
+    final Instant startTime = Instant.now();
+    importStops(directory.resolve(STOPS_FILE));
+    importTrips(directory.resolve(TRIPS_FILE));
+    importStopTimes(directory.resolve(STOP_TIMES_FILE));
+    final Path transfers = directory.resolve(TRANSFERS_FILE);
+    if (Files.exists(transfers)) {
+      importTransfers(transfers);
+    }
+    LOGGER.info("Importing GTFS feed {} took: {}", directory, Duration.between(startTime, Instant.now()));
+  }
+
+  /**
+   * Creates the connections of the trip with the given index.
+   *
+   * @param trip        The index of the trip
+   * @param stopTimes   The stop times of all trips, grouped by trip and
+   *                    ascending in their sequence inside each trip
+   * @param start       The index of the first stop time of the trip
+   * @param end         The index after the last stop time of the trip
+   * @param connections The array to put the connections into
+   * @param offset      The index to put the first connection of the trip at
+   */
+  private void createConnections(final int trip, final StopTimes stopTimes, final int start, final int end,
+      final Connection[] connections, final int offset) {
+    if (end - start < 2) {
+      return;
+    }
+    final int[] arrTimes = stopTimes.mArrTimes;
+    final int[] depTimes = stopTimes.mDepTimes;
+    final int[] stops = stopTimes.mStops;
+    for (int i = start; i < end; i++) {
+      // Either time may stand in for the other
+      if (arrTimes[i] == NO_TIME) {
+        arrTimes[i] = depTimes[i];
+      } else if (depTimes[i] == NO_TIME) {
+        depTimes[i] = arrTimes[i];
+      }
+    }
+    if (depTimes[start] == NO_TIME || arrTimes[end - 1] == NO_TIME) {
+      // The first and last stop must be time points
+      return;
+    }
+    // Interpolate stop times without times between the surrounding time points
+    int previousTimePoint = start;
+    for (int i = start + 1; i < end; i++) {
+      if (arrTimes[i] == NO_TIME) {
+        continue;
+      }
+      final int gap = i - previousTimePoint;
+      for (int j = previousTimePoint + 1; j < i; j++) {
+        final int time = depTimes[previousTimePoint]
+            + (arrTimes[i] - depTimes[previousTimePoint]) * (j - previousTimePoint) / gap;
+        arrTimes[j] = time;
+        depTimes[j] = time;
+      }
+      previousTimePoint = i;
+    }
+
+    final Trip tripObject = mTrips.get(trip);
+    final int tripId = tripObject.getId();
+    for (int i = start; i < end - 1; i++) {
+      final Connection connection = new Connection(tripId, i - start, stops[i], stops[i + 1],
+          depTimes[i] % SECONDS_OF_DAY, arrTimes[i + 1] % SECONDS_OF_DAY);
+      tripObject.addConnectionToSequence(connection);
+      connections[offset + i - start] = connection;
+    }
+  }
+
+  /**
+   * Imports the stop times of the given file.
+   *
+   * @param file The file to import
+   * @throws IOException    If an I/O exception occurred while reading
+   * @throws ParseException If the file could not be parsed
+   */
+  private void importStopTimes(final Path file) throws IOException, ParseException {
+    final Instant startTime = Instant.now();
+    final String[] columns = { "trip_id", "stop_id", "stop_sequence", "arrival_time", "departure_time" };
+    final List<StopTimes> chunks;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long size = channel.size();
+      final MappedByteBuffer headerBuffer = channel.map(MapMode.READ_ONLY, 0, Math.min(size, HEADER_WINDOW));
+      final GtfsCsvReader headerReader = new GtfsCsvReader(headerBuffer, 0, headerBuffer.limit());
+      final int[] indices = headerReader.readHeader(columns);
+      GtfsImporter.requireColumns(file, columns, indices);
+
+      // Split the records into chunks at line feeds outside of quoted fields.
+      // Whether a chunk starts inside quotes follows from the amount of quotes
+      // before it, which is counted for all chunks in parallel.
+      final long dataStart = headerReader.getPosition();
+      final int amountOfBlocks = (int) ((size - dataStart + mChunkSize - 1) / mChunkSize);
+      final long[] quotes;
+      try {
+        quotes = IntStream.range(0, amountOfBlocks).parallel().mapToLong(block -> {
+          try {
+            return GtfsImporter.countQuotes(channel, dataStart + block * mChunkSize,
+                Math.min(size, dataStart + (block + 1) * mChunkSize));
+          } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }).toArray();
+      } catch (final UncheckedIOException e) {
+        throw e.getCause();
+      }
+      final List<long[]> ranges = new ArrayList<>();
+      long chunkStart = dataStart;
+      long quotesBefore = 0;
+      for (int block = 1; block < amountOfBlocks; block++) {
+        quotesBefore += quotes[block - 1];
+        // A quoted field may span a whole block, then the boundary is found
+        // again for the following block and the range is empty
+        final long chunkEnd = GtfsImporter.findRecordStart(channel, dataStart + block * mChunkSize,
+            quotesBefore % 2 == 1);
+        if (chunkEnd > chunkStart) {
+          ranges.add(new long[] { chunkStart, chunkEnd });
+          chunkStart = chunkEnd;
+        }
+      }
+      if (chunkStart < size) {
+        ranges.add(new long[] { chunkStart, size });
+      }
+
+      try {
+        chunks = ranges.parallelStream().map(range -> {
+          try {
+            return parseStopTimes(channel.map(MapMode.READ_ONLY, range[0], range[1] - range[0]), indices);
+          } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }).collect(Collectors.toList());
+      } catch (final UncheckedIOException e) {
+        throw e.getCause();
+      }
+    }
+    final int skipped = chunks.stream().mapToInt(chunk -> chunk.mSkipped).sum();
+    if (skipped > 0) {
+      LOGGER.warn("Skipped {} stop times of unknown trips or stops", skipped);
+    }
+
+    // Group the stop times by trip with a counting sort
+    final int amountOfTrips = mTrips.size();
+    final int[] tripStart = new int[amountOfTrips + 1];
+    int amountOfStopTimes = 0;
+    for (final StopTimes chunk : chunks) {
+      for (int i = 0; i < chunk.mSize; i++) {
+        tripStart[chunk.mTrips[i] + 1]++;
+      }
+      amountOfStopTimes += chunk.mSize;
+    }
+    for (int trip = 0; trip < amountOfTrips; trip++) {
+      tripStart[trip + 1] += tripStart[trip];
+    }
+    final StopTimes stopTimes = new StopTimes(amountOfStopTimes);
+    final int[] nextPosition = Arrays.copyOf(tripStart, amountOfTrips);
+    for (final StopTimes chunk : chunks) {
+      for (int i = 0; i < chunk.mSize; i++) {
+        final int position = nextPosition[chunk.mTrips[i]]++;
+        stopTimes.set(position, chunk, i);
+      }
+    }
+    chunks.clear();
+
+    // Each trip has one connection less than stop times
+    final int[] connectionStart = new int[amountOfTrips + 1];
+    for (int trip = 0; trip < amountOfTrips; trip++) {
+      connectionStart[trip + 1] = connectionStart[trip] + Math.max(0, tripStart[trip + 1] - tripStart[trip] - 1);
+    }
+    final Connection[] connections = new Connection[connectionStart[amountOfTrips]];
+    IntStream.range(0, amountOfTrips).parallel().forEach(trip -> {
+      stopTimes.sortBySequence(tripStart[trip], tripStart[trip + 1]);
+      createConnections(trip, stopTimes, tripStart[trip], tripStart[trip + 1], connections, connectionStart[trip]);
+    });
+    // The connections are ordered by trip and sequence already, which breaks
+    // ties of the departure time like the natural order of connections does.
+    // So sorting primitive keys of departure time and index suffices.
+    final long[] keys = IntStream.range(0, connections.length).filter(i -> connections[i] != null)
+        .mapToLong(i -> ((long) connections[i].getDepTime() << Integer.SIZE) | i).toArray();
+    Arrays.parallelSort(keys);
+    final List<Connection> createdConnections = new ArrayList<>(keys.length);
+    for (final long key : keys) {
+      createdConnections.add(connections[(int) key]);
+    }
+    // Sorting the already sorted connections again in the timetable is linear
+    mTable.addConnections(createdConnections);
+    LOGGER.info("Imported {} stop times as {} connections in: {}", amountOfStopTimes, createdConnections.size(),
+        Duration.between(startTime, Instant.now()));
+  }
+
+  /**
+   * Imports the stops of the given file.
+   *
+   * @param file The file to import
+   * @throws IOException    If an I/O exception occurred while reading
+   * @throws ParseException If the file could not be parsed
+   */
+  private void importStops(final Path file) throws IOException, ParseException {
+    final String[] columns = { "stop_id", "stop_lat", "stop_lon" };
+    GtfsImporter.forEachRecord(file, columns, (reader, indices) -> {
+      // Locations without coordinates can not be routed to
+      if (reader.isEmpty(indices[0]) || reader.isEmpty(indices[1]) || reader.isEmpty(indices[2])) {
+        return;
+      }
+      final ByteBuffer buffer = reader.getBuffer();
+      if (mStopIds.get(buffer, reader.getFieldStart(indices[0]), reader.getFieldEnd(indices[0])) != GtfsIdMap.NO_ID) {
+        LOGGER.warn("Skipping duplicate stop {}", reader.getString(indices[0]));
+        return;
+      }
+      final int id = mTable.generateUniqueStopId();
+      mStopIds.put(buffer, reader.getFieldStart(indices[0]), reader.getFieldEnd(indices[0]), id);
+      mTable.addStop(new Stop(id, (float) reader.parseDouble(indices[1]), (float) reader.parseDouble(indices[2])));
+    });
+    LOGGER.info("Imported {} stops", mStopIds.size());
+  }
+
+  /**
+   * Imports the transfers of the given file as footpaths.
+   *
+   * @param file The file to import
+   * @throws IOException    If an I/O exception occurred while reading
+   * @throws ParseException If the file could not be parsed
+   */
+  private void importTransfers(final Path file) throws IOException, ParseException {
+    final String[] columns = { "from_stop_id", "to_stop_id", "transfer_type", "min_transfer_time" };
+    final LongHashSet addedTransfers = new LongHashSet();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      final GtfsCsvReader reader = new GtfsCsvReader(buffer, 0, buffer.limit());
+      final int[] indices = reader.readHeader(columns);
+      GtfsImporter.requireColumns(file, columns, indices, 2);
+      while (reader.nextRecord()) {
+        if (!reader.isEmpty(indices[2]) && reader.parseInt(indices[2]) == TRANSFER_NOT_POSSIBLE) {
+          continue;
+        }
+        final int fromStop = mStopIds.get(buffer, reader.getFieldStart(indices[0]), reader.getFieldEnd(indices[0]));
+        final int toStop = mStopIds.get(buffer, reader.getFieldStart(indices[1]), reader.getFieldEnd(indices[1]));
+        // Transfers between specific trips or routes are imported once per pair
+        // of stops
+        if (fromStop == GtfsIdMap.NO_ID || toStop == GtfsIdMap.NO_ID
+            || !addedTransfers.add(((long) fromStop << Integer.SIZE) | toStop)) {
+          continue;
+        }
+        final int duration = reader.isEmpty(indices[3]) ? 0 : reader.parseInt(indices[3]);
+        mTable.addFootpath(new Footpath(fromStop, toStop, duration));
+      }
+    }
+    LOGGER.info("Imported {} transfers", addedTransfers.size());
+  }
+
+  /**
+   * Imports the trips of the given file.
+   *
+   * @param file The file to import
+   * @throws IOException    If an I/O exception occurred while reading
+   * @throws ParseException If the file could not be parsed
+   */
+  private void importTrips(final Path file) throws IOException, ParseException {
+    final String[] columns = { "trip_id" };
+    GtfsImporter.forEachRecord(file, columns, (reader, indices) -> {
+      if (!mTripIds.put(reader.getBuffer(), reader.getFieldStart(indices[0]), reader.getFieldEnd(indices[0]),
+          mTrips.size())) {
+        LOGGER.warn("Skipping duplicate trip {}", reader.getString(indices[0]));
+        return;
+      }
+      final Trip trip = new Trip(mTable.generateUniqueTripId());
+      mTrips.add(trip);
+      mTable.addTrip(trip);
+    });
+    LOGGER.info("Imported {} trips", mTrips.size());
+  }
+
+  /**
+   * Parses the stop times of the given chunk.
+   *
+   * @param buffer  The buffer which contains the chunk, it starts and ends at
+   *                record boundaries
+   * @param indices The indices of the columns trip ID, stop ID, stop sequence,
+   *                arrival time and departure time
+   * @return The parsed stop times
+   * @throws ParseException If the chunk could not be parsed
+   */
+  private StopTimes parseStopTimes(final ByteBuffer buffer, final int[] indices) throws ParseException {
+    final GtfsCsvReader reader = new GtfsCsvReader(buffer, 0, buffer.limit());
+    final IntArrayList trips = new IntArrayList();
+    final IntArrayList stops = new IntArrayList();
+    final IntArrayList sequences = new IntArrayList();
+    final IntArrayList arrTimes = new IntArrayList();
+    final IntArrayList depTimes = new IntArrayList();
+    int skipped = 0;
+    while (reader.nextRecord()) {
+      final int trip = mTripIds.get(buffer, reader.getFieldStart(indices[0]), reader.getFieldEnd(indices[0]));
+      final int stop = mStopIds.get(buffer, reader.getFieldStart(indices[1]), reader.getFieldEnd(indices[1]));
+      if (trip == GtfsIdMap.NO_ID || stop == GtfsIdMap.NO_ID) {
+        skipped++;
+        continue;
+      }
+      trips.add(trip);
+      stops.add(stop);
+      sequences.add(reader.parseInt(indices[2]));
+      arrTimes.add(reader.isEmpty(indices[3]) ? NO_TIME : reader.parseTime(indices[3]));
+      depTimes.add(reader.isEmpty(indices[4]) ? NO_TIME : reader.parseTime(indices[4]));
+    }
+    final StopTimes stopTimes = new StopTimes(trips.toArray(), stops.toArray(), sequences.toArray(),
+        arrTimes.toArray(), depTimes.toArray());
+    stopTimes.mSkipped = skipped;
+    return stopTimes;
+  }
+
+  /**
+   * Stop times stored as parallel arrays.
+   */
+  private static final class StopTimes {
+    /**
+     * The arrival times in seconds since midnight of the service day, or
+     * {@link GtfsImporter#NO_TIME}.
+     */
+    private final int[] mArrTimes;
+    /**
+     * The departure times in seconds since midnight of the service day, or
+     * {@link GtfsImporter#NO_TIME}.
+     */
+    private final int[] mDepTimes;
+    /**
+     * The positions of the stop times inside their trip.
+     */
+    private final int[] mSequences;
+    /**
+     * The amount of stop times.
+     */
+    private final int mSize;
+    /**
+     * The amount of skipped records.
+     */
+    private int mSkipped;
+    /**
+     * The IDs of the stops.
+     */
+    private final int[] mStops;
+    /**
+     * The indices of the trips.
+     */
+    private final int[] mTrips;
+
+    /**
+     * Creates new empty stop times of the given size, without trips.
+     *
+     * @param size The amount of stop times
+     */
+    private StopTimes(final int size) {
+      this(null, new int[size], new int[size], new int[size], new int[size]);
+    }
+
+    /**
+     * Creates new stop times from the given arrays of equal length.
+     *
+     * @param trips     The indices of the trips, or <code>null</code>
+     * @param stops     The IDs of the stops
+     * @param sequences The positions of the stop times inside their trip
+     * @param arrTimes  The arrival times
+     * @param depTimes  The departure times
+     */
+    private StopTimes(final int[] trips, final int[] stops, final int[] sequences, final int[] arrTimes,
+        final int[] depTimes) {
+      mTrips = trips;
+      mStops = stops;
+      mSequences = sequences;
+      mArrTimes = arrTimes;
+      mDepTimes = depTimes;
+      mSize = stops.length;
+    }
+
+    /**
+     * Sets the stop time at the given position to the given stop time of the
+     * given stop times.
+     *
+     * @param position The position to set
+     * @param other    The stop times to copy from
+     * @param index    The index of the stop time to copy
+     */
+    private void set(final int position, final StopTimes other, final int index) {
+      mStops[position] = other.mStops[index];
+      mSequences[position] = other.mSequences[index];
+      mArrTimes[position] = other.mArrTimes[index];
+      mDepTimes[position] = other.mDepTimes[index];
+    }
+
+    /**
+     * Sorts the given range ascending in the sequence. Feeds usually list the
+     * stop times of a trip in order already, this is checked first.
+     *
+     * @param start The first index of the range, inclusive
+     * @param end   The last index of the range, exclusive
+     */
+    private void sortBySequence(final int start, final int end) {
+      boolean isSorted = true;
+      for (int i = start + 1; i < end && isSorted; i++) {
+        isSorted = mSequences[i - 1] <= mSequences[i];
+      }
+      if (isSorted) {
+        return;
+      }
+
+      // Sort the sequences together with their original index
+      final long[] keys = new long[end - start];
+      for (int i = start; i < end; i++) {
+        keys[i - start] = ((long) mSequences[i] << Integer.SIZE) | (i - start);
+      }
+      Arrays.sort(keys);
+      final StopTimes copy = new StopTimes(end - start);
+      for (int i = start; i < end; i++) {
+        copy.set(i - start, this, i);
+      }
+      for (int i = 0; i < keys.length; i++) {
+        set(start + i, copy, (int) keys[i]);
+      }
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.transitnet.rpdemo.service.parse.gtfs;
+
+import com.transitnet.rpdemo.service.route.routingModelService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 将GTFS数据导入路由模型的时刻表。<br>
+ * <br>
+ * 数据为解压后的GTFS目录，目录不存在时跳过导入，时刻表保持为空。
+ */
+@Service
+public class gtfsParseService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(gtfsParseService.class);
+    @Value("${rpdemo.gtfsdir}")
+    private String gtfsDir;
+    @Autowired
+    private routingModelService routingModelService;
+
+    public void parseData() throws IOException {
+        final Path directory = Path.of(gtfsDir);
+        if (!Files.isDirectory(directory)) {
+            LOGGER.info("No GTFS feed found at {}, skipping timetable import", directory);
+            return;
+        }
+        new GtfsImporter(routingModelService.getTimetable()).importFeed(directory);
+    }
+}
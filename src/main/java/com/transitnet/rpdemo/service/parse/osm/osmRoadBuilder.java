@@ -84,7 +84,7 @@ public final class osmRoadBuilder<G extends IGraph<ICoreNode, ICoreEdge<ICoreNod
         // Lookup if the way is already known or generate a new ID
         final int wayId = mOsmToWayId.getIfAbsentPut(way.getId(), () -> mIdGenerator.generateUniqueWayId());
         return new RoadEdge<>(wayId, source, destination, type, maxSpeed,
-                RoutingUtil.getTransportationModesOfHighway(type));
+                RoutingUtil.getTransportationModeMaskOfHighway(type));
     }
 
     /*
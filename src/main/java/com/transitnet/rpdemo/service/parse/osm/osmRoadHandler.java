@@ -97,6 +97,14 @@ public final class osmRoadHandler<N extends INode & IHasId & ISpatial, E extends
         mGraph = graph;
     }
 
+    /**
+     * 释放构建器和图，之后在再次设置之前不能再处理OSM数据
+     */
+    public void release() {
+        mBuilder = null;
+        mGraph = null;
+    }
+
     /*
      * (non-Javadoc)
      * @see de.topobyte.osm4j.core.access.OsmHandler#complete()
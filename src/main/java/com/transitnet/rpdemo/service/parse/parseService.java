@@ -1,5 +1,6 @@
 package com.transitnet.rpdemo.service.parse;
 
+import com.transitnet.rpdemo.service.parse.gtfs.gtfsParseService;
 import com.transitnet.rpdemo.service.parse.osm.osmParseService;
 import de.topobyte.osm4j.core.access.OsmInputException;
 import jakarta.annotation.PostConstruct;
@@ -11,9 +12,12 @@ import java.io.IOException;
 public class parseService {
     @Autowired
     private osmParseService osmparseService;
+    @Autowired
+    private gtfsParseService gtfsparseService;
 
     public void parseData() throws IOException, OsmInputException {
         osmparseService.parseData();
+        gtfsparseService.parseData();
     }
 
 }
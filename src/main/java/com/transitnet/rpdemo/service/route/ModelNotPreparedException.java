@@ -0,0 +1,19 @@
+package com.transitnet.rpdemo.service.route;
+
+/**
+ * Exception to be thrown when a query arrives before the routing model has
+ * been prepared.
+ */
+public final class ModelNotPreparedException extends RuntimeException {
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new exception for a query on a model which is not prepared yet.
+     */
+    public ModelNotPreparedException() {
+        super("The routing model is not prepared yet");
+    }
+}
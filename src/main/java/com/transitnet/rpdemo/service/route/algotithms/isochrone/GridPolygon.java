@@ -0,0 +1,55 @@
+package com.transitnet.rpdemo.service.route.algotithms.isochrone;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Polygon formed by the union of the cells of a regular grid. Consists of
+ * closed rings whose vertices lie on the corners of the cells.<br>
+ * <br>
+ * Each ring is stored as array of alternating latitudes and longitudes in
+ * degrees, the first vertex is not repeated at the end. Outer rings are
+ * oriented counter-clockwise and holes clockwise, when viewed with the
+ * longitude as x-axis and the latitude as y-axis.
+ */
+public final class GridPolygon {
+  /**
+   * The amount of cells the polygon consists of.
+   */
+  private final int mAmountOfCells;
+  /**
+   * The rings of the polygon.
+   */
+  private final List<float[]> mRings;
+
+  /**
+   * Creates a new polygon.
+   *
+   * @param rings         The rings of the polygon, as arrays of alternating
+   *                      latitudes and longitudes
+   * @param amountOfCells The amount of cells the polygon consists of
+   */
+  public GridPolygon(final List<float[]> rings, final int amountOfCells) {
+    mRings = rings;
+    mAmountOfCells = amountOfCells;
+  }
+
+  /**
+   * Gets the amount of grid cells the polygon consists of.
+   *
+   * @return The amount of cells
+   */
+  public int getAmountOfCells() {
+    return mAmountOfCells;
+  }
+
+  /**
+   * Gets the rings of the polygon.
+   *
+   * @return An unmodifiable list of the rings, each as array of alternating
+   *         latitudes and longitudes in degrees
+   */
+  public List<float[]> getRings() {
+    return Collections.unmodifiableList(mRings);
+  }
+}
@@ -0,0 +1,24 @@
+package com.transitnet.rpdemo.service.route.algotithms.isochrone;
+
+import com.transitnet.rpdemo.model.INode;
+
+import java.util.Collection;
+
+/**
+ * Interface for algorithms that are able to compute isochrones, i.e. the nodes
+ * and area reachable from given sources within given travel time budgets.
+ *
+ * @param <N> Type of node
+ */
+public interface IIsochroneComputation<N extends INode> {
+  /**
+   * Computes the isochrone of the given sources for the given budgets. The
+   * isochrone has one band per budget, each band contains everything
+   * reachable within its budget.
+   *
+   * @param sources The sources to start at
+   * @param budgets The travel time budgets in seconds, ascending
+   * @return The computed isochrone
+   */
+  Isochrone<N> computeIsochrone(Collection<N> sources, double[] budgets);
+}
@@ -0,0 +1,38 @@
+package com.transitnet.rpdemo.service.route.algotithms.isochrone;
+
+import com.transitnet.rpdemo.model.INode;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of an isochrone computation. Consists of one band per travel time
+ * budget, ascending in their budget. Bands are nested, a band contains all
+ * nodes and area of the bands with smaller budget.
+ *
+ * @param <N> Type of node
+ */
+public final class Isochrone<N extends INode> {
+  /**
+   * The bands of the isochrone, ascending in their budget.
+   */
+  private final List<IsochroneBand<N>> mBands;
+
+  /**
+   * Creates a new isochrone consisting of the given bands.
+   *
+   * @param bands The bands of the isochrone, ascending in their budget
+   */
+  public Isochrone(final List<IsochroneBand<N>> bands) {
+    mBands = bands;
+  }
+
+  /**
+   * Gets the bands of the isochrone.
+   *
+   * @return An unmodifiable list of the bands, ascending in their budget
+   */
+  public List<IsochroneBand<N>> getBands() {
+    return Collections.unmodifiableList(mBands);
+  }
+}
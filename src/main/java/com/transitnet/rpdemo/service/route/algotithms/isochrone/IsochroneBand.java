@@ -0,0 +1,67 @@
+package com.transitnet.rpdemo.service.route.algotithms.isochrone;
+
+import com.transitnet.rpdemo.model.INode;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A band of an {@link Isochrone}. Consists of the nodes reachable within the
+ * budget of the band and a polygon covering the reachable area.
+ *
+ * @param <N> Type of node
+ */
+public final class IsochroneBand<N extends INode> {
+  /**
+   * The travel time budget of the band, in seconds.
+   */
+  private final double mBudget;
+  /**
+   * The nodes reachable within the budget.
+   */
+  private final List<N> mNodes;
+  /**
+   * The polygon covering the reachable area.
+   */
+  private final GridPolygon mPolygon;
+
+  /**
+   * Creates a new band.
+   *
+   * @param budget  The travel time budget of the band, in seconds
+   * @param nodes   The nodes reachable within the budget
+   * @param polygon The polygon covering the reachable area
+   */
+  public IsochroneBand(final double budget, final List<N> nodes, final GridPolygon polygon) {
+    mBudget = budget;
+    mNodes = nodes;
+    mPolygon = polygon;
+  }
+
+  /**
+   * Gets the travel time budget of the band.
+   *
+   * @return The budget in seconds
+   */
+  public double getBudget() {
+    return mBudget;
+  }
+
+  /**
+   * Gets the nodes reachable within the budget.
+   *
+   * @return An unmodifiable list of the reachable nodes
+   */
+  public List<N> getNodes() {
+    return Collections.unmodifiableList(mNodes);
+  }
+
+  /**
+   * Gets the polygon covering the reachable area.
+   *
+   * @return The polygon
+   */
+  public GridPolygon getPolygon() {
+    return mPolygon;
+  }
+}
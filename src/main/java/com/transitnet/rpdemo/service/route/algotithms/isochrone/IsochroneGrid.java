@@ -0,0 +1,271 @@
+package com.transitnet.rpdemo.service.route.algotithms.isochrone;
+
+import org.eclipse.collections.api.iterator.LongIterator;
+import org.eclipse.collections.impl.list.mutable.primitive.FloatArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Regular grid used to rasterize the area reachable in an isochrone. Points,
+ * line segments and discs mark the cells they cover, the union of all marked
+ * cells can then be traced into a {@link GridPolygon}.<br>
+ * <br>
+ * Cells have roughly the given size in metres. The width in degrees is
+ * adjusted to the latitude of a reference point, which is accurate enough for
+ * the extent of a city.
+ */
+final class IsochroneGrid {
+  /**
+   * The length of one degree of latitude, in metres.
+   */
+  private static final double METRES_PER_DEGREE = 111_195.0;
+
+  /**
+   * Packs the given row and column into a key.
+   *
+   * @param row    The row
+   * @param column The column
+   * @return The key of the row and column
+   */
+  private static long toKey(final int row, final int column) {
+    return (long) row << 32 | column & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Gets the column of the given key.
+   *
+   * @param key The key in question
+   * @return The column of the key
+   */
+  private static int toColumn(final long key) {
+    return (int) key;
+  }
+
+  /**
+   * Gets the row of the given key.
+   *
+   * @param key The key in question
+   * @return The row of the key
+   */
+  private static int toRow(final long key) {
+    return (int) (key >> 32);
+  }
+
+  /**
+   * The height of a cell, in degrees of latitude.
+   */
+  private final double mCellLatitude;
+  /**
+   * The width of a cell, in degrees of longitude.
+   */
+  private final double mCellLongitude;
+  /**
+   * The keys of all marked cells.
+   */
+  private final LongHashSet mCells;
+  /**
+   * The length of one degree of longitude at the reference latitude, in
+   * metres.
+   */
+  private final double mMetresPerDegreeLongitude;
+
+  /**
+   * Creates a new empty grid.
+   *
+   * @param cellSize          The size of a cell, in metres
+   * @param referenceLatitude The latitude at which cells have the given size,
+   *                          in degrees
+   */
+  IsochroneGrid(final double cellSize, final double referenceLatitude) {
+    mMetresPerDegreeLongitude = METRES_PER_DEGREE * Math.max(Math.cos(Math.toRadians(referenceLatitude)), 0.01);
+    mCellLatitude = cellSize / METRES_PER_DEGREE;
+    mCellLongitude = cellSize / mMetresPerDegreeLongitude;
+    mCells = new LongHashSet();
+  }
+
+  /**
+   * Marks all cells whose center lies within the given disc, and the cell of
+   * the center itself.
+   *
+   * @param latitude  The latitude of the center, in degrees
+   * @param longitude The longitude of the center, in degrees
+   * @param radius    The radius of the disc, in metres
+   */
+  void addDisc(final double latitude, final double longitude, final double radius) {
+    addPoint(latitude, longitude);
+    if (radius <= 0.0) {
+      return;
+    }
+    final int minRow = toRow(latitude - radius / METRES_PER_DEGREE);
+    final int maxRow = toRow(latitude + radius / METRES_PER_DEGREE);
+    final int minColumn = toColumn(longitude - radius / mMetresPerDegreeLongitude);
+    final int maxColumn = toColumn(longitude + radius / mMetresPerDegreeLongitude);
+    final double radiusSquared = radius * radius;
+    for (int row = minRow; row <= maxRow; row++) {
+      final double dy = ((row + 0.5) * mCellLatitude - latitude) * METRES_PER_DEGREE;
+      for (int column = minColumn; column <= maxColumn; column++) {
+        final double dx = ((column + 0.5) * mCellLongitude - longitude) * mMetresPerDegreeLongitude;
+        if (dx * dx + dy * dy <= radiusSquared) {
+          mCells.add(IsochroneGrid.toKey(row, column));
+        }
+      }
+    }
+  }
+
+  /**
+   * Marks the cell containing the given point.
+   *
+   * @param latitude  The latitude of the point, in degrees
+   * @param longitude The longitude of the point, in degrees
+   */
+  void addPoint(final double latitude, final double longitude) {
+    mCells.add(IsochroneGrid.toKey(toRow(latitude), toColumn(longitude)));
+  }
+
+  /**
+   * Marks all cells the given line segment passes, sampled at half the cell
+   * size.
+   *
+   * @param fromLatitude  The latitude of the start, in degrees
+   * @param fromLongitude The longitude of the start, in degrees
+   * @param toLatitude    The latitude of the end, in degrees
+   * @param toLongitude   The longitude of the end, in degrees
+   */
+  void addSegment(final double fromLatitude, final double fromLongitude, final double toLatitude,
+      final double toLongitude) {
+    final double rows = Math.abs(toLatitude - fromLatitude) / mCellLatitude;
+    final double columns = Math.abs(toLongitude - fromLongitude) / mCellLongitude;
+    final int steps = (int) Math.ceil(2 * Math.max(rows, columns));
+    for (int step = 0; step <= steps; step++) {
+      final double fraction = steps == 0 ? 0.0 : (double) step / steps;
+      addPoint(fromLatitude + fraction * (toLatitude - fromLatitude),
+          fromLongitude + fraction * (toLongitude - fromLongitude));
+    }
+  }
+
+  /**
+   * Traces the union of all marked cells into a polygon.
+   *
+   * @return The polygon covering all marked cells
+   */
+  GridPolygon toPolygon() {
+    // Collect the boundary of each cell that is not shared with another marked
+    // cell, oriented such that the cell lies to the left
+    final LongObjectHashMap<LongArrayList> vertexToNext = new LongObjectHashMap<>();
+    final LongIterator cells = mCells.longIterator();
+    while (cells.hasNext()) {
+      final long cell = cells.next();
+      final int row = IsochroneGrid.toRow(cell);
+      final int column = IsochroneGrid.toColumn(cell);
+      if (!mCells.contains(IsochroneGrid.toKey(row - 1, column))) {
+        addBoundary(vertexToNext, row, column, row, column + 1);
+      }
+      if (!mCells.contains(IsochroneGrid.toKey(row, column + 1))) {
+        addBoundary(vertexToNext, row, column + 1, row + 1, column + 1);
+      }
+      if (!mCells.contains(IsochroneGrid.toKey(row + 1, column))) {
+        addBoundary(vertexToNext, row + 1, column + 1, row + 1, column);
+      }
+      if (!mCells.contains(IsochroneGrid.toKey(row, column - 1))) {
+        addBoundary(vertexToNext, row + 1, column, row, column);
+      }
+    }
+
+    // Chain the boundary segments into rings
+    final List<float[]> rings = new ArrayList<>();
+    for (final long start : vertexToNext.keySet().toArray()) {
+      LongArrayList nexts = vertexToNext.get(start);
+      while (nexts != null && !nexts.isEmpty()) {
+        rings.add(traceRing(vertexToNext, start));
+        nexts = vertexToNext.get(start);
+      }
+    }
+    return new GridPolygon(rings, mCells.size());
+  }
+
+  /**
+   * Adds a boundary segment between the given cell corners.
+   *
+   * @param vertexToNext Map of each corner to the corners it has segments to
+   * @param fromRow      The row of the start corner
+   * @param fromColumn   The column of the start corner
+   * @param toRow        The row of the end corner
+   * @param toColumn     The column of the end corner
+   */
+  private static void addBoundary(final LongObjectHashMap<LongArrayList> vertexToNext, final int fromRow,
+      final int fromColumn, final int toRow, final int toColumn) {
+    vertexToNext.getIfAbsentPut(IsochroneGrid.toKey(fromRow, fromColumn), LongArrayList::new)
+        .add(IsochroneGrid.toKey(toRow, toColumn));
+  }
+
+  /**
+   * Gets the row of the cell containing the given latitude.
+   *
+   * @param latitude The latitude in degrees
+   * @return The row of the cell
+   */
+  private int toRow(final double latitude) {
+    return (int) Math.floor(latitude / mCellLatitude);
+  }
+
+  /**
+   * Gets the column of the cell containing the given longitude.
+   *
+   * @param longitude The longitude in degrees
+   * @return The column of the cell
+   */
+  private int toColumn(final double longitude) {
+    return (int) Math.floor(longitude / mCellLongitude);
+  }
+
+  /**
+   * Traces and removes the ring of boundary segments starting at the given
+   * corner. At corners with two choices, where marked cells only touch
+   * diagonally, the leftmost turn is taken which keeps the cells separated.
+   *
+   * @param vertexToNext Map of each corner to the corners it has segments to
+   * @param start        The corner to start at
+   * @return The ring as array of alternating latitudes and longitudes, without
+   *         collinear vertices
+   */
+  private float[] traceRing(final LongObjectHashMap<LongArrayList> vertexToNext, final long start) {
+    final FloatArrayList ring = new FloatArrayList();
+    long current = start;
+    int directionRow = 0;
+    int directionColumn = 0;
+    do {
+      final LongArrayList nexts = vertexToNext.get(current);
+      int chosen = 0;
+      int bestTurn = Integer.MIN_VALUE;
+      for (int i = 0; i < nexts.size(); i++) {
+        final int nextRow = IsochroneGrid.toRow(nexts.get(i)) - IsochroneGrid.toRow(current);
+        final int nextColumn = IsochroneGrid.toColumn(nexts.get(i)) - IsochroneGrid.toColumn(current);
+        // Cross product of both directions, positive for left turns
+        final int turn = directionColumn * nextRow - directionRow * nextColumn;
+        if (turn > bestTurn) {
+          bestTurn = turn;
+          chosen = i;
+        }
+      }
+      final long next = nexts.removeAtIndex(chosen);
+      if (nexts.isEmpty()) {
+        vertexToNext.remove(current);
+      }
+
+      final int nextDirectionRow = IsochroneGrid.toRow(next) - IsochroneGrid.toRow(current);
+      final int nextDirectionColumn = IsochroneGrid.toColumn(next) - IsochroneGrid.toColumn(current);
+      if (nextDirectionRow != directionRow || nextDirectionColumn != directionColumn) {
+        ring.add((float) (IsochroneGrid.toRow(current) * mCellLatitude));
+        ring.add((float) (IsochroneGrid.toColumn(current) * mCellLongitude));
+      }
+      directionRow = nextDirectionRow;
+      directionColumn = nextDirectionColumn;
+      current = next;
+    } while (current != start);
+    return ring.toArray();
+  }
+}
@@ -0,0 +1,122 @@
+package com.transitnet.rpdemo.service.route.algotithms.isochrone;
+
+import com.transitnet.rpdemo.model.ETransportationMode;
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.IHasId;
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.model.ISpatial;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.CompactDijkstra;
+import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Isochrone computation on a road network. A single bounded Dijkstra up to the
+ * greatest budget settles all nodes in ascending cost, every band is then a
+ * prefix of the settled nodes.<br>
+ * <br>
+ * The area of a band covers its nodes and, for each outgoing edge of them, the
+ * part of the edge that can still be travelled with the remaining budget.
+ * Edges are assumed to be straight lines between their nodes.
+ *
+ * @param <N> Type of the nodes
+ * @param <E> Type of the edges
+ */
+public final class RoadIsochroneComputation<N extends INode & IHasId & ISpatial & Serializable,
+    E extends IEdge<N> & IHasId & Serializable> implements IIsochroneComputation<N> {
+  /**
+   * The size of the grid cells the areas are rasterized with, in metres.
+   */
+  private final double mCellSize;
+  /**
+   * The algorithm computing the reachable nodes.
+   */
+  private final CompactDijkstra<N, E> mDijkstra;
+  /**
+   * The graph to compute isochrones on.
+   */
+  private final FrozenRoadGraph<N, E> mGraph;
+
+  /**
+   * Creates a new isochrone computation on the given graph.
+   *
+   * @param graph    The graph to compute isochrones on
+   * @param modes    The transportation modes to travel with
+   * @param cellSize The size of the grid cells the areas are rasterized with,
+   *                 in metres
+   */
+  public RoadIsochroneComputation(final FrozenRoadGraph<N, E> graph, final Set<ETransportationMode> modes,
+      final double cellSize) {
+    mGraph = graph;
+    mCellSize = cellSize;
+    mDijkstra = new CompactDijkstra<>(graph, modes);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.isochrone.
+   * IIsochroneComputation#computeIsochrone(java.util.Collection, double[])
+   */
+  @Override
+  public Isochrone<N> computeIsochrone(final Collection<N> sources, final double[] budgets) {
+    if (sources.isEmpty() || budgets.length == 0) {
+      return new Isochrone<>(List.of());
+    }
+
+    final IntArrayList reached = new IntArrayList();
+    final DoubleArrayList reachedCost = new DoubleArrayList();
+    mDijkstra.computeShortestPathCostsWithin(sources, budgets[budgets.length - 1], (node, cost) -> {
+      reached.add(node);
+      reachedCost.add(cost);
+    });
+
+    // Bands are nested, the grid of the previous band can be extended
+    final IsochroneGrid grid = new IsochroneGrid(mCellSize, sources.iterator().next().getLatitude());
+    final List<IsochroneBand<N>> bands = new ArrayList<>(budgets.length);
+    final List<N> nodes = new ArrayList<>();
+    int amountInBand = 0;
+    for (final double budget : budgets) {
+      while (amountInBand < reached.size() && reachedCost.get(amountInBand) <= budget) {
+        final int node = reached.get(amountInBand);
+        nodes.add(mGraph.getNode(node));
+        grid.addPoint(mGraph.getLatitude(node), mGraph.getLongitude(node));
+        amountInBand++;
+      }
+      for (int i = 0; i < amountInBand; i++) {
+        addReachableEdges(grid, reached.get(i), budget - reachedCost.get(i));
+      }
+      bands.add(new IsochroneBand<>(budget, new ArrayList<>(nodes), grid.toPolygon()));
+    }
+    return new Isochrone<>(bands);
+  }
+
+  /**
+   * Marks the parts of the outgoing edges of the given node that can be
+   * travelled with the given remaining budget.
+   *
+   * @param grid      The grid to mark the edges in
+   * @param node      The index of the node
+   * @param remaining The remaining budget at the node, in seconds
+   */
+  private void addReachableEdges(final IsochroneGrid grid, final int node, final double remaining) {
+    final double latitude = mGraph.getLatitude(node);
+    final double longitude = mGraph.getLongitude(node);
+    final int edgeEnd = mGraph.getFirstOutgoingEdge(node + 1);
+    for (int edge = mGraph.getFirstOutgoingEdge(node); edge < edgeEnd; edge++) {
+      final float cost = mDijkstra.getEdgeCost(edge);
+      if (cost == Float.POSITIVE_INFINITY) {
+        continue;
+      }
+      final double fraction = cost <= remaining ? 1.0 : remaining / cost;
+      final int target = mGraph.getEdgeTarget(edge);
+      grid.addSegment(latitude, longitude, latitude + fraction * (mGraph.getLatitude(target) - latitude),
+          longitude + fraction * (mGraph.getLongitude(target) - longitude));
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.transitnet.rpdemo.service.route.algotithms.isochrone;
+
+import com.transitnet.rpdemo.model.ICoreNode;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IHasPathCost;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.connectionscan.ConnectionScan;
+import com.transitnet.rpdemo.util.RoutingUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Isochrone computation on a transit network. A single profile-free
+ * {@link ConnectionScan} up to the greatest budget computes the earliest
+ * arrival at all reachable stops. Connections departing after the budget is
+ * exhausted are not scanned.<br>
+ * <br>
+ * The area of a band covers, for each source and each stop reached within the
+ * budget, the disc that can be walked with the remaining budget. Walking is
+ * approximated by the straight line distance at walking speed.
+ */
+public final class TransitIsochroneComputation implements IIsochroneComputation<ICoreNode> {
+  /**
+   * The size of the grid cells the areas are rasterized with, in metres.
+   */
+  private final double mCellSize;
+  /**
+   * The algorithm computing the reachable stops.
+   */
+  private final ConnectionScan mConnectionScan;
+
+  /**
+   * Creates a new isochrone computation using the given algorithm.
+   *
+   * @param connectionScan The algorithm computing the reachable stops
+   * @param cellSize       The size of the grid cells the areas are rasterized
+   *                       with, in metres
+   */
+  public TransitIsochroneComputation(final ConnectionScan connectionScan, final double cellSize) {
+    mConnectionScan = connectionScan;
+    mCellSize = cellSize;
+  }
+
+  /**
+   * Computes the isochrone of the given sources for the given budgets. The
+   * sources must be nodes at a stop with their departure time, the starting
+   * time is taken from the first source.
+   */
+  @Override
+  public Isochrone<ICoreNode> computeIsochrone(final Collection<ICoreNode> sources, final double[] budgets) {
+    if (sources.isEmpty() || budgets.length == 0) {
+      return new Isochrone<>(List.of());
+    }
+
+    final Map<ICoreNode, ? extends IHasPathCost> stopToCost = mConnectionScan.computeShortestPathCostsWithin(sources,
+        (int) Math.ceil(budgets[budgets.length - 1]));
+    final List<ICoreNode> reached = new ArrayList<>(stopToCost.keySet());
+    reached.sort(Comparator.comparingDouble(stop -> stopToCost.get(stop).getPathCost()));
+
+    final double walkingSpeed = RoutingUtil.kmhToMs(RoutingUtil.getWalkingSpeed());
+    final List<IsochroneBand<ICoreNode>> bands = new ArrayList<>(budgets.length);
+    int amountInBand = 0;
+    for (final double budget : budgets) {
+      while (amountInBand < reached.size() && stopToCost.get(reached.get(amountInBand)).getPathCost() <= budget) {
+        amountInBand++;
+      }
+
+      // Discs shrink with growing cost, the grid can not be shared across bands
+      final IsochroneGrid grid = new IsochroneGrid(mCellSize, sources.iterator().next().getLatitude());
+      for (final ICoreNode source : sources) {
+        grid.addDisc(source.getLatitude(), source.getLongitude(), budget * walkingSpeed);
+      }
+      for (int i = 0; i < amountInBand; i++) {
+        final ICoreNode stop = reached.get(i);
+        final double remaining = budget - stopToCost.get(stop).getPathCost();
+        grid.addDisc(stop.getLatitude(), stop.getLongitude(), remaining * walkingSpeed);
+      }
+      bands.add(new IsochroneBand<>(budget, new ArrayList<>(reached.subList(0, amountInBand)), grid.toPolygon()));
+    }
+    return new Isochrone<>(bands);
+  }
+}
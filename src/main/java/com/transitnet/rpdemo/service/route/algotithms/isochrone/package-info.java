@@ -0,0 +1,5 @@
+/**
+ * Contains isochrone computations, which determine the area reachable from
+ * given sources within given travel time budgets.
+ */
+package com.transitnet.rpdemo.service.route.algotithms.isochrone;
@@ -0,0 +1,190 @@
+package com.transitnet.rpdemo.service.route.algotithms.metrics.landmark;
+
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.service.route.algotithms.metrics.IMetric;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Query-scoped metric which approximates distances by using only a small set
+ * of <i>active</i> landmarks of a {@link LandmarkMetric}. Create instances
+ * using {@link LandmarkMetric#createActiveMetric(INode, INode, int)}.<br>
+ * <br>
+ * Initially the landmarks giving the best estimates between source and
+ * destination of the query are active. Periodically, while the metric is
+ * evaluated, the estimate of all landmarks is computed for the evaluated
+ * nodes. If an inactive landmark gives a clearly better estimate it is
+ * activated, up to twice the initial amount of landmarks. Landmarks are never
+ * deactivated, estimates thus only grow and stay admissible. Algorithms using
+ * the metric must take care of estimates that grew while nodes were queued,
+ * see {@link #getAmountOfUpdates()}.<br>
+ * <br>
+ * The metric is not thread-safe and must only be used for one query at a
+ * time.
+ *
+ * @param <N> The type of the nodes and landmarks
+ */
+public final class ActiveLandmarkMetric<N extends INode> implements IMetric<N> {
+  /**
+   * Factor by which the estimate of an inactive landmark must exceed the
+   * estimate of the active landmarks in order to activate it.
+   */
+  private static final float IMPROVEMENT_FACTOR = 1.01F;
+  /**
+   * Amount of evaluations after which inactive landmarks are checked.
+   */
+  private static final int UPDATE_INTERVAL = 256;
+
+  /**
+   * The positions of the active landmarks, only the first
+   * {@link #mAmountOfActive} entries are used.
+   */
+  private final int[] mActive;
+  /**
+   * The amount of active landmarks.
+   */
+  private int mAmountOfActive;
+  /**
+   * The amount of times landmarks were activated after creation.
+   */
+  private int mAmountOfUpdates;
+  /**
+   * The amount of evaluations of the metric so far.
+   */
+  private int mEvaluations;
+  /**
+   * Whether the landmark at a given position is active.
+   */
+  private final boolean[] mIsActive;
+  /**
+   * The metric providing the landmarks and their distances.
+   */
+  private final LandmarkMetric<N, ?, ?> mMetric;
+
+  /**
+   * Creates a new metric which activates the landmarks giving the best
+   * estimates between the given source and destination.
+   *
+   * @param metric           The metric providing the landmarks and their
+   *                         distances
+   * @param sourceIndex      The index of the source, may be
+   *                         {@link LandmarkMetric#NO_INDEX}
+   * @param destinationIndex The index of the destination, may be
+   *                         {@link LandmarkMetric#NO_INDEX}
+   * @param amount           The amount of landmarks to activate initially
+   */
+  ActiveLandmarkMetric(final LandmarkMetric<N, ?, ?> metric, final int sourceIndex, final int destinationIndex,
+      final int amount) {
+    mMetric = metric;
+    final int amountOfLandmarks = metric.getLandmarks().size();
+    mIsActive = new boolean[amountOfLandmarks];
+    mActive = new int[Math.min(2 * amount, amountOfLandmarks)];
+
+    final IntStream candidates = IntStream.range(0, amountOfLandmarks);
+    if (sourceIndex == LandmarkMetric.NO_INDEX || destinationIndex == LandmarkMetric.NO_INDEX) {
+      candidates.limit(amount).forEach(this::activate);
+      return;
+    }
+    candidates.boxed()
+        .sorted(Comparator.comparingDouble(
+            (final Integer landmark) -> metric.distance(sourceIndex, destinationIndex, landmark)).reversed())
+        .limit(amount).forEach(this::activate);
+  }
+
+  /**
+   * Approximates the distance between the given two nodes by using the active
+   * landmarks. Periodically checks whether further landmarks should be
+   * activated.
+   */
+  @Override
+  public double distance(final N first, final N second) {
+    final int firstIndex = mMetric.getIndex(first);
+    final int secondIndex = mMetric.getIndex(second);
+    if (firstIndex == LandmarkMetric.NO_INDEX || secondIndex == LandmarkMetric.NO_INDEX) {
+      return 0.0;
+    }
+
+    float greatestDistance = 0.0F;
+    for (int i = 0; i < mAmountOfActive; i++) {
+      final float distance = mMetric.distance(firstIndex, secondIndex, mActive[i]);
+      if (distance > greatestDistance) {
+        greatestDistance = distance;
+      }
+    }
+
+    mEvaluations++;
+    if (mEvaluations % UPDATE_INTERVAL == 0 && mAmountOfActive < mActive.length) {
+      greatestDistance = Math.max(greatestDistance, update(firstIndex, secondIndex, greatestDistance));
+    }
+    return greatestDistance;
+  }
+
+  /**
+   * Gets the currently active landmarks.
+   *
+   * @return The active landmarks in the order they were activated
+   */
+  public List<N> getActiveLandmarks() {
+    final List<N> landmarks = new ArrayList<>(mAmountOfActive);
+    for (int i = 0; i < mAmountOfActive; i++) {
+      landmarks.add(mMetric.getLandmark(mActive[i]));
+    }
+    return landmarks;
+  }
+
+  /**
+   * Gets the amount of times landmarks were activated after creation. As long
+   * as this is <code>0</code> the estimates did not change.
+   *
+   * @return The amount of updates
+   */
+  public int getAmountOfUpdates() {
+    return mAmountOfUpdates;
+  }
+
+  /**
+   * Activates the landmark at the given position.
+   *
+   * @param landmark The position of the landmark
+   */
+  private void activate(final int landmark) {
+    mIsActive[landmark] = true;
+    mActive[mAmountOfActive] = landmark;
+    mAmountOfActive++;
+  }
+
+  /**
+   * Activates the inactive landmark giving the best estimate between the given
+   * nodes, if it clearly improves the estimate of the active landmarks.
+   *
+   * @param firstIndex     The index of the first node
+   * @param secondIndex    The index of the second node
+   * @param activeDistance The estimate of the active landmarks
+   * @return The estimate of the activated landmark, or <code>0.0</code> if none
+   *         was activated
+   */
+  private float update(final int firstIndex, final int secondIndex, final float activeDistance) {
+    int bestLandmark = LandmarkMetric.NO_INDEX;
+    float bestDistance = activeDistance * IMPROVEMENT_FACTOR;
+    for (int landmark = 0; landmark < mIsActive.length; landmark++) {
+      if (mIsActive[landmark]) {
+        continue;
+      }
+      final float distance = mMetric.distance(firstIndex, secondIndex, landmark);
+      if (distance > bestDistance) {
+        bestDistance = distance;
+        bestLandmark = landmark;
+      }
+    }
+
+    if (bestLandmark == LandmarkMetric.NO_INDEX) {
+      return 0.0F;
+    }
+    activate(bestLandmark);
+    mAmountOfUpdates++;
+    return bestDistance;
+  }
+}
@@ -0,0 +1,282 @@
+package com.transitnet.rpdemo.service.route.algotithms.metrics.landmark;
+
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.IGraph;
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IHasPathCost;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IShortestPathComputation;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.Dijkstra;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.TentativeDistance;
+import org.eclipse.collections.api.map.primitive.ObjectDoubleMap;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectDoubleHashMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Implementation of a landmark provider that uses the <i>avoid</i> strategy
+ * by Goldberg and Werneck.<br>
+ * <br>
+ * For each new landmark a shortest path tree is grown from a root node. Every
+ * node is weighted by how much the current landmarks underestimate its
+ * distance to the root. The landmark is then chosen as leaf of the tree,
+ * descending from the root into the subtree of greatest weight, skipping
+ * subtrees which already contain a landmark. It is thus placed behind the
+ * region worst covered by the current landmarks.<br>
+ * <br>
+ * Roots are drawn from a random number generator with a fixed seed, such that
+ * the selection is reproducible. The distance searches of each new landmark
+ * and the tree of the next root are computed in parallel.
+ *
+ * @param <N> Type of the nodes and landmarks
+ * @param <E> Type of the edges
+ * @param <G> Type of the graph
+ */
+public final class AvoidLandmarks<N extends INode, E extends IEdge<N>, G extends IGraph<N, E>>
+    implements ILandmarkProvider<N> {
+  /**
+   * The seed to use for the selection of roots if none is given.
+   */
+  private static final long DEFAULT_SEED = 0L;
+
+  /**
+   * Computes the shortest path distances from the given source to all
+   * reachable nodes.
+   *
+   * @param           <N> Type of the nodes
+   * @param computation The algorithm to use
+   * @param source      The source to start at
+   * @return Map connecting all reachable nodes to their distance
+   */
+  static <N extends INode> ObjectDoubleMap<N> computeDistances(
+      final IShortestPathComputation<N, ? extends IEdge<N>> computation, final N source) {
+    final Map<N, ? extends IHasPathCost> nodeToDistance = computation.computeShortestPathCostsReachable(source);
+    final ObjectDoubleHashMap<N> distances = new ObjectDoubleHashMap<>(nodeToDistance.size());
+    for (final Entry<N, ? extends IHasPathCost> entry : nodeToDistance.entrySet()) {
+      distances.put(entry.getKey(), entry.getValue().getPathCost());
+    }
+    return distances;
+  }
+
+  /**
+   * Algorithm to use for computing distances against the edge direction.
+   */
+  private final Dijkstra<N, E> mBackward;
+  /**
+   * Algorithm to use for computing distances and trees along the edge
+   * direction.
+   */
+  private final Dijkstra<N, E> mForward;
+  /**
+   * The graph to operate on.
+   */
+  private final G mGraph;
+  /**
+   * The seed of the random number generator used for selecting roots.
+   */
+  private final long mSeed;
+
+  /**
+   * Creates a new landmark provider which generates landmarks on the given
+   * graph, using a default seed.
+   *
+   * @param graph The graph to select landmarks from
+   */
+  public AvoidLandmarks(final G graph) {
+    this(graph, DEFAULT_SEED);
+  }
+
+  /**
+   * Creates a new landmark provider which generates landmarks on the given
+   * graph.
+   *
+   * @param graph The graph to select landmarks from
+   * @param seed  The seed of the random number generator used for selecting
+   *              roots
+   */
+  public AvoidLandmarks(final G graph, final long seed) {
+    mGraph = graph;
+    mSeed = seed;
+    mForward = new Dijkstra<>(graph.forwardView());
+    mBackward = new Dijkstra<>(graph.backwardView());
+  }
+
+  /**
+   * Selects landmarks using the <i>avoid</i> strategy. Each landmark requires
+   * three shortest path searches on the whole graph, thus, depending on the
+   * graph size and the amount of landmarks, the landmark selection might take
+   * a while.
+   */
+  @Override
+  public Collection<N> getLandmarks(final int amount) {
+    return getLandmarks(amount, new ArrayList<>(), new ArrayList<>());
+  }
+
+  /**
+   * Selects landmarks using the <i>avoid</i> strategy and provides the
+   * distances computed during the selection.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<N> getLandmarks(final int amount, final List<ObjectDoubleMap<N>> fromLandmarks,
+      final List<ObjectDoubleMap<N>> toLandmarks) {
+    if (amount <= 0) {
+      return Collections.emptyList();
+    }
+    final int amountToUse = Math.min(amount, mGraph.size());
+    final List<N> nodes = new ArrayList<>(mGraph.getNodes());
+    final Random random = new Random(mSeed);
+
+    final List<N> landmarks = new ArrayList<>(amountToUse);
+    final Set<N> isLandmark = new HashSet<>(amountToUse);
+    N root = nodes.get(random.nextInt(nodes.size()));
+    Map<N, ? extends IHasPathCost> tree = mForward.computeShortestPathCostsReachable(root);
+    while (landmarks.size() < amountToUse) {
+      N landmark = selectLandmark(root, (Map<N, TentativeDistance<N, E>>) tree, fromLandmarks, toLandmarks,
+          isLandmark);
+      while (landmark == null || isLandmark.contains(landmark)) {
+        // Everything around the root is covered, fall back to any other node
+        landmark = nodes.get(random.nextInt(nodes.size()));
+      }
+      landmarks.add(landmark);
+      isLandmark.add(landmark);
+
+      // Compute the distances of the new landmark and the tree of the next
+      // root in parallel
+      final boolean isLast = landmarks.size() == amountToUse;
+      final N nextRoot = nodes.get(random.nextInt(nodes.size()));
+      final N searchLandmark = landmark;
+      final Object[] results = new Object[3];
+      IntStream.range(0, isLast ? 2 : 3).parallel().forEach(task -> {
+        if (task == 0) {
+          results[task] = AvoidLandmarks.computeDistances(mForward, searchLandmark);
+        } else if (task == 1) {
+          results[task] = AvoidLandmarks.computeDistances(mBackward, searchLandmark);
+        } else {
+          results[task] = mForward.computeShortestPathCostsReachable(nextRoot);
+        }
+      });
+      fromLandmarks.add((ObjectDoubleMap<N>) results[0]);
+      toLandmarks.add((ObjectDoubleMap<N>) results[1]);
+      root = nextRoot;
+      tree = (Map<N, ? extends IHasPathCost>) results[2];
+    }
+    return landmarks;
+  }
+
+  /**
+   * Selects the next landmark in the given shortest path tree.
+   *
+   * @param root          The root of the tree
+   * @param tree          The shortest path tree, connecting all nodes reached
+   *                      from the root to their distance and parent edge
+   * @param fromLandmarks The distances from the current landmarks to all nodes
+   * @param toLandmarks   The distances from all nodes to the current landmarks
+   * @param isLandmark    The current landmarks
+   * @return The selected leaf, or <code>null</code> if all subtrees already
+   *         contain a landmark or are covered perfectly
+   */
+  private N selectLandmark(final N root, final Map<N, TentativeDistance<N, E>> tree,
+      final List<ObjectDoubleMap<N>> fromLandmarks, final List<ObjectDoubleMap<N>> toLandmarks,
+      final Set<N> isLandmark) {
+    final Map<N, List<N>> nodeToChildren = new HashMap<>(tree.size());
+    for (final TentativeDistance<N, E> distance : tree.values()) {
+      final E parentEdge = distance.getParentEdge();
+      if (parentEdge != null) {
+        nodeToChildren.computeIfAbsent(parentEdge.getSource(), node -> new ArrayList<>()).add(distance.getNode());
+      }
+    }
+
+    // Order the nodes such that children come before their parents
+    final List<N> preOrder = new ArrayList<>(tree.size());
+    final Deque<N> stack = new ArrayDeque<>();
+    stack.push(root);
+    while (!stack.isEmpty()) {
+      final N node = stack.pop();
+      preOrder.add(node);
+      nodeToChildren.getOrDefault(node, Collections.emptyList()).forEach(stack::push);
+    }
+
+    // The size of a subtree is the sum of the weights of its nodes, or 0 if it
+    // contains a landmark
+    final ObjectDoubleHashMap<N> nodeToSize = new ObjectDoubleHashMap<>(tree.size());
+    final Set<N> containsLandmark = new HashSet<>();
+    for (int i = preOrder.size() - 1; i >= 0; i--) {
+      final N node = preOrder.get(i);
+      boolean hasLandmark = isLandmark.contains(node);
+      double size = tree.get(node).getPathCost() - lowerBound(root, node, fromLandmarks, toLandmarks);
+      for (final N child : nodeToChildren.getOrDefault(node, Collections.emptyList())) {
+        hasLandmark |= containsLandmark.contains(child);
+        size += nodeToSize.get(child);
+      }
+      if (hasLandmark) {
+        containsLandmark.add(node);
+        size = 0.0;
+      }
+      nodeToSize.put(node, size);
+    }
+    if (nodeToSize.get(root) <= 0.0) {
+      return null;
+    }
+
+    // Descend into the heaviest subtree until a leaf is reached
+    N node = root;
+    while (true) {
+      N heaviestChild = null;
+      double heaviestSize = 0.0;
+      for (final N child : nodeToChildren.getOrDefault(node, Collections.emptyList())) {
+        final double size = nodeToSize.get(child);
+        if (size > heaviestSize) {
+          heaviestSize = size;
+          heaviestChild = child;
+        }
+      }
+      if (heaviestChild == null) {
+        return node;
+      }
+      node = heaviestChild;
+    }
+  }
+
+  /**
+   * Computes the lower bound of the distance between the given nodes given by
+   * the current landmarks.
+   *
+   * @param first         The first node
+   * @param second        The second node
+   * @param fromLandmarks The distances from the current landmarks to all nodes
+   * @param toLandmarks   The distances from all nodes to the current landmarks
+   * @return The greatest lower bound of all landmarks, at least
+   *         <code>0.0</code>
+   */
+  private double lowerBound(final N first, final N second, final List<ObjectDoubleMap<N>> fromLandmarks,
+      final List<ObjectDoubleMap<N>> toLandmarks) {
+    double greatestBound = 0.0;
+    for (int i = 0; i < fromLandmarks.size(); i++) {
+      final ObjectDoubleMap<N> fromLandmark = fromLandmarks.get(i);
+      final ObjectDoubleMap<N> toLandmark = toLandmarks.get(i);
+      // Ignore the landmark if anyone can not reach it
+      if (!fromLandmark.containsKey(first) || !fromLandmark.containsKey(second) || !toLandmark.containsKey(first)
+          || !toLandmark.containsKey(second)) {
+        continue;
+      }
+      final double bound = Math.max(toLandmark.get(first) - toLandmark.get(second),
+          fromLandmark.get(second) - fromLandmark.get(first));
+      if (bound > greatestBound) {
+        greatestBound = bound;
+      }
+    }
+    return greatestBound;
+  }
+}
@@ -0,0 +1,53 @@
+package com.transitnet.rpdemo.service.route.algotithms.metrics.landmark;
+
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.IGraph;
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.model.ISpatial;
+
+/**
+ * Strategies for selecting landmarks, each corresponding to an
+ * {@link ILandmarkProvider}.
+ */
+public enum ELandmarkStrategy {
+  /**
+   * Landmarks are selected by {@link AvoidLandmarks}.
+   */
+  AVOID,
+  /**
+   * Landmarks are selected by {@link GreedyFarthestLandmarks}.
+   */
+  GREEDY_FARTHEST,
+  /**
+   * Landmarks are selected by {@link MaxCoverLandmarks}.
+   */
+  MAX_COVER,
+  /**
+   * Landmarks are selected by {@link PlanarLandmarks}.
+   */
+  PLANAR,
+  /**
+   * Landmarks are selected by {@link RandomLandmarks}.
+   */
+  RANDOM;
+
+  /**
+   * Creates the landmark provider of this strategy for the given graph.
+   *
+   * @param       <N> Type of the nodes and landmarks
+   * @param       <E> Type of the edges
+   * @param       <G> Type of the graph
+   * @param graph The graph to select landmarks from
+   * @return The created provider
+   */
+  public <N extends INode & ISpatial, E extends IEdge<N>, G extends IGraph<N, E>> ILandmarkProvider<N> createProvider(
+      final G graph) {
+    return switch (this) {
+      case AVOID -> new AvoidLandmarks<>(graph);
+      case GREEDY_FARTHEST -> new GreedyFarthestLandmarks<>(graph);
+      case MAX_COVER -> new MaxCoverLandmarks<>(graph);
+      case PLANAR -> new PlanarLandmarks<>(graph);
+      case RANDOM -> new RandomLandmarks<>(graph);
+    };
+  }
+}
@@ -34,10 +34,6 @@ public final class GreedyFarthestLandmarks<N extends INode, E extends IEdge<N>,
    * The graph to operate on.
    */
   private final G mGraph;
-  /**
-   * The random number generator to use for selection of the first landmark.
-   */
-  private final Random mRandom;
 
   /**
    * Creates a new landmark provider which generates landmarks on the given
@@ -47,7 +43,6 @@ public final class GreedyFarthestLandmarks<N extends INode, E extends IEdge<N>,
    */
   public GreedyFarthestLandmarks(final G graph) {
     mGraph = graph;
-    mRandom = new Random();
     mComputation = new Dijkstra<>(graph);
   }
 
@@ -71,27 +66,15 @@ public final class GreedyFarthestLandmarks<N extends INode, E extends IEdge<N>,
       amountToUse = mGraph.size();
     }
 
+    // Choose the first landmark as the node farthest away from an arbitrary
+    // start node, such that the selection is deterministic
     final Collection<N> landmarks = new ArrayList<>(amountToUse);
-    final Collection<N> nodes = mGraph.getNodes();
-
-    // Choose the first landmark randomly
-    final int index = mRandom.nextInt(nodes.size());
-    // If the nodes support RandomAccess, fetch it directly
-    if (nodes instanceof RandomAccess && nodes instanceof List) {
-      landmarks.add(((List<N>) nodes).get(index));
-    } else {
-      // Iterate to the node and skip previous values
-      final Iterator<N> nodeIter = nodes.iterator();
-      for (int i = 0; i < index; i++) {
-        nodeIter.next();
-      }
-      landmarks.add(nodeIter.next());
-    }
+    landmarks.add(mGraph.getNodes().iterator().next());
 
     // Iteratively select the node which is farthest away from the current
     // landmarks
-    // Start by one since we already have the first landmark
-    for (int i = 1; i < amountToUse; i++) {
+    // The start node is replaced by the first landmark in the first round
+    for (int i = 0; i < amountToUse; i++) {
       // Compute shortest path distances to all nodes
       final Map<N, ? extends IHasPathCost> nodeToDistance = mComputation.computeShortestPathCostsReachable(landmarks);
 
@@ -107,6 +90,9 @@ public final class GreedyFarthestLandmarks<N extends INode, E extends IEdge<N>,
         }
       }
       // Add the farthest node
+      if (i == 0) {
+        landmarks.clear();
+      }
       landmarks.add(farthestNode);
     }
 
@@ -1,6 +1,10 @@
 package com.transitnet.rpdemo.service.route.algotithms.metrics.landmark;
 
+import org.eclipse.collections.api.map.primitive.ObjectDoubleMap;
+
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Interface for classes that provide landmarks. Landmark are special nodes on a
@@ -23,4 +27,25 @@ public interface ILandmarkProvider<E> {
    *         method should get all the resource offers.
    */
   Collection<E> getLandmarks(int amount);
+
+  /**
+   * Provides the given amount of landmarks together with the shortest path
+   * distances between them and all nodes, if the selection computed those
+   * anyway. Callers then need not compute them again.<br>
+   * <br>
+   * The default implementation provides no distances.
+   *
+   * @param amount        The amount of landmarks to provide
+   * @param fromLandmarks List to add the distances from each provided landmark
+   *                      to all reachable nodes to, in order of the landmarks.
+   *                      Left empty if the distances are not known.
+   * @param toLandmarks   List to add the distances from all nodes to each
+   *                      provided landmark to, in order of the landmarks. Left
+   *                      empty if the distances are not known.
+   * @return The provided landmarks, see {@link #getLandmarks(int)}
+   */
+  default List<E> getLandmarks(final int amount, final List<ObjectDoubleMap<E>> fromLandmarks,
+      final List<ObjectDoubleMap<E>> toLandmarks) {
+    return new ArrayList<>(getLandmarks(amount));
+  }
 }
@@ -7,20 +7,32 @@ import com.transitnet.rpdemo.service.route.algotithms.metrics.IMetric;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IHasPathCost;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IShortestPathComputation;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.Dijkstra;
-import com.transitnet.rpdemo.util.NestedDoubleMap;
+import org.eclipse.collections.api.map.primitive.ObjectDoubleMap;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.ToDoubleBiFunction;
+import java.util.stream.IntStream;
 
 /**
  * Implements the a metric for nodes by using landmarks.<br>
  * <br>
  * Given two objects it approximates the distance by comparing shortest paths
  * from the objects to the landmarks. The distance depends on the underlying
- * distance model of the graph, i.e. the format used by the edge cost.
+ * distance model of the graph, i.e. the format used by the edge cost.<br>
+ * <br>
+ * The distances are stored in dense node-major tables, i.e. the distances of
+ * one node to all landmarks are adjacent, such that evaluating the metric is a
+ * linear scan. Distances of unreachable pairs are stored as
+ * {@link Float#POSITIVE_INFINITY}.
  *
  * @author Daniel Tischner {@literal <zabuza.dev@gmail.com>}
  * @param <N> The type of the nodes and landmarks
@@ -32,20 +44,63 @@ public final class LandmarkMetric<N extends INode, E extends IEdge<N>, G extends
    * Logger to use for logging.
    */
   private static final Logger LOGGER = LoggerFactory.getLogger(LandmarkMetric.class);
+  /**
+   * Constant for a node that is not contained in the tables.
+   */
+  static final int NO_INDEX = -1;
+
+  /**
+   * Assigns each of the given nodes a dense index, in iteration order.
+   *
+   * @param <N>   The type of the nodes
+   * @param nodes The nodes to index
+   * @return Map connecting the nodes to their index
+   */
+  private static <N> ObjectIntHashMap<N> indexNodes(final Collection<N> nodes) {
+    final ObjectIntHashMap<N> nodeToIndex = new ObjectIntHashMap<>(nodes.size());
+    for (final N node : nodes) {
+      nodeToIndex.put(node, nodeToIndex.size());
+    }
+    return nodeToIndex;
+  }
+
+  /**
+   * Converts the given distance into its representation in the tables.
+   *
+   * @param distance The distance to convert
+   * @return The distance as float, {@link Float#POSITIVE_INFINITY} if it is not
+   *         finite
+   */
+  private static float toTableDistance(final double distance) {
+    if (!Double.isFinite(distance)) {
+      return Float.POSITIVE_INFINITY;
+    }
+    return (float) distance;
+  }
+
   /**
    * Landmarks to use for computing the metric.
    */
-  private Collection<N> mLandmarks;
+  private List<N> mLandmarks;
   /**
-   * Nested map that connects landmarks to all other nodes and the corresponding
-   * shortest path distance.
+   * Table of the shortest path distances from the landmarks to all nodes. The
+   * distance from the <code>i</code>-th landmark to the node with index
+   * <code>v</code> is at <code>v * amountOfLandmarks + i</code>.
    */
-  private final NestedDoubleMap<N, N> mLandmarkToNodeDistance;
+  private float[] mLandmarkToNodeDistance;
   /**
-   * Nested map that connects all nodes to the landmarks and the corresponding
-   * shortest path distance.
+   * Map connecting the landmarks to their position in {@link #mLandmarks}.
    */
-  private final NestedDoubleMap<N, N> mNodeToLandmarkDistance;
+  private final ObjectIntHashMap<N> mLandmarkToPosition;
+  /**
+   * Table of the shortest path distances from all nodes to the landmarks,
+   * arranged like {@link #mLandmarkToNodeDistance}.
+   */
+  private float[] mNodeToLandmarkDistance;
+  /**
+   * Map connecting all nodes to their dense index into the tables.
+   */
+  private final ObjectIntHashMap<N> mNodeToIndex;
 
   /**
    * Creates a new landmark metric that uses the given amount of landmarks
@@ -63,13 +118,56 @@ public final class LandmarkMetric<N extends INode, E extends IEdge<N>, G extends
    * @param landmarkProvider The provider to use for generation of the landmarks
    */
   public LandmarkMetric(final int amount, final G graph, final ILandmarkProvider<N> landmarkProvider) {
-    // TODO Evaluate whether double can be exchanged by float for distances to
-    // optimize space
-    mLandmarkToNodeDistance = new NestedDoubleMap<>(amount);
-    mNodeToLandmarkDistance = new NestedDoubleMap<>(graph.size());
-    mNodeToLandmarkDistance.setNestedInitialCapacity(amount);
+    mNodeToIndex = LandmarkMetric.indexNodes(graph.getNodes());
+    mLandmarkToPosition = new ObjectIntHashMap<>(amount);
 
-    initialize(amount, graph, landmarkProvider, new Dijkstra<>(graph));
+    initialize(amount, graph, landmarkProvider, new Dijkstra<>(graph.forwardView()),
+        new Dijkstra<>(graph.backwardView()));
+  }
+
+  /**
+   * Creates a new landmark metric from already computed distances, for example
+   * loaded from a model snapshot.<br>
+   * <br>
+   * Distances which are not finite are interpreted as unreachable.
+   *
+   * @param landmarks      The landmarks to use
+   * @param nodes          All nodes of the graph the distances were computed on
+   * @param landmarkToNode Function that provides the shortest path distance from
+   *                       a landmark to a node
+   * @param nodeToLandmark Function that provides the shortest path distance from
+   *                       a node to a landmark
+   */
+  public LandmarkMetric(final Collection<N> landmarks, final Collection<N> nodes,
+      final ToDoubleBiFunction<N, N> landmarkToNode, final ToDoubleBiFunction<N, N> nodeToLandmark) {
+    mNodeToIndex = LandmarkMetric.indexNodes(nodes);
+    mLandmarkToPosition = new ObjectIntHashMap<>(landmarks.size());
+    setLandmarks(landmarks);
+
+    final int amountOfLandmarks = mLandmarks.size();
+    for (int i = 0; i < amountOfLandmarks; i++) {
+      final N landmark = mLandmarks.get(i);
+      for (final N node : nodes) {
+        final int position = mNodeToIndex.get(node) * amountOfLandmarks + i;
+        mLandmarkToNodeDistance[position] = LandmarkMetric.toTableDistance(landmarkToNode.applyAsDouble(landmark, node));
+        mNodeToLandmarkDistance[position] = LandmarkMetric.toTableDistance(nodeToLandmark.applyAsDouble(node, landmark));
+      }
+    }
+  }
+
+  /**
+   * Creates a query-scoped metric which only uses the given amount of
+   * landmarks, selected as the ones giving the best estimate between the given
+   * source and destination. The selection grows while the metric is used, see
+   * {@link ActiveLandmarkMetric}.
+   *
+   * @param source      The source of the query
+   * @param destination The destination of the query
+   * @param amount      The amount of landmarks to select initially
+   * @return The created metric, it must only be used for one query at a time
+   */
+  public ActiveLandmarkMetric<N> createActiveMetric(final N source, final N destination, final int amount) {
+    return new ActiveLandmarkMetric<>(this, getIndex(source), getIndex(destination), amount);
   }
 
   /**
@@ -80,23 +178,16 @@ public final class LandmarkMetric<N extends INode, E extends IEdge<N>, G extends
    */
   @Override
   public double distance(final N first, final N second) {
-    double greatestDistance = 0.0;
-    for (final N landmark : mLandmarks) {
-      // Ignore the landmark if anyone can not reach it
-      if (!mNodeToLandmarkDistance.contains(first, landmark) || !mNodeToLandmarkDistance.contains(second, landmark)
-          || !mLandmarkToNodeDistance.contains(landmark, second)
-          || !mLandmarkToNodeDistance.contains(landmark, first)) {
-        continue;
-      }
-
-      final double firstToLandmark = mNodeToLandmarkDistance.get(first, landmark);
-      final double secondToLandmark = mNodeToLandmarkDistance.get(second, landmark);
-      final double landmarkToSecond = mLandmarkToNodeDistance.get(landmark, second);
-      final double landmarkToFirst = mLandmarkToNodeDistance.get(landmark, first);
+    final int firstIndex = getIndex(first);
+    final int secondIndex = getIndex(second);
+    if (firstIndex == NO_INDEX || secondIndex == NO_INDEX) {
+      return 0.0;
+    }
 
-      final double landmarkBehindDestination = firstToLandmark - secondToLandmark;
-      final double landmarkBeforeSource = landmarkToSecond - landmarkToFirst;
-      final double distance = Math.max(landmarkBehindDestination, landmarkBeforeSource);
+    final int amountOfLandmarks = mLandmarks.size();
+    float greatestDistance = 0.0F;
+    for (int i = 0; i < amountOfLandmarks; i++) {
+      final float distance = distance(firstIndex, secondIndex, i);
       if (distance > greatestDistance) {
         greatestDistance = distance;
       }
@@ -105,49 +196,185 @@ public final class LandmarkMetric<N extends INode, E extends IEdge<N>, G extends
     return greatestDistance;
   }
 
+  /**
+   * Approximates the distance between the given two nodes by using only the
+   * given landmark.
+   *
+   * @param firstIndex  The index of the first node
+   * @param secondIndex The index of the second node
+   * @param landmark    The position of the landmark
+   * @return The approximated distance, <code>0.0</code> if anyone can not reach
+   *         the landmark
+   */
+  float distance(final int firstIndex, final int secondIndex, final int landmark) {
+    final int amountOfLandmarks = mLandmarks.size();
+    final float firstToLandmark = mNodeToLandmarkDistance[firstIndex * amountOfLandmarks + landmark];
+    final float secondToLandmark = mNodeToLandmarkDistance[secondIndex * amountOfLandmarks + landmark];
+    final float landmarkToSecond = mLandmarkToNodeDistance[secondIndex * amountOfLandmarks + landmark];
+    final float landmarkToFirst = mLandmarkToNodeDistance[firstIndex * amountOfLandmarks + landmark];
+    // Ignore the landmark if anyone can not reach it
+    if (firstToLandmark == Float.POSITIVE_INFINITY || secondToLandmark == Float.POSITIVE_INFINITY
+        || landmarkToSecond == Float.POSITIVE_INFINITY || landmarkToFirst == Float.POSITIVE_INFINITY) {
+      return 0.0F;
+    }
+
+    final float landmarkBehindDestination = firstToLandmark - secondToLandmark;
+    final float landmarkBeforeSource = landmarkToSecond - landmarkToFirst;
+    return Math.max(landmarkBehindDestination, landmarkBeforeSource);
+  }
+
+  /**
+   * Gets the index of the given node in the distance tables.
+   *
+   * @param node The node in question
+   * @return The index of the node or {@link #NO_INDEX} if the node is unknown
+   */
+  int getIndex(final N node) {
+    return mNodeToIndex.getIfAbsent(node, NO_INDEX);
+  }
+
+  /**
+   * Gets the landmark at the given position.
+   *
+   * @param position The position of the landmark
+   * @return The landmark
+   */
+  N getLandmark(final int position) {
+    return mLandmarks.get(position);
+  }
+
+  /**
+   * Gets the shortest path distance from the given landmark to the given node.
+   *
+   * @param landmark The landmark
+   * @param node     The node
+   * @return The distance or {@link Double#POSITIVE_INFINITY} if the node can
+   *         not be reached from the landmark
+   */
+  public double getLandmarkToNodeDistance(final N landmark, final N node) {
+    return getDistance(mLandmarkToNodeDistance, landmark, node);
+  }
+
+  /**
+   * Gets the landmarks used by this metric.
+   *
+   * @return An unmodifiable collection of the landmarks
+   */
+  public Collection<N> getLandmarks() {
+    return Collections.unmodifiableCollection(mLandmarks);
+  }
+
+  /**
+   * Gets the shortest path distance from the given node to the given landmark.
+   *
+   * @param node     The node
+   * @param landmark The landmark
+   * @return The distance or {@link Double#POSITIVE_INFINITY} if the landmark
+   *         can not be reached from the node
+   */
+  public double getNodeToLandmarkDistance(final N node, final N landmark) {
+    return getDistance(mNodeToLandmarkDistance, landmark, node);
+  }
+
+  /**
+   * Gets the distance between the given landmark and node from the given
+   * table.
+   *
+   * @param table    The table to look up
+   * @param landmark The landmark
+   * @param node     The node
+   * @return The distance or {@link Double#POSITIVE_INFINITY} if unknown or
+   *         unreachable
+   */
+  private double getDistance(final float[] table, final N landmark, final N node) {
+    final int position = mLandmarkToPosition.getIfAbsent(landmark, NO_INDEX);
+    final int index = getIndex(node);
+    if (position == NO_INDEX || index == NO_INDEX) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return table[index * mLandmarks.size() + position];
+  }
+
   /**
    * Initializes this metric. It generates landmarks using the given provider
    * and computes shortest path distances from the landmarks to all nodes and
    * vice versa.<br>
    * <br>
+   * The searches of all landmarks in both directions run in parallel on the
+   * common fork-join pool. Each search holds its own state and writes only its
+   * own entries of the tables, the given algorithms must thus be safe to use
+   * concurrently.<br>
+   * <br>
    * Depending on the size of the graph and the amount of landmarks this method
    * may take a while.
    *
    * @param amount           The amount of landmarks to generate
    * @param graph            The graph to operate on
    * @param landmarkProvider The provider to use to generate landmarks
-   * @param computation      The algorithm to use for computing shortest paths
+   * @param forward          The algorithm to use for computing shortest paths
+   *                         from the landmarks
+   * @param backward         The algorithm to use for computing shortest paths
+   *                         to the landmarks, it must operate against the edge
+   *                         direction
    */
   private void initialize(final int amount, final G graph, final ILandmarkProvider<N> landmarkProvider,
-      final IShortestPathComputation<N, E> computation) {
+      final IShortestPathComputation<N, E> forward, final IShortestPathComputation<N, E> backward) {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("Computing landmarks");
     }
-    mLandmarks = landmarkProvider.getLandmarks(amount);
+    final List<ObjectDoubleMap<N>> fromLandmarks = new ArrayList<>();
+    final List<ObjectDoubleMap<N>> toLandmarks = new ArrayList<>();
+    setLandmarks(landmarkProvider.getLandmarks(amount, fromLandmarks, toLandmarks));
+    final int amountOfLandmarks = mLandmarks.size();
+    final boolean hasDistances =
+        fromLandmarks.size() == amountOfLandmarks && toLandmarks.size() == amountOfLandmarks;
 
-    // Compute distances from landmarks to all other nodes
+    // Compute distances from landmarks to all other nodes and vice versa,
+    // unless the provider computed them during the selection already. All
+    // searches run in parallel and only share the read-only graph.
     if (LOGGER.isDebugEnabled()) {
-      LOGGER.debug("Computing distances from {} landmarks to {} nodes", mLandmarks.size(), graph.size());
+      LOGGER.debug("{} distances between {} landmarks and {} nodes", hasDistances ? "Storing" : "Computing",
+          amountOfLandmarks, graph.size());
     }
-    for (final N landmark : mLandmarks) {
-      final Map<N, ? extends IHasPathCost> nodeToDistance = computation.computeShortestPathCostsReachable(landmark);
-      mLandmarkToNodeDistance.setNestedInitialCapacity(nodeToDistance.size());
-      for (final Entry<N, ? extends IHasPathCost> entry : nodeToDistance.entrySet()) {
-        mLandmarkToNodeDistance.put(landmark, entry.getKey(), entry.getValue().getPathCost());
+    IntStream.range(0, 2 * amountOfLandmarks).parallel().forEach(search -> {
+      final boolean isForward = search < amountOfLandmarks;
+      final int position = isForward ? search : search - amountOfLandmarks;
+      final float[] table = isForward ? mLandmarkToNodeDistance : mNodeToLandmarkDistance;
+      if (hasDistances) {
+        (isForward ? fromLandmarks : toLandmarks).get(position).forEachKeyValue((node, distance) -> {
+          final int index = getIndex(node);
+          if (index != NO_INDEX) {
+            table[index * amountOfLandmarks + position] = (float) distance;
+          }
+        });
+        return;
       }
-    }
-
-    // Compute distances from all nodes to landmarks
-    if (LOGGER.isDebugEnabled()) {
-      LOGGER.debug("Computing distances from {} nodes to {} landmarks", graph.size(), mLandmarks.size());
-    }
-    graph.reverse();
-    for (final N landmark : mLandmarks) {
-      final Map<N, ? extends IHasPathCost> nodeToDistance = computation.computeShortestPathCostsReachable(landmark);
+      final Map<N, ? extends IHasPathCost> nodeToDistance =
+          (isForward ? forward : backward).computeShortestPathCostsReachable(mLandmarks.get(position));
       for (final Entry<N, ? extends IHasPathCost> entry : nodeToDistance.entrySet()) {
-        mNodeToLandmarkDistance.put(entry.getKey(), landmark, entry.getValue().getPathCost());
+        final int index = getIndex(entry.getKey());
+        if (index != NO_INDEX) {
+          table[index * amountOfLandmarks + position] = (float) entry.getValue().getPathCost();
+        }
       }
+    });
+  }
+
+  /**
+   * Sets the landmarks of this metric and allocates the tables for them. All
+   * distances are initially unreachable.
+   *
+   * @param landmarks The landmarks to set
+   */
+  private void setLandmarks(final Collection<N> landmarks) {
+    mLandmarks = new ArrayList<>(landmarks);
+    for (int i = 0; i < mLandmarks.size(); i++) {
+      mLandmarkToPosition.put(mLandmarks.get(i), i);
     }
-    graph.reverse();
+    final int tableSize = mNodeToIndex.size() * mLandmarks.size();
+    mLandmarkToNodeDistance = new float[tableSize];
+    mNodeToLandmarkDistance = new float[tableSize];
+    Arrays.fill(mLandmarkToNodeDistance, Float.POSITIVE_INFINITY);
+    Arrays.fill(mNodeToLandmarkDistance, Float.POSITIVE_INFINITY);
   }
 }
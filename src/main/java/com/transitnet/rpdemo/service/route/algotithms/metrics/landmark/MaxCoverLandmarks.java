@@ -0,0 +1,143 @@
+package com.transitnet.rpdemo.service.route.algotithms.metrics.landmark;
+
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.IGraph;
+import com.transitnet.rpdemo.model.INode;
+import org.eclipse.collections.api.map.primitive.ObjectDoubleMap;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Implementation of a landmark provider that uses a <i>max-cover</i> strategy
+ * based on the one by Goldberg and Werneck.<br>
+ * <br>
+ * A larger set of candidates is selected by {@link AvoidLandmarks}. An edge is
+ * <i>covered</i> by a candidate if the lower bound of the candidate is tight
+ * along the edge, i.e. the edge lies on a shortest path from or to the
+ * candidate. Landmarks are then greedily chosen from the candidates, each
+ * time taking the candidate covering the most edges not covered yet. The
+ * coverage of all candidates is evaluated in parallel.
+ *
+ * @param <N> Type of the nodes and landmarks
+ * @param <E> Type of the edges
+ * @param <G> Type of the graph
+ */
+public final class MaxCoverLandmarks<N extends INode, E extends IEdge<N>, G extends IGraph<N, E>>
+    implements ILandmarkProvider<N> {
+  /**
+   * The factor of candidates to select per landmark.
+   */
+  private static final int CANDIDATES_PER_LANDMARK = 2;
+  /**
+   * Relative tolerance for considering a lower bound tight along an edge.
+   */
+  private static final double TIGHTNESS_TOLERANCE = 1e-6;
+
+  /**
+   * The provider selecting the candidates.
+   */
+  private final AvoidLandmarks<N, E, G> mCandidateProvider;
+  /**
+   * The graph to operate on.
+   */
+  private final G mGraph;
+
+  /**
+   * Creates a new landmark provider which generates landmarks on the given
+   * graph.
+   *
+   * @param graph The graph to select landmarks from
+   */
+  public MaxCoverLandmarks(final G graph) {
+    mGraph = graph;
+    mCandidateProvider = new AvoidLandmarks<>(graph);
+  }
+
+  /**
+   * Greedily selects the landmarks covering the most edges out of a larger set
+   * of candidates. Each candidate requires three shortest path searches on the
+   * whole graph, thus, depending on the graph size and the amount of
+   * landmarks, the landmark selection might take a while.
+   */
+  @Override
+  public Collection<N> getLandmarks(final int amount) {
+    return getLandmarks(amount, new ArrayList<>(), new ArrayList<>());
+  }
+
+  /**
+   * Greedily selects the landmarks covering the most edges out of a larger set
+   * of candidates and provides the distances of the chosen candidates, which
+   * were computed during their selection.
+   */
+  @Override
+  public List<N> getLandmarks(final int amount, final List<ObjectDoubleMap<N>> fromLandmarks,
+      final List<ObjectDoubleMap<N>> toLandmarks) {
+    if (amount <= 0) {
+      return Collections.emptyList();
+    }
+    final List<ObjectDoubleMap<N>> fromCandidates = new ArrayList<>();
+    final List<ObjectDoubleMap<N>> toCandidates = new ArrayList<>();
+    final List<N> candidates =
+        mCandidateProvider.getLandmarks(CANDIDATES_PER_LANDMARK * amount, fromCandidates, toCandidates);
+    if (candidates.size() <= amount) {
+      fromLandmarks.addAll(fromCandidates);
+      toLandmarks.addAll(toCandidates);
+      return candidates;
+    }
+
+    // Compute the edges covered by each candidate
+    final List<E> edges = mGraph.getEdges().collect(Collectors.toList());
+    final BitSet[] candidateToCover = new BitSet[candidates.size()];
+    IntStream.range(0, candidates.size()).parallel().forEach(candidate -> {
+      final ObjectDoubleMap<N> fromCandidate = fromCandidates.get(candidate);
+      final ObjectDoubleMap<N> toCandidate = toCandidates.get(candidate);
+      final BitSet cover = new BitSet(edges.size());
+      for (int i = 0; i < edges.size(); i++) {
+        final E edge = edges.get(i);
+        final N source = edge.getSource();
+        final N destination = edge.getDestination();
+        final double tolerance = TIGHTNESS_TOLERANCE * Math.max(1.0, edge.getCost());
+        final double minimalBound = edge.getCost() - tolerance;
+        if (fromCandidate.containsKey(source) && fromCandidate.containsKey(destination)
+            && fromCandidate.get(destination) - fromCandidate.get(source) >= minimalBound
+            || toCandidate.containsKey(source) && toCandidate.containsKey(destination)
+                && toCandidate.get(source) - toCandidate.get(destination) >= minimalBound) {
+          cover.set(i);
+        }
+      }
+      candidateToCover[candidate] = cover;
+    });
+
+    // Greedily choose the candidate covering the most uncovered edges
+    final List<N> landmarks = new ArrayList<>(amount);
+    final BitSet covered = new BitSet(edges.size());
+    final boolean[] isChosen = new boolean[candidates.size()];
+    while (landmarks.size() < amount) {
+      int bestCandidate = -1;
+      int bestCover = -1;
+      for (int candidate = 0; candidate < candidates.size(); candidate++) {
+        if (isChosen[candidate]) {
+          continue;
+        }
+        final BitSet newlyCovered = (BitSet) candidateToCover[candidate].clone();
+        newlyCovered.andNot(covered);
+        if (newlyCovered.cardinality() > bestCover) {
+          bestCover = newlyCovered.cardinality();
+          bestCandidate = candidate;
+        }
+      }
+      isChosen[bestCandidate] = true;
+      covered.or(candidateToCover[bestCandidate]);
+      landmarks.add(candidates.get(bestCandidate));
+      fromLandmarks.add(fromCandidates.get(bestCandidate));
+      toLandmarks.add(toCandidates.get(bestCandidate));
+    }
+    return landmarks;
+  }
+}
@@ -0,0 +1,113 @@
+package com.transitnet.rpdemo.service.route.algotithms.metrics.landmark;
+
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.IGraph;
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.model.ISpatial;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.Dijkstra;
+import org.eclipse.collections.api.map.primitive.ObjectDoubleMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implementation of a landmark provider that uses the <i>planar</i> strategy
+ * by Goldberg and Harrelson.<br>
+ * <br>
+ * The plane is divided into equally sized angular sectors around the node
+ * closest to the geographic center of the graph. In each sector the node
+ * farthest away from the center, by shortest path distance, becomes a
+ * landmark. The landmarks thus lie on the border of the graph, spread evenly
+ * in all directions. The selection needs only one shortest path search and is
+ * deterministic.
+ *
+ * @param <N> Type of the nodes and landmarks
+ * @param <E> Type of the edges
+ * @param <G> Type of the graph
+ */
+public final class PlanarLandmarks<N extends INode & ISpatial, E extends IEdge<N>, G extends IGraph<N, E>>
+    implements ILandmarkProvider<N> {
+  /**
+   * The graph to operate on.
+   */
+  private final G mGraph;
+
+  /**
+   * Creates a new landmark provider which generates landmarks on the given
+   * graph.
+   *
+   * @param graph The graph to select landmarks from
+   */
+  public PlanarLandmarks(final G graph) {
+    mGraph = graph;
+  }
+
+  /**
+   * Selects the farthest node of each sector around the center as landmark. If
+   * sectors contain no reachable nodes, the remaining landmarks are the
+   * farthest nodes not selected yet.
+   */
+  @Override
+  public Collection<N> getLandmarks(final int amount) {
+    if (amount <= 0 || mGraph.size() == 0) {
+      return Collections.emptyList();
+    }
+    final int amountToUse = Math.min(amount, mGraph.size());
+
+    // Find the node closest to the geographic center
+    double latitudeSum = 0.0;
+    double longitudeSum = 0.0;
+    for (final N node : mGraph.getNodes()) {
+      latitudeSum += node.getLatitude();
+      longitudeSum += node.getLongitude();
+    }
+    final double centerLatitude = latitudeSum / mGraph.size();
+    final double centerLongitude = longitudeSum / mGraph.size();
+    final double longitudeScale = Math.cos(Math.toRadians(centerLatitude));
+    final N center = mGraph.getNodes().stream().min(Comparator.comparingDouble(node -> {
+      final double dy = node.getLatitude() - centerLatitude;
+      final double dx = (node.getLongitude() - centerLongitude) * longitudeScale;
+      return dx * dx + dy * dy;
+    })).orElseThrow();
+
+    final ObjectDoubleMap<N> distances =
+        AvoidLandmarks.computeDistances(new Dijkstra<>(mGraph.forwardView()), center);
+
+    // Select the farthest node of each sector
+    final List<N> farthestOfSector = new ArrayList<>(Collections.nCopies(amountToUse, null));
+    final double[] farthestDistance = new double[amountToUse];
+    distances.forEachKeyValue((node, distance) -> {
+      final double angle = Math.atan2(node.getLatitude() - center.getLatitude(),
+          (node.getLongitude() - center.getLongitude()) * longitudeScale);
+      final int sector = Math.min((int) ((angle + Math.PI) / (2 * Math.PI) * amountToUse), amountToUse - 1);
+      if (distance > farthestDistance[sector]) {
+        farthestDistance[sector] = distance;
+        farthestOfSector.set(sector, node);
+      }
+    });
+
+    final List<N> landmarks = new ArrayList<>(amountToUse);
+    final Set<N> isLandmark = new HashSet<>(amountToUse);
+    for (final N node : farthestOfSector) {
+      if (node != null) {
+        landmarks.add(node);
+        isLandmark.add(node);
+      }
+    }
+    if (landmarks.size() == amountToUse) {
+      return landmarks;
+    }
+
+    // Fill up with the farthest remaining nodes, unreachable ones last
+    final List<N> remaining = new ArrayList<>(mGraph.getNodes());
+    remaining.removeIf(isLandmark::contains);
+    remaining.sort(Comparator.comparingDouble((final N node) -> distances.getIfAbsent(node, -1.0)).reversed());
+    landmarks.addAll(remaining.subList(0, amountToUse - landmarks.size()));
+    return landmarks;
+  }
+}
@@ -2,10 +2,17 @@ package com.transitnet.rpdemo.service.route.algotithms.nearestneighbor;
 
 import com.transitnet.rpdemo.model.ISpatial;
 import com.transitnet.rpdemo.service.route.algotithms.metrics.IMetric;
+import org.eclipse.collections.api.stack.primitive.MutableIntStack;
 import org.eclipse.collections.impl.block.factory.Comparators;
+import org.eclipse.collections.impl.factory.primitive.IntStacks;
 import org.eclipse.collections.impl.list.mutable.FastList;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -52,6 +59,71 @@ public final class CoverTree<E extends ISpatial> implements INearestNeighborComp
     return FastList.newList();
   }
 
+  /**
+   * Restores a tree from the given input which was previously written by
+   * {@link #writeTo(DataOutput, ToIntFunction)}. The structure of the tree is
+   * restored directly, elements are not inserted again.
+   *
+   * @param <E>         Type of the objects contained in the tree
+   * @param input       The input to read from, positioned at the start of the
+   *                    tree data. The position is advanced to its end.
+   * @param idToElement Function that decodes elements from their IDs
+   * @param metric      The metric to use for determining distance between
+   *                    elements
+   * @return The restored tree
+   * @throws IllegalArgumentException If the tree data uses a different amount
+   *                                  of levels than supported by this
+   *                                  implementation
+   */
+  public static <E extends ISpatial> CoverTree<E> readFrom(final ByteBuffer input, final IntFunction<E> idToElement,
+      final IMetric<E> metric) throws IllegalArgumentException {
+    final CoverTree<E> tree = new CoverTree<>(input.getDouble(), metric);
+    tree.mMaxNumLevels = input.getInt();
+    tree.mMinNumLevels = input.getInt();
+    tree.mMaxMinLevel = input.getInt();
+    tree.mMaxLevel = input.getInt();
+    tree.mMinLevel = input.getInt();
+    tree.mHasBounds = input.get() != 0;
+    tree.mMinLat = input.getFloat();
+    tree.mMinLong = input.getFloat();
+    tree.mMaxLat = input.getFloat();
+    tree.mMaxLong = input.getFloat();
+    final int amountOfLevels = input.getInt();
+    if (amountOfLevels != tree.mNumLevels.length) {
+      throw new IllegalArgumentException("Unsupported amount of levels: " + amountOfLevels);
+    }
+    for (int i = 0; i < amountOfLevels; i++) {
+      tree.mNumLevels[i] = input.getInt();
+    }
+
+    final boolean hasRoot = input.get() != 0;
+    if (!hasRoot) {
+      return tree;
+    }
+
+    // Nodes are stored in pre-order, each followed by its amount of children
+    tree.mRootNode = new Node<>(null, idToElement.apply(input.getInt()));
+    final Deque<Node<E>> parents = new ArrayDeque<>();
+    final MutableIntStack remainingChildren = IntStacks.mutable.empty();
+    parents.push(tree.mRootNode);
+    remainingChildren.push(input.getInt());
+    while (!parents.isEmpty()) {
+      if (remainingChildren.peek() == 0) {
+        parents.pop();
+        remainingChildren.pop();
+        continue;
+      }
+      remainingChildren.push(remainingChildren.pop() - 1);
+
+      final Node<E> parent = parents.peek();
+      final Node<E> child = new Node<>(parent, idToElement.apply(input.getInt()));
+      parent.addChild(child);
+      parents.push(child);
+      remainingChildren.push(input.getInt());
+    }
+    return tree;
+  }
+
   /**
    * The base of the tree.
    */
@@ -568,6 +640,55 @@ public final class CoverTree<E extends ISpatial> implements INearestNeighborComp
     return sum;
   }
 
+  /**
+   * Writes the structure of this tree to the given output, such that it can be
+   * restored by {@link #readFrom(ByteBuffer, IntFunction, IMetric)} without
+   * inserting all elements again.<br>
+   * <br>
+   * Elements themselves are not written, they are encoded by the given
+   * function instead.
+   *
+   * @param output      The output to write to
+   * @param elementToId Function that encodes elements by an ID
+   * @throws IOException If an I/O exception occurred while writing
+   */
+  public synchronized void writeTo(final DataOutput output, final ToIntFunction<E> elementToId) throws IOException {
+    output.writeDouble(mBase);
+    output.writeInt(mMaxNumLevels);
+    output.writeInt(mMinNumLevels);
+    output.writeInt(mMaxMinLevel);
+    output.writeInt(mMaxLevel);
+    output.writeInt(mMinLevel);
+    output.writeBoolean(mHasBounds);
+    output.writeFloat(mMinLat);
+    output.writeFloat(mMinLong);
+    output.writeFloat(mMaxLat);
+    output.writeFloat(mMaxLong);
+    output.writeInt(mNumLevels.length);
+    for (final int amount : mNumLevels) {
+      output.writeInt(amount);
+    }
+
+    output.writeBoolean(mRootNode != null);
+    if (mRootNode == null) {
+      return;
+    }
+
+    // Write the nodes in pre-order, each followed by its amount of children
+    final Deque<Node<E>> nodesToWrite = new ArrayDeque<>();
+    nodesToWrite.push(mRootNode);
+    while (!nodesToWrite.isEmpty()) {
+      final Node<E> node = nodesToWrite.pop();
+      final List<Node<E>> children = node.peekChildren();
+      output.writeInt(elementToId.applyAsInt(node.getElement()));
+      output.writeInt(children.size());
+      // Push in reverse order to preserve the order of the children
+      for (int i = children.size() - 1; i >= 0; i--) {
+        nodesToWrite.push(children.get(i));
+      }
+    }
+  }
+
   /**
    * Returns whether two elements are at the same location.
    *
@@ -76,6 +76,17 @@ public final class Node<E> implements Comparable<Node<E>> {
     return mChildren;
   }
 
+  /**
+   * Gets a list of the children of this node as currently present. Unlike
+   * {@link #getChildren()} the node does not add a child to itself if it did
+   * not contain children already.
+   *
+   * @return A list of the children of this node, backed by the node
+   */
+  List<Node<E>> peekChildren() {
+    return mChildren;
+  }
+
   /**
    * Gets the distance of the node.
    *
@@ -0,0 +1,193 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath;
+
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.INode;
+import org.eclipse.collections.api.block.procedure.primitive.IntDoubleProcedure;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Computes the shortest path costs of large batches of independent queries in
+ * parallel, for offline workloads.<br>
+ * <br>
+ * Queries run on a dedicated {@link ForkJoinPool} with the given parallelism.
+ * Every worker thread creates its own engine on first usage and reuses it, as
+ * well as the thread-local workspaces of the engine, for all its queries.
+ * Engines are thus never shared between threads.<br>
+ * <br>
+ * Streams of queries are consumed in chunks of {@link #CHUNK_SIZE}. The next
+ * chunk is already computed while the results of the previous one are passed
+ * on, so at most two chunks of queries and results are held in memory at any
+ * time. The batch must be closed after usage to shut down its worker threads.
+ *
+ * @param <N> Type of node
+ * @param <E> Type of edge
+ */
+public final class BatchShortestPathComputation<N extends INode, E extends IEdge<N>> implements AutoCloseable {
+  /**
+   * The amount of queries of a stream that are computed at once.
+   */
+  public static final int CHUNK_SIZE = 1 << 14;
+
+  /**
+   * The engine of the current worker thread.
+   */
+  private final ThreadLocal<IShortestPathComputation<N, E>> mEngine;
+  /**
+   * The pool to run the queries on.
+   */
+  private final ForkJoinPool mPool;
+
+  /**
+   * Creates a new batch computation.
+   *
+   * @param engineSupplier Supplier which creates an engine for a worker
+   *                       thread, called once per worker
+   * @param parallelism    The amount of worker threads to use
+   */
+  public BatchShortestPathComputation(final Supplier<IShortestPathComputation<N, E>> engineSupplier,
+      final int parallelism) {
+    mEngine = ThreadLocal.withInitial(engineSupplier);
+    mPool = new ForkJoinPool(parallelism);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.AutoCloseable#close()
+   */
+  @Override
+  public void close() {
+    mPool.shutdown();
+  }
+
+  /**
+   * Computes the shortest path costs of all given queries.
+   *
+   * @param queries The queries to compute
+   * @return The costs, in the order of the queries, or
+   *         {@link Double#POSITIVE_INFINITY} if the destination of a query is
+   *         not reachable
+   */
+  public double[] computeCosts(final List<ShortestPathQuery<N>> queries) {
+    final double[] costs = new double[queries.size()];
+    mPool.submit(() -> IntStream.range(0, queries.size()).parallel()
+        .forEach(i -> costs[i] = computeCost(queries.get(i)))).join();
+    return costs;
+  }
+
+  /**
+   * Computes the shortest path costs of all queries of the given stream and
+   * passes them to the given consumer.<br>
+   * <br>
+   * If the results are ordered the consumer is called on the calling thread in
+   * the order of the queries. Otherwise it is called on the worker threads as
+   * soon as a query has finished and must be thread-safe.
+   *
+   * @param queries  The queries to compute
+   * @param ordered  Whether the results are passed in the order of the queries
+   * @param consumer The consumer to pass the results to. It accepts the
+   *                 position of the query in the stream and its cost, which is
+   *                 {@link Double#POSITIVE_INFINITY} if the destination is not
+   *                 reachable.
+   */
+  public void computeCosts(final Stream<ShortestPathQuery<N>> queries, final boolean ordered,
+      final IntDoubleProcedure consumer) {
+    final Iterator<ShortestPathQuery<N>> iterator = queries.iterator();
+    ForkJoinTask<double[]> pending = null;
+    int pendingStart = 0;
+    int chunkStart = 0;
+    while (pending != null || iterator.hasNext()) {
+      // Submit the next chunk before finishing the pending one, so that it is
+      // computed while the results of the pending chunk are passed on
+      ForkJoinTask<double[]> next = null;
+      final int nextStart = chunkStart;
+      if (iterator.hasNext()) {
+        final List<ShortestPathQuery<N>> chunk = BatchShortestPathComputation.nextChunk(iterator);
+        next = submitChunk(chunk, nextStart, ordered ? null : consumer);
+        chunkStart += chunk.size();
+      }
+
+      if (pending != null) {
+        final double[] costs = pending.join();
+        if (ordered) {
+          for (int i = 0; i < costs.length; i++) {
+            consumer.value(pendingStart + i, costs[i]);
+          }
+        }
+      }
+      pending = next;
+      pendingStart = nextStart;
+    }
+  }
+
+  /**
+   * Gets the parallelism of this batch computation.
+   *
+   * @return The amount of worker threads
+   */
+  public int getParallelism() {
+    return mPool.getParallelism();
+  }
+
+  /**
+   * Collects the next chunk of queries from the given iterator.
+   *
+   * @param <N>      Type of node
+   * @param iterator The iterator to collect from, must have a next element
+   * @return The chunk, containing at most {@link #CHUNK_SIZE} queries
+   */
+  private static <N extends INode> List<ShortestPathQuery<N>> nextChunk(
+      final Iterator<ShortestPathQuery<N>> iterator) {
+    final List<ShortestPathQuery<N>> chunk = new ArrayList<>(CHUNK_SIZE);
+    while (iterator.hasNext() && chunk.size() < CHUNK_SIZE) {
+      chunk.add(iterator.next());
+    }
+    return chunk;
+  }
+
+  /**
+   * Computes the cost of the given query with the engine of the current
+   * thread.
+   *
+   * @param query The query to compute
+   * @return The cost, or {@link Double#POSITIVE_INFINITY} if the destination is
+   *         not reachable
+   */
+  private double computeCost(final ShortestPathQuery<N> query) {
+    return mEngine.get().computeShortestPathCost(query.getSources(), query.getDestination())
+        .orElse(Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Submits the computation of the given chunk of queries to the pool.
+   *
+   * @param chunk    The queries of the chunk
+   * @param offset   The position of the first query of the chunk in the stream
+   * @param consumer The consumer to pass the results to as soon as a query has
+   *                 finished, or <code>null</code> if the results are collected
+   * @return The task computing the chunk. It yields the costs in the order of
+   *         the queries, or <code>null</code> if a consumer was given.
+   */
+  private ForkJoinTask<double[]> submitChunk(final List<ShortestPathQuery<N>> chunk, final int offset,
+      final IntDoubleProcedure consumer) {
+    return mPool.submit(() -> {
+      final double[] costs = consumer == null ? new double[chunk.size()] : null;
+      IntStream.range(0, chunk.size()).parallel().forEach(i -> {
+        final double cost = computeCost(chunk.get(i));
+        if (costs == null) {
+          consumer.value(offset + i, cost);
+        } else {
+          costs[i] = cost;
+        }
+      });
+      return costs;
+    });
+  }
+}
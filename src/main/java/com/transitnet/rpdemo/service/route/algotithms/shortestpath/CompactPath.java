@@ -0,0 +1,180 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath;
+
+import com.transitnet.rpdemo.model.EdgeCost;
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.IHasId;
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.model.IPath;
+import com.transitnet.rpdemo.model.ISpatial;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Implementation of a {@link IPath} on a {@link FrozenRoadGraph} which only
+ * stores the dense indices of its edges and their costs.<br>
+ * <br>
+ * Does not support empty paths, use {@link EmptyPath} instead. The
+ * {@link EdgeCost} elements are only created when iterating the path, the
+ * total cost and the geometry are available without touching any edge
+ * objects.
+ *
+ * @param <N> Type of the node
+ * @param <E> Type of the edge
+ */
+public final class CompactPath<N extends INode & IHasId & ISpatial & Serializable,
+    E extends IEdge<N> & IHasId & Serializable> implements IPath<N, E> {
+  /**
+   * The costs of the edges, in travel order.
+   */
+  private final float[] mCosts;
+  /**
+   * The dense indices of the edges, in travel order.
+   */
+  private final int[] mEdges;
+  /**
+   * The graph the edges belong to.
+   */
+  private final FrozenRoadGraph<N, E> mGraph;
+  /**
+   * The total cost of the path, i.e. the sum of all edges cost.
+   */
+  private final double mTotalCost;
+
+  /**
+   * Creates a new path which consists of the given edges. The arrays are used
+   * directly and must not be changed afterwards.
+   *
+   * @param graph The graph the edges belong to
+   * @param edges The dense indices of the edges, in travel order, not empty
+   * @param costs The costs of the edges, in the same order
+   */
+  public CompactPath(final FrozenRoadGraph<N, E> graph, final int[] edges, final float[] costs) {
+    mGraph = graph;
+    mEdges = edges;
+    mCosts = costs;
+    double totalCost = 0.0;
+    for (final float cost : costs) {
+      totalCost += cost;
+    }
+    mTotalCost = totalCost;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.model.IPath#getDestination()
+   */
+  @Override
+  public N getDestination() {
+    return mGraph.getNode(mGraph.getEdgeTarget(mEdges[mEdges.length - 1]));
+  }
+
+  /**
+   * Gets the cost of the edge at the given position.
+   *
+   * @param position The position of the edge in the path
+   * @return The cost of the edge
+   */
+  public float getEdgeCost(final int position) {
+    return mCosts[position];
+  }
+
+  /**
+   * Gets the modes allowed on the edge at the given position. Does not create
+   * any edge objects.
+   *
+   * @param position The position of the edge in the path
+   * @return The bit mask of allowed modes, see
+   *         {@link FrozenRoadGraph#getEdgeModes(int)}
+   */
+  public byte getEdgeModes(final int position) {
+    return mGraph.getEdgeModes(mEdges[position]);
+  }
+
+  /**
+   * Gets the dense index of the edge at the given position.
+   *
+   * @param position The position of the edge in the path
+   * @return The index of the edge in the graph
+   */
+  public int getEdgeIndex(final int position) {
+    return mEdges[position];
+  }
+
+  /**
+   * Gets the geometry of the path, that are the coordinates of its nodes in
+   * travel order. Does not create any node objects.
+   *
+   * @return The latitude and longitude of each node, interleaved
+   */
+  public float[] getGeometry() {
+    final float[] geometry = new float[2 * (mEdges.length + 1)];
+    int node = mGraph.getEdgeSource(mEdges[0]);
+    geometry[0] = mGraph.getLatitude(node);
+    geometry[1] = mGraph.getLongitude(node);
+    for (int i = 0; i < mEdges.length; i++) {
+      node = mGraph.getEdgeTarget(mEdges[i]);
+      geometry[2 * i + 2] = mGraph.getLatitude(node);
+      geometry[2 * i + 3] = mGraph.getLongitude(node);
+    }
+    return geometry;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.model.IPath#getSource()
+   */
+  @Override
+  public N getSource() {
+    return mGraph.getNode(mGraph.getEdgeSource(mEdges[0]));
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.model.IPath#getTotalCost()
+   */
+  @Override
+  public double getTotalCost() {
+    return mTotalCost;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Iterable#iterator()
+   */
+  @Override
+  public Iterator<EdgeCost<N, E>> iterator() {
+    return new Iterator<>() {
+      /**
+       * The position of the next edge to return.
+       */
+      private int mPosition;
+
+      @Override
+      public boolean hasNext() {
+        return mPosition < mEdges.length;
+      }
+
+      @Override
+      public EdgeCost<N, E> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final int position = mPosition;
+        mPosition++;
+        return new EdgeCost<>(mGraph.getEdge(mEdges[position]), mCosts[position]);
+      }
+    };
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.model.IPath#length()
+   */
+  @Override
+  public int length() {
+    return mEdges.length;
+  }
+}
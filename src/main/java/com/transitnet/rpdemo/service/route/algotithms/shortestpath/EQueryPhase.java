@@ -0,0 +1,29 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath;
+
+/**
+ * Phases of a shortest path query whose wall time is recorded in
+ * {@link QueryStatistics}.
+ */
+public enum EQueryPhase {
+  /**
+   * Computation of access nodes and of the road paths between them and the
+   * sources and destination.
+   */
+  ACCESS,
+  /**
+   * Construction of the resulting path from the search data.
+   */
+  PATH_CONSTRUCTION,
+  /**
+   * Computation of the road only path.
+   */
+  ROAD,
+  /**
+   * The search of the algorithm itself.
+   */
+  SEARCH,
+  /**
+   * Computation of the transit paths between access nodes.
+   */
+  TRANSIT
+}
@@ -0,0 +1,51 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath;
+
+import com.transitnet.rpdemo.model.INode;
+
+import java.util.List;
+
+/**
+ * Interface for algorithms that are able to compute the shortest path costs
+ * between all pairs of given sources and destinations at once, also known as
+ * <i>distance matrix</i>.<br>
+ * <br>
+ * Implementations share work between the pairs and are much faster than
+ * computing the cost of each pair individually.
+ *
+ * @param <N> Type of node
+ */
+public interface IManyToManyComputation<N extends INode> {
+  /**
+   * Computes the shortest path costs between all pairs of the given sources
+   * and destinations.
+   *
+   * @param sources      The sources to compute the costs from
+   * @param destinations The destinations to compute the costs to
+   * @return The costs as matrix, <code>matrix[i][j]</code> is the cost from the
+   *         <code>i</code>-th source to the <code>j</code>-th destination, or
+   *         {@link Double#POSITIVE_INFINITY} if it is not reachable
+   */
+  default double[][] computeCostMatrix(final List<N> sources, final List<N> destinations) {
+    final double[] costs = computeCosts(sources, destinations);
+    final int amountOfDestinations = destinations.size();
+    final double[][] matrix = new double[sources.size()][];
+    for (int i = 0; i < matrix.length; i++) {
+      matrix[i] = new double[amountOfDestinations];
+      System.arraycopy(costs, i * amountOfDestinations, matrix[i], 0, amountOfDestinations);
+    }
+    return matrix;
+  }
+
+  /**
+   * Computes the shortest path costs between all pairs of the given sources
+   * and destinations.
+   *
+   * @param sources      The sources to compute the costs from
+   * @param destinations The destinations to compute the costs to
+   * @return The costs in row-major order, the entry at
+   *         <code>i * destinations.size() + j</code> is the cost from the
+   *         <code>i</code>-th source to the <code>j</code>-th destination, or
+   *         {@link Double#POSITIVE_INFINITY} if it is not reachable
+   */
+  double[] computeCosts(List<N> sources, List<N> destinations);
+}
@@ -57,6 +57,28 @@ public interface IShortestPathComputation<N extends INode, E extends IEdge<N>> {
    */
   Optional<IPath<N, E>> computeShortestPath(Collection<N> sources, N destination);
 
+  /**
+   * Computes the shortest path from the given sources to the given destination
+   * and records the work the query did in the given statistics.<br>
+   * <br>
+   * The default implementation only records the wall time of the whole query
+   * as {@link EQueryPhase#SEARCH}. Implementations override it to record their
+   * counters and phases.
+   *
+   * @param sources     The sources to compute the shortest path from
+   * @param destination The destination to compute the shortest path to
+   * @param statistics  The statistics to record the query in
+   * @return The shortest path if present, else empty
+   */
+  default Optional<IPath<N, E>> computeShortestPath(final Collection<N> sources, final N destination,
+      final QueryStatistics statistics) {
+    final long start = System.nanoTime();
+    final Optional<IPath<N, E>> path = computeShortestPath(sources, destination);
+    statistics.incrementQueries();
+    statistics.addPhaseTime(EQueryPhase.SEARCH, System.nanoTime() - start);
+    return path;
+  }
+
   /**
    * Computes the shortest path from the given source to the given destination.
    *
@@ -0,0 +1,61 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath;
+
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.INode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Computes distance matrices by one one-to-all computation per source. Used if
+ * no preprocessed data structure is available to share work between the
+ * sources.<br>
+ * <br>
+ * The sources are processed in parallel, the given computation must thus be
+ * safe to use from multiple threads.
+ *
+ * @param <N> Type of node
+ * @param <E> Type of edge
+ */
+public final class OneToAllManyToMany<N extends INode, E extends IEdge<N>> implements IManyToManyComputation<N> {
+  /**
+   * The computation to use for the one-to-all computations.
+   */
+  private final IShortestPathComputation<N, E> mComputation;
+
+  /**
+   * Creates a new instance which uses the given computation.
+   *
+   * @param computation The computation to use for the one-to-all computations,
+   *                    must be thread-safe
+   */
+  public OneToAllManyToMany(final IShortestPathComputation<N, E> computation) {
+    mComputation = computation;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.shortestpath.
+   * IManyToManyComputation#computeCosts(java.util.List, java.util.List)
+   */
+  @Override
+  public double[] computeCosts(final List<N> sources, final List<N> destinations) {
+    final int amountOfDestinations = destinations.size();
+    final double[] costs = new double[sources.size() * amountOfDestinations];
+    Arrays.fill(costs, Double.POSITIVE_INFINITY);
+    IntStream.range(0, sources.size()).parallel().forEach(i -> {
+      final Map<N, ? extends IHasPathCost> nodeToCost =
+          mComputation.computeShortestPathCostsReachable(Collections.singletonList(sources.get(i)));
+      for (int j = 0; j < amountOfDestinations; j++) {
+        final IHasPathCost cost = nodeToCost.get(destinations.get(j));
+        if (cost != null) {
+          costs[i * amountOfDestinations + j] = cost.getPathCost();
+        }
+      }
+    });
+    return costs;
+  }
+}
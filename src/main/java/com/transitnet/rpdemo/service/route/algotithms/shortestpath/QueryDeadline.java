@@ -0,0 +1,228 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Deadline and cancellation token of shortest path queries.<br>
+ * <br>
+ * A deadline is installed for the current thread with
+ * {@link #run(Supplier)}. The search loops of the algorithms fetch it once per
+ * query with {@link #current()} and call {@link #checkExpired()} every
+ * {@link #CHECK_INTERVAL} iterations. Once the deadline expired or
+ * {@link #cancel()} was called the query either fails with a
+ * {@link QueryTimeoutException} or, if partial results are allowed, stops
+ * early and returns what it found so far. Stopping early works like an abort
+ * by
+ * {@link com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.modules.AbortAfterModule},
+ * just by wall time instead of travel time. Nested queries, like those of a
+ * hybrid algorithm, share the deadline of the thread.
+ */
+public final class QueryDeadline {
+  /**
+   * The amount of iterations of a search loop between two checks of the
+   * deadline, a power of two.
+   */
+  public static final int CHECK_INTERVAL = 1 << 8;
+  /**
+   * Deadline which never expires, used if no deadline is installed.
+   */
+  public static final QueryDeadline NONE = new QueryDeadline(0L, false, false);
+  /**
+   * The deadline installed for the current thread, if any.
+   */
+  private static final ThreadLocal<QueryDeadline> CURRENT = new ThreadLocal<>();
+
+  /**
+   * Creates a deadline which expires after the given duration, starting now.
+   * Queries fail once it expired.
+   *
+   * @param timeout The duration after which the deadline expires
+   * @return The created deadline
+   */
+  public static QueryDeadline after(final Duration timeout) {
+    return QueryDeadline.after(timeout, false);
+  }
+
+  /**
+   * Creates a deadline which expires after the given duration, starting now.
+   *
+   * @param timeout                The duration after which the deadline
+   *                               expires
+   * @param isPartialResultAllowed Whether queries return a partial result
+   *                               instead of failing once the deadline
+   *                               expired
+   * @return The created deadline
+   */
+  public static QueryDeadline after(final Duration timeout, final boolean isPartialResultAllowed) {
+    return new QueryDeadline(System.nanoTime() + timeout.toNanos(), true, isPartialResultAllowed);
+  }
+
+  /**
+   * Gets the deadline installed for the current thread.
+   *
+   * @return The deadline of the current thread, or {@link #NONE} if there is
+   *         none
+   */
+  public static QueryDeadline current() {
+    final QueryDeadline deadline = CURRENT.get();
+    if (deadline == null) {
+      return NONE;
+    }
+    return deadline;
+  }
+
+  /**
+   * Creates a deadline which only expires when it is cancelled.
+   *
+   * @param isPartialResultAllowed Whether queries return a partial result
+   *                               instead of failing once the deadline was
+   *                               cancelled
+   * @return The created deadline
+   */
+  public static QueryDeadline untilCancelled(final boolean isPartialResultAllowed) {
+    return new QueryDeadline(0L, false, isPartialResultAllowed);
+  }
+
+  /**
+   * Whether or not a search loop should check the deadline in the given
+   * iteration.
+   *
+   * @param iteration The current iteration of the loop
+   * @return <code>True</code> if the deadline should be checked,
+   *         <code>false</code> otherwise
+   */
+  public static boolean shouldCheck(final int iteration) {
+    return (iteration & (CHECK_INTERVAL - 1)) == 0;
+  }
+
+  /**
+   * Whether or not the deadline was cancelled.
+   */
+  private volatile boolean mCancelled;
+  /**
+   * The time the deadline expires at, as given by {@link System#nanoTime()}.
+   */
+  private final long mExpiration;
+  /**
+   * Whether or not the deadline expires at {@link #mExpiration}.
+   */
+  private final boolean mHasExpiration;
+  /**
+   * Whether queries return a partial result instead of failing once the
+   * deadline expired.
+   */
+  private final boolean mIsPartialResultAllowed;
+
+  /**
+   * Creates a new deadline.
+   *
+   * @param expiration             The time the deadline expires at, as given
+   *                               by {@link System#nanoTime()}
+   * @param hasExpiration          Whether or not the deadline expires at the
+   *                               given time
+   * @param isPartialResultAllowed Whether queries return a partial result
+   *                               instead of failing once the deadline
+   *                               expired
+   */
+  private QueryDeadline(final long expiration, final boolean hasExpiration, final boolean isPartialResultAllowed) {
+    mExpiration = expiration;
+    mHasExpiration = hasExpiration;
+    mIsPartialResultAllowed = isPartialResultAllowed;
+  }
+
+  /**
+   * Cancels the deadline, all queries running with it are aborted at their
+   * next check. Can be called from any thread.
+   *
+   * @throws UnsupportedOperationException If this is {@link #NONE}
+   */
+  public void cancel() throws UnsupportedOperationException {
+    if (this == NONE) {
+      throw new UnsupportedOperationException();
+    }
+    mCancelled = true;
+  }
+
+  /**
+   * Checks whether the deadline expired, called by search loops.
+   *
+   * @return <code>True</code> if the deadline expired and the search should
+   *         stop with a partial result, <code>false</code> if the search can
+   *         continue
+   * @throws QueryTimeoutException If the deadline expired and partial results
+   *                               are not allowed
+   */
+  public boolean checkExpired() throws QueryTimeoutException {
+    if (!isExpired()) {
+      return false;
+    }
+    if (mIsPartialResultAllowed) {
+      return true;
+    }
+    throw new QueryTimeoutException();
+  }
+
+  /**
+   * Gets the time left until the deadline expires.
+   *
+   * @return The time left in nanoseconds, <code>0</code> if the deadline
+   *         expired or was cancelled and {@link Long#MAX_VALUE} if it has no
+   *         expiration
+   */
+  public long getRemainingNanos() {
+    if (mCancelled) {
+      return 0L;
+    }
+    if (!mHasExpiration) {
+      return Long.MAX_VALUE;
+    }
+    return Math.max(0L, mExpiration - System.nanoTime());
+  }
+
+  /**
+   * Whether or not the deadline expired or was cancelled.
+   *
+   * @return <code>True</code> if the deadline expired or was cancelled,
+   *         <code>false</code> otherwise
+   */
+  public boolean isExpired() {
+    return mCancelled || (mHasExpiration && System.nanoTime() - mExpiration >= 0);
+  }
+
+  /**
+   * Whether queries return a partial result instead of failing once the
+   * deadline expired.
+   *
+   * @return <code>True</code> if partial results are allowed,
+   *         <code>false</code> otherwise
+   */
+  public boolean isPartialResultAllowed() {
+    return mIsPartialResultAllowed;
+  }
+
+  /**
+   * Runs the given query with this deadline installed for the current thread.
+   * The previously installed deadline is restored afterwards.
+   *
+   * @param       <T> Type of the result
+   * @param query The query to run
+   * @return The result of the query
+   * @throws QueryTimeoutException If the deadline expired or was cancelled
+   *                               before the query finished and partial
+   *                               results are not allowed
+   */
+  public <T> T run(final Supplier<T> query) throws QueryTimeoutException {
+    final QueryDeadline previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      return query.get();
+    } finally {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+}
@@ -0,0 +1,255 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Counters describing the work a shortest path query did.<br>
+ * <br>
+ * Pass an instance to
+ * {@link IShortestPathComputation#computeShortestPath(java.util.Collection, com.transitnet.rpdemo.model.INode, QueryStatistics)}
+ * to have it filled. Algorithms only increment the counters that apply to
+ * them, all others stay at <code>0</code>. Counters accumulate, an instance
+ * can thus also be reused to sum up several queries.<br>
+ * <br>
+ * Instances are not thread-safe, use one per query.
+ */
+public final class QueryStatistics {
+  /**
+   * The amount of queries that were run, including nested queries of
+   * combined algorithms.
+   */
+  private int mAmountOfQueries;
+  /**
+   * The amount of nodes that were added to the priority queue.
+   */
+  private long mAmountOfQueuePushes;
+  /**
+   * The amount of nodes that were polled from the priority queue.
+   */
+  private long mAmountOfQueuePops;
+  /**
+   * The amount of edges that were relaxed.
+   */
+  private long mAmountOfRelaxedEdges;
+  /**
+   * The amount of footpaths that were relaxed.
+   */
+  private long mAmountOfRelaxedFootpaths;
+  /**
+   * The amount of connections that were scanned.
+   */
+  private long mAmountOfScannedConnections;
+  /**
+   * The amount of nodes that were settled.
+   */
+  private long mAmountOfSettledNodes;
+  /**
+   * The amount of polled nodes that were discarded, because they were already
+   * settled or their estimate was outdated.
+   */
+  private long mAmountOfStalePops;
+  /**
+   * The wall time spent in each phase, in nanoseconds.
+   */
+  private final Map<EQueryPhase, Long> mPhaseToTime;
+
+  /**
+   * Creates new statistics with all counters at <code>0</code>.
+   */
+  public QueryStatistics() {
+    mPhaseToTime = new EnumMap<>(EQueryPhase.class);
+  }
+
+  /**
+   * Adds the counters of the given statistics to these. The phase times are
+   * not added since the phases of nested queries overlap with the phases of
+   * the query that runs them.
+   *
+   * @param other The statistics to add
+   */
+  public void addCounters(final QueryStatistics other) {
+    mAmountOfQueries += other.mAmountOfQueries;
+    mAmountOfQueuePushes += other.mAmountOfQueuePushes;
+    mAmountOfQueuePops += other.mAmountOfQueuePops;
+    mAmountOfRelaxedEdges += other.mAmountOfRelaxedEdges;
+    mAmountOfRelaxedFootpaths += other.mAmountOfRelaxedFootpaths;
+    mAmountOfScannedConnections += other.mAmountOfScannedConnections;
+    mAmountOfSettledNodes += other.mAmountOfSettledNodes;
+    mAmountOfStalePops += other.mAmountOfStalePops;
+  }
+
+  /**
+   * Adds the given time to the given phase.
+   *
+   * @param phase The phase to add the time to
+   * @param nanos The time to add, in nanoseconds
+   */
+  public void addPhaseTime(final EQueryPhase phase, final long nanos) {
+    mPhaseToTime.merge(phase, nanos, Long::sum);
+  }
+
+  /**
+   * Gets the amount of queries that were run, including nested queries of
+   * combined algorithms.
+   *
+   * @return The amount of queries
+   */
+  public int getAmountOfQueries() {
+    return mAmountOfQueries;
+  }
+
+  /**
+   * Gets the amount of nodes that were added to the priority queue.
+   *
+   * @return The amount of queue pushes
+   */
+  public long getAmountOfQueuePushes() {
+    return mAmountOfQueuePushes;
+  }
+
+  /**
+   * Gets the amount of nodes that were polled from the priority queue.
+   *
+   * @return The amount of queue pops
+   */
+  public long getAmountOfQueuePops() {
+    return mAmountOfQueuePops;
+  }
+
+  /**
+   * Gets the amount of edges that were relaxed.
+   *
+   * @return The amount of relaxed edges
+   */
+  public long getAmountOfRelaxedEdges() {
+    return mAmountOfRelaxedEdges;
+  }
+
+  /**
+   * Gets the amount of footpaths that were relaxed.
+   *
+   * @return The amount of relaxed footpaths
+   */
+  public long getAmountOfRelaxedFootpaths() {
+    return mAmountOfRelaxedFootpaths;
+  }
+
+  /**
+   * Gets the amount of connections that were scanned.
+   *
+   * @return The amount of scanned connections
+   */
+  public long getAmountOfScannedConnections() {
+    return mAmountOfScannedConnections;
+  }
+
+  /**
+   * Gets the amount of nodes that were settled.
+   *
+   * @return The amount of settled nodes
+   */
+  public long getAmountOfSettledNodes() {
+    return mAmountOfSettledNodes;
+  }
+
+  /**
+   * Gets the amount of polled nodes that were discarded, because they were
+   * already settled or their estimate was outdated.
+   *
+   * @return The amount of stale pops
+   */
+  public long getAmountOfStalePops() {
+    return mAmountOfStalePops;
+  }
+
+  /**
+   * Gets the wall time spent in the given phase.
+   *
+   * @param phase The phase to get the time of
+   * @return The time spent in the phase, in nanoseconds, <code>0</code> if the
+   *         phase was not run
+   */
+  public long getPhaseTime(final EQueryPhase phase) {
+    return mPhaseToTime.getOrDefault(phase, 0L);
+  }
+
+  /**
+   * Increments the amount of queries that were run.
+   */
+  public void incrementQueries() {
+    mAmountOfQueries++;
+  }
+
+  /**
+   * Increments the amount of nodes that were added to the priority queue.
+   */
+  public void incrementQueuePushes() {
+    mAmountOfQueuePushes++;
+  }
+
+  /**
+   * Increments the amount of nodes that were polled from the priority queue.
+   */
+  public void incrementQueuePops() {
+    mAmountOfQueuePops++;
+  }
+
+  /**
+   * Increments the amount of edges that were relaxed.
+   */
+  public void incrementRelaxedEdges() {
+    mAmountOfRelaxedEdges++;
+  }
+
+  /**
+   * Increments the amount of footpaths that were relaxed.
+   */
+  public void incrementRelaxedFootpaths() {
+    mAmountOfRelaxedFootpaths++;
+  }
+
+  /**
+   * Increments the amount of connections that were scanned.
+   */
+  public void incrementScannedConnections() {
+    mAmountOfScannedConnections++;
+  }
+
+  /**
+   * Increments the amount of nodes that were settled.
+   */
+  public void incrementSettledNodes() {
+    mAmountOfSettledNodes++;
+  }
+
+  /**
+   * Increments the amount of polled nodes that were discarded.
+   */
+  public void incrementStalePops() {
+    mAmountOfStalePops++;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+    builder.append("QueryStatistics [queries=").append(mAmountOfQueries);
+    builder.append(", settledNodes=").append(mAmountOfSettledNodes);
+    builder.append(", relaxedEdges=").append(mAmountOfRelaxedEdges);
+    builder.append(", queuePushes=").append(mAmountOfQueuePushes);
+    builder.append(", queuePops=").append(mAmountOfQueuePops);
+    builder.append(", stalePops=").append(mAmountOfStalePops);
+    builder.append(", scannedConnections=").append(mAmountOfScannedConnections);
+    builder.append(", relaxedFootpaths=").append(mAmountOfRelaxedFootpaths);
+    for (final Entry<EQueryPhase, Long> phaseToTime : mPhaseToTime.entrySet()) {
+      builder.append(", ").append(phaseToTime.getKey()).append("Micros=").append(phaseToTime.getValue() / 1_000);
+    }
+    builder.append("]");
+    return builder.toString();
+  }
+}
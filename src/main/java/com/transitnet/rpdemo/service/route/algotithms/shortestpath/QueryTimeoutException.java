@@ -0,0 +1,19 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath;
+
+/**
+ * Exception to be thrown when a shortest path query is aborted because its
+ * {@link QueryDeadline} expired or was cancelled.
+ */
+public final class QueryTimeoutException extends RuntimeException {
+  /**
+   * Serial version UID.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Creates a new query timeout exception.
+   */
+  public QueryTimeoutException() {
+    super("The query exceeded its deadline or was cancelled");
+  }
+}
@@ -4,20 +4,33 @@ import com.transitnet.rpdemo.model.ETransportationMode;
 import com.transitnet.rpdemo.model.ICoreEdge;
 import com.transitnet.rpdemo.model.ICoreNode;
 import com.transitnet.rpdemo.model.IGraph;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
 import com.transitnet.rpdemo.model.timetable.Timetable;
+import com.transitnet.rpdemo.service.route.algotithms.isochrone.IIsochroneComputation;
+import com.transitnet.rpdemo.service.route.algotithms.isochrone.RoadIsochroneComputation;
+import com.transitnet.rpdemo.service.route.algotithms.isochrone.TransitIsochroneComputation;
 import com.transitnet.rpdemo.service.route.algotithms.metrics.AsTheCrowFliesMetric;
 import com.transitnet.rpdemo.service.route.algotithms.metrics.IMetric;
+import com.transitnet.rpdemo.service.route.algotithms.metrics.landmark.ELandmarkStrategy;
 import com.transitnet.rpdemo.service.route.algotithms.metrics.landmark.ILandmarkProvider;
 import com.transitnet.rpdemo.service.route.algotithms.metrics.landmark.LandmarkMetric;
-import com.transitnet.rpdemo.service.route.algotithms.metrics.landmark.RandomLandmarks;
 import com.transitnet.rpdemo.service.route.algotithms.nearestneighbor.INearestNeighborComputation;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.connectionscan.ConnectionScan;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy.ContractionHierarchy;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy.ContractionHierarchyQuery;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy.CustomizableContractionHierarchy;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy.CustomizableContractionHierarchyManyToMany;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy.CustomizableContractionHierarchyQuery;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.CompactDijkstra;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.Dijkstra;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.modules.*;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.hybridmodel.HybridRoadTimetable;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.hybridmodel.IAccessNodeComputation;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.raptor.Raptor;
 
-
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -29,6 +42,56 @@ import java.util.Set;
  * @author Daniel Tischner {@literal <zabuza.dev@gmail.com>}
  */
 public final class ShortestPathComputationFactory {
+  /**
+   * The amount of landmarks the ALT algorithm activates initially per query,
+   * if the metric is a {@link LandmarkMetric}.
+   */
+  private static final int AMOUNT_OF_ACTIVE_LANDMARKS = 4;
+  /**
+   * The transportation modes which can be taken on roads. The Contraction
+   * Hierarchy is built for all of them.
+   */
+  private static final Set<ETransportationMode> HIERARCHY_MODES =
+      EnumSet.of(ETransportationMode.CAR, ETransportationMode.BIKE, ETransportationMode.FOOT);
+  /**
+   * The size of the grid cells isochrone areas are rasterized with, in metres.
+   */
+  private static final double ISOCHRONE_CELL_SIZE = 100.0;
+  /**
+   * The sets of transportation modes the Customizable Contraction Hierarchy is
+   * customized for during initialization. These are all non-empty subsets of
+   * {@link #HIERARCHY_MODES}, so queries never have to customize, which would
+   * take neither a query slot nor observe a deadline.
+   */
+  private static final List<Set<ETransportationMode>> INITIAL_CUSTOMIZATIONS =
+      ShortestPathComputationFactory.computeNonEmptySubsets(HIERARCHY_MODES);
+  /**
+   * The greatest amount of transfers between trips of journeys computed by
+   * {@link Raptor}.
+   */
+  private static final int RAPTOR_MAX_TRANSFERS = 5;
+
+  /**
+   * Computes all non-empty subsets of the given transportation modes.
+   *
+   * @param modes The modes to compute subsets of
+   * @return All non-empty subsets of the modes
+   */
+  private static List<Set<ETransportationMode>> computeNonEmptySubsets(final Set<ETransportationMode> modes) {
+    final List<ETransportationMode> modeList = List.copyOf(modes);
+    final List<Set<ETransportationMode>> subsets = new ArrayList<>();
+    for (int subset = 1; subset < 1 << modeList.size(); subset++) {
+      final Set<ETransportationMode> subsetModes = EnumSet.noneOf(ETransportationMode.class);
+      for (int i = 0; i < modeList.size(); i++) {
+        if ((subset & 1 << i) != 0) {
+          subsetModes.add(modeList.get(i));
+        }
+      }
+      subsets.add(subsetModes);
+    }
+    return subsets;
+  }
+
   /**
    * The travel time in seconds after which to abort shortest path computation
    * to access nodes.
@@ -46,10 +109,29 @@ public final class ShortestPathComputationFactory {
    * The base algorithm to use for {@link #createAlgorithm()}.
    */
   private IShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> mBaseComputation;
+  /**
+   * Dijkstra on the dense indices of the road graph, or <code>null</code> if
+   * the graph is not frozen.
+   */
+  private CompactDijkstra<ICoreNode, ICoreEdge<ICoreNode>> mCompactDijkstra;
+  /**
+   * Query on the Contraction Hierarchy of the road graph, or <code>null</code>
+   * if it was not requested yet. The hierarchy is built lazily.
+   */
+  private ContractionHierarchyQuery<ICoreNode, ICoreEdge<ICoreNode>> mContractionHierarchyQuery;
+  /**
+   * The Customizable Contraction Hierarchy of the road graph, or
+   * <code>null</code> if the graph is not frozen and thus has no hierarchy.
+   */
+  private CustomizableContractionHierarchy<ICoreNode, ICoreEdge<ICoreNode>> mCustomizableHierarchy;
   /**
    * The graph to route on.
    */
   private final IGraph<ICoreNode, ICoreEdge<ICoreNode>> mGraph;
+  /**
+   * The strategy to use for selecting landmarks.
+   */
+  private final ELandmarkStrategy mLandmarkStrategy;
   /**
    * The metric to use for the {@link AStarModule} module.
    */
@@ -83,17 +165,21 @@ public final class ShortestPathComputationFactory {
    *                                     access nodes
    * @param amountOfLandmarks            The amount of landmarks to use for the
    *                                     landmark heuristic
+   * @param landmarkStrategy             The strategy to use for selecting the
+   *                                     landmarks
    */
   public ShortestPathComputationFactory(final IGraph<ICoreNode, ICoreEdge<ICoreNode>> graph, final Timetable table,
       final IAccessNodeComputation<ICoreNode, ICoreNode> accessNodeComputation,
       final INearestNeighborComputation<ICoreNode> stopToNearestRoadNode,
-      final int abortTravelTimeToAccessNodes, final int amountOfLandmarks) {
+      final int abortTravelTimeToAccessNodes, final int amountOfLandmarks,
+      final ELandmarkStrategy landmarkStrategy) {
     mGraph = graph;
     mTable = table;
     mAccessNodeComputation = accessNodeComputation;
     mStopToNearestRoadNode = stopToNearestRoadNode;
     mAbortTravelTimeToAccessNodes = abortTravelTimeToAccessNodes;
     mAmountOfLandmarks = amountOfLandmarks;
+    mLandmarkStrategy = landmarkStrategy;
   }
 
   /**
@@ -125,7 +211,8 @@ public final class ShortestPathComputationFactory {
 
   /**
    * Creates an instance of the ALT algorithm, which is A-star using the
-   * landmarks heuristic.
+   * landmarks heuristic. If the metric is a {@link LandmarkMetric} each query
+   * only uses a few active landmarks selected for it.
    *
    * @return The created algorithm
    */
@@ -145,26 +232,96 @@ public final class ShortestPathComputationFactory {
   }
 
   /**
-   * Creates an instance of Connection Scan algorithm.
+   * Creates an instance of the bidirectional ALT algorithm, which is a
+   * bidirectional Dijkstra using the landmarks heuristic, only taking edges
+   * allowing the given transportation modes.
+   *
+   * @param modes The transportation mode restrictions
+   * @return The created algorithm
+   */
+  public IShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>>
+      createAlgorithmBidirectionalAlt(final Set<ETransportationMode> modes) {
+    return BidirectionalModuleDijkstra.of(mGraph, AStarModule.of(mMetric), MultiModalModule.of(modes));
+  }
+
+  /**
+   * Creates an instance of a Contraction Hierarchies query. The hierarchy allows
+   * all transportation modes that can be taken on roads.<br>
+   * <br>
+   * The hierarchy is built on first usage. If the graph of this factory is not a
+   * {@link FrozenRoadGraph} no hierarchy is available and the basic algorithm is
+   * returned instead.
+   *
+   * @return The created algorithm
+   */
+  public synchronized IShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>>
+      createAlgorithmContractionHierarchy() {
+    if (!(mGraph instanceof FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> frozenGraph)) {
+      return mBaseComputation;
+    }
+    if (mContractionHierarchyQuery == null) {
+      mContractionHierarchyQuery =
+          new ContractionHierarchyQuery<>(ContractionHierarchy.build(frozenGraph, HIERARCHY_MODES));
+    }
+    return mContractionHierarchyQuery;
+  }
+
+  /**
+   * Creates an instance of a Customizable Contraction Hierarchies query which
+   * only takes roads allowing the given transportation modes. The hierarchy is
+   * customized for every set of road modes during initialization, creating the
+   * query thus only looks up the customization.<br>
+   * <br>
+   * If the graph of this factory is not a {@link FrozenRoadGraph} no hierarchy
+   * is available and a Dijkstra respecting the modes is returned instead.
    *
+   * @param modes The transportation mode restrictions
    * @return The created algorithm
    */
-  public IShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> createAlgorithmCsa() {
+  public IShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>>
+      createAlgorithmCustomizableContractionHierarchy(final Set<ETransportationMode> modes) {
+    final Set<ETransportationMode> roadModes = EnumSet.noneOf(ETransportationMode.class);
+    roadModes.addAll(modes);
+    roadModes.retainAll(HIERARCHY_MODES);
+    if (mCustomizableHierarchy == null || roadModes.isEmpty()) {
+      return ModuleDijkstra.of(mGraph, AStarModule.of(mMetric), MultiModalModule.of(modes));
+    }
+    return new CustomizableContractionHierarchyQuery<>(mCustomizableHierarchy,
+        mCustomizableHierarchy.customize(roadModes));
+  }
+
+  /**
+   * Creates an instance of Connection Scan algorithm. Besides earliest arrival
+   * queries it answers profile queries, i.e. for all departure times within a
+   * window.
+   *
+   * @return The created algorithm
+   */
+  public ConnectionScan createAlgorithmCsa() {
     return new ConnectionScan(mTable);
   }
 
   /**
-   * Creates an instance of the ordinary Dijkstra algorithm.
+   * Creates an instance of the ordinary Dijkstra algorithm.<br>
+   * <br>
+   * If the graph of this factory is a {@link FrozenRoadGraph} the allocation
+   * free {@link CompactDijkstra} is used.
    *
    * @return The created algorithm
    */
   public IShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> createAlgorithmDijkstra() {
+    if (mCompactDijkstra != null) {
+      return mCompactDijkstra;
+    }
     return new Dijkstra<>(mGraph);
   }
 
   /**
    * Creates an instance of an algorithm for a hybrid approach connecting road
-   * and timetable models.
+   * and timetable models.<br>
+   * <br>
+   * Road-only paths are computed on the Customizable Contraction Hierarchy,
+   * customized for the given restrictions.
    *
    * @param depTime The departure time in milliseconds since epoch
    * @param modes   The transportation mode restrictions
@@ -172,7 +329,7 @@ public final class ShortestPathComputationFactory {
    */
   public IShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>>
       createAlgorithmHybridRoadTimetable(final long depTime, final Set<ETransportationMode> modes) {
-    return new HybridRoadTimetable(ModuleDijkstra.of(mGraph, AStarModule.of(mMetric), MultiModalModule.of(modes)),
+    return new HybridRoadTimetable(createAlgorithmCustomizableContractionHierarchy(modes),
         ModuleDijkstra.of(mGraph, AStarModule.of(mMetric), AbortAfterModule.of(mAbortTravelTimeToAccessNodes),
             MultiModalModule.of(modes)),
         new ConnectionScan(mTable), mAccessNodeComputation, mStopToNearestRoadNode, modes, depTime);
@@ -190,6 +347,17 @@ public final class ShortestPathComputationFactory {
     return ModuleDijkstra.of(mGraph, AStarModule.of(mMetric), TransitModule.of(depTime), MultiModalModule.of(modes));
   }
 
+  /**
+   * Creates an instance of the Round-Based Public Transit Routing algorithm,
+   * which also computes the journeys with fewer transfers than the earliest
+   * arriving one.
+   *
+   * @return The created algorithm
+   */
+  public Raptor createAlgorithmRaptor() {
+    return new Raptor(mTable, RAPTOR_MAX_TRANSFERS);
+  }
+
   /**
    * Creates an instance of a time-dependent ALT algorithm.
    *
@@ -200,6 +368,70 @@ public final class ShortestPathComputationFactory {
     return ModuleDijkstra.of(mGraph, AStarModule.of(mMetric), TransitModule.of(depTime));
   }
 
+  /**
+   * Creates a computation for large batches of road queries which only takes
+   * roads allowing the given transportation modes. Each worker uses its own
+   * engine, as created by
+   * {@link #createAlgorithmCustomizableContractionHierarchy(Set)}.<br>
+   * <br>
+   * The returned computation must be closed after usage.
+   *
+   * @param modes       The transportation mode restrictions
+   * @param parallelism The amount of worker threads to use
+   * @return The created computation
+   */
+  public BatchShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>>
+      createBatchComputation(final Set<ETransportationMode> modes, final int parallelism) {
+    return new BatchShortestPathComputation<>(() -> createAlgorithmCustomizableContractionHierarchy(modes),
+        parallelism);
+  }
+
+  /**
+   * Creates an algorithm for computing isochrones on roads which only takes
+   * roads allowing the given transportation modes.
+   *
+   * @param modes The transportation mode restrictions
+   * @return The created algorithm, or <code>null</code> if the graph of this
+   *         factory is not a {@link FrozenRoadGraph}
+   */
+  public IIsochroneComputation<ICoreNode> createIsochroneComputation(final Set<ETransportationMode> modes) {
+    if (mGraph instanceof FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> frozenGraph) {
+      return new RoadIsochroneComputation<>(frozenGraph, modes, ISOCHRONE_CELL_SIZE);
+    }
+    return null;
+  }
+
+  /**
+   * Creates an algorithm for computing distance matrices which only takes roads
+   * allowing the given transportation modes.<br>
+   * <br>
+   * The Customizable Contraction Hierarchy is used if available, otherwise one
+   * Dijkstra per source.
+   *
+   * @param modes The transportation mode restrictions
+   * @return The created algorithm
+   */
+  public IManyToManyComputation<ICoreNode> createManyToManyComputation(final Set<ETransportationMode> modes) {
+    final Set<ETransportationMode> roadModes = EnumSet.noneOf(ETransportationMode.class);
+    roadModes.addAll(modes);
+    roadModes.retainAll(HIERARCHY_MODES);
+    if (mCustomizableHierarchy == null || roadModes.isEmpty()) {
+      return new OneToAllManyToMany<>(ModuleDijkstra.of(mGraph, MultiModalModule.of(modes)));
+    }
+    return new CustomizableContractionHierarchyManyToMany<>(mCustomizableHierarchy,
+        mCustomizableHierarchy.customize(roadModes));
+  }
+
+  /**
+   * Creates an algorithm for computing isochrones on the timetable. The area
+   * around reached stops is walked.
+   *
+   * @return The created algorithm
+   */
+  public IIsochroneComputation<ICoreNode> createTransitIsochroneComputation() {
+    return new TransitIsochroneComputation(new ConnectionScan(mTable), ISOCHRONE_CELL_SIZE);
+  }
+
   /**
    * Gets the access node computation used by this factory.
    *
@@ -210,6 +442,17 @@ public final class ShortestPathComputationFactory {
     return mAccessNodeComputation;
   }
 
+  /**
+   * Gets the metric used by the algorithms of this factory for the
+   * {@link AStarModule} module.
+   *
+   * @return The metric, or <code>null</code> if the factory was not initialized
+   *         yet
+   */
+  public IMetric<ICoreNode> getMetric() {
+    return mMetric;
+  }
+
   /**
    * Gets the object used by this factory for retrieving the nearest road node
    * to a given stop.
@@ -222,11 +465,32 @@ public final class ShortestPathComputationFactory {
   }
 
   /**
-   * Initializes the factory. Must be used prior to usage.
+   * Initializes the factory. Must be used prior to usage. Landmarks are
+   * selected using the strategy given at construction.
    */
   public void initialize() {
-    final ILandmarkProvider<ICoreNode> landmarkProvider = new RandomLandmarks<>(mGraph);
-    mMetric = new LandmarkMetric<>(mAmountOfLandmarks, mGraph, landmarkProvider);
-    mBaseComputation = ModuleDijkstra.of(mGraph, AStarModule.of(mMetric));
+    final ILandmarkProvider<ICoreNode> landmarkProvider = mLandmarkStrategy.createProvider(mGraph);
+    initialize(new LandmarkMetric<>(mAmountOfLandmarks, mGraph, landmarkProvider));
+  }
+
+  /**
+   * Initializes the factory using the given, already computed, metric instead
+   * of computing landmarks. Must be used prior to usage if
+   * {@link #initialize()} is not used.
+   *
+   * @param metric The metric to use for the {@link AStarModule} module
+   */
+  public void initialize(final IMetric<ICoreNode> metric) {
+    mMetric = metric;
+    if (mMetric instanceof LandmarkMetric<ICoreNode, ?, ?> landmarkMetric) {
+      mBaseComputation = ModuleDijkstra.of(mGraph, ActiveLandmarkModule.of(landmarkMetric, AMOUNT_OF_ACTIVE_LANDMARKS));
+    } else {
+      mBaseComputation = ModuleDijkstra.of(mGraph, AStarModule.of(mMetric));
+    }
+    if (mGraph instanceof FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> frozenGraph) {
+      mCompactDijkstra = new CompactDijkstra<>(frozenGraph);
+      mCustomizableHierarchy = CustomizableContractionHierarchy.build(frozenGraph);
+      mCustomizableHierarchy.customizeAll(INITIAL_CUSTOMIZATIONS);
+    }
   }
 }
@@ -0,0 +1,62 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath;
+
+import com.transitnet.rpdemo.model.INode;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * POJO for a single query of a batch, the shortest path from some sources to
+ * a destination.
+ *
+ * @param <N> Type of node
+ */
+public final class ShortestPathQuery<N extends INode> {
+  /**
+   * The destination of the query.
+   */
+  private final N mDestination;
+  /**
+   * The sources of the query.
+   */
+  private final Collection<N> mSources;
+
+  /**
+   * Creates a new query from the given sources to the given destination.
+   *
+   * @param sources     The sources of the query
+   * @param destination The destination of the query
+   */
+  public ShortestPathQuery(final Collection<N> sources, final N destination) {
+    mSources = sources;
+    mDestination = destination;
+  }
+
+  /**
+   * Creates a new query from the given source to the given destination.
+   *
+   * @param source      The source of the query
+   * @param destination The destination of the query
+   */
+  public ShortestPathQuery(final N source, final N destination) {
+    this(Collections.singletonList(source), destination);
+  }
+
+  /**
+   * Gets the destination of the query.
+   *
+   * @return The destination
+   */
+  public N getDestination() {
+    return mDestination;
+  }
+
+  /**
+   * Gets the sources of the query.
+   *
+   * @return The sources
+   */
+  public Collection<N> getSources() {
+    return mSources;
+  }
+}
@@ -2,25 +2,25 @@ package com.transitnet.rpdemo.service.route.algotithms.shortestpath.connectionsc
 
 import com.transitnet.rpdemo.model.*;
 import com.transitnet.rpdemo.model.timetable.Connection;
+import com.transitnet.rpdemo.model.timetable.ConnectionStore;
+import com.transitnet.rpdemo.model.timetable.FootpathStore;
 import com.transitnet.rpdemo.model.timetable.Stop;
 import com.transitnet.rpdemo.model.timetable.Timetable;
 import com.transitnet.rpdemo.model.timetable.Trip;
 import com.transitnet.rpdemo.model.transit.IHasTime;
-import com.transitnet.rpdemo.model.transit.TransitEdge;
 import com.transitnet.rpdemo.model.transit.TransitNode;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.AShortestPathComputation;
-import com.transitnet.rpdemo.service.route.algotithms.shortestpath.EdgePath;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.EQueryPhase;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IHasPathCost;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.PathCost;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryDeadline;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryStatistics;
 
+import org.eclipse.collections.impl.list.mutable.primitive.BooleanArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 /**
@@ -42,32 +42,273 @@ public final class ConnectionScan extends AShortestPathComputation<ICoreNode, IC
    * Logger used for logging.
    */
   private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionScan.class);
+  /**
+   * Index used for trips for which no connection has been reached yet and for
+   * journeys which only consist of an initial footpath.
+   */
+  private static final int NO_CONNECTION = -1;
   /**
    * Amount of seconds of a day.
    */
   private static final int SECONDS_OF_DAY = 24 * 60 * 60;
+  /**
+   * The workspace of each thread, reallocated if a greater timetable is
+   * queried.
+   */
+  private static final ThreadLocal<Workspace> WORKSPACE = new ThreadLocal<>();
 
   /**
-   * Creates and adds an edge from the given source to destination to the given
-   * path. The cost of the edge is determined by the time difference of both
-   * nodes.
-   *
-   * @param path        The path to add the edge to
-   * @param source      The source node of the edge
-   * @param destination The destination node of the edge
-   * @param walkByFoot  <code>True</code> if the transportation mode of the edge is
-   *                    by foot, <code>false</code> if by tram.
+   * Per-thread state of a query.<br>
+   * <br>
+   * The journey pointer of a stop, used for constructing shortest paths by
+   * backtracking, is given by the indices of the connections used to enter and
+   * exit a trip together with the index of the final footpath.
+   */
+  private static final class Workspace {
+    /**
+     * Tentative arrival time at each stop, in seconds since midnight.
+     */
+    private final int[] mArrTime;
+    /**
+     * The index of the connection used to enter the trip of the journey to
+     * each stop, {@link #NO_CONNECTION} for an initial footpath.
+     */
+    private final int[] mEnterConnection;
+    /**
+     * The index of the connection used to exit the trip of the journey to each
+     * stop.
+     */
+    private final int[] mExitConnection;
+    /**
+     * The index of the footpath that ends the journey to each stop.
+     */
+    private final int[] mFootpath;
+    /**
+     * Stops reached by the current query, in the order they were first
+     * reached.
+     */
+    private final IntArrayList mReached;
+    /**
+     * The stamp of the current query.
+     */
+    private int mStamp;
+    /**
+     * The query each stop label belongs to. Labels with another stamp are
+     * considered unreached.
+     */
+    private final int[] mStopStamps;
+    /**
+     * The earliest reachable connection of each trip, the stamp of the query
+     * in the upper and the index of the connection in the lower half. Labels
+     * with another stamp are considered unreached. Both are read with a single
+     * access since trips are visited randomly during a scan.
+     */
+    private final long[] mTripLabels;
+
+    /**
+     * Creates a new workspace for the given amount of stops and trips.
+     *
+     * @param amountOfStops The amount of stops
+     * @param amountOfTrips The amount of trips
+     */
+    Workspace(final int amountOfStops, final int amountOfTrips) {
+      mArrTime = new int[amountOfStops];
+      mEnterConnection = new int[amountOfStops];
+      mExitConnection = new int[amountOfStops];
+      mFootpath = new int[amountOfStops];
+      mStopStamps = new int[amountOfStops];
+      mTripLabels = new long[amountOfTrips];
+      mReached = new IntArrayList();
+    }
+
+    /**
+     * Gets the tentative arrival time at the given stop.
+     *
+     * @param stop The ID of the stop
+     * @return The arrival time in seconds since midnight, or
+     *         {@link Integer#MAX_VALUE} if the stop was not reached
+     */
+    int getArrTime(final int stop) {
+      if (mStopStamps[stop] != mStamp) {
+        return Integer.MAX_VALUE;
+      }
+      return mArrTime[stop];
+    }
+
+    /**
+     * Gets the earliest reachable connection of the given trip.
+     *
+     * @param trip The ID of the trip
+     * @return The index of the connection, or {@link #NO_CONNECTION} if the
+     *         trip was not reached
+     */
+    int getTripConnection(final int trip) {
+      final long label = mTripLabels[trip];
+      if ((int) (label >>> Integer.SIZE) != mStamp) {
+        return NO_CONNECTION;
+      }
+      return (int) label;
+    }
+
+    /**
+     * Reaches the given stop at the given time if it improves its tentative
+     * arrival time.
+     *
+     * @param stop            The ID of the stop to reach
+     * @param arrTime         The time to reach it at, in seconds since
+     *                        midnight
+     * @param enterConnection The index of the connection used to enter the
+     *                        trip, or {@link #NO_CONNECTION}
+     * @param exitConnection  The index of the connection used to exit the trip
+     * @param footpath        The index of the footpath used to reach the stop
+     */
+    void reach(final int stop, final int arrTime, final int enterConnection, final int exitConnection,
+        final int footpath) {
+      if (mStopStamps[stop] != mStamp) {
+        mStopStamps[stop] = mStamp;
+        mReached.add(stop);
+      } else if (mArrTime[stop] <= arrTime) {
+        return;
+      }
+      mArrTime[stop] = arrTime;
+      mEnterConnection[stop] = enterConnection;
+      mExitConnection[stop] = exitConnection;
+      mFootpath[stop] = footpath;
+    }
+
+    /**
+     * Sets the earliest reachable connection of the given trip.
+     *
+     * @param trip       The ID of the trip
+     * @param connection The index of the connection
+     */
+    void setTripConnection(final int trip, final int connection) {
+      mTripLabels[trip] = (long) mStamp << Integer.SIZE | connection;
+    }
+
+    /**
+     * Prepares the workspace for a new query.
+     */
+    void startQuery() {
+      mStamp++;
+      if (mStamp == 0) {
+        // Stamps wrapped around, old labels would be considered reached
+        Arrays.fill(mStopStamps, 0);
+        Arrays.fill(mTripLabels, 0L);
+        mStamp = 1;
+      }
+      mReached.clear();
+    }
+  }
+
+  /**
+   * The Pareto-optimal pairs of departure and arrival time for reaching the
+   * destination from a stop, as built by a profile query.<br>
+   * <br>
+   * Pairs are stored descending in their departure time, which is the order
+   * they are mostly found in by the backward scan. Arrival times are thus
+   * descending as well.
    */
-  private static void addEdgeToPath(final EdgePath<ICoreNode, ICoreEdge<ICoreNode>> path, final TransitNode source,
-                                    final TransitNode destination, final boolean walkByFoot) {
-    final double cost = destination.getTime() - source.getTime();
-    final ICoreEdge<ICoreNode> edge;
-    if (walkByFoot) {
-      edge = new FootpathTransitEdge<>(0, source, destination, cost);
-    } else {
-      edge = new TransitEdge<>(0, source, destination, cost);
+  private static final class StopProfile {
+    /**
+     * The arrival times of the pairs, descending.
+     */
+    private int[] mArrTimes;
+    /**
+     * The departure times of the pairs, descending.
+     */
+    private int[] mDepTimes;
+    /**
+     * The amount of pairs.
+     */
+    private int mSize;
+
+    /**
+     * Creates a new empty profile.
+     */
+    StopProfile() {
+      mDepTimes = new int[4];
+      mArrTimes = new int[4];
+    }
+
+    /**
+     * Adds the given pair unless it is dominated. Pairs dominated by it are
+     * removed.
+     *
+     * @param depTime The departure time in seconds since midnight
+     * @param arrTime The arrival time at the destination in seconds since
+     *                midnight
+     */
+    void add(final int depTime, final int arrTime) {
+      final int latest = lastDepartingSince(depTime);
+      if (latest >= 0 && mArrTimes[latest] <= arrTime) {
+        // Departing later is at least as good
+        return;
+      }
+
+      // Pairs departing earlier but not arriving earlier are dominated, they
+      // directly follow the position of the new pair
+      final int position = latest >= 0 && mDepTimes[latest] == depTime ? latest : latest + 1;
+      int dominatedEnd = position;
+      while (dominatedEnd < mSize && mArrTimes[dominatedEnd] >= arrTime) {
+        dominatedEnd++;
+      }
+
+      final int shift = 1 - (dominatedEnd - position);
+      if (mSize + shift > mDepTimes.length) {
+        mDepTimes = Arrays.copyOf(mDepTimes, 2 * mDepTimes.length);
+        mArrTimes = Arrays.copyOf(mArrTimes, 2 * mArrTimes.length);
+      }
+      if (shift != 0) {
+        System.arraycopy(mDepTimes, dominatedEnd, mDepTimes, dominatedEnd + shift, mSize - dominatedEnd);
+        System.arraycopy(mArrTimes, dominatedEnd, mArrTimes, dominatedEnd + shift, mSize - dominatedEnd);
+        mSize += shift;
+      }
+      mDepTimes[position] = depTime;
+      mArrTimes[position] = arrTime;
+    }
+
+    /**
+     * Gets the earliest arrival at the destination when departing at the
+     * given time.
+     *
+     * @param depTime The departure time in seconds since midnight
+     * @return The earliest arrival time in seconds since midnight, or
+     *         {@link Integer#MAX_VALUE} if the destination is not reachable
+     */
+    int evaluate(final int depTime) {
+      final int latest = lastDepartingSince(depTime);
+      if (latest < 0) {
+        return Integer.MAX_VALUE;
+      }
+      return mArrTimes[latest];
+    }
+
+    /**
+     * Gets the position of the pair departing earliest but not before the
+     * given time.
+     *
+     * @param depTime The departure time in seconds since midnight
+     * @return The position of the pair, or <code>-1</code> if all depart
+     *         before the given time
+     */
+    private int lastDepartingSince(final int depTime) {
+      // Pairs are mostly added and evaluated at the end
+      if (mSize == 0 || mDepTimes[mSize - 1] >= depTime) {
+        return mSize - 1;
+      }
+      int low = 0;
+      int high = mSize - 1;
+      while (low < high) {
+        final int middle = (low + high) >>> 1;
+        if (mDepTimes[middle] >= depTime) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low - 1;
     }
-    path.addEdge(edge, cost);
   }
 
   /**
@@ -101,6 +342,56 @@ public final class ConnectionScan extends AShortestPathComputation<ICoreNode, IC
     return ((IHasTime) node).getTime();
   }
 
+  /**
+   * Gets the day the trip of the given connection departs at its first stop,
+   * for the run of the trip that is scanned by an earliest arrival query.
+   *
+   * @param connections  The connections of the timetable
+   * @param connection   The index of the connection
+   * @param startingTime The time the query starts at in seconds since
+   *                     midnight, connections departing before are taken
+   *                     from the following day
+   * @return The day relative to the day of the query
+   */
+  private static int getRunDay(final ConnectionStore connections, final int connection, final int startingTime) {
+    final int day = connections.getDepTime(connection) < startingTime ? 1 : 0;
+    return day - connections.getDepDays(connection);
+  }
+
+  /**
+   * Gets the departure time of the connection at the given position, where
+   * positions enumerate the connections ordered by departure time over the
+   * following days.
+   *
+   * @param connections The connections to get the time of
+   * @param position    The position, not negative
+   * @return The departure time in seconds since midnight, shifted by the days
+   *         of the position
+   */
+  private static int getShiftedDepTime(final ConnectionStore connections, final int position) {
+    final int amountOfConnections = connections.size();
+    return connections.getDepTime(position % amountOfConnections)
+        + position / amountOfConnections * SECONDS_OF_DAY;
+  }
+
+  /**
+   * Gets the workspace of the current thread for a timetable of the given
+   * size.
+   *
+   * @param amountOfStops The amount of stops of the timetable
+   * @param amountOfTrips The amount of trips of the timetable
+   * @return The workspace of the current thread
+   */
+  private static Workspace getWorkspace(final int amountOfStops, final int amountOfTrips) {
+    Workspace workspace = WORKSPACE.get();
+    if (workspace == null || workspace.mArrTime.length < amountOfStops
+        || workspace.mTripLabels.length < amountOfTrips) {
+      workspace = new Workspace(amountOfStops, amountOfTrips);
+      WORKSPACE.set(workspace);
+    }
+    return workspace;
+  }
+
   /**
    * Validates the given time against the threshold. If the time is before the
    * threshold it is increased by one day. By that it is ensured that the result
@@ -134,135 +425,207 @@ public final class ConnectionScan extends AShortestPathComputation<ICoreNode, IC
     mTable = table;
   }
 
-  @Override
-  public Collection<ICoreNode> computeSearchSpace(final Collection<ICoreNode> sources, final ICoreNode destination) {
-    final int startingTime = ConnectionScan.extractStartingTime(sources.iterator().next());
-    final ConnectionScanResult result = computeShortestPathHelper(sources, destination, startingTime);
+  /**
+   * Computes the profile of journeys from the given source to the given
+   * destination departing within the given window, i.e. the earliest arrival
+   * for every departure time in the window.<br>
+   * <br>
+   * Uses a single scan over the connections in descending order of their
+   * departure time, maintaining the Pareto-optimal pairs of departure and
+   * arrival time for every stop. Like earliest arrival queries, connections of
+   * the following day are used and journeys do not exceed a day.
+   *
+   * @param source          The source to depart from
+   * @param destination     The destination to route to
+   * @param earliestDepTime The begin of the departure window in seconds since
+   *                        midnight, inclusive
+   * @param latestDepTime   The end of the departure window in seconds since
+   *                        midnight, inclusive. Not before the begin and less
+   *                        than a day after it, possibly shifted by a day.
+   * @return The profile containing the Pareto-optimal journeys departing
+   *         within the window and the first departing after it
+   * @throws IllegalArgumentException If the window is empty or not shorter
+   *                                  than a day
+   */
+  public ConnectionScanProfile computeProfile(final ICoreNode source, final ICoreNode destination,
+      final int earliestDepTime, final int latestDepTime) throws IllegalArgumentException {
+    if (latestDepTime < earliestDepTime || latestDepTime - earliestDepTime >= SECONDS_OF_DAY) {
+      throw new IllegalArgumentException();
+    }
+    final ConnectionStore connections = mTable.getConnectionStore();
+    final FootpathStore footpaths = mTable.getFootpathStore();
+    final int amountOfStops = mTable.getGreatestStopId() + 1;
+
+    // The duration to walk from each stop directly to the destination
+    final int[] stopToWalkingDuration = new int[amountOfStops];
+    Arrays.fill(stopToWalkingDuration, Integer.MAX_VALUE);
+    final int destinationId = destination.getId();
+    final int lastIncomingFootpath = footpaths.getLastIncoming(destinationId);
+    for (int position = footpaths.getFirstIncoming(destinationId); position < lastIncomingFootpath; position++) {
+      final int footpath = footpaths.getIncoming(position);
+      final int depStopId = footpaths.getDepStopId(footpath);
+      stopToWalkingDuration[depStopId] = Math.min(stopToWalkingDuration[depStopId], footpaths.getDuration(footpath));
+    }
+    // The earliest arrival when staying in each trip, only valid for the run
+    // of the trip departing at its first stop on the labelled day
+    final int[] tripToArrTime = new int[mTable.getGreatestTripId() + 1];
+    final int[] tripToRunDay = new int[mTable.getGreatestTripId() + 1];
+    Arrays.fill(tripToArrTime, Integer.MAX_VALUE);
+    final StopProfile[] stopToProfile = new StopProfile[amountOfStops];
+
+    // Waiting at the source is always possible, no journey departing within the
+    // window thus needs to arrive later than when departing at its end
+    final int latestStartingTime = latestDepTime % SECONDS_OF_DAY;
+    final TransitNode latestSource = createNodeForStop(source.getId(), latestStartingTime);
+    final int latestArrTime = computeShortestPathHelper(List.of(latestSource), destination, latestStartingTime,
+        Integer.MAX_VALUE, new QueryStatistics()).getArrTime(destinationId);
+    final int arrTimeBound = latestArrTime == Integer.MAX_VALUE ? Integer.MAX_VALUE
+        : latestArrTime - latestStartingTime + latestDepTime;
+
+    // Positions enumerate the connections ordered by departure, starting with
+    // the first departing in the window and continuing with the following days.
+    // Each departure in the window may use the connections of a whole day.
+    final int amountOfConnections = connections.size();
+    final int firstPosition = connections.indexOfFirstDepartingSince(earliestDepTime);
+    int endPosition = firstPosition;
+    while (amountOfConnections > 0 && endPosition < firstPosition + 2 * amountOfConnections) {
+      final int depTime = ConnectionScan.getShiftedDepTime(connections, endPosition);
+      if (depTime >= latestDepTime + SECONDS_OF_DAY || depTime > arrTimeBound) {
+        break;
+      }
+      endPosition++;
+    }
 
-    // Collect all visited stops
-    final Collection<ICoreNode> searchSpace = new ArrayList<>();
-    final int[] stopToArrTime = result.getStopToArrTime();
-    for (int i = 0; i < stopToArrTime.length; i++) {
-      final int arrTime = stopToArrTime[i];
-      // Skip if not visited
-      if (arrTime == Integer.MAX_VALUE) {
+    // Scan backwards, the journeys continuing from a connection are then
+    // already known
+    final QueryDeadline deadline = QueryDeadline.current();
+    int iterations = 0;
+    for (int position = endPosition - 1; position >= firstPosition; position--) {
+      iterations++;
+      if (QueryDeadline.shouldCheck(iterations) && deadline.checkExpired()) {
+        break;
+      }
+
+      final int connection = position % amountOfConnections;
+      final int depTime = ConnectionScan.getShiftedDepTime(connections, position);
+      int rideDuration = connections.getArrTime(connection) - connections.getDepTime(connection);
+      if (rideDuration < 0) {
+        // Arrives on the next day
+        rideDuration += SECONDS_OF_DAY;
+      }
+      final int arrTime = depTime + rideDuration;
+      if (arrTime > arrTimeBound) {
         continue;
       }
-      final Stop stop = mTable.getStop(i);
-      searchSpace.add(new TransitNode(i, stop.getLatitude(), stop.getLongitude(), arrTime));
+      final int arrStopId = connections.getArrStopId(connection);
+      final int tripId = connections.getTripId(connection);
+      // The same trip runs on every day, only connections of the same run can
+      // be stayed in. Trips take less than a day, so a run is scanned
+      // completely before the run of the previous day.
+      final int runDay = position / amountOfConnections - connections.getDepDays(connection);
+
+      // Earliest arrival when walking to the destination after the
+      // connection, staying in the trip or transferring at the arrival stop
+      int journeyArrTime = tripToRunDay[tripId] == runDay ? tripToArrTime[tripId] : Integer.MAX_VALUE;
+      if (stopToWalkingDuration[arrStopId] != Integer.MAX_VALUE) {
+        journeyArrTime = Math.min(journeyArrTime, arrTime + stopToWalkingDuration[arrStopId]);
+      }
+      if (stopToProfile[arrStopId] != null) {
+        journeyArrTime = Math.min(journeyArrTime, stopToProfile[arrStopId].evaluate(arrTime));
+      }
+      if (journeyArrTime == Integer.MAX_VALUE || journeyArrTime > arrTimeBound) {
+        continue;
+      }
+      tripToArrTime[tripId] = journeyArrTime;
+      tripToRunDay[tripId] = runDay;
+
+      // Stops from which the departure stop can be walked to reach the
+      // destination by this connection. Departures before the window are only
+      // needed at the source, where they are not of interest.
+      final int depStopId = connections.getDepStopId(connection);
+      final int lastFootpath = footpaths.getLastIncoming(depStopId);
+      for (int footpathPosition = footpaths.getFirstIncoming(depStopId); footpathPosition < lastFootpath;
+          footpathPosition++) {
+        final int footpath = footpaths.getIncoming(footpathPosition);
+        final int footpathDepTime = depTime - footpaths.getDuration(footpath);
+        if (footpathDepTime < earliestDepTime) {
+          continue;
+        }
+        final int footpathDepStopId = footpaths.getDepStopId(footpath);
+        if (stopToProfile[footpathDepStopId] == null) {
+          stopToProfile[footpathDepStopId] = new StopProfile();
+        }
+        stopToProfile[footpathDepStopId].add(footpathDepTime, journeyArrTime);
+      }
     }
 
-    return searchSpace;
+    // Collect the journeys departing within the window, ascending, which are
+    // faster than walking directly. The first journey departing after the
+    // window is kept as it is the best when departing at its end.
+    final int walkingDuration = stopToWalkingDuration[source.getId()];
+    final IntArrayList depTimes = new IntArrayList();
+    final IntArrayList arrTimes = new IntArrayList();
+    final StopProfile sourceProfile = stopToProfile[source.getId()];
+    for (int i = sourceProfile == null ? -1 : sourceProfile.mSize - 1; i >= 0; i--) {
+      final int depTime = sourceProfile.mDepTimes[i];
+      final int arrTime = sourceProfile.mArrTimes[i];
+      if (walkingDuration != Integer.MAX_VALUE && (long) depTime + walkingDuration <= arrTime) {
+        continue;
+      }
+      depTimes.add(depTime);
+      arrTimes.add(arrTime);
+      if (depTime > latestDepTime) {
+        break;
+      }
+    }
+    return new ConnectionScanProfile(depTimes.toArray(), arrTimes.toArray(), walkingDuration);
   }
 
   @Override
-  public Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> computeShortestPath(final Collection<ICoreNode> sources,
-                                                                              final ICoreNode destination) {
+  public Collection<ICoreNode> computeSearchSpace(final Collection<ICoreNode> sources, final ICoreNode destination) {
     final int startingTime = ConnectionScan.extractStartingTime(sources.iterator().next());
-    final ConnectionScanResult result = computeShortestPathHelper(sources, destination, startingTime);
-    final int[] stopToArrTime = result.getStopToArrTime();
+    final Workspace workspace = computeShortestPathHelper(sources, destination, startingTime, Integer.MAX_VALUE,
+        new QueryStatistics());
 
-    // Not reachable
-    if (stopToArrTime[destination.getId()] == Integer.MAX_VALUE) {
-      return Optional.empty();
+    // Collect all visited stops
+    final IntArrayList reached = workspace.mReached;
+    final Collection<ICoreNode> searchSpace = new ArrayList<>(reached.size());
+    for (int i = 0; i < reached.size(); i++) {
+      final int stopId = reached.get(i);
+      searchSpace.add(createNodeForStop(stopId, workspace.getArrTime(stopId)));
     }
 
-    // Construct path
-    final JourneyPointer[] stopToJourney = result.getStopToJourney();
-    final EdgePath<ICoreNode, ICoreEdge<ICoreNode>> path = new EdgePath<>(true);
-    int currentStopId = destination.getId();
-    TransitNode currentDestination = createNodeForStop(currentStopId, stopToArrTime[currentStopId]);
-
-    // Backtrack journey pointers from destination to source. Stop when the
-    // initial pointer was found, i.e. a pointer only containing an initial
-    // footpath.
-    // TODO CSA is likely to have a bug, sometimes the pointer induce
-    // a loop which should not be possible. Remove the loop detection after
-    // investigating the issue. Current guess: Induced by footpaths not obeying
-    // the triangle inequality (i.e. its cheaper to visit an already visited
-    // stop again for a cheap footpath than using a direct footpath). This was
-    // fixed in the current version. Check if the issue remains.
-    final Set<Integer> visitedStopsLoopDetection = new LinkedHashSet<>();
-    while (stopToJourney[currentStopId].getEnterConnection() != null) {
-      // TODO Loop detection from here ...
-      if (visitedStopsLoopDetection.contains(currentStopId)) {
-        // Loop detected
-        final Path dumpPath = Paths.get("bugDump.dmp");
-        LOGGER.info("Bug: Detected a loop, aborting computation and returning empty path.");
-        LOGGER.info("Bug data dumped to: " + dumpPath.toAbsolutePath());
-        final List<String> dumpLines = new ArrayList<>();
-        dumpLines.add("#-----------------------------------------------------------------");
-        dumpLines.add("#Bug dump, detected a loop in CSA path extraction.");
-        dumpLines.add("#Query from " + sources + " to " + destination + " with depTime at " + startingTime);
-        dumpLines.add(
-            "#Visited stops in extraction " + visitedStopsLoopDetection + ", visiting " + currentStopId + " again");
-        dumpLines.add("#Relevant journey pointers:");
-        for (final int visitedStop : visitedStopsLoopDetection) {
-          dumpLines.add("\t" + visitedStop + " -> " + stopToJourney[visitedStop]);
-        }
-        dumpLines.add("\t" + currentStopId + " -> " + stopToJourney[currentStopId]);
-        dumpLines.add("#Complete journey pointer dump:");
-        for (int i = 0; i < stopToJourney.length; i++) {
-          dumpLines.add("\t" + i + " -> " + stopToJourney[i]);
-        }
-        try {
-          Files.write(dumpPath, dumpLines, StandardOpenOption.CREATE, StandardOpenOption.APPEND,
-              StandardOpenOption.WRITE);
-        } catch (final IOException e) {
-          e.printStackTrace();
-        }
-        return Optional.empty();
-      }
-      visitedStopsLoopDetection.add(currentStopId);
-      // TODO ... to here
-
-      final JourneyPointer pointer = stopToJourney[currentStopId];
-      final Trip trip = mTable.getTrip(pointer.getExitConnection().getTripId());
-      final Connection exitConnection = pointer.getExitConnection();
-      final Connection enterConnection = pointer.getEnterConnection();
-
-      // Departure of footpath, arrival of trip exit
-      final TransitNode tripPartArr = createNodeForStop(exitConnection.getArrStopId(),
-          ConnectionScan.validateTimeBeforeAfter(exitConnection.getArrTime(), startingTime));
-      ConnectionScan.addEdgeToPath(path, tripPartArr, currentDestination, true);
-
-      // Add the trip
-      TransitNode currentConnectionArr = tripPartArr;
-      final int exitIndex = exitConnection.getSequenceIndex();
-      final int enterIndex = enterConnection.getSequenceIndex();
-      // Traverse the used part of the sequence reversely
-      for (int i = exitIndex; i >= enterIndex; i--) {
-        final Connection connection = trip.getConnectionAtSequenceIndex(i);
-
-        final TransitNode connectionDep = createNodeForStop(connection.getDepStopId(),
-            ConnectionScan.validateTimeBeforeAfter(connection.getDepTime(), startingTime));
-        ConnectionScan.addEdgeToPath(path, connectionDep, currentConnectionArr, false);
-
-        // Prepare next connection of the trip
-        currentConnectionArr = connectionDep;
-      }
-
-      // Prepare next journey pointer
-      currentStopId = enterConnection.getDepStopId();
-      currentDestination = currentConnectionArr;
-    }
+    return searchSpace;
+  }
 
-    // Add the initial footpath from the source to the first connection. This
-    // also handles the special case were the shortest path only consists of a
-    // direct footpath between the source and destination.
-    final Footpath initialFootpath = stopToJourney[currentStopId].getFootpath();
-    final TransitNode sourceNode = createNodeForStop(initialFootpath.getDepStopId(), startingTime);
-    ConnectionScan.addEdgeToPath(path, sourceNode, currentDestination, true);
+  @Override
+  public Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> computeShortestPath(final Collection<ICoreNode> sources,
+                                                                              final ICoreNode destination) {
+    return computeShortestPath(sources, destination, new QueryStatistics());
+  }
 
-    return Optional.of(path);
+  @Override
+  public Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> computeShortestPath(final Collection<ICoreNode> sources,
+      final ICoreNode destination, final QueryStatistics statistics) {
+    final long searchStart = System.nanoTime();
+    final int startingTime = ConnectionScan.extractStartingTime(sources.iterator().next());
+    final Workspace workspace =
+        computeShortestPathHelper(sources, destination, startingTime, Integer.MAX_VALUE, statistics);
+    final long constructionStart = System.nanoTime();
+    statistics.addPhaseTime(EQueryPhase.SEARCH, constructionStart - searchStart);
+    final Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> path =
+        constructPath(sources, destination, startingTime, workspace);
+    statistics.addPhaseTime(EQueryPhase.PATH_CONSTRUCTION, System.nanoTime() - constructionStart);
+    return path;
   }
 
   @Override
   public Optional<Double> computeShortestPathCost(final Collection<ICoreNode> sources, final ICoreNode destination) {
     final int startingTime = ConnectionScan.extractStartingTime(sources.iterator().next());
-    final ConnectionScanResult result = computeShortestPathHelper(sources, destination, startingTime);
+    final Workspace workspace = computeShortestPathHelper(sources, destination, startingTime, Integer.MAX_VALUE,
+        new QueryStatistics());
 
-    final int arrTime = result.getStopToArrTime()[destination.getId()];
+    final int arrTime = workspace.getArrTime(destination.getId());
 
     // Not reachable
     if (arrTime == Integer.MAX_VALUE) {
@@ -274,22 +637,35 @@ public final class ConnectionScan extends AShortestPathComputation<ICoreNode, IC
 
   @Override
   public Map<ICoreNode, ? extends IHasPathCost> computeShortestPathCostsReachable(final Collection<ICoreNode> sources) {
+    return computeShortestPathCostsWithin(sources, Integer.MAX_VALUE);
+  }
 
+  /**
+   * Computes the shortest path costs to all stops reachable within the given
+   * budget. Connections departing after the budget is exhausted are not
+   * scanned.
+   *
+   * @param sources The sources to compute the costs from, must not be empty.
+   *                The starting time is taken from the first source.
+   * @param budget  The greatest travel time to explore to, in seconds
+   * @return A map connecting all reachable stops, as nodes at their arrival
+   *         time, to their cost
+   */
+  public Map<ICoreNode, ? extends IHasPathCost> computeShortestPathCostsWithin(final Collection<ICoreNode> sources,
+      final int budget) {
     final int startingTime = ConnectionScan.extractStartingTime(sources.iterator().next());
-    final ConnectionScanResult result = computeShortestPathHelper(sources, null, startingTime);
+    final int latestDepTime = (int) Math.min(Integer.MAX_VALUE, (long) startingTime + budget);
+    final Workspace workspace = computeShortestPathHelper(sources, null, startingTime, latestDepTime,
+        new QueryStatistics());
 
     // Collect all reachable stops
-    final Map<ICoreNode, PathCost> stopToCost = new HashMap<>();
-    final int[] stopToArrTime = result.getStopToArrTime();
-    for (int i = 0; i < stopToArrTime.length; i++) {
-      final int arrTime = stopToArrTime[i];
-      // Skip if not reachable
-      if (arrTime == Integer.MAX_VALUE) {
-        continue;
-      }
-
+    final IntArrayList reached = workspace.mReached;
+    final Map<ICoreNode, PathCost> stopToCost = new HashMap<>(reached.size());
+    for (int i = 0; i < reached.size(); i++) {
+      final int stopId = reached.get(i);
+      final int arrTime = workspace.getArrTime(stopId);
       final PathCost cost = new PathCost(ConnectionScan.computeDuration(startingTime, arrTime));
-      stopToCost.put(createNodeForStop(i, arrTime), cost);
+      stopToCost.put(createNodeForStop(stopId, arrTime), cost);
     }
 
     return stopToCost;
@@ -305,88 +681,195 @@ public final class ConnectionScan extends AShortestPathComputation<ICoreNode, IC
    *                        routing to all reachable stops is desired
    * @param startingTime    The time to start routing at in seconds since
    *                        midnight
-   * @return An object containing the results of the algorithm
+   * @param latestDepTime   The time after which no connection is taken anymore,
+   *                        in seconds since midnight, possibly shifted by a day
+   * @param statistics      The statistics to record the computation in
+   * @return The workspace of the current thread, containing the results of the
+   *         algorithm until the next query
    */
-  private ConnectionScanResult computeShortestPathHelper(final Collection<ICoreNode> sources,
-      final ICoreNode pathDestination, final int startingTime) {
-    final Integer destinationStop;
-    if (pathDestination == null) {
-      destinationStop = null;
-    } else {
-      destinationStop = pathDestination.getId();
-    }
+  private Workspace computeShortestPathHelper(final Collection<ICoreNode> sources, final ICoreNode pathDestination,
+      final int startingTime, final int latestDepTime, final QueryStatistics statistics) {
+    statistics.incrementQueries();
+    final boolean hasDestination = pathDestination != null;
+    final int destinationStop = hasDestination ? pathDestination.getId() : 0;
 
     // Initialize data-structures
-    final int[] stopToTentativeArrTime = new int[mTable.getGreatestStopId() + 1];
-    Arrays.fill(stopToTentativeArrTime, Integer.MAX_VALUE);
-    final Connection[] tripToEarliestReachableConnection = new Connection[mTable.getGreatestTripId() + 1];
-    final JourneyPointer[] stopToJourney = new JourneyPointer[mTable.getGreatestStopId() + 1];
-
-    // Relax all initial footpaths
-    sources.stream().map(IHasId::getId).flatMap(mTable::getOutgoingFootpaths).forEach(footpath -> {
-      // Only use footpath if it improves the arrival time at the destination
-      final int footpathArrStopId = footpath.getArrStopId();
-      final int footpathTime = startingTime + footpath.getDuration();
-      if (footpathTime >= stopToTentativeArrTime[footpathArrStopId]) {
-        return;
+    final Workspace workspace = ConnectionScan.getWorkspace(mTable.getGreatestStopId() + 1,
+        mTable.getGreatestTripId() + 1);
+    workspace.startQuery();
+    final ConnectionStore connections = mTable.getConnectionStore();
+    final FootpathStore footpaths = mTable.getFootpathStore();
+
+    // Relax all initial footpaths, an initial footpath is a journey pointer
+    // without connections
+    for (final ICoreNode source : sources) {
+      final int sourceId = source.getId();
+      final int lastFootpath = footpaths.getLastOutgoing(sourceId);
+      for (int footpath = footpaths.getFirstOutgoing(sourceId); footpath < lastFootpath; footpath++) {
+        statistics.incrementRelaxedFootpaths();
+        workspace.reach(footpaths.getArrStopId(footpath), startingTime + footpaths.getDuration(footpath),
+            NO_CONNECTION, NO_CONNECTION, footpath);
       }
-      stopToTentativeArrTime[footpathArrStopId] = footpathTime;
-      // Add an initial footpath as journey pointer
-      stopToJourney[footpathArrStopId] = new JourneyPointer(null, null, footpath);
-    });
+    }
 
     // Process all connections ordered starting from the first after the
-    // starting time
-    final Iterator<Connection> connections = mTable.getConnectionsStartingSince(startingTime);
-    while (connections.hasNext()) {
-      final Connection connection = connections.next();
-      final int depTime = ConnectionScan.validateTimeBeforeAfter(connection.getDepTime(), startingTime);
-      final int depStopId = connection.getDepStopId();
-      final int arrTime = ConnectionScan.validateTimeBeforeAfter(connection.getArrTime(), startingTime);
-      final int arrStopId = connection.getArrStopId();
-      final int tripId = connection.getTripId();
+    // starting time, continuing with the connections of the next day. The
+    // parallel arrays of the store are scanned sequentially.
+    final int amountOfConnections = connections.size();
+    final int firstConnection =
+        connections.indexOfFirstDepartingSince(startingTime) % Math.max(1, amountOfConnections);
+    // The arrival time at the destination only changes when footpaths are
+    // relaxed, it is thus not read from the workspace for every connection
+    int destinationArrTime = hasDestination ? workspace.getArrTime(destinationStop) : Integer.MAX_VALUE;
+    final QueryDeadline deadline = QueryDeadline.current();
+    for (int iterations = 1; iterations <= amountOfConnections; iterations++) {
+      // Stop with the arrival times found so far or fail if the deadline
+      // expired
+      if (QueryDeadline.shouldCheck(iterations) && deadline.checkExpired()) {
+        break;
+      }
+
+      int connection = firstConnection + iterations - 1;
+      if (connection >= amountOfConnections) {
+        connection -= amountOfConnections;
+      }
+      final int depTime = ConnectionScan.validateTimeBeforeAfter(connections.getDepTime(connection), startingTime);
+      final int depStopId = connections.getDepStopId(connection);
+      final int arrTime = ConnectionScan.validateTimeBeforeAfter(connections.getArrTime(connection), startingTime);
+      final int arrStopId = connections.getArrStopId(connection);
+      final int tripId = connections.getTripId(connection);
 
       // Arrived at destination before this connection. The connection can thus
       // not improve the time anymore and since connections are processed
       // ordered the algorithm has finished.
-      if (destinationStop != null && stopToTentativeArrTime[destinationStop] <= depTime) {
+      if (destinationArrTime <= depTime) {
         break;
       }
-
-      if (tripToEarliestReachableConnection[tripId] == null) {
+      // Connections are ordered, all following depart too late as well
+      if (depTime > latestDepTime) {
+        break;
+      }
+      statistics.incrementScannedConnections();
+
+      // Connections of the following day belong to the run of the trip of
+      // that day, unless the trip entered today runs past midnight
+      int enterConnection = workspace.getTripConnection(tripId);
+      if (enterConnection != NO_CONNECTION && ConnectionScan.getRunDay(connections, connection, startingTime)
+          != ConnectionScan.getRunDay(connections, enterConnection, startingTime)) {
+        enterConnection = NO_CONNECTION;
+      }
+      if (enterConnection == NO_CONNECTION) {
         // Only process connections that can be taken due to a previous arrival
         // at the departure stop before the departure time
-        if (stopToTentativeArrTime[depStopId] > depTime) {
+        if (workspace.getArrTime(depStopId) > depTime) {
           continue;
         }
 
         // Trip is used for the first time
-        tripToEarliestReachableConnection[tripId] = connection;
+        enterConnection = connection;
+        workspace.setTripConnection(tripId, connection);
       }
 
       // Do not relax if connection does not improve arrival time at this stop
-      if (arrTime >= stopToTentativeArrTime[arrStopId]) {
+      if (arrTime >= workspace.getArrTime(arrStopId)) {
         continue;
       }
 
-      // Relax all outgoing footpaths
-      mTable.getOutgoingFootpaths(arrStopId).forEach(footpath -> {
-        final int footpathArrStopId = footpath.getArrStopId();
-        final int footpathTime = arrTime + footpath.getDuration();
+      // Relax all outgoing footpaths, only those improving the arrival time
+      // are taken
+      final int lastFootpath = footpaths.getLastOutgoing(arrStopId);
+      for (int footpath = footpaths.getFirstOutgoing(arrStopId); footpath < lastFootpath; footpath++) {
+        statistics.incrementRelaxedFootpaths();
+        workspace.reach(footpaths.getArrStopId(footpath), arrTime + footpaths.getDuration(footpath), enterConnection,
+            connection, footpath);
+      }
+      if (hasDestination) {
+        destinationArrTime = workspace.getArrTime(destinationStop);
+      }
+    }
 
-        // Only use footpath if it improves the arrival time at the destination
-        if (footpathTime >= stopToTentativeArrTime[footpathArrStopId]) {
-          return;
-        }
+    return workspace;
+  }
 
-        // Take this footpath
-        stopToTentativeArrTime[footpathArrStopId] = footpathTime;
-        stopToJourney[footpathArrStopId] =
-            new JourneyPointer(tripToEarliestReachableConnection[tripId], connection, footpath);
-      });
+  /**
+   * Constructs the shortest path to the given destination by backtracking the
+   * journey pointers of the given workspace.
+   *
+   * @param sources      The sources of the query
+   * @param destination  The destination of the path
+   * @param startingTime The time the query started at in seconds since
+   *                     midnight
+   * @param workspace    The workspace containing the result of the search
+   * @return The shortest path if present, else empty
+   */
+  private Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> constructPath(final Collection<ICoreNode> sources,
+      final ICoreNode destination, final int startingTime, final Workspace workspace) {
+    // Not reachable
+    if (workspace.getArrTime(destination.getId()) == Integer.MAX_VALUE) {
+      return Optional.empty();
     }
 
-    return new ConnectionScanResult(stopToTentativeArrTime, stopToJourney);
+    // Construct path
+    final ConnectionStore connections = mTable.getConnectionStore();
+    // The visited stops are collected reversely, from the destination to the
+    // source. The hop starting at a stop is walked if its flag is set.
+    final IntArrayList stops = new IntArrayList();
+    final IntArrayList times = new IntArrayList();
+    final BooleanArrayList byFoot = new BooleanArrayList();
+    int currentStopId = destination.getId();
+    stops.add(currentStopId);
+    times.add(workspace.getArrTime(currentStopId));
+
+    // Backtrack journey pointers from destination to source. Stop when the
+    // initial pointer was found, i.e. a pointer only containing an initial
+    // footpath. Pointers are only replaced by earlier arrivals, so they can not
+    // form a loop. Guard against it nonetheless, a path visits every reached
+    // stop at most once.
+    int hops = 0;
+    while (workspace.mEnterConnection[currentStopId] != NO_CONNECTION) {
+      hops++;
+      if (hops > workspace.mReached.size()) {
+        LOGGER.warn("Journey pointers from {} to {} departing at {} form a loop, returning no path", sources,
+            destination, startingTime);
+        return Optional.empty();
+      }
+
+      final int exitConnection = workspace.mExitConnection[currentStopId];
+      final int enterConnection = workspace.mEnterConnection[currentStopId];
+      final Trip trip = mTable.getTrip(connections.getTripId(exitConnection));
+
+      // Departure of footpath, arrival of trip exit
+      stops.add(connections.getArrStopId(exitConnection));
+      times.add(ConnectionScan.validateTimeBeforeAfter(connections.getArrTime(exitConnection), startingTime));
+      byFoot.add(true);
+
+      // Add the trip
+      final int exitIndex = connections.getSequenceIndex(exitConnection);
+      final int enterIndex = connections.getSequenceIndex(enterConnection);
+      // Traverse the used part of the sequence reversely
+      for (int i = exitIndex; i >= enterIndex; i--) {
+        final Connection connection = trip.getConnectionAtSequenceIndex(i);
+        stops.add(connection.getDepStopId());
+        times.add(ConnectionScan.validateTimeBeforeAfter(connection.getDepTime(), startingTime));
+        byFoot.add(false);
+      }
+
+      // Prepare next journey pointer
+      currentStopId = connections.getDepStopId(enterConnection);
+    }
+
+    // Add the initial footpath from the source to the first connection. This
+    // also handles the special case were the shortest path only consists of a
+    // direct footpath between the source and destination.
+    final Footpath initialFootpath = mTable.getFootpathStore().getFootpath(workspace.mFootpath[currentStopId]);
+    stops.add(initialFootpath.getDepStopId());
+    times.add(startingTime);
+    byFoot.add(true);
+
+    stops.reverseThis();
+    times.reverseThis();
+    byFoot.reverseThis();
+    return Optional.of(new ConnectionScanPath(mTable, stops.toArray(), times.toArray(), byFoot.toArray()));
   }
 
   /**
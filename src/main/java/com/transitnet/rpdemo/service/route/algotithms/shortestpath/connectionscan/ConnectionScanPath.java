@@ -0,0 +1,193 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.connectionscan;
+
+import com.transitnet.rpdemo.model.ETransportationMode;
+import com.transitnet.rpdemo.model.EdgeCost;
+import com.transitnet.rpdemo.model.ICoreEdge;
+import com.transitnet.rpdemo.model.ICoreNode;
+import com.transitnet.rpdemo.model.IPath;
+import com.transitnet.rpdemo.model.TransportationModeMask;
+import com.transitnet.rpdemo.model.timetable.Stop;
+import com.transitnet.rpdemo.model.timetable.Timetable;
+import com.transitnet.rpdemo.model.transit.TransitEdge;
+import com.transitnet.rpdemo.model.transit.TransitNode;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Implementation of a {@link IPath} for paths extracted by
+ * {@link ConnectionScan}. Stores only the visited stops, the times at them and
+ * whether each hop is walked.<br>
+ * <br>
+ * The {@link TransitNode}, {@link TransitEdge} and {@link FootpathTransitEdge}
+ * objects are only created when iterating the path, the total cost and the
+ * geometry are available without them.
+ */
+public final class ConnectionScanPath implements IPath<ICoreNode, ICoreEdge<ICoreNode>> {
+  /**
+   * The transportation modes allowed on hops taken by tram, encoded as bit
+   * mask.
+   */
+  private static final byte TRAM_MODE_MASK = TransportationModeMask.of(ETransportationMode.TRAM);
+  /**
+   * Whether the hop starting at the stop with the same position is walked by
+   * foot instead of taken by tram.
+   */
+  private final boolean[] mByFoot;
+  /**
+   * The IDs of the visited stops, in travel order.
+   */
+  private final int[] mStops;
+  /**
+   * The timetable the stops belong to.
+   */
+  private final Timetable mTable;
+  /**
+   * The times at the visited stops, in seconds since midnight.
+   */
+  private final int[] mTimes;
+
+  /**
+   * Creates a new path visiting the given stops. The arrays are used directly
+   * and must not be changed afterwards.
+   *
+   * @param table  The timetable the stops belong to
+   * @param stops  The IDs of the visited stops, in travel order, at least two
+   * @param times  The times at the visited stops, in seconds since midnight
+   * @param byFoot Whether the hop starting at the stop with the same position
+   *               is walked by foot, has one entry less than the stops
+   */
+  public ConnectionScanPath(final Timetable table, final int[] stops, final int[] times, final boolean[] byFoot) {
+    mTable = table;
+    mStops = stops;
+    mTimes = times;
+    mByFoot = byFoot;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.model.IPath#getDestination()
+   */
+  @Override
+  public ICoreNode getDestination() {
+    return createNode(mStops.length - 1);
+  }
+
+  /**
+   * Gets the cost of the hop at the given position, that is its travel time.
+   *
+   * @param position The position of the hop in the path
+   * @return The cost of the hop, in seconds
+   */
+  public int getEdgeCost(final int position) {
+    return mTimes[position + 1] - mTimes[position];
+  }
+
+  /**
+   * Gets the modes allowed on the hop at the given position, the same as on
+   * the edge created for it when iterating. Does not create any edge objects.
+   *
+   * @param position The position of the hop in the path
+   * @return The bit mask of allowed modes
+   */
+  public byte getEdgeModes(final int position) {
+    return mByFoot[position] ? FootpathTransitEdge.MODE_MASK : TRAM_MODE_MASK;
+  }
+
+  /**
+   * Gets the geometry of the path, that are the coordinates of the visited
+   * stops in travel order. Does not create any node objects.
+   *
+   * @return The latitude and longitude of each stop, interleaved
+   */
+  public float[] getGeometry() {
+    final float[] geometry = new float[2 * mStops.length];
+    for (int i = 0; i < mStops.length; i++) {
+      final Stop stop = mTable.getStop(mStops[i]);
+      geometry[2 * i] = stop.getLatitude();
+      geometry[2 * i + 1] = stop.getLongitude();
+    }
+    return geometry;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.model.IPath#getSource()
+   */
+  @Override
+  public ICoreNode getSource() {
+    return createNode(0);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.model.IPath#getTotalCost()
+   */
+  @Override
+  public double getTotalCost() {
+    // The costs of the hops are their time differences, their sum telescopes
+    return mTimes[mTimes.length - 1] - mTimes[0];
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Iterable#iterator()
+   */
+  @Override
+  public Iterator<EdgeCost<ICoreNode, ICoreEdge<ICoreNode>>> iterator() {
+    return new Iterator<>() {
+      /**
+       * The node the next hop starts at, shared with the previous hop.
+       */
+      private TransitNode mCurrentNode = createNode(0);
+      /**
+       * The position of the next hop to return.
+       */
+      private int mPosition;
+
+      @Override
+      public boolean hasNext() {
+        return mPosition < mByFoot.length;
+      }
+
+      @Override
+      public EdgeCost<ICoreNode, ICoreEdge<ICoreNode>> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final TransitNode source = mCurrentNode;
+        final TransitNode destination = createNode(mPosition + 1);
+        final double cost = destination.getTime() - source.getTime();
+        final ICoreEdge<ICoreNode> edge;
+        if (mByFoot[mPosition]) {
+          edge = new FootpathTransitEdge<>(0, source, destination, cost);
+        } else {
+          edge = new TransitEdge<>(0, source, destination, cost);
+        }
+        mCurrentNode = destination;
+        mPosition++;
+        return new EdgeCost<>(edge, cost);
+      }
+    };
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.model.IPath#length()
+   */
+  @Override
+  public int length() {
+    return mByFoot.length;
+  }
+
+  /**
+   * Creates a node for the visited stop at the given position.
+   *
+   * @param position The position of the stop in the path
+   * @return The created node
+   */
+  private TransitNode createNode(final int position) {
+    final Stop stop = mTable.getStop(mStops[position]);
+    return new TransitNode(mStops[position], stop.getLatitude(), stop.getLongitude(), mTimes[position]);
+  }
+}
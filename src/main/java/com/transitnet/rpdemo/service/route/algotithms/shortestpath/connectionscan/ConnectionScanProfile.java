@@ -0,0 +1,135 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.connectionscan;
+
+import java.util.Arrays;
+import java.util.OptionalInt;
+
+/**
+ * The profile of a connection scan query, i.e. all Pareto-optimal pairs of
+ * departure and arrival time for departing from a source within a time
+ * window. The first journey departing after the window is contained as well,
+ * it is the best when departing at the end of the window.<br>
+ * <br>
+ * A journey is Pareto-optimal if no other journey departs later and arrives
+ * earlier or at the same time. Journeys are ordered ascending in their
+ * departure time, hence also in their arrival time. Times are in seconds since
+ * midnight of the day the window starts at, they may be shifted by a day.
+ * Walking directly to the destination can be done at any time, it is thus not
+ * contained as journey but given separately.
+ */
+public final class ConnectionScanProfile {
+  /**
+   * The arrival times of the journeys, ascending.
+   */
+  private final int[] mArrTimes;
+  /**
+   * The departure times of the journeys, ascending.
+   */
+  private final int[] mDepTimes;
+  /**
+   * The duration of walking directly to the destination in seconds, or
+   * {@link Integer#MAX_VALUE} if not possible.
+   */
+  private final int mWalkingDuration;
+
+  /**
+   * Creates a new profile consisting of the given journeys.
+   *
+   * @param depTimes        The departure times of the journeys, ascending
+   * @param arrTimes        The arrival times of the journeys, ascending
+   * @param walkingDuration The duration of walking directly to the destination
+   *                        in seconds, or {@link Integer#MAX_VALUE} if not
+   *                        possible
+   */
+  public ConnectionScanProfile(final int[] depTimes, final int[] arrTimes, final int walkingDuration) {
+    mDepTimes = depTimes;
+    mArrTimes = arrTimes;
+    mWalkingDuration = walkingDuration;
+  }
+
+  /**
+   * Gets the arrival time of the given journey.
+   *
+   * @param journey The index of the journey
+   * @return The arrival time in seconds since midnight
+   */
+  public int getArrTime(final int journey) {
+    return mArrTimes[journey];
+  }
+
+  /**
+   * Gets the departure time of the given journey.
+   *
+   * @param journey The index of the journey
+   * @return The departure time in seconds since midnight
+   */
+  public int getDepTime(final int journey) {
+    return mDepTimes[journey];
+  }
+
+  /**
+   * Gets the earliest arrival at the destination when departing at the given
+   * time, either by one of the journeys or by walking directly.
+   *
+   * @param depTime The departure time in seconds since midnight, within the
+   *                window of the query
+   * @return The earliest arrival time in seconds since midnight if the
+   *         destination is reachable, else empty
+   */
+  public OptionalInt getEarliestArrTime(final int depTime) {
+    // The first journey departing not before the given time arrives earliest
+    int journey = Arrays.binarySearch(mDepTimes, depTime);
+    if (journey < 0) {
+      journey = -journey - 1;
+    }
+    long arrTime = journey < mArrTimes.length ? mArrTimes[journey] : Integer.MAX_VALUE;
+    if (mWalkingDuration != Integer.MAX_VALUE) {
+      arrTime = Math.min(arrTime, (long) depTime + mWalkingDuration);
+    }
+    if (arrTime >= Integer.MAX_VALUE) {
+      return OptionalInt.empty();
+    }
+    return OptionalInt.of((int) arrTime);
+  }
+
+  /**
+   * Gets the duration of walking directly to the destination.
+   *
+   * @return The duration in seconds if the destination can be reached by
+   *         walking, else empty
+   */
+  public OptionalInt getWalkingDuration() {
+    if (mWalkingDuration == Integer.MAX_VALUE) {
+      return OptionalInt.empty();
+    }
+    return OptionalInt.of(mWalkingDuration);
+  }
+
+  /**
+   * Gets the amount of journeys of this profile.
+   *
+   * @return The amount of journeys
+   */
+  public int size() {
+    return mDepTimes.length;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+    builder.append("ConnectionScanProfile [journeys=");
+    for (int i = 0; i < mDepTimes.length; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(mDepTimes[i]).append("->").append(mArrTimes[i]);
+    }
+    builder.append(", walkingDuration=");
+    builder.append(mWalkingDuration);
+    builder.append("]");
+    return builder.toString();
+  }
+}
@@ -2,6 +2,7 @@ package com.transitnet.rpdemo.service.route.algotithms.shortestpath.connectionsc
 
 import com.transitnet.rpdemo.model.ETransportationMode;
 import com.transitnet.rpdemo.model.ICoreNode;
+import com.transitnet.rpdemo.model.TransportationModeMask;
 import com.transitnet.rpdemo.model.transit.TransitEdge;
 
 import java.util.EnumSet;
@@ -18,6 +19,11 @@ public final class FootpathTransitEdge<N extends ICoreNode> extends TransitEdge<
    * The serial version UID.
    */
   private static final long serialVersionUID = 1L;
+  /**
+   * The transportation modes allowed by this edge, encoded as bit mask.
+   */
+  static final byte MODE_MASK = TransportationModeMask.of(EnumSet.of(ETransportationMode.CAR, ETransportationMode.BIKE,
+      ETransportationMode.FOOT));
   /**
    * The transportation modes allowed by this edge.
    */
@@ -36,6 +42,11 @@ public final class FootpathTransitEdge<N extends ICoreNode> extends TransitEdge<
     mModes = EnumSet.of(ETransportationMode.CAR, ETransportationMode.BIKE, ETransportationMode.FOOT);
   }
 
+  @Override
+  public byte getTransportationModeMask() {
+    return MODE_MASK;
+  }
+
   @Override
   public Set<ETransportationMode> getTransportationModes() {
     return mModes;
@@ -43,7 +54,7 @@ public final class FootpathTransitEdge<N extends ICoreNode> extends TransitEdge<
 
   @Override
   public boolean hasTransportationMode(final ETransportationMode mode) {
-    return mModes.contains(mode);
+    return TransportationModeMask.contains(MODE_MASK, mode);
   }
 
 }
@@ -0,0 +1,316 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy;
+
+import com.transitnet.rpdemo.model.ETransportationMode;
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.IHasId;
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.model.ISpatial;
+import com.transitnet.rpdemo.model.TransportationModeMask;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import java.io.Serializable;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * A Contraction Hierarchy of a {@link FrozenRoadGraph}. Nodes are contracted
+ * one after another, in the order of their <i>rank</i>. Contracting a node
+ * inserts <i>shortcuts</i> between its neighbors whenever the node lies on the
+ * only shortest path between them.<br>
+ * <br>
+ * The hierarchy stores the resulting arcs in two compressed adjacency arrays.
+ * <i>Upward arcs</i> lead from a node to a node of higher rank,
+ * <i>downward arcs</i> of a node lead from a node of higher rank to it. A
+ * shortest path query then only needs to search upwards from both the source
+ * and the destination, see {@link ContractionHierarchyQuery}.<br>
+ * <br>
+ * Arcs refer to an edge ID. IDs below the amount of edges of the graph are edge
+ * indices of the graph, greater IDs denote shortcuts which can be unpacked
+ * using {@link #unpack(int, IntConsumer)}.<br>
+ * <br>
+ * The hierarchy is built for a fixed set of transportation modes. The cost of
+ * an edge is the smallest cost among the allowed modes, edges that allow none
+ * of them are ignored. Use {@link #build(FrozenRoadGraph, Set)} for creation,
+ * the resulting instance is immutable and can be shared between threads.
+ *
+ * @param <N> Type of the nodes
+ * @param <E> Type of the edges
+ */
+public final class ContractionHierarchy<N extends INode & IHasId & ISpatial & Serializable,
+    E extends IEdge<N> & IHasId & Serializable> {
+  /**
+   * Builds the Contraction Hierarchy of the given graph for the given
+   * transportation modes. Depending on the size of the graph this may take a
+   * while.
+   *
+   * @param       <N> Type of the nodes
+   * @param       <E> Type of the edges
+   * @param graph The graph to build the hierarchy for
+   * @param modes The transportation modes allowed to be taken
+   * @return The built hierarchy
+   */
+  public static <N extends INode & IHasId & ISpatial & Serializable, E extends IEdge<N> & IHasId & Serializable>
+      ContractionHierarchy<N, E> build(final FrozenRoadGraph<N, E> graph, final Set<ETransportationMode> modes) {
+    final byte modeMask = TransportationModeMask.of(modes);
+    final float[] edgeCost = graph.getEdgeCosts(modeMask);
+    return new ContractionHierarchyBuilder<>(graph, edgeCost, modeMask).build();
+  }
+
+  /**
+   * The edge ID of each downward arc.
+   */
+  private final int[] mDownwardArcEdge;
+  /**
+   * The tail of each downward arc, grouped by their head.
+   */
+  private final int[] mDownwardArcTail;
+  /**
+   * The weight of each downward arc.
+   */
+  private final float[] mDownwardArcWeight;
+  /**
+   * The cost of each edge of the graph, indexed by edge index.
+   */
+  private final float[] mEdgeCost;
+  /**
+   * Offsets into the downward arc arrays for each node, the last entry is the
+   * total amount of downward arcs.
+   */
+  private final int[] mFirstDownwardArc;
+  /**
+   * Offsets into the upward arc arrays for each node, the last entry is the
+   * total amount of upward arcs.
+   */
+  private final int[] mFirstUpwardArc;
+  /**
+   * The graph the hierarchy was built for.
+   */
+  private final FrozenRoadGraph<N, E> mGraph;
+  /**
+   * The transportation modes the hierarchy was built for, as bit mask.
+   */
+  private final byte mModes;
+  /**
+   * The rank of each node, indexed by dense node index.
+   */
+  private final int[] mRank;
+  /**
+   * The first half of each shortcut, as edge ID, indexed by shortcut index.
+   */
+  private final int[] mShortcutFirst;
+  /**
+   * The second half of each shortcut, as edge ID, indexed by shortcut index.
+   */
+  private final int[] mShortcutSecond;
+  /**
+   * The edge ID of each upward arc.
+   */
+  private final int[] mUpwardArcEdge;
+  /**
+   * The head of each upward arc, grouped by their tail.
+   */
+  private final int[] mUpwardArcHead;
+  /**
+   * The weight of each upward arc.
+   */
+  private final float[] mUpwardArcWeight;
+
+  /**
+   * Creates a new hierarchy from the given, already computed, data.
+   *
+   * @param graph              The graph the hierarchy was built for
+   * @param edgeCost           The cost of each edge of the graph
+   * @param modes              The transportation modes as bit mask
+   * @param rank               The rank of each node
+   * @param firstUpwardArc     Offsets into the upward arc arrays
+   * @param upwardArcHead      The head of each upward arc
+   * @param upwardArcWeight    The weight of each upward arc
+   * @param upwardArcEdge      The edge ID of each upward arc
+   * @param firstDownwardArc   Offsets into the downward arc arrays
+   * @param downwardArcTail    The tail of each downward arc
+   * @param downwardArcWeight  The weight of each downward arc
+   * @param downwardArcEdge    The edge ID of each downward arc
+   * @param shortcutFirst      The first half of each shortcut
+   * @param shortcutSecond     The second half of each shortcut
+   */
+  ContractionHierarchy(final FrozenRoadGraph<N, E> graph, final float[] edgeCost, final byte modes,
+      final int[] rank, final int[] firstUpwardArc, final int[] upwardArcHead, final float[] upwardArcWeight,
+      final int[] upwardArcEdge, final int[] firstDownwardArc, final int[] downwardArcTail,
+      final float[] downwardArcWeight, final int[] downwardArcEdge, final int[] shortcutFirst,
+      final int[] shortcutSecond) {
+    mGraph = graph;
+    mEdgeCost = edgeCost;
+    mModes = modes;
+    mRank = rank;
+    mFirstUpwardArc = firstUpwardArc;
+    mUpwardArcHead = upwardArcHead;
+    mUpwardArcWeight = upwardArcWeight;
+    mUpwardArcEdge = upwardArcEdge;
+    mFirstDownwardArc = firstDownwardArc;
+    mDownwardArcTail = downwardArcTail;
+    mDownwardArcWeight = downwardArcWeight;
+    mDownwardArcEdge = downwardArcEdge;
+    mShortcutFirst = shortcutFirst;
+    mShortcutSecond = shortcutSecond;
+  }
+
+  /**
+   * Gets the amount of shortcuts inserted by the contraction.
+   *
+   * @return The amount of shortcuts
+   */
+  public int getAmountOfShortcuts() {
+    return mShortcutFirst.length;
+  }
+
+  /**
+   * Gets the cost of the edge with the given index, when taken with the modes
+   * of this hierarchy.
+   *
+   * @param edge The index of the edge
+   * @return The cost of the edge, {@link Float#POSITIVE_INFINITY} if the edge
+   *         allows none of the modes
+   */
+  public float getEdgeCost(final int edge) {
+    return mEdgeCost[edge];
+  }
+
+  /**
+   * Gets the graph this hierarchy was built for.
+   *
+   * @return The graph of this hierarchy
+   */
+  public FrozenRoadGraph<N, E> getGraph() {
+    return mGraph;
+  }
+
+  /**
+   * Gets the transportation modes this hierarchy was built for.
+   *
+   * @return The transportation modes, as bit mask
+   */
+  public byte getModes() {
+    return mModes;
+  }
+
+  /**
+   * Gets the rank of the given node, i.e. the position in which it was
+   * contracted.
+   *
+   * @param node The dense index of the node
+   * @return The rank of the node
+   */
+  public int getRank(final int node) {
+    return mRank[node];
+  }
+
+  /**
+   * Unpacks the given edge ID into the edges of the graph it consists of. The
+   * edges are reported in the order of the path they form.
+   *
+   * @param edge   The edge ID to unpack
+   * @param action Action to call with the index of each edge of the graph
+   */
+  public void unpack(final int edge, final IntConsumer action) {
+    final int amountOfEdges = mEdgeCost.length;
+    final IntArrayList stack = new IntArrayList();
+    stack.add(edge);
+    while (!stack.isEmpty()) {
+      final int current = stack.removeAtIndex(stack.size() - 1);
+      if (current < amountOfEdges) {
+        action.accept(current);
+        continue;
+      }
+      // Push the second half first such that the first half is unpacked first
+      stack.add(mShortcutSecond[current - amountOfEdges]);
+      stack.add(mShortcutFirst[current - amountOfEdges]);
+    }
+  }
+
+  /**
+   * Gets the edge ID of the given downward arc.
+   *
+   * @param arc The index of the arc
+   * @return The edge ID of the arc
+   */
+  int getDownwardArcEdge(final int arc) {
+    return mDownwardArcEdge[arc];
+  }
+
+  /**
+   * Gets the tail of the given downward arc, which has a higher rank than its
+   * head.
+   *
+   * @param arc The index of the arc
+   * @return The dense index of the tail
+   */
+  int getDownwardArcTail(final int arc) {
+    return mDownwardArcTail[arc];
+  }
+
+  /**
+   * Gets the weight of the given downward arc.
+   *
+   * @param arc The index of the arc
+   * @return The weight of the arc
+   */
+  float getDownwardArcWeight(final int arc) {
+    return mDownwardArcWeight[arc];
+  }
+
+  /**
+   * Gets the first downward arc of the given node. The downward arcs of the node
+   * are located in <code>[getFirstDownwardArc(node), getFirstDownwardArc(node + 1))</code>.
+   *
+   * @param node The dense index of the node, may be equal to the amount of
+   *             nodes
+   * @return The index of the first downward arc
+   */
+  int getFirstDownwardArc(final int node) {
+    return mFirstDownwardArc[node];
+  }
+
+  /**
+   * Gets the first upward arc of the given node. The upward arcs of the node are
+   * located in <code>[getFirstUpwardArc(node), getFirstUpwardArc(node + 1))</code>.
+   *
+   * @param node The dense index of the node, may be equal to the amount of
+   *             nodes
+   * @return The index of the first upward arc
+   */
+  int getFirstUpwardArc(final int node) {
+    return mFirstUpwardArc[node];
+  }
+
+  /**
+   * Gets the edge ID of the given upward arc.
+   *
+   * @param arc The index of the arc
+   * @return The edge ID of the arc
+   */
+  int getUpwardArcEdge(final int arc) {
+    return mUpwardArcEdge[arc];
+  }
+
+  /**
+   * Gets the head of the given upward arc, which has a higher rank than its
+   * tail.
+   *
+   * @param arc The index of the arc
+   * @return The dense index of the head
+   */
+  int getUpwardArcHead(final int arc) {
+    return mUpwardArcHead[arc];
+  }
+
+  /**
+   * Gets the weight of the given upward arc.
+   *
+   * @param arc The index of the arc
+   * @return The weight of the arc
+   */
+  float getUpwardArcWeight(final int arc) {
+    return mUpwardArcWeight[arc];
+  }
+}
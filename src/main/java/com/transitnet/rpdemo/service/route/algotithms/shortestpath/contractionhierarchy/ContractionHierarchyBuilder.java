@@ -0,0 +1,530 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy;
+
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.IHasId;
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.model.ISpatial;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
+import com.transitnet.rpdemo.util.IndexedMinHeap;
+import org.eclipse.collections.impl.list.mutable.primitive.FloatArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+
+/**
+ * Builds a {@link ContractionHierarchy} by contracting the nodes of a graph one
+ * after another.<br>
+ * <br>
+ * The next node to contract is chosen by a priority which combines the
+ * <i>edge difference</i>, i.e. the amount of inserted shortcuts minus the
+ * amount of removed arcs, with the amount of already contracted neighbors and
+ * the depth of the node in the hierarchy. Priorities are updated lazily and for
+ * all neighbors of a contracted node.<br>
+ * <br>
+ * Whether a shortcut is needed is decided by a local <i>witness search</i>, a
+ * Dijkstra limited in the amount of settled nodes. If the search does not find
+ * a path that avoids the contracted node, a shortcut is inserted even if it
+ * might not be necessary. This does not affect correctness, only the size of
+ * the hierarchy.<br>
+ * <br>
+ * The builder is meant to be used once, it is not thread-safe.
+ *
+ * @param <N> Type of the nodes
+ * @param <E> Type of the edges
+ */
+final class ContractionHierarchyBuilder<N extends INode & IHasId & ISpatial & Serializable,
+    E extends IEdge<N> & IHasId & Serializable> {
+  /**
+   * Logger used for logging.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ContractionHierarchyBuilder.class);
+  /**
+   * The maximal amount of nodes a witness search settles before it gives up,
+   * when contracting a node.
+   */
+  private static final int WITNESS_SETTLE_LIMIT = 500;
+  /**
+   * The maximal amount of nodes a witness search settles before it gives up,
+   * when only simulating the contraction of a node for its priority.
+   */
+  private static final int WITNESS_SETTLE_LIMIT_SIMULATION = 50;
+
+  /**
+   * Dynamic list of arcs of a node, connecting it to other nodes that are not
+   * contracted yet.
+   */
+  private static final class Arcs {
+    /**
+     * The edge ID of each arc.
+     */
+    private final IntArrayList mEdges = new IntArrayList(4);
+    /**
+     * The node at the other end of each arc.
+     */
+    private final IntArrayList mNodes = new IntArrayList(4);
+    /**
+     * The weight of each arc.
+     */
+    private final FloatArrayList mWeights = new FloatArrayList(4);
+
+    /**
+     * Adds an arc to the given node.
+     *
+     * @param node   The node at the other end of the arc
+     * @param weight The weight of the arc
+     * @param edge   The edge ID of the arc
+     */
+    void add(final int node, final float weight, final int edge) {
+      mNodes.add(node);
+      mWeights.add(weight);
+      mEdges.add(edge);
+    }
+
+    /**
+     * Gets the edge ID of the given arc.
+     *
+     * @param index The index of the arc
+     * @return The edge ID
+     */
+    int edge(final int index) {
+      return mEdges.get(index);
+    }
+
+    /**
+     * Gets the index of the arc to the given node.
+     *
+     * @param node The node in question
+     * @return The index of the arc, or <code>-1</code> if there is none
+     */
+    int indexOf(final int node) {
+      return mNodes.indexOf(node);
+    }
+
+    /**
+     * Gets the node at the other end of the given arc.
+     *
+     * @param index The index of the arc
+     * @return The node at the other end
+     */
+    int node(final int index) {
+      return mNodes.get(index);
+    }
+
+    /**
+     * Removes the arc to the given node, if present. The order of the remaining
+     * arcs is not preserved.
+     *
+     * @param node The node at the other end of the arc to remove
+     */
+    void remove(final int node) {
+      final int index = mNodes.indexOf(node);
+      if (index == -1) {
+        return;
+      }
+      final int last = mNodes.size() - 1;
+      mNodes.set(index, mNodes.get(last));
+      mWeights.set(index, mWeights.get(last));
+      mEdges.set(index, mEdges.get(last));
+      mNodes.removeAtIndex(last);
+      mWeights.removeAtIndex(last);
+      mEdges.removeAtIndex(last);
+    }
+
+    /**
+     * Replaces the weight and edge ID of the given arc.
+     *
+     * @param index  The index of the arc
+     * @param weight The new weight
+     * @param edge   The new edge ID
+     */
+    void set(final int index, final float weight, final int edge) {
+      mWeights.set(index, weight);
+      mEdges.set(index, edge);
+    }
+
+    /**
+     * Gets the amount of arcs.
+     *
+     * @return The amount of arcs
+     */
+    int size() {
+      return mNodes.size();
+    }
+
+    /**
+     * Gets the weight of the given arc.
+     *
+     * @param index The index of the arc
+     * @return The weight of the arc
+     */
+    float weight(final int index) {
+      return mWeights.get(index);
+    }
+  }
+
+  /**
+   * The amount of edges of the graph, the first shortcut ID.
+   */
+  private final int mAmountOfEdges;
+  /**
+   * The amount of contracted neighbors of each node.
+   */
+  private final int[] mContractedNeighbors;
+  /**
+   * The cost of each edge of the graph.
+   */
+  private final float[] mEdgeCost;
+  /**
+   * The graph to contract.
+   */
+  private final FrozenRoadGraph<N, E> mGraph;
+  /**
+   * Incoming arcs of each node. After contraction of a node they are its
+   * downward arcs.
+   */
+  private final Arcs[] mIncoming;
+  /**
+   * The depth of each node in the hierarchy.
+   */
+  private final int[] mLevel;
+  /**
+   * The transportation modes the hierarchy is built for, as bit mask.
+   */
+  private final byte mModes;
+  /**
+   * Outgoing arcs of each node. After contraction of a node they are its upward
+   * arcs.
+   */
+  private final Arcs[] mOutgoing;
+  /**
+   * The rank of each node.
+   */
+  private final int[] mRank;
+  /**
+   * The first half of each shortcut.
+   */
+  private final IntArrayList mShortcutFirst;
+  /**
+   * The second half of each shortcut.
+   */
+  private final IntArrayList mShortcutSecond;
+  /**
+   * Tentative distances of the witness search.
+   */
+  private final double[] mWitnessDistance;
+  /**
+   * Queue of the witness search.
+   */
+  private final IndexedMinHeap mWitnessQueue;
+  /**
+   * The search each entry of {@link #mWitnessDistance} belongs to.
+   */
+  private final int[] mWitnessStamp;
+  /**
+   * The current witness search, used to invalidate old distances.
+   */
+  private int mCurrentWitnessStamp;
+
+  /**
+   * Creates a new builder for the given graph.
+   *
+   * @param graph    The graph to contract
+   * @param edgeCost The cost of each edge of the graph,
+   *                 {@link Float#POSITIVE_INFINITY} for edges to ignore
+   * @param modes    The transportation modes the costs refer to, as bit mask
+   */
+  ContractionHierarchyBuilder(final FrozenRoadGraph<N, E> graph, final float[] edgeCost, final byte modes) {
+    mGraph = graph;
+    mEdgeCost = edgeCost;
+    mModes = modes;
+    mAmountOfEdges = graph.getAmountOfEdges();
+
+    final int amountOfNodes = graph.size();
+    mOutgoing = new Arcs[amountOfNodes];
+    mIncoming = new Arcs[amountOfNodes];
+    for (int node = 0; node < amountOfNodes; node++) {
+      mOutgoing[node] = new Arcs();
+      mIncoming[node] = new Arcs();
+    }
+    mContractedNeighbors = new int[amountOfNodes];
+    mLevel = new int[amountOfNodes];
+    mRank = new int[amountOfNodes];
+    mShortcutFirst = new IntArrayList();
+    mShortcutSecond = new IntArrayList();
+
+    mWitnessDistance = new double[amountOfNodes];
+    mWitnessStamp = new int[amountOfNodes];
+    mWitnessQueue = new IndexedMinHeap(amountOfNodes);
+  }
+
+  /**
+   * Contracts all nodes and builds the hierarchy.
+   *
+   * @return The built hierarchy
+   */
+  ContractionHierarchy<N, E> build() {
+    final long startTime = System.nanoTime();
+    initializeArcs();
+
+    final int amountOfNodes = mGraph.size();
+    final IndexedMinHeap queue = new IndexedMinHeap(amountOfNodes);
+    for (int node = 0; node < amountOfNodes; node++) {
+      queue.insertOrDecrease(node, computePriority(node));
+    }
+
+    int rank = 0;
+    while (!queue.isEmpty()) {
+      final int node = queue.poll();
+      // Lazy update, postpone the node if its priority got worse
+      final double priority = computePriority(node);
+      if (!queue.isEmpty() && priority > queue.peekKey()) {
+        queue.insertOrDecrease(node, priority);
+        continue;
+      }
+
+      contract(node, false);
+      mRank[node] = rank;
+      rank++;
+
+      // Detach the node from its neighbors and update them
+      final Arcs outgoing = mOutgoing[node];
+      final Arcs incoming = mIncoming[node];
+      for (int i = 0; i < outgoing.size(); i++) {
+        mIncoming[outgoing.node(i)].remove(node);
+      }
+      for (int i = 0; i < incoming.size(); i++) {
+        mOutgoing[incoming.node(i)].remove(node);
+      }
+      updateNeighbors(node, outgoing, queue);
+      updateNeighbors(node, incoming, queue);
+    }
+
+    final ContractionHierarchy<N, E> hierarchy = createHierarchy();
+    if (LOGGER.isInfoEnabled()) {
+      LOGGER.info("Contracted {} nodes with {} shortcuts in {} ms", amountOfNodes, mShortcutFirst.size(),
+          (System.nanoTime() - startTime) / 1_000_000);
+    }
+    return hierarchy;
+  }
+
+  /**
+   * Adds a shortcut between the given nodes, or improves an already existing arc
+   * between them.
+   *
+   * @param source      The source of the shortcut
+   * @param destination The destination of the shortcut
+   * @param weight      The weight of the shortcut
+   * @param first       The edge ID of the first half
+   * @param second      The edge ID of the second half
+   */
+  private void addShortcut(final int source, final int destination, final float weight, final int first,
+      final int second) {
+    final Arcs outgoing = mOutgoing[source];
+    final int index = outgoing.indexOf(destination);
+    if (index != -1 && outgoing.weight(index) <= weight) {
+      return;
+    }
+
+    final int shortcut = mAmountOfEdges + mShortcutFirst.size();
+    mShortcutFirst.add(first);
+    mShortcutSecond.add(second);
+
+    if (index == -1) {
+      outgoing.add(destination, weight, shortcut);
+      mIncoming[destination].add(source, weight, shortcut);
+      return;
+    }
+    outgoing.set(index, weight, shortcut);
+    final Arcs incoming = mIncoming[destination];
+    incoming.set(incoming.indexOf(source), weight, shortcut);
+  }
+
+  /**
+   * Computes the priority of the given node. Nodes with a smaller priority are
+   * contracted first.
+   *
+   * @param node The node in question
+   * @return The priority of the node
+   */
+  private double computePriority(final int node) {
+    final int shortcuts = contract(node, true);
+    final int edgeDifference = shortcuts - mOutgoing[node].size() - mIncoming[node].size();
+    return 2 * edgeDifference + mContractedNeighbors[node] + mLevel[node];
+  }
+
+  /**
+   * Contracts the given node, or only simulates its contraction.
+   *
+   * @param node     The node to contract
+   * @param simulate Whether the contraction should only be simulated, in which
+   *                 case no shortcuts are inserted
+   * @return The amount of shortcuts needed
+   */
+  private int contract(final int node, final boolean simulate) {
+    final Arcs incoming = mIncoming[node];
+    final Arcs outgoing = mOutgoing[node];
+    if (incoming.size() == 0 || outgoing.size() == 0) {
+      return 0;
+    }
+
+    float maxOutgoingWeight = 0.0F;
+    for (int i = 0; i < outgoing.size(); i++) {
+      maxOutgoingWeight = Math.max(maxOutgoingWeight, outgoing.weight(i));
+    }
+
+    int shortcuts = 0;
+    for (int i = 0; i < incoming.size(); i++) {
+      final int source = incoming.node(i);
+      final float incomingWeight = incoming.weight(i);
+      searchWitnesses(source, node, incomingWeight + maxOutgoingWeight,
+          simulate ? WITNESS_SETTLE_LIMIT_SIMULATION : WITNESS_SETTLE_LIMIT);
+
+      for (int j = 0; j < outgoing.size(); j++) {
+        final int destination = outgoing.node(j);
+        if (destination == source) {
+          continue;
+        }
+        final float viaWeight = incomingWeight + outgoing.weight(j);
+        if (mWitnessStamp[destination] == mCurrentWitnessStamp && mWitnessDistance[destination] <= viaWeight) {
+          continue;
+        }
+        shortcuts++;
+        if (!simulate) {
+          addShortcut(source, destination, viaWeight, incoming.edge(i), outgoing.edge(j));
+        }
+      }
+    }
+    return shortcuts;
+  }
+
+  /**
+   * Creates the hierarchy out of the arcs remaining at each contracted node.
+   *
+   * @return The created hierarchy
+   */
+  private ContractionHierarchy<N, E> createHierarchy() {
+    final int amountOfNodes = mGraph.size();
+
+    final int[] firstUpwardArc = new int[amountOfNodes + 1];
+    final int[] firstDownwardArc = new int[amountOfNodes + 1];
+    for (int node = 0; node < amountOfNodes; node++) {
+      firstUpwardArc[node + 1] = firstUpwardArc[node] + mOutgoing[node].size();
+      firstDownwardArc[node + 1] = firstDownwardArc[node] + mIncoming[node].size();
+    }
+
+    final int[] upwardArcHead = new int[firstUpwardArc[amountOfNodes]];
+    final float[] upwardArcWeight = new float[upwardArcHead.length];
+    final int[] upwardArcEdge = new int[upwardArcHead.length];
+    final int[] downwardArcTail = new int[firstDownwardArc[amountOfNodes]];
+    final float[] downwardArcWeight = new float[downwardArcTail.length];
+    final int[] downwardArcEdge = new int[downwardArcTail.length];
+    for (int node = 0; node < amountOfNodes; node++) {
+      final Arcs outgoing = mOutgoing[node];
+      for (int i = 0; i < outgoing.size(); i++) {
+        final int arc = firstUpwardArc[node] + i;
+        upwardArcHead[arc] = outgoing.node(i);
+        upwardArcWeight[arc] = outgoing.weight(i);
+        upwardArcEdge[arc] = outgoing.edge(i);
+      }
+      final Arcs incoming = mIncoming[node];
+      for (int i = 0; i < incoming.size(); i++) {
+        final int arc = firstDownwardArc[node] + i;
+        downwardArcTail[arc] = incoming.node(i);
+        downwardArcWeight[arc] = incoming.weight(i);
+        downwardArcEdge[arc] = incoming.edge(i);
+      }
+    }
+
+    return new ContractionHierarchy<>(mGraph, mEdgeCost, mModes, mRank, firstUpwardArc, upwardArcHead,
+        upwardArcWeight, upwardArcEdge, firstDownwardArc, downwardArcTail, downwardArcWeight, downwardArcEdge,
+        mShortcutFirst.toArray(), mShortcutSecond.toArray());
+  }
+
+  /**
+   * Initializes the arcs with the edges of the graph. Self-loops and edges with
+   * infinite cost are dropped, of parallel edges only the cheapest is kept.
+   */
+  private void initializeArcs() {
+    for (int edge = 0; edge < mAmountOfEdges; edge++) {
+      final float cost = mEdgeCost[edge];
+      final int source = mGraph.getEdgeSource(edge);
+      final int destination = mGraph.getEdgeTarget(edge);
+      if (source == destination || !Float.isFinite(cost)) {
+        continue;
+      }
+
+      final Arcs outgoing = mOutgoing[source];
+      final int index = outgoing.indexOf(destination);
+      if (index == -1) {
+        outgoing.add(destination, cost, edge);
+        mIncoming[destination].add(source, cost, edge);
+      } else if (cost < outgoing.weight(index)) {
+        outgoing.set(index, cost, edge);
+        final Arcs incoming = mIncoming[destination];
+        incoming.set(incoming.indexOf(source), cost, edge);
+      }
+    }
+  }
+
+  /**
+   * Runs a witness search from the given source on the not yet contracted
+   * nodes, avoiding the given node. Results are available in
+   * {@link #mWitnessDistance} for all entries stamped with
+   * {@link #mCurrentWitnessStamp}.
+   *
+   * @param source      The source of the search
+   * @param ignoredNode The node to avoid
+   * @param maxDistance The distance after which the search can stop
+   * @param settleLimit The amount of settled nodes after which the search
+   *                    gives up
+   */
+  private void searchWitnesses(final int source, final int ignoredNode, final double maxDistance,
+      final int settleLimit) {
+    mCurrentWitnessStamp++;
+    mWitnessQueue.clear();
+    mWitnessDistance[source] = 0.0;
+    mWitnessStamp[source] = mCurrentWitnessStamp;
+    mWitnessQueue.insertOrDecrease(source, 0.0);
+
+    int settled = 0;
+    while (!mWitnessQueue.isEmpty() && mWitnessQueue.peekKey() <= maxDistance && settled < settleLimit) {
+      final int node = mWitnessQueue.poll();
+      settled++;
+      final double distance = mWitnessDistance[node];
+
+      final Arcs outgoing = mOutgoing[node];
+      for (int i = 0; i < outgoing.size(); i++) {
+        final int destination = outgoing.node(i);
+        if (destination == ignoredNode) {
+          continue;
+        }
+        final double tentativeDistance = distance + outgoing.weight(i);
+        if (mWitnessStamp[destination] == mCurrentWitnessStamp
+            && mWitnessDistance[destination] <= tentativeDistance) {
+          continue;
+        }
+        mWitnessDistance[destination] = tentativeDistance;
+        mWitnessStamp[destination] = mCurrentWitnessStamp;
+        mWitnessQueue.insertOrDecrease(destination, tentativeDistance);
+      }
+    }
+  }
+
+  /**
+   * Updates the given neighbors after the given node was contracted.
+   *
+   * @param node      The contracted node
+   * @param neighbors The arcs leading to the neighbors
+   * @param queue     The queue to update the priority of the neighbors in
+   */
+  private void updateNeighbors(final int node, final Arcs neighbors, final IndexedMinHeap queue) {
+    for (int i = 0; i < neighbors.size(); i++) {
+      final int neighbor = neighbors.node(i);
+      mContractedNeighbors[neighbor]++;
+      mLevel[neighbor] = Math.max(mLevel[neighbor], mLevel[node] + 1);
+      queue.update(neighbor, computePriority(neighbor));
+    }
+  }
+}
@@ -0,0 +1,477 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy;
+
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.IHasId;
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.model.IPath;
+import com.transitnet.rpdemo.model.ISpatial;
+import com.transitnet.rpdemo.model.TransportationModeMask;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.AShortestPathComputation;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.CompactPath;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.EmptyPath;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IHasPathCost;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IShortestPathComputation;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryDeadline;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.CompactDijkstra;
+import com.transitnet.rpdemo.util.IndexedMinHeap;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Bidirectional shortest path query on a {@link ContractionHierarchy}.<br>
+ * <br>
+ * The forward search starts at the sources and only follows upward arcs, the
+ * backward search starts at the destination and only follows downward arcs
+ * against their direction. Both searches meet at the node of highest rank on
+ * the shortest path. Nodes are <i>stalled</i> if a node of higher rank proves
+ * that their tentative distance is not optimal, their arcs are then not
+ * relaxed. Found paths are unpacked into the edges of the underlying graph.<br>
+ * <br>
+ * The search space is typically a few hundred nodes even on large road
+ * networks. Query state is held in a workspace per thread which is reused
+ * across queries, an instance can thus be shared between threads.<br>
+ * <br>
+ * {@link #computeShortestPathCostsReachable(Collection)} can not benefit from
+ * the hierarchy and falls back to a Dijkstra which respects the transportation
+ * modes of the hierarchy.
+ *
+ * @param <N> Type of the nodes
+ * @param <E> Type of the edges
+ */
+public final class ContractionHierarchyQuery<N extends INode & IHasId & ISpatial & Serializable,
+    E extends IEdge<N> & IHasId & Serializable> extends AShortestPathComputation<N, E> {
+  /**
+   * Constant for a node that has no parent, i.e. a start node of a search.
+   */
+  private static final int NO_PARENT = -1;
+
+  /**
+   * State of one search direction.
+   */
+  private static final class Search {
+    /**
+     * Tentative distance of each node.
+     */
+    private final double[] mDistance;
+    /**
+     * The edge ID of the arc that lead to each node.
+     */
+    private final int[] mParentEdge;
+    /**
+     * The node each node was reached from.
+     */
+    private final int[] mParentNode;
+    /**
+     * Queue of active nodes.
+     */
+    private final IndexedMinHeap mQueue;
+    /**
+     * Nodes settled by the current query.
+     */
+    private final IntArrayList mSettled;
+    /**
+     * The query each entry belongs to. Entries with another stamp are
+     * considered unreached.
+     */
+    private final int[] mStamp;
+
+    /**
+     * Creates a new search for the given amount of nodes.
+     *
+     * @param amountOfNodes The amount of nodes
+     */
+    Search(final int amountOfNodes) {
+      mDistance = new double[amountOfNodes];
+      mParentEdge = new int[amountOfNodes];
+      mParentNode = new int[amountOfNodes];
+      mStamp = new int[amountOfNodes];
+      mQueue = new IndexedMinHeap(amountOfNodes);
+      mSettled = new IntArrayList();
+    }
+
+    /**
+     * Gets the tentative distance of the given node.
+     *
+     * @param node  The node in question
+     * @param stamp The stamp of the current query
+     * @return The tentative distance, or {@link Double#POSITIVE_INFINITY} if the
+     *         node was not reached
+     */
+    double getDistance(final int node, final int stamp) {
+      if (mStamp[node] != stamp) {
+        return Double.POSITIVE_INFINITY;
+      }
+      return mDistance[node];
+    }
+
+    /**
+     * Resets the search for a new query.
+     */
+    void reset() {
+      mQueue.clear();
+      mSettled.clear();
+    }
+
+    /**
+     * Reaches the given node with the given distance if it improves its
+     * tentative distance.
+     *
+     * @param node       The node to reach
+     * @param distance   The distance to reach it with
+     * @param parentNode The node it was reached from
+     * @param parentEdge The edge ID of the arc it was reached by
+     * @param stamp      The stamp of the current query
+     */
+    void reach(final int node, final double distance, final int parentNode, final int parentEdge,
+        final int stamp) {
+      if (mStamp[node] == stamp && mDistance[node] <= distance) {
+        return;
+      }
+      mStamp[node] = stamp;
+      mDistance[node] = distance;
+      mParentNode[node] = parentNode;
+      mParentEdge[node] = parentEdge;
+      mQueue.insertOrDecrease(node, distance);
+    }
+  }
+
+  /**
+   * Per-thread state of a query.
+   */
+  private static final class Workspace {
+    /**
+     * The backward search.
+     */
+    private final Search mBackward;
+    /**
+     * The forward search.
+     */
+    private final Search mForward;
+    /**
+     * The stamp of the current query.
+     */
+    private int mStamp;
+
+    /**
+     * Creates a new workspace for the given amount of nodes.
+     *
+     * @param amountOfNodes The amount of nodes
+     */
+    Workspace(final int amountOfNodes) {
+      mForward = new Search(amountOfNodes);
+      mBackward = new Search(amountOfNodes);
+    }
+
+    /**
+     * Prepares the workspace for a new query.
+     *
+     * @return The stamp of the new query
+     */
+    int startQuery() {
+      mStamp++;
+      if (mStamp == 0) {
+        // Stamps wrapped around, old entries would be considered reached
+        Arrays.fill(mForward.mStamp, 0);
+        Arrays.fill(mBackward.mStamp, 0);
+        mStamp = 1;
+      }
+      mForward.reset();
+      mBackward.reset();
+      return mStamp;
+    }
+  }
+
+  /**
+   * Result of a bidirectional search.
+   */
+  private static final class Meeting {
+    /**
+     * The cost of the shortest path.
+     */
+    private final double mCost;
+    /**
+     * The node both searches met at.
+     */
+    private final int mNode;
+
+    /**
+     * Creates a new meeting.
+     *
+     * @param node The node both searches met at
+     * @param cost The cost of the shortest path
+     */
+    Meeting(final int node, final double cost) {
+      mNode = node;
+      mCost = cost;
+    }
+  }
+
+  /**
+   * The algorithm to use for one-to-all queries.
+   */
+  private final IShortestPathComputation<N, E> mFallback;
+  /**
+   * The graph of the hierarchy.
+   */
+  private final FrozenRoadGraph<N, E> mGraph;
+  /**
+   * The hierarchy to query.
+   */
+  private final ContractionHierarchy<N, E> mHierarchy;
+  /**
+   * The workspace of each thread.
+   */
+  private final ThreadLocal<Workspace> mWorkspace;
+
+  /**
+   * Creates a new query on the given hierarchy.
+   *
+   * @param hierarchy The hierarchy to query
+   */
+  public ContractionHierarchyQuery(final ContractionHierarchy<N, E> hierarchy) {
+    mHierarchy = hierarchy;
+    mGraph = hierarchy.getGraph();
+    mFallback = new CompactDijkstra<>(mGraph, TransportationModeMask.toSet(hierarchy.getModes()));
+    final int amountOfNodes = mGraph.size();
+    mWorkspace = ThreadLocal.withInitial(() -> new Workspace(amountOfNodes));
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.shortestpath.
+   * IShortestPathComputation#computeSearchSpace(java.util.Collection,
+   * com.transitnet.rpdemo.model.INode)
+   */
+  @Override
+  public Collection<N> computeSearchSpace(final Collection<N> sources, final N destination) {
+    final Workspace workspace = mWorkspace.get();
+    search(workspace, sources, destination);
+
+    final Set<N> searchSpace = new HashSet<>();
+    workspace.mForward.mSettled.forEach(node -> searchSpace.add(mGraph.getNode(node)));
+    workspace.mBackward.mSettled.forEach(node -> searchSpace.add(mGraph.getNode(node)));
+    return searchSpace;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.shortestpath.
+   * IShortestPathComputation#computeShortestPath(java.util.Collection,
+   * com.transitnet.rpdemo.model.INode)
+   */
+  @Override
+  public Optional<IPath<N, E>> computeShortestPath(final Collection<N> sources, final N destination) {
+    final Workspace workspace = mWorkspace.get();
+    final Meeting meeting = search(workspace, sources, destination);
+    if (meeting == null) {
+      return Optional.empty();
+    }
+
+    // Collect the arcs from one of the sources to the meeting node, they are
+    // found in reverse order
+    final IntArrayList forwardArcs = new IntArrayList();
+    final Search forward = workspace.mForward;
+    int node = meeting.mNode;
+    while (forward.mParentNode[node] != NO_PARENT) {
+      forwardArcs.add(forward.mParentEdge[node]);
+      node = forward.mParentNode[node];
+    }
+
+    final IntArrayList edges = new IntArrayList();
+    for (int i = forwardArcs.size() - 1; i >= 0; i--) {
+      mHierarchy.unpack(forwardArcs.get(i), edges::add);
+    }
+    // The arcs from the meeting node to the destination are found in order
+    final Search backward = workspace.mBackward;
+    node = meeting.mNode;
+    while (backward.mParentNode[node] != NO_PARENT) {
+      mHierarchy.unpack(backward.mParentEdge[node], edges::add);
+      node = backward.mParentNode[node];
+    }
+
+    // Destination is already a source node
+    if (edges.isEmpty()) {
+      return Optional.of(new EmptyPath<>(destination));
+    }
+
+    final int[] edgeArray = edges.toArray();
+    final float[] costs = new float[edgeArray.length];
+    for (int i = 0; i < edgeArray.length; i++) {
+      costs[i] = mHierarchy.getEdgeCost(edgeArray[i]);
+    }
+    return Optional.of(new CompactPath<>(mGraph, edgeArray, costs));
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.shortestpath.
+   * IShortestPathComputation#computeShortestPathCost(java.util.Collection,
+   * com.transitnet.rpdemo.model.INode)
+   */
+  @Override
+  public Optional<Double> computeShortestPathCost(final Collection<N> sources, final N destination) {
+    final Meeting meeting = search(mWorkspace.get(), sources, destination);
+    if (meeting == null) {
+      return Optional.empty();
+    }
+    return Optional.of(meeting.mCost);
+  }
+
+  /**
+   * Computes the shortest path costs to all reachable nodes. The hierarchy does
+   * not support one-to-all queries, the computation is delegated to a Dijkstra
+   * respecting the transportation modes of the hierarchy.
+   */
+  @Override
+  public Map<N, ? extends IHasPathCost> computeShortestPathCostsReachable(final Collection<N> sources) {
+    return mFallback.computeShortestPathCostsReachable(sources);
+  }
+
+  /**
+   * Gets the hierarchy this query operates on.
+   *
+   * @return The hierarchy
+   */
+  public ContractionHierarchy<N, E> getHierarchy() {
+    return mHierarchy;
+  }
+
+  /**
+   * Whether the given node is stalled in the forward search. That is the case
+   * if a node of higher rank reaches it with a smaller distance by a downward
+   * arc.
+   *
+   * @param forward  The forward search
+   * @param node     The node in question
+   * @param distance The tentative distance of the node
+   * @param stamp    The stamp of the current query
+   * @return <code>True</code> if the node is stalled, <code>false</code> otherwise
+   */
+  private boolean isStalledForward(final Search forward, final int node, final double distance, final int stamp) {
+    final int arcEnd = mHierarchy.getFirstDownwardArc(node + 1);
+    for (int arc = mHierarchy.getFirstDownwardArc(node); arc < arcEnd; arc++) {
+      final double otherDistance = forward.getDistance(mHierarchy.getDownwardArcTail(arc), stamp);
+      if (otherDistance + mHierarchy.getDownwardArcWeight(arc) < distance) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether the given node is stalled in the backward search. That is the case
+   * if a node of higher rank reaches it with a smaller distance by an upward
+   * arc.
+   *
+   * @param backward The backward search
+   * @param node     The node in question
+   * @param distance The tentative distance of the node
+   * @param stamp    The stamp of the current query
+   * @return <code>True</code> if the node is stalled, <code>false</code> otherwise
+   */
+  private boolean isStalledBackward(final Search backward, final int node, final double distance,
+      final int stamp) {
+    final int arcEnd = mHierarchy.getFirstUpwardArc(node + 1);
+    for (int arc = mHierarchy.getFirstUpwardArc(node); arc < arcEnd; arc++) {
+      final double otherDistance = backward.getDistance(mHierarchy.getUpwardArcHead(arc), stamp);
+      if (otherDistance + mHierarchy.getUpwardArcWeight(arc) < distance) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Runs the bidirectional search from the given sources to the given
+   * destination.
+   *
+   * @param workspace   The workspace to use
+   * @param sources     The sources of the search
+   * @param destination The destination of the search
+   * @return The meeting of both searches, or <code>null</code> if the
+   *         destination is not reachable or the search was stopped by its
+   *         deadline before the shortest path was proven
+   */
+  private Meeting search(final Workspace workspace, final Collection<N> sources, final N destination) {
+    final int stamp = workspace.startQuery();
+    final Search forward = workspace.mForward;
+    final Search backward = workspace.mBackward;
+
+    final int destinationIndex = mGraph.getIndex(destination);
+    if (destinationIndex == FrozenRoadGraph.NO_INDEX) {
+      return null;
+    }
+    backward.reach(destinationIndex, 0.0, NO_PARENT, NO_PARENT, stamp);
+    for (final N source : sources) {
+      final int sourceIndex = mGraph.getIndex(source);
+      if (sourceIndex != FrozenRoadGraph.NO_INDEX) {
+        forward.reach(sourceIndex, 0.0, NO_PARENT, NO_PARENT, stamp);
+      }
+    }
+
+    double bestCost = Double.POSITIVE_INFINITY;
+    int meetingNode = NO_PARENT;
+    final QueryDeadline deadline = QueryDeadline.current();
+    int iterations = 0;
+    while (true) {
+      final double forwardKey = forward.mQueue.peekKey();
+      final double backwardKey = backward.mQueue.peekKey();
+      // Each direction may stop once its smallest key exceeds the best path
+      if (Math.min(forwardKey, backwardKey) >= bestCost) {
+        break;
+      }
+      // Stop with the nodes settled so far or fail if the deadline expired,
+      // the best meeting found yet is not necessarily the shortest path
+      iterations++;
+      if (QueryDeadline.shouldCheck(iterations) && deadline.checkExpired()) {
+        return null;
+      }
+
+      final boolean isForward = forwardKey <= backwardKey;
+      final Search current = isForward ? forward : backward;
+      final Search other = isForward ? backward : forward;
+      final int node = current.mQueue.poll();
+      final double distance = current.mDistance[node];
+      current.mSettled.add(node);
+
+      final double pathCost = distance + other.getDistance(node, stamp);
+      if (pathCost < bestCost) {
+        bestCost = pathCost;
+        meetingNode = node;
+      }
+
+      if (isForward) {
+        if (isStalledForward(forward, node, distance, stamp)) {
+          continue;
+        }
+        final int arcEnd = mHierarchy.getFirstUpwardArc(node + 1);
+        for (int arc = mHierarchy.getFirstUpwardArc(node); arc < arcEnd; arc++) {
+          forward.reach(mHierarchy.getUpwardArcHead(arc), distance + mHierarchy.getUpwardArcWeight(arc), node,
+              mHierarchy.getUpwardArcEdge(arc), stamp);
+        }
+      } else {
+        if (isStalledBackward(backward, node, distance, stamp)) {
+          continue;
+        }
+        final int arcEnd = mHierarchy.getFirstDownwardArc(node + 1);
+        for (int arc = mHierarchy.getFirstDownwardArc(node); arc < arcEnd; arc++) {
+          backward.reach(mHierarchy.getDownwardArcTail(arc), distance + mHierarchy.getDownwardArcWeight(arc),
+              node, mHierarchy.getDownwardArcEdge(arc), stamp);
+        }
+      }
+    }
+
+    if (meetingNode == NO_PARENT) {
+      return null;
+    }
+    return new Meeting(meetingNode, bestCost);
+  }
+}
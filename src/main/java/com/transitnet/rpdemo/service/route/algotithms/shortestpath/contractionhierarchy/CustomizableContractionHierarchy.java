@@ -0,0 +1,606 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy;
+
+import com.transitnet.rpdemo.model.ETransportationMode;
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.IHasId;
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.model.ISpatial;
+import com.transitnet.rpdemo.model.TransportationModeMask;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * A Customizable Contraction Hierarchy of a {@link FrozenRoadGraph}.<br>
+ * <br>
+ * Unlike a {@link ContractionHierarchy} the contraction order and the
+ * resulting arcs only depend on the topology of the graph. The order is
+ * computed by {@link NestedDissection}, contracting a node connects all its
+ * neighbors of higher rank. Edge costs are applied afterwards in a
+ * <i>customization</i> phase, which computes the arc weights for a given set of
+ * transportation modes by processing the lower triangles of each arc. Arcs of
+ * independent nodes are customized in parallel.<br>
+ * <br>
+ * Customizations are cached by their transportation modes, use
+ * {@link #customize(Set)} to retrieve them. Queries are answered by
+ * {@link CustomizableContractionHierarchyQuery} which walks the
+ * <i>elimination tree</i> upwards from both ends, without a priority queue.<br>
+ * <br>
+ * Nodes are internally identified by their rank. Use {@link #build(FrozenRoadGraph)}
+ * for creation, the instance can be shared between threads.
+ *
+ * @param <N> Type of the nodes
+ * @param <E> Type of the edges
+ */
+public final class CustomizableContractionHierarchy<N extends INode & IHasId & ISpatial & Serializable,
+    E extends IEdge<N> & IHasId & Serializable> {
+  /**
+   * Logger used for logging.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(CustomizableContractionHierarchy.class);
+  /**
+   * Constant for an arc or node that does not exist.
+   */
+  static final int NONE = -1;
+  /**
+   * The amount of nodes a customization level must have to be processed in
+   * parallel.
+   */
+  private static final int PARALLEL_LEVEL_SIZE = 512;
+
+  /**
+   * Builds the Customizable Contraction Hierarchy of the given graph. The
+   * hierarchy has no customization yet.
+   *
+   * @param       <N> Type of the nodes
+   * @param       <E> Type of the edges
+   * @param graph The graph to build the hierarchy for
+   * @return The built hierarchy
+   */
+  public static <N extends INode & IHasId & ISpatial & Serializable, E extends IEdge<N> & IHasId & Serializable>
+      CustomizableContractionHierarchy<N, E> build(final FrozenRoadGraph<N, E> graph) {
+    return new CustomizableContractionHierarchy<>(graph);
+  }
+
+  /**
+   * Computes the neighbors of each node of the given graph, ignoring edge
+   * direction, self-loops and duplicates.
+   *
+   * @param graph         The graph in question
+   * @param firstNeighbor Array to store the offsets into the neighbor array in,
+   *                      must have a length of the amount of nodes plus one
+   * @return The neighbors of each node
+   */
+  private static int[] computeNeighbors(final FrozenRoadGraph<?, ?> graph, final int[] firstNeighbor) {
+    final int amountOfNodes = graph.size();
+    final int amountOfEdges = graph.getAmountOfEdges();
+    final int[] degree = new int[amountOfNodes + 1];
+    for (int edge = 0; edge < amountOfEdges; edge++) {
+      degree[graph.getEdgeSource(edge)]++;
+      degree[graph.getEdgeTarget(edge)]++;
+    }
+    final int[] offset = new int[amountOfNodes + 1];
+    for (int node = 0; node < amountOfNodes; node++) {
+      offset[node + 1] = offset[node] + degree[node];
+    }
+    final int[] neighbors = new int[offset[amountOfNodes]];
+    final int[] position = Arrays.copyOf(offset, amountOfNodes);
+    for (int edge = 0; edge < amountOfEdges; edge++) {
+      final int source = graph.getEdgeSource(edge);
+      final int target = graph.getEdgeTarget(edge);
+      neighbors[position[source]++] = target;
+      neighbors[position[target]++] = source;
+    }
+
+    // Sort, remove duplicates and self-loops, compact in place
+    int size = 0;
+    for (int node = 0; node < amountOfNodes; node++) {
+      Arrays.sort(neighbors, offset[node], offset[node + 1]);
+      firstNeighbor[node] = size;
+      int previous = NONE;
+      for (int i = offset[node]; i < offset[node + 1]; i++) {
+        final int neighbor = neighbors[i];
+        if (neighbor != node && neighbor != previous) {
+          neighbors[size] = neighbor;
+          size++;
+        }
+        previous = neighbor;
+      }
+    }
+    firstNeighbor[amountOfNodes] = size;
+    return Arrays.copyOf(neighbors, size);
+  }
+
+  /**
+   * The head of each arc, grouped by their tail and ascending in rank.
+   */
+  private final int[] mArcHead;
+  /**
+   * Cached customizations, by the bit mask of their transportation modes.
+   */
+  private final Map<Byte, CustomizedWeights> mCustomizations;
+  /**
+   * The arc each edge of the graph belongs to, {@link #NONE} for self-loops.
+   */
+  private final int[] mEdgeArc;
+  /**
+   * Offsets into {@link #mArcHead} for each tail.
+   */
+  private final int[] mFirstArc;
+  /**
+   * Offsets into {@link #mInputEdge} for each arc.
+   */
+  private final int[] mFirstInputEdge;
+  /**
+   * Offsets into {@link #mLowerArc} for each head.
+   */
+  private final int[] mFirstLowerArc;
+  /**
+   * The graph the hierarchy was built for.
+   */
+  private final FrozenRoadGraph<N, E> mGraph;
+  /**
+   * The edges of the graph belonging to each arc.
+   */
+  private final int[] mInputEdge;
+  /**
+   * The nodes of each customization level. Arcs of nodes of the same level do
+   * not depend on each other.
+   */
+  private final int[][] mLevels;
+  /**
+   * The arcs leading to each head, ascending in the rank of their tail.
+   */
+  private final int[] mLowerArc;
+  /**
+   * The tail of each entry of {@link #mLowerArc}.
+   */
+  private final int[] mLowerTail;
+  /**
+   * The dense node index of each rank.
+   */
+  private final int[] mNodeOfRank;
+  /**
+   * The parent of each node in the elimination tree, {@link #NONE} for roots.
+   */
+  private final int[] mParent;
+  /**
+   * The rank of each dense node index.
+   */
+  private final int[] mRank;
+  /**
+   * The query workspace of each thread.
+   */
+  private final ThreadLocal<EliminationTreeWorkspace> mWorkspace;
+
+  /**
+   * Creates the hierarchy of the given graph.
+   *
+   * @param graph The graph to build the hierarchy for
+   */
+  private CustomizableContractionHierarchy(final FrozenRoadGraph<N, E> graph) {
+    final long startTime = System.nanoTime();
+    mGraph = graph;
+    final int amountOfNodes = graph.size();
+    final int amountOfEdges = graph.getAmountOfEdges();
+
+    // Order
+    final int[] firstNeighbor = new int[amountOfNodes + 1];
+    final int[] neighbors = CustomizableContractionHierarchy.computeNeighbors(graph, firstNeighbor);
+    mNodeOfRank = NestedDissection.computeOrder(graph, firstNeighbor, neighbors);
+    mRank = new int[amountOfNodes];
+    for (int rank = 0; rank < amountOfNodes; rank++) {
+      mRank[mNodeOfRank[rank]] = rank;
+    }
+
+    // Contract, the upper neighbors of a node are passed on to its parent
+    final IntArrayList[] upperNeighbors = new IntArrayList[amountOfNodes];
+    for (int rank = 0; rank < amountOfNodes; rank++) {
+      final int node = mNodeOfRank[rank];
+      final IntArrayList upper = new IntArrayList();
+      for (int i = firstNeighbor[node]; i < firstNeighbor[node + 1]; i++) {
+        final int neighborRank = mRank[neighbors[i]];
+        if (neighborRank > rank) {
+          upper.add(neighborRank);
+        }
+      }
+      upperNeighbors[rank] = upper;
+    }
+    mParent = new int[amountOfNodes];
+    mFirstArc = new int[amountOfNodes + 1];
+    final IntArrayList arcHeads = new IntArrayList(neighbors.length);
+    for (int rank = 0; rank < amountOfNodes; rank++) {
+      final IntArrayList upper = upperNeighbors[rank].sortThis();
+      upperNeighbors[rank] = null;
+      mFirstArc[rank] = arcHeads.size();
+      int previous = NONE;
+      for (int i = 0; i < upper.size(); i++) {
+        final int head = upper.get(i);
+        if (head != previous) {
+          arcHeads.add(head);
+        }
+        previous = head;
+      }
+      final int arcEnd = arcHeads.size();
+      if (arcEnd == mFirstArc[rank]) {
+        mParent[rank] = NONE;
+        continue;
+      }
+      final int parent = arcHeads.get(mFirstArc[rank]);
+      mParent[rank] = parent;
+      for (int arc = mFirstArc[rank] + 1; arc < arcEnd; arc++) {
+        upperNeighbors[parent].add(arcHeads.get(arc));
+      }
+    }
+    mFirstArc[amountOfNodes] = arcHeads.size();
+    mArcHead = arcHeads.toArray();
+    final int amountOfArcs = mArcHead.length;
+
+    // Arcs by head, iterating tails ascending keeps them sorted by tail
+    mFirstLowerArc = new int[amountOfNodes + 1];
+    for (final int head : mArcHead) {
+      mFirstLowerArc[head + 1]++;
+    }
+    for (int rank = 0; rank < amountOfNodes; rank++) {
+      mFirstLowerArc[rank + 1] += mFirstLowerArc[rank];
+    }
+    mLowerArc = new int[amountOfArcs];
+    mLowerTail = new int[amountOfArcs];
+    final int[] lowerPosition = Arrays.copyOf(mFirstLowerArc, amountOfNodes);
+    for (int tail = 0; tail < amountOfNodes; tail++) {
+      for (int arc = mFirstArc[tail]; arc < mFirstArc[tail + 1]; arc++) {
+        final int position = lowerPosition[mArcHead[arc]]++;
+        mLowerArc[position] = arc;
+        mLowerTail[position] = tail;
+      }
+    }
+
+    // Map the edges of the graph to the arcs
+    mEdgeArc = new int[amountOfEdges];
+    mFirstInputEdge = new int[amountOfArcs + 1];
+    for (int edge = 0; edge < amountOfEdges; edge++) {
+      final int sourceRank = mRank[graph.getEdgeSource(edge)];
+      final int targetRank = mRank[graph.getEdgeTarget(edge)];
+      if (sourceRank == targetRank) {
+        mEdgeArc[edge] = NONE;
+        continue;
+      }
+      final int arc = findArc(Math.min(sourceRank, targetRank), Math.max(sourceRank, targetRank));
+      mEdgeArc[edge] = arc;
+      mFirstInputEdge[arc + 1]++;
+    }
+    for (int arc = 0; arc < amountOfArcs; arc++) {
+      mFirstInputEdge[arc + 1] += mFirstInputEdge[arc];
+    }
+    mInputEdge = new int[mFirstInputEdge[amountOfArcs]];
+    final int[] inputPosition = Arrays.copyOf(mFirstInputEdge, amountOfArcs);
+    for (int edge = 0; edge < amountOfEdges; edge++) {
+      if (mEdgeArc[edge] != NONE) {
+        mInputEdge[inputPosition[mEdgeArc[edge]]++] = edge;
+      }
+    }
+
+    mLevels = computeLevels();
+    mCustomizations = new ConcurrentHashMap<>();
+    mWorkspace = ThreadLocal.withInitial(() -> new EliminationTreeWorkspace(amountOfNodes));
+
+    if (LOGGER.isInfoEnabled()) {
+      LOGGER.info("Built customizable hierarchy of {} nodes with {} arcs and {} levels in {} ms", amountOfNodes,
+          amountOfArcs, mLevels.length, (System.nanoTime() - startTime) / 1_000_000);
+    }
+  }
+
+  /**
+   * Gets the customization for the given transportation modes. The
+   * customization is computed if it is not cached yet.<br>
+   * <br>
+   * The cost of an edge is the smallest cost among the given modes, edges that
+   * allow none of them can not be taken.
+   *
+   * @param modes The transportation modes allowed to be taken
+   * @return The customized weights
+   */
+  public CustomizedWeights customize(final Set<ETransportationMode> modes) {
+    final byte modeMask = TransportationModeMask.of(modes);
+    final CustomizedWeights cached = mCustomizations.get(modeMask);
+    if (cached != null) {
+      return cached;
+    }
+    // Not computed inside the map, a customization may take a while
+    final CustomizedWeights weights = computeCustomization(modeMask);
+    final CustomizedWeights previous = mCustomizations.putIfAbsent(modeMask, weights);
+    return previous == null ? weights : previous;
+  }
+
+  /**
+   * Computes the customizations for all given sets of transportation modes in
+   * parallel and caches them.
+   *
+   * @param modeSets The sets of transportation modes to customize for
+   */
+  public void customizeAll(final Collection<Set<ETransportationMode>> modeSets) {
+    modeSets.parallelStream().forEach(this::customize);
+  }
+
+  /**
+   * Gets the amount of arcs of the hierarchy.
+   *
+   * @return The amount of arcs
+   */
+  public int getAmountOfArcs() {
+    return mArcHead.length;
+  }
+
+  /**
+   * Gets the graph this hierarchy was built for.
+   *
+   * @return The graph of this hierarchy
+   */
+  public FrozenRoadGraph<N, E> getGraph() {
+    return mGraph;
+  }
+
+  /**
+   * Gets the rank of the given node.
+   *
+   * @param node The dense index of the node
+   * @return The rank of the node
+   */
+  public int getRank(final int node) {
+    return mRank[node];
+  }
+
+  /**
+   * Gets the head of the given arc.
+   *
+   * @param arc The index of the arc
+   * @return The rank of the head
+   */
+  int getArcHead(final int arc) {
+    return mArcHead[arc];
+  }
+
+  /**
+   * Gets the first arc of the given tail. The arcs of the tail are located in
+   * <code>[getFirstArc(tail), getFirstArc(tail + 1))</code>.
+   *
+   * @param tail The rank of the tail, may be equal to the amount of nodes
+   * @return The index of the first arc
+   */
+  int getFirstArc(final int tail) {
+    return mFirstArc[tail];
+  }
+
+  /**
+   * Gets the dense node index of the given rank.
+   *
+   * @param rank The rank in question
+   * @return The dense index of the node
+   */
+  int getNodeOfRank(final int rank) {
+    return mNodeOfRank[rank];
+  }
+
+  /**
+   * Gets the parent of the given node in the elimination tree.
+   *
+   * @param rank The rank of the node
+   * @return The rank of the parent, or {@link #NONE} for roots
+   */
+  int getParent(final int rank) {
+    return mParent[rank];
+  }
+
+  /**
+   * Gets the query workspace of the current thread.
+   *
+   * @return The workspace of the current thread
+   */
+  EliminationTreeWorkspace getWorkspace() {
+    return mWorkspace.get();
+  }
+
+  /**
+   * Unpacks the given arc into the edges of the graph it represents under the
+   * given weights. The edges are reported in the order of the path they form.
+   *
+   * @param tail     The rank of the tail of the arc
+   * @param arc      The index of the arc
+   * @param isUpward Whether the arc is taken from its tail to its head
+   * @param weights  The weights the arc was taken with
+   * @param action   Action to call with the index of each edge of the graph
+   */
+  void unpack(final int tail, final int arc, final boolean isUpward, final CustomizedWeights weights,
+      final IntConsumer action) {
+    final int head = mArcHead[arc];
+    final float weight = isUpward ? weights.getUpwardWeight(arc) : weights.getDownwardWeight(arc);
+
+    // An edge of the graph in the same direction
+    final int sourceRank = isUpward ? tail : head;
+    for (int i = mFirstInputEdge[arc]; i < mFirstInputEdge[arc + 1]; i++) {
+      final int edge = mInputEdge[i];
+      if (mRank[mGraph.getEdgeSource(edge)] == sourceRank && weights.getEdgeCost(edge) == weight) {
+        action.accept(edge);
+        return;
+      }
+    }
+
+    // Otherwise a lower triangle, computed the same way as by the
+    // customization
+    int i = mFirstLowerArc[tail];
+    int j = mFirstLowerArc[head];
+    final int tailEnd = mFirstLowerArc[tail + 1];
+    final int headEnd = mFirstLowerArc[head + 1];
+    while (i < tailEnd && j < headEnd) {
+      final int middleOfTail = mLowerTail[i];
+      final int middleOfHead = mLowerTail[j];
+      if (middleOfTail < middleOfHead) {
+        i++;
+      } else if (middleOfTail > middleOfHead) {
+        j++;
+      } else {
+        final int tailArc = mLowerArc[i];
+        final int headArc = mLowerArc[j];
+        if (isUpward && weights.getDownwardWeight(tailArc) + weights.getUpwardWeight(headArc) == weight) {
+          unpack(middleOfTail, tailArc, false, weights, action);
+          unpack(middleOfTail, headArc, true, weights, action);
+          return;
+        }
+        if (!isUpward && weights.getDownwardWeight(headArc) + weights.getUpwardWeight(tailArc) == weight) {
+          unpack(middleOfTail, headArc, false, weights, action);
+          unpack(middleOfTail, tailArc, true, weights, action);
+          return;
+        }
+        i++;
+        j++;
+      }
+    }
+    throw new IllegalStateException("The arc " + arc + " can not be unpacked, its weight is inconsistent");
+  }
+
+  /**
+   * Computes the customization for the given modes.
+   *
+   * @param modeMask The transportation modes, as bit mask
+   * @return The customized weights
+   */
+  private CustomizedWeights computeCustomization(final byte modeMask) {
+    final long startTime = System.nanoTime();
+    final float[] edgeCost = mGraph.getEdgeCosts(modeMask);
+    final float[] upwardWeight = new float[mArcHead.length];
+    final float[] downwardWeight = new float[mArcHead.length];
+    Arrays.fill(upwardWeight, Float.POSITIVE_INFINITY);
+    Arrays.fill(downwardWeight, Float.POSITIVE_INFINITY);
+
+    // Initial weights are the edges of the graph
+    for (int edge = 0; edge < mEdgeArc.length; edge++) {
+      final int arc = mEdgeArc[edge];
+      if (arc == NONE) {
+        continue;
+      }
+      if (mRank[mGraph.getEdgeSource(edge)] < mRank[mGraph.getEdgeTarget(edge)]) {
+        upwardWeight[arc] = Math.min(upwardWeight[arc], edgeCost[edge]);
+      } else {
+        downwardWeight[arc] = Math.min(downwardWeight[arc], edgeCost[edge]);
+      }
+    }
+
+    // Arcs of a level only depend on arcs of lower levels
+    for (final int[] level : mLevels) {
+      if (level.length >= PARALLEL_LEVEL_SIZE) {
+        IntStream.of(level).parallel().forEach(tail -> customizeArcsOf(tail, upwardWeight, downwardWeight));
+      } else {
+        for (final int tail : level) {
+          customizeArcsOf(tail, upwardWeight, downwardWeight);
+        }
+      }
+    }
+
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("Customized {} in {} ms", TransportationModeMask.toSet(modeMask),
+          (System.nanoTime() - startTime) / 1_000_000);
+    }
+    return new CustomizedWeights(modeMask, edgeCost, upwardWeight, downwardWeight);
+  }
+
+  /**
+   * Computes the customization levels. A node has level <code>0</code> if it
+   * has no arcs from lower nodes, otherwise its level is one greater than the
+   * greatest level of those nodes.
+   *
+   * @return The nodes of each level
+   */
+  private int[][] computeLevels() {
+    final int amountOfNodes = mRank.length;
+    final int[] levelOfNode = new int[amountOfNodes];
+    int amountOfLevels = 0;
+    for (int rank = 0; rank < amountOfNodes; rank++) {
+      int level = 0;
+      for (int i = mFirstLowerArc[rank]; i < mFirstLowerArc[rank + 1]; i++) {
+        level = Math.max(level, levelOfNode[mLowerTail[i]] + 1);
+      }
+      levelOfNode[rank] = level;
+      amountOfLevels = Math.max(amountOfLevels, level + 1);
+    }
+
+    final int[] levelSize = new int[amountOfLevels];
+    for (final int level : levelOfNode) {
+      levelSize[level]++;
+    }
+    final int[][] levels = new int[amountOfLevels][];
+    for (int level = 0; level < amountOfLevels; level++) {
+      levels[level] = new int[levelSize[level]];
+    }
+    final int[] position = new int[amountOfLevels];
+    for (int rank = 0; rank < amountOfNodes; rank++) {
+      final int level = levelOfNode[rank];
+      levels[level][position[level]++] = rank;
+    }
+    return levels;
+  }
+
+  /**
+   * Customizes all arcs of the given tail by relaxing their lower triangles.
+   * The arcs of all lower nodes must already be customized.
+   *
+   * @param tail           The rank of the tail
+   * @param upwardWeight   The upward weights to update
+   * @param downwardWeight The downward weights to update
+   */
+  private void customizeArcsOf(final int tail, final float[] upwardWeight, final float[] downwardWeight) {
+    final int tailEnd = mFirstLowerArc[tail + 1];
+    for (int arc = mFirstArc[tail]; arc < mFirstArc[tail + 1]; arc++) {
+      final int head = mArcHead[arc];
+      final int headEnd = mFirstLowerArc[head + 1];
+      float upward = upwardWeight[arc];
+      float downward = downwardWeight[arc];
+
+      int i = mFirstLowerArc[tail];
+      int j = mFirstLowerArc[head];
+      while (i < tailEnd && j < headEnd) {
+        final int middleOfTail = mLowerTail[i];
+        final int middleOfHead = mLowerTail[j];
+        if (middleOfTail < middleOfHead) {
+          i++;
+        } else if (middleOfTail > middleOfHead) {
+          j++;
+        } else {
+          final int tailArc = mLowerArc[i];
+          final int headArc = mLowerArc[j];
+          // tail -> middle -> head and head -> middle -> tail
+          upward = Math.min(upward, downwardWeight[tailArc] + upwardWeight[headArc]);
+          downward = Math.min(downward, downwardWeight[headArc] + upwardWeight[tailArc]);
+          i++;
+          j++;
+        }
+      }
+      upwardWeight[arc] = upward;
+      downwardWeight[arc] = downward;
+    }
+  }
+
+  /**
+   * Finds the arc between the given nodes.
+   *
+   * @param tail The rank of the tail, smaller than the rank of the head
+   * @param head The rank of the head
+   * @return The index of the arc
+   */
+  private int findArc(final int tail, final int head) {
+    final int arc = Arrays.binarySearch(mArcHead, mFirstArc[tail], mFirstArc[tail + 1], head);
+    if (arc < 0) {
+      throw new IllegalStateException("Missing arc from " + tail + " to " + head);
+    }
+    return arc;
+  }
+}
@@ -0,0 +1,192 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy;
+
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.IHasId;
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.model.ISpatial;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IManyToManyComputation;
+import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Bucket-based distance matrix computation on a
+ * {@link CustomizableContractionHierarchy} using one of its
+ * customizations.<br>
+ * <br>
+ * One backward search per destination scans the ancestors of the destination
+ * in the elimination tree and stores its distance in a <i>bucket</i> at each
+ * reached node. One forward search per source then scans the ancestors of the
+ * source and combines its distances with the bucket entries. Every shortest
+ * path meets at a common ancestor, so all pairs are covered. The forward
+ * searches run in parallel.
+ *
+ * @param <N> Type of the nodes
+ * @param <E> Type of the edges
+ */
+public final class CustomizableContractionHierarchyManyToMany<N extends INode & IHasId & ISpatial & Serializable,
+    E extends IEdge<N> & IHasId & Serializable> implements IManyToManyComputation<N> {
+  /**
+   * Constant for an arc or node that does not exist.
+   */
+  private static final int NONE = CustomizableContractionHierarchy.NONE;
+
+  /**
+   * The graph of the hierarchy.
+   */
+  private final FrozenRoadGraph<N, E> mGraph;
+  /**
+   * The hierarchy to query.
+   */
+  private final CustomizableContractionHierarchy<N, E> mHierarchy;
+  /**
+   * The customized weights to query with.
+   */
+  private final CustomizedWeights mWeights;
+
+  /**
+   * Creates a new distance matrix computation on the given hierarchy using the
+   * given customization.
+   *
+   * @param hierarchy The hierarchy to query
+   * @param weights   The customization of the hierarchy to use
+   */
+  public CustomizableContractionHierarchyManyToMany(final CustomizableContractionHierarchy<N, E> hierarchy,
+      final CustomizedWeights weights) {
+    mHierarchy = hierarchy;
+    mWeights = weights;
+    mGraph = hierarchy.getGraph();
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.shortestpath.
+   * IManyToManyComputation#computeCosts(java.util.List, java.util.List)
+   */
+  @Override
+  public double[] computeCosts(final List<N> sources, final List<N> destinations) {
+    final int amountOfDestinations = destinations.size();
+    final double[] costs = new double[sources.size() * amountOfDestinations];
+    Arrays.fill(costs, Double.POSITIVE_INFINITY);
+
+    // Backward searches, collect the bucket entries of all destinations
+    final EliminationTreeWorkspace workspace = mHierarchy.getWorkspace();
+    final IntArrayList entryRank = new IntArrayList();
+    final IntArrayList entryDestination = new IntArrayList();
+    final DoubleArrayList entryDistance = new DoubleArrayList();
+    for (int j = 0; j < amountOfDestinations; j++) {
+      final int destinationIndex = mGraph.getIndex(destinations.get(j));
+      if (destinationIndex == FrozenRoadGraph.NO_INDEX) {
+        continue;
+      }
+      workspace.startQuery();
+      searchAncestors(mHierarchy.getRank(destinationIndex), false, workspace.mBackwardDistance,
+          workspace.mBackwardVisited);
+      for (int i = 0; i < workspace.mBackwardVisited.size(); i++) {
+        final int rank = workspace.mBackwardVisited.get(i);
+        final double distance = workspace.mBackwardDistance[rank];
+        if (distance != Double.POSITIVE_INFINITY) {
+          entryRank.add(rank);
+          entryDestination.add(j);
+          entryDistance.add(distance);
+        }
+      }
+    }
+
+    // Group the entries into buckets by their rank
+    final int amountOfNodes = mGraph.size();
+    final int[] firstEntry = new int[amountOfNodes + 1];
+    for (int entry = 0; entry < entryRank.size(); entry++) {
+      firstEntry[entryRank.get(entry) + 1]++;
+    }
+    for (int rank = 0; rank < amountOfNodes; rank++) {
+      firstEntry[rank + 1] += firstEntry[rank];
+    }
+    final int[] bucketDestination = new int[entryRank.size()];
+    final double[] bucketDistance = new double[entryRank.size()];
+    final int[] position = Arrays.copyOf(firstEntry, amountOfNodes);
+    for (int entry = 0; entry < entryRank.size(); entry++) {
+      final int bucketPosition = position[entryRank.get(entry)]++;
+      bucketDestination[bucketPosition] = entryDestination.get(entry);
+      bucketDistance[bucketPosition] = entryDistance.get(entry);
+    }
+
+    // Forward searches, scan the buckets of all reached ancestors
+    IntStream.range(0, sources.size()).parallel().forEach(i -> {
+      final int sourceIndex = mGraph.getIndex(sources.get(i));
+      if (sourceIndex == FrozenRoadGraph.NO_INDEX) {
+        return;
+      }
+      final EliminationTreeWorkspace sourceWorkspace = mHierarchy.getWorkspace();
+      sourceWorkspace.startQuery();
+      searchAncestors(mHierarchy.getRank(sourceIndex), true, sourceWorkspace.mForwardDistance,
+          sourceWorkspace.mForwardVisited);
+      final int rowOffset = i * amountOfDestinations;
+      for (int k = 0; k < sourceWorkspace.mForwardVisited.size(); k++) {
+        final int rank = sourceWorkspace.mForwardVisited.get(k);
+        final double distance = sourceWorkspace.mForwardDistance[rank];
+        if (distance == Double.POSITIVE_INFINITY) {
+          continue;
+        }
+        for (int entry = firstEntry[rank]; entry < firstEntry[rank + 1]; entry++) {
+          final int index = rowOffset + bucketDestination[entry];
+          final double cost = distance + bucketDistance[entry];
+          if (cost < costs[index]) {
+            costs[index] = cost;
+          }
+        }
+      }
+    });
+    return costs;
+  }
+
+  /**
+   * Gets the customization this computation uses.
+   *
+   * @return The customized weights
+   */
+  public CustomizedWeights getWeights() {
+    return mWeights;
+  }
+
+  /**
+   * Computes the distances from or to the given node to or from all its
+   * ancestors in the elimination tree.
+   *
+   * @param start    The rank of the node to start at
+   * @param isUpward Whether the distances from the node, using the upward
+   *                 weights, or to the node, using the downward weights, are
+   *                 computed
+   * @param distance Array to store the distances in, indexed by rank
+   * @param visited  List to add the ancestors to, ascending in rank
+   */
+  private void searchAncestors(final int start, final boolean isUpward, final double[] distance,
+      final IntArrayList visited) {
+    for (int rank = start; rank != NONE; rank = mHierarchy.getParent(rank)) {
+      distance[rank] = Double.POSITIVE_INFINITY;
+      visited.add(rank);
+    }
+    distance[start] = 0.0;
+
+    for (int i = 0; i < visited.size(); i++) {
+      final int tail = visited.get(i);
+      final double tailDistance = distance[tail];
+      if (tailDistance == Double.POSITIVE_INFINITY) {
+        continue;
+      }
+      final int arcEnd = mHierarchy.getFirstArc(tail + 1);
+      for (int arc = mHierarchy.getFirstArc(tail); arc < arcEnd; arc++) {
+        final int head = mHierarchy.getArcHead(arc);
+        final double weight = isUpward ? mWeights.getUpwardWeight(arc) : mWeights.getDownwardWeight(arc);
+        if (tailDistance + weight < distance[head]) {
+          distance[head] = tailDistance + weight;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,303 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy;
+
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.IHasId;
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.model.IPath;
+import com.transitnet.rpdemo.model.ISpatial;
+import com.transitnet.rpdemo.model.TransportationModeMask;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.AShortestPathComputation;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.CompactPath;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.EmptyPath;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IHasPathCost;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IShortestPathComputation;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryDeadline;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.CompactDijkstra;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Shortest path query on a {@link CustomizableContractionHierarchy} using one
+ * of its customizations.<br>
+ * <br>
+ * The hierarchy contains all arcs of the <i>elimination tree</i>, the upward
+ * search space of a node is thus exactly the chain of its ancestors. Both
+ * searches scan these chains in ascending rank and relax every arc, no
+ * priority queue and no stopping criterion are needed. The shortest path meets
+ * at the common ancestor with the smallest sum of both distances. Found paths
+ * are unpacked into the edges of the underlying graph.<br>
+ * <br>
+ * Query state is held in the workspace of the hierarchy, an instance can thus
+ * be shared between threads. Instances are lightweight and can be created per
+ * customization.<br>
+ * <br>
+ * {@link #computeShortestPathCostsReachable(Collection)} can not benefit from
+ * the hierarchy and falls back to a Dijkstra which respects the transportation
+ * modes of the customization.
+ *
+ * @param <N> Type of the nodes
+ * @param <E> Type of the edges
+ */
+public final class CustomizableContractionHierarchyQuery<N extends INode & IHasId & ISpatial & Serializable,
+    E extends IEdge<N> & IHasId & Serializable> extends AShortestPathComputation<N, E> {
+  /**
+   * Constant for an arc or node that does not exist.
+   */
+  private static final int NONE = CustomizableContractionHierarchy.NONE;
+
+  /**
+   * The algorithm to use for one-to-all queries.
+   */
+  private final IShortestPathComputation<N, E> mFallback;
+  /**
+   * The graph of the hierarchy.
+   */
+  private final FrozenRoadGraph<N, E> mGraph;
+  /**
+   * The hierarchy to query.
+   */
+  private final CustomizableContractionHierarchy<N, E> mHierarchy;
+  /**
+   * The customized weights to query with.
+   */
+  private final CustomizedWeights mWeights;
+
+  /**
+   * Creates a new query on the given hierarchy using the given customization.
+   *
+   * @param hierarchy The hierarchy to query
+   * @param weights   The customization of the hierarchy to use
+   */
+  public CustomizableContractionHierarchyQuery(final CustomizableContractionHierarchy<N, E> hierarchy,
+      final CustomizedWeights weights) {
+    mHierarchy = hierarchy;
+    mWeights = weights;
+    mGraph = hierarchy.getGraph();
+    mFallback = new CompactDijkstra<>(mGraph, TransportationModeMask.toSet(weights.getModes()));
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.shortestpath.
+   * IShortestPathComputation#computeSearchSpace(java.util.Collection,
+   * com.transitnet.rpdemo.model.INode)
+   */
+  @Override
+  public Collection<N> computeSearchSpace(final Collection<N> sources, final N destination) {
+    final EliminationTreeWorkspace workspace = mHierarchy.getWorkspace();
+    search(workspace, sources, destination);
+
+    final Set<N> searchSpace = new HashSet<>();
+    workspace.mForwardVisited.forEach(rank -> searchSpace.add(mGraph.getNode(mHierarchy.getNodeOfRank(rank))));
+    workspace.mBackwardVisited.forEach(rank -> searchSpace.add(mGraph.getNode(mHierarchy.getNodeOfRank(rank))));
+    return searchSpace;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.shortestpath.
+   * IShortestPathComputation#computeShortestPath(java.util.Collection,
+   * com.transitnet.rpdemo.model.INode)
+   */
+  @Override
+  public Optional<IPath<N, E>> computeShortestPath(final Collection<N> sources, final N destination) {
+    final EliminationTreeWorkspace workspace = mHierarchy.getWorkspace();
+    final int meeting = search(workspace, sources, destination);
+    if (meeting == NONE) {
+      return Optional.empty();
+    }
+
+    // Collect the arcs from one of the sources to the meeting node, they are
+    // found in reverse order
+    final IntArrayList forwardNodes = new IntArrayList();
+    int rank = meeting;
+    while (workspace.mForwardParentNode[rank] != NONE) {
+      forwardNodes.add(rank);
+      rank = workspace.mForwardParentNode[rank];
+    }
+
+    final IntArrayList edges = new IntArrayList();
+    for (int i = forwardNodes.size() - 1; i >= 0; i--) {
+      final int head = forwardNodes.get(i);
+      mHierarchy.unpack(workspace.mForwardParentNode[head], workspace.mForwardParentArc[head], true, mWeights,
+          edges::add);
+    }
+    // The arcs from the meeting node to the destination are found in order
+    rank = meeting;
+    while (workspace.mBackwardParentNode[rank] != NONE) {
+      final int tail = workspace.mBackwardParentNode[rank];
+      mHierarchy.unpack(tail, workspace.mBackwardParentArc[rank], false, mWeights, edges::add);
+      rank = tail;
+    }
+
+    // Destination is already a source node
+    if (edges.isEmpty()) {
+      return Optional.of(new EmptyPath<>(destination));
+    }
+
+    final int[] edgeArray = edges.toArray();
+    final float[] costs = new float[edgeArray.length];
+    for (int i = 0; i < edgeArray.length; i++) {
+      costs[i] = mWeights.getEdgeCost(edgeArray[i]);
+    }
+    return Optional.of(new CompactPath<>(mGraph, edgeArray, costs));
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.shortestpath.
+   * IShortestPathComputation#computeShortestPathCost(java.util.Collection,
+   * com.transitnet.rpdemo.model.INode)
+   */
+  @Override
+  public Optional<Double> computeShortestPathCost(final Collection<N> sources, final N destination) {
+    final EliminationTreeWorkspace workspace = mHierarchy.getWorkspace();
+    final int meeting = search(workspace, sources, destination);
+    if (meeting == NONE) {
+      return Optional.empty();
+    }
+    return Optional.of(workspace.mForwardDistance[meeting] + workspace.mBackwardDistance[meeting]);
+  }
+
+  /**
+   * Computes the shortest path costs to all reachable nodes. The hierarchy does
+   * not support one-to-all queries, the computation is delegated to a Dijkstra
+   * respecting the transportation modes of the customization.
+   */
+  @Override
+  public Map<N, ? extends IHasPathCost> computeShortestPathCostsReachable(final Collection<N> sources) {
+    return mFallback.computeShortestPathCostsReachable(sources);
+  }
+
+  /**
+   * Gets the hierarchy this query operates on.
+   *
+   * @return The hierarchy
+   */
+  public CustomizableContractionHierarchy<N, E> getHierarchy() {
+    return mHierarchy;
+  }
+
+  /**
+   * Gets the customization this query uses.
+   *
+   * @return The customized weights
+   */
+  public CustomizedWeights getWeights() {
+    return mWeights;
+  }
+
+  /**
+   * Runs the elimination tree search from the given sources to the given
+   * destination.
+   *
+   * @param workspace   The workspace to use
+   * @param sources     The sources of the search
+   * @param destination The destination of the search
+   * @return The rank of the node both searches met at, or {@link #NONE} if the
+   *         destination is not reachable or the search was stopped by its
+   *         deadline
+   */
+  private int search(final EliminationTreeWorkspace workspace, final Collection<N> sources, final N destination) {
+    final int stamp = workspace.startQuery();
+    final int destinationIndex = mGraph.getIndex(destination);
+    if (destinationIndex == FrozenRoadGraph.NO_INDEX) {
+      return NONE;
+    }
+
+    // Forward search space is the union of the ancestors of all sources
+    final IntArrayList forwardVisited = workspace.mForwardVisited;
+    for (final N source : sources) {
+      final int sourceIndex = mGraph.getIndex(source);
+      if (sourceIndex == FrozenRoadGraph.NO_INDEX) {
+        continue;
+      }
+      int rank = mHierarchy.getRank(sourceIndex);
+      while (rank != NONE && workspace.mForwardStamp[rank] != stamp) {
+        workspace.mForwardStamp[rank] = stamp;
+        workspace.mForwardDistance[rank] = Double.POSITIVE_INFINITY;
+        workspace.mForwardParentNode[rank] = NONE;
+        forwardVisited.add(rank);
+        rank = mHierarchy.getParent(rank);
+      }
+    }
+    for (final N source : sources) {
+      final int sourceIndex = mGraph.getIndex(source);
+      if (sourceIndex != FrozenRoadGraph.NO_INDEX) {
+        workspace.mForwardDistance[mHierarchy.getRank(sourceIndex)] = 0.0;
+      }
+    }
+    forwardVisited.sortThis();
+    // Both sweeps stop without a result or fail if the deadline expired, a
+    // partial sweep has no meaningful distances
+    final QueryDeadline deadline = QueryDeadline.current();
+    for (int i = 0; i < forwardVisited.size(); i++) {
+      if (QueryDeadline.shouldCheck(i + 1) && deadline.checkExpired()) {
+        return NONE;
+      }
+      final int tail = forwardVisited.get(i);
+      final double distance = workspace.mForwardDistance[tail];
+      if (distance == Double.POSITIVE_INFINITY) {
+        continue;
+      }
+      final int arcEnd = mHierarchy.getFirstArc(tail + 1);
+      for (int arc = mHierarchy.getFirstArc(tail); arc < arcEnd; arc++) {
+        final int head = mHierarchy.getArcHead(arc);
+        final double headDistance = distance + mWeights.getUpwardWeight(arc);
+        if (headDistance < workspace.mForwardDistance[head]) {
+          workspace.mForwardDistance[head] = headDistance;
+          workspace.mForwardParentNode[head] = tail;
+          workspace.mForwardParentArc[head] = arc;
+        }
+      }
+    }
+
+    // Backward search space is the chain of ancestors of the destination,
+    // which is already ascending in rank
+    final IntArrayList backwardVisited = workspace.mBackwardVisited;
+    for (int rank = mHierarchy.getRank(destinationIndex); rank != NONE; rank = mHierarchy.getParent(rank)) {
+      workspace.mBackwardDistance[rank] = Double.POSITIVE_INFINITY;
+      workspace.mBackwardParentNode[rank] = NONE;
+      backwardVisited.add(rank);
+    }
+    workspace.mBackwardDistance[backwardVisited.get(0)] = 0.0;
+
+    double bestCost = Double.POSITIVE_INFINITY;
+    int meeting = NONE;
+    for (int i = 0; i < backwardVisited.size(); i++) {
+      if (QueryDeadline.shouldCheck(i + 1) && deadline.checkExpired()) {
+        return NONE;
+      }
+      final int tail = backwardVisited.get(i);
+      final double distance = workspace.mBackwardDistance[tail];
+      if (distance == Double.POSITIVE_INFINITY) {
+        continue;
+      }
+      if (workspace.mForwardStamp[tail] == stamp) {
+        final double pathCost = workspace.mForwardDistance[tail] + distance;
+        if (pathCost < bestCost) {
+          bestCost = pathCost;
+          meeting = tail;
+        }
+      }
+      final int arcEnd = mHierarchy.getFirstArc(tail + 1);
+      for (int arc = mHierarchy.getFirstArc(tail); arc < arcEnd; arc++) {
+        final int head = mHierarchy.getArcHead(arc);
+        final double headDistance = distance + mWeights.getDownwardWeight(arc);
+        if (headDistance < workspace.mBackwardDistance[head]) {
+          workspace.mBackwardDistance[head] = headDistance;
+          workspace.mBackwardParentNode[head] = tail;
+          workspace.mBackwardParentArc[head] = arc;
+        }
+      }
+    }
+    return meeting;
+  }
+}
@@ -0,0 +1,88 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy;
+
+/**
+ * Arc weights of a {@link CustomizableContractionHierarchy} for one set of
+ * transportation modes, computed by its customization.<br>
+ * <br>
+ * Each arc of the hierarchy connects a node of lower rank with a node of higher
+ * rank and has a weight for each direction. The <i>upward</i> weight is the cost
+ * from the lower to the higher node, the <i>downward</i> weight the cost of the
+ * opposite direction. Instances are immutable and can be shared between
+ * threads.
+ */
+public final class CustomizedWeights {
+  /**
+   * The downward weight of each arc.
+   */
+  private final float[] mDownwardWeight;
+  /**
+   * The cost of each edge of the graph under the modes.
+   */
+  private final float[] mEdgeCost;
+  /**
+   * The transportation modes of this customization, as bit mask.
+   */
+  private final byte mModes;
+  /**
+   * The upward weight of each arc.
+   */
+  private final float[] mUpwardWeight;
+
+  /**
+   * Creates new customized weights.
+   *
+   * @param modes          The transportation modes of the customization, as bit
+   *                       mask
+   * @param edgeCost       The cost of each edge of the graph under the modes
+   * @param upwardWeight   The upward weight of each arc
+   * @param downwardWeight The downward weight of each arc
+   */
+  CustomizedWeights(final byte modes, final float[] edgeCost, final float[] upwardWeight,
+      final float[] downwardWeight) {
+    mModes = modes;
+    mEdgeCost = edgeCost;
+    mUpwardWeight = upwardWeight;
+    mDownwardWeight = downwardWeight;
+  }
+
+  /**
+   * Gets the cost of the edge with the given index, when taken with the modes of
+   * this customization.
+   *
+   * @param edge The index of the edge
+   * @return The cost of the edge, {@link Float#POSITIVE_INFINITY} if the edge
+   *         allows none of the modes
+   */
+  public float getEdgeCost(final int edge) {
+    return mEdgeCost[edge];
+  }
+
+  /**
+   * Gets the transportation modes of this customization.
+   *
+   * @return The transportation modes, as bit mask
+   */
+  public byte getModes() {
+    return mModes;
+  }
+
+  /**
+   * Gets the downward weight of the given arc.
+   *
+   * @param arc The index of the arc
+   * @return The cost from the higher to the lower node of the arc
+   */
+  float getDownwardWeight(final int arc) {
+    return mDownwardWeight[arc];
+  }
+
+  /**
+   * Gets the upward weight of the given arc.
+   *
+   * @param arc The index of the arc
+   * @return The cost from the lower to the higher node of the arc
+   */
+  float getUpwardWeight(final int arc) {
+    return mUpwardWeight[arc];
+  }
+}
@@ -0,0 +1,88 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread state of an elimination tree query on a
+ * {@link CustomizableContractionHierarchy}. All arrays are indexed by rank and
+ * reused across queries, entries are only valid if their stamp equals the stamp
+ * of the current query.
+ */
+final class EliminationTreeWorkspace {
+  /**
+   * Tentative distance of each node in the backward search.
+   */
+  final double[] mBackwardDistance;
+  /**
+   * The arc each node was reached by in the backward search.
+   */
+  final int[] mBackwardParentArc;
+  /**
+   * The node each node was reached from in the backward search.
+   */
+  final int[] mBackwardParentNode;
+  /**
+   * The nodes visited by the backward search, ascending in rank.
+   */
+  final IntArrayList mBackwardVisited;
+  /**
+   * Tentative distance of each node in the forward search.
+   */
+  final double[] mForwardDistance;
+  /**
+   * The arc each node was reached by in the forward search.
+   */
+  final int[] mForwardParentArc;
+  /**
+   * The node each node was reached from in the forward search.
+   */
+  final int[] mForwardParentNode;
+  /**
+   * The stamp of each node in the forward search.
+   */
+  final int[] mForwardStamp;
+  /**
+   * The nodes visited by the forward search.
+   */
+  final IntArrayList mForwardVisited;
+  /**
+   * The stamp of the current query.
+   */
+  int mStamp;
+
+  /**
+   * Creates a new workspace for the given amount of nodes.
+   *
+   * @param amountOfNodes The amount of nodes
+   */
+  EliminationTreeWorkspace(final int amountOfNodes) {
+    mForwardDistance = new double[amountOfNodes];
+    mForwardParentArc = new int[amountOfNodes];
+    mForwardParentNode = new int[amountOfNodes];
+    mForwardStamp = new int[amountOfNodes];
+    mForwardVisited = new IntArrayList();
+    mBackwardDistance = new double[amountOfNodes];
+    mBackwardParentArc = new int[amountOfNodes];
+    mBackwardParentNode = new int[amountOfNodes];
+    mBackwardVisited = new IntArrayList();
+  }
+
+  /**
+   * Prepares the workspace for a new query.
+   *
+   * @return The stamp of the new query
+   */
+  int startQuery() {
+    mStamp++;
+    if (mStamp == 0) {
+      // Stamps wrapped around, old entries would be considered visited
+      Arrays.fill(mForwardStamp, 0);
+      mStamp = 1;
+    }
+    mForwardVisited.clear();
+    mBackwardVisited.clear();
+    return mStamp;
+  }
+}
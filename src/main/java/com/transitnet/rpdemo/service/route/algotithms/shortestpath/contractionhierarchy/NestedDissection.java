@@ -0,0 +1,195 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy;
+
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import java.util.Arrays;
+
+/**
+ * Computes a contraction order of a road graph by geometric nested
+ * dissection.<br>
+ * <br>
+ * The nodes are recursively split at the median of their coordinates along the
+ * wider axis of their bounding box. The nodes of one half that are adjacent to
+ * the other half form a <i>separator</i>, which is ordered after both halves.
+ * Road networks have small separators, which keeps the amount of shortcuts of a
+ * {@link CustomizableContractionHierarchy} small independent of the edge
+ * costs.
+ */
+final class NestedDissection {
+  /**
+   * The amount of nodes below which a part is not split anymore.
+   */
+  private static final int LEAF_SIZE = 32;
+
+  /**
+   * Computes a contraction order of the given graph.
+   *
+   * @param graph          The graph to order
+   * @param firstNeighbor  Offsets into the neighbor array for each node, the
+   *                       last entry is the total amount of neighbors
+   * @param neighbors      The neighbors of each node, ignoring edge direction
+   * @return The nodes of the graph, ordered ascending in their rank
+   */
+  static int[] computeOrder(final FrozenRoadGraph<?, ?> graph, final int[] firstNeighbor, final int[] neighbors) {
+    final NestedDissection dissection = new NestedDissection(graph, firstNeighbor, neighbors);
+    final int[] nodes = new int[graph.size()];
+    for (int node = 0; node < nodes.length; node++) {
+      nodes[node] = node;
+    }
+    dissection.dissect(nodes);
+    return dissection.mOrder.toArray();
+  }
+
+  /**
+   * Converts the given float into an int whose signed order equals the order of
+   * the float.
+   *
+   * @param value The value to convert
+   * @return The sortable representation of the value
+   */
+  private static int toSortableInt(final float value) {
+    final int bits = Float.floatToIntBits(value);
+    return bits ^ (bits >> 31 & Integer.MAX_VALUE);
+  }
+
+  /**
+   * The current mark, used to identify the nodes of the other half.
+   */
+  private int mCurrentMark;
+  /**
+   * Offsets into {@link #mNeighbors} for each node.
+   */
+  private final int[] mFirstNeighbor;
+  /**
+   * The graph to order.
+   */
+  private final FrozenRoadGraph<?, ?> mGraph;
+  /**
+   * The mark of each node.
+   */
+  private final int[] mMark;
+  /**
+   * The neighbors of each node.
+   */
+  private final int[] mNeighbors;
+  /**
+   * The order computed so far.
+   */
+  private final IntArrayList mOrder;
+
+  /**
+   * Creates a new nested dissection of the given graph.
+   *
+   * @param graph         The graph to order
+   * @param firstNeighbor Offsets into the neighbor array for each node
+   * @param neighbors     The neighbors of each node
+   */
+  private NestedDissection(final FrozenRoadGraph<?, ?> graph, final int[] firstNeighbor, final int[] neighbors) {
+    mGraph = graph;
+    mFirstNeighbor = firstNeighbor;
+    mNeighbors = neighbors;
+    mMark = new int[graph.size()];
+    mOrder = new IntArrayList(graph.size());
+  }
+
+  /**
+   * Collects the nodes of the given range which are adjacent to a marked node.
+   *
+   * @param nodes The nodes, ordered along the split axis
+   * @param from  The first index of the range, inclusive
+   * @param to    The last index of the range, exclusive
+   * @param mark  The mark of the other half
+   * @return The boundary nodes of the range
+   */
+  private IntArrayList collectBoundary(final int[] nodes, final int from, final int to, final int mark) {
+    final IntArrayList boundary = new IntArrayList();
+    for (int i = from; i < to; i++) {
+      final int node = nodes[i];
+      for (int j = mFirstNeighbor[node]; j < mFirstNeighbor[node + 1]; j++) {
+        if (mMark[mNeighbors[j]] == mark) {
+          boundary.add(node);
+          break;
+        }
+      }
+    }
+    return boundary;
+  }
+
+  /**
+   * Orders the given nodes by recursively splitting them.
+   *
+   * @param nodes The nodes to order
+   */
+  private void dissect(final int[] nodes) {
+    if (nodes.length <= LEAF_SIZE) {
+      mOrder.addAll(nodes);
+      return;
+    }
+
+    // Split at the median along the wider axis of the bounding box
+    float minLatitude = Float.POSITIVE_INFINITY;
+    float maxLatitude = Float.NEGATIVE_INFINITY;
+    float minLongitude = Float.POSITIVE_INFINITY;
+    float maxLongitude = Float.NEGATIVE_INFINITY;
+    for (final int node : nodes) {
+      minLatitude = Math.min(minLatitude, mGraph.getLatitude(node));
+      maxLatitude = Math.max(maxLatitude, mGraph.getLatitude(node));
+      minLongitude = Math.min(minLongitude, mGraph.getLongitude(node));
+      maxLongitude = Math.max(maxLongitude, mGraph.getLongitude(node));
+    }
+    final boolean byLatitude = maxLatitude - minLatitude >= maxLongitude - minLongitude;
+    final long[] keys = new long[nodes.length];
+    for (int i = 0; i < nodes.length; i++) {
+      final float coordinate = byLatitude ? mGraph.getLatitude(nodes[i]) : mGraph.getLongitude(nodes[i]);
+      keys[i] = (long) NestedDissection.toSortableInt(coordinate) << 32 | nodes[i] & 0xFFFFFFFFL;
+    }
+    Arrays.sort(keys);
+    final int[] sorted = new int[nodes.length];
+    for (int i = 0; i < nodes.length; i++) {
+      sorted[i] = (int) keys[i];
+    }
+    final int half = sorted.length / 2;
+
+    // Take the smaller of both boundaries as separator
+    final int markOfSecond = mark(sorted, half, sorted.length);
+    final IntArrayList firstBoundary = collectBoundary(sorted, 0, half, markOfSecond);
+    final int markOfFirst = mark(sorted, 0, half);
+    final IntArrayList secondBoundary = collectBoundary(sorted, half, sorted.length, markOfFirst);
+    final IntArrayList separator = firstBoundary.size() <= secondBoundary.size() ? firstBoundary : secondBoundary;
+
+    final int markOfSeparator = mark(separator.toArray(), 0, separator.size());
+    final IntArrayList first = new IntArrayList(half);
+    final IntArrayList second = new IntArrayList(sorted.length - half);
+    for (int i = 0; i < sorted.length; i++) {
+      if (mMark[sorted[i]] == markOfSeparator) {
+        continue;
+      }
+      if (i < half) {
+        first.add(sorted[i]);
+      } else {
+        second.add(sorted[i]);
+      }
+    }
+
+    dissect(first.toArray());
+    dissect(second.toArray());
+    mOrder.addAll(separator);
+  }
+
+  /**
+   * Marks the nodes of the given range with a new mark.
+   *
+   * @param nodes The nodes
+   * @param from  The first index of the range, inclusive
+   * @param to    The last index of the range, exclusive
+   * @return The new mark
+   */
+  private int mark(final int[] nodes, final int from, final int to) {
+    mCurrentMark++;
+    for (int i = from; i < to; i++) {
+      mMark[nodes[i]] = mCurrentMark;
+    }
+    return mCurrentMark;
+  }
+}
@@ -0,0 +1,6 @@
+/**
+ * Contains Contraction Hierarchies, a speedup technique for shortest path
+ * computations on road networks which trades a preprocessing phase for very
+ * small search spaces at query time.
+ */
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy;
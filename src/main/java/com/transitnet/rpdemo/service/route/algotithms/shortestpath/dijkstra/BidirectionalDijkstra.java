@@ -0,0 +1,587 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra;
+
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.IGraph;
+import com.transitnet.rpdemo.model.IGraphView;
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.model.IPath;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.AShortestPathComputation;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.EQueryPhase;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.EdgePath;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.EmptyPath;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IHasPathCost;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryDeadline;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryStatistics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of a bidirectional Dijkstra that is able to compute shortest
+ * paths on a given graph.<br>
+ * <br>
+ * A forward search starts at the sources and a backward search, operating on
+ * {@link IGraph#backwardView()}, starts at the destination. Always the search
+ * with the smaller key settles its next node. Whenever an edge connects both
+ * searches the cost of the resulting path is recorded. The computation stops
+ * once the sum of the smallest keys of both searches reaches the cost of the
+ * best recorded path. On long queries the combined search space is roughly
+ * half of the search space of {@link Dijkstra}.<br>
+ * <br>
+ * Subclasses can override {@link #getEstimatedDistance(INode, INode)} to give
+ * the algorithm a sense of goal direction. Both searches then use the
+ * <i>average potential</i> of the estimates towards the destination and from
+ * the sources, which is consistent for both directions if the estimate is.
+ * With landmarks this is the bidirectional ALT algorithm. Estimates must not
+ * grow during a query, the potentials of both searches would otherwise no
+ * longer add up to zero for the nodes already queued.<br>
+ * <br>
+ * Edge costs must not depend on the time the edge is taken, the backward search
+ * does not know the tentative distance from the sources. One-to-all queries
+ * have no destination to search from and only use the forward search.
+ *
+ * @param <N> Type of the node
+ * @param <E> Type of the edge
+ */
+public class BidirectionalDijkstra<N extends INode, E extends IEdge<N>> extends AShortestPathComputation<N, E> {
+  /**
+   * A path connecting both searches.
+   */
+  private final class Meeting {
+    /**
+     * The cost of the path.
+     */
+    private final double mCost;
+    /**
+     * The edge connecting both searches, or <code>null</code> if the
+     * destination is a source.
+     */
+    private final E mEdge;
+    /**
+     * The cost of the connecting edge.
+     */
+    private final double mEdgeCost;
+
+    /**
+     * Creates a new meeting.
+     *
+     * @param edge     The edge connecting both searches, or <code>null</code> if
+     *                 the destination is a source
+     * @param edgeCost The cost of the connecting edge
+     * @param cost     The cost of the path
+     */
+    Meeting(final E edge, final double edgeCost, final double cost) {
+      mEdge = edge;
+      mEdgeCost = edgeCost;
+      mCost = cost;
+    }
+  }
+
+  /**
+   * State of one search direction.
+   */
+  private final class Search {
+    /**
+     * Nodes that are active, i.e. reached but not settled yet.
+     */
+    private final PriorityQueue<TentativeDistance<N, E>> mActiveNodes;
+    /**
+     * Tentative distance container of all reached nodes.
+     */
+    private final Map<N, TentativeDistance<N, E>> mNodeToDistance;
+    /**
+     * Distance container of all settled nodes.
+     */
+    private final Map<N, TentativeDistance<N, E>> mNodeToSettledDistance;
+    /**
+     * The view on the graph the search operates on.
+     */
+    private final IGraphView<N, E> mSearchView;
+    /**
+     * The statistics to record the work of the search in.
+     */
+    private final QueryStatistics mStatistics;
+
+    /**
+     * Creates a new search operating on the given view.
+     *
+     * @param view       The view on the graph to operate on
+     * @param statistics The statistics to record the work of the search in
+     */
+    Search(final IGraphView<N, E> view, final QueryStatistics statistics) {
+      mSearchView = view;
+      mStatistics = statistics;
+      mNodeToDistance = new HashMap<>();
+      mNodeToSettledDistance = new HashMap<>();
+      mActiveNodes = new PriorityQueue<>();
+    }
+
+    /**
+     * Gets the key of the next node to settle. Abandoned containers of already
+     * settled nodes are removed from the queue.
+     *
+     * @return The key of the next node, i.e. its tentative distance plus its
+     *         potential, or {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    double peekKey() {
+      while (!mActiveNodes.isEmpty()) {
+        final TentativeDistance<N, E> distance = mActiveNodes.peek();
+        if (!mNodeToSettledDistance.containsKey(distance.getNode())) {
+          return distance.getTentativeDistance() + distance.getEstimatedDistance();
+        }
+        mActiveNodes.poll();
+        mStatistics.incrementQueuePops();
+        mStatistics.incrementStalePops();
+      }
+      return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Reaches the given node with the given distance if it improves its
+     * tentative distance.
+     *
+     * @param node              The node to reach
+     * @param parentEdge        The edge the node was reached by, or
+     *                          <code>null</code> for start nodes
+     * @param tentativeDistance The distance to reach the node with
+     * @param potential         The potential of the node in this direction
+     */
+    void reach(final N node, final E parentEdge, final double tentativeDistance, final double potential) {
+      if (mNodeToSettledDistance.containsKey(node)) {
+        return;
+      }
+      final TentativeDistance<N, E> current = mNodeToDistance.get(node);
+      if (current != null && tentativeDistance >= current.getTentativeDistance()) {
+        return;
+      }
+      final TentativeDistance<N, E> distance = new TentativeDistance<>(node, parentEdge, tentativeDistance, potential);
+      mNodeToDistance.put(node, distance);
+      mActiveNodes.add(distance);
+      mStatistics.incrementQueuePushes();
+    }
+
+    /**
+     * Settles the next node. Must only be called if {@link #peekKey()} found a
+     * node.
+     *
+     * @return The distance container of the settled node
+     */
+    TentativeDistance<N, E> settle() {
+      final TentativeDistance<N, E> distance = mActiveNodes.poll();
+      mNodeToSettledDistance.put(distance.getNode(), distance);
+      mStatistics.incrementQueuePops();
+      mStatistics.incrementSettledNodes();
+      return distance;
+    }
+  }
+
+  /**
+   * The graph to operate on.
+   */
+  private final IGraph<N, E> mGraph;
+
+  /**
+   * Creates a new bidirectional Dijkstra instance which operates on the given
+   * graph.
+   *
+   * @param graph The graph to operate on
+   */
+  public BidirectionalDijkstra(final IGraph<N, E> graph) {
+    mGraph = graph;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.shortestpath.
+   * IShortestPathComputation#computeSearchSpace(java.util.Collection,
+   * com.transitnet.rpdemo.model.INode)
+   */
+  @Override
+  public Collection<N> computeSearchSpace(final Collection<N> sources, final N destination) {
+    final QueryStatistics statistics = new QueryStatistics();
+    final Search forward = new Search(mGraph.forwardView(), statistics);
+    final Search backward = new Search(mGraph.backwardView(), statistics);
+    search(forward, backward, sources, destination);
+
+    final Set<N> searchSpace = new HashSet<>(forward.mNodeToSettledDistance.keySet());
+    searchSpace.addAll(backward.mNodeToSettledDistance.keySet());
+    return searchSpace;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.shortestpath.
+   * IShortestPathComputation#computeShortestPath(java.util.Collection,
+   * com.transitnet.rpdemo.model.INode)
+   */
+  @Override
+  public Optional<IPath<N, E>> computeShortestPath(final Collection<N> sources, final N destination) {
+    return computeShortestPath(sources, destination, new QueryStatistics());
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.shortestpath.
+   * IShortestPathComputation#computeShortestPath(java.util.Collection,
+   * com.transitnet.rpdemo.model.INode,
+   * com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryStatistics)
+   */
+  @Override
+  public Optional<IPath<N, E>> computeShortestPath(final Collection<N> sources, final N destination,
+      final QueryStatistics statistics) {
+    final long searchStart = System.nanoTime();
+    final Search forward = new Search(mGraph.forwardView(), statistics);
+    final Search backward = new Search(mGraph.backwardView(), statistics);
+    final Meeting meeting = search(forward, backward, sources, destination);
+    final long constructionStart = System.nanoTime();
+    statistics.addPhaseTime(EQueryPhase.SEARCH, constructionStart - searchStart);
+    final Optional<IPath<N, E>> path = constructPath(forward, backward, meeting, destination);
+    statistics.addPhaseTime(EQueryPhase.PATH_CONSTRUCTION, System.nanoTime() - constructionStart);
+    return path;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.shortestpath.
+   * IShortestPathComputation#computeShortestPathCost(java.util.Collection,
+   * com.transitnet.rpdemo.model.INode)
+   */
+  @Override
+  public Optional<Double> computeShortestPathCost(final Collection<N> sources, final N destination) {
+    final QueryStatistics statistics = new QueryStatistics();
+    final Meeting meeting = search(new Search(mGraph.forwardView(), statistics),
+        new Search(mGraph.backwardView(), statistics), sources, destination);
+    if (meeting == null) {
+      return Optional.empty();
+    }
+    return Optional.of(meeting.mCost);
+  }
+
+  /**
+   * Computes the shortest path costs to all reachable nodes. There is no
+   * destination to search from, only the forward search is used.
+   */
+  @Override
+  public Map<N, ? extends IHasPathCost> computeShortestPathCostsReachable(final Collection<N> sources) {
+    final QueryStatistics statistics = new QueryStatistics();
+    final Search forward = new Search(mGraph.forwardView(), statistics);
+    statistics.incrementQueries();
+    startQuery(sources, null);
+    for (final N source : sources) {
+      forward.reach(source, null, 0.0, 0.0);
+    }
+    final QueryDeadline deadline = QueryDeadline.current();
+    int iterations = 0;
+    while (forward.peekKey() < Double.POSITIVE_INFINITY) {
+      // Stop with the nodes settled so far or fail if the deadline expired
+      iterations++;
+      if (QueryDeadline.shouldCheck(iterations) && deadline.checkExpired()) {
+        break;
+      }
+      final TentativeDistance<N, E> distance = forward.settle();
+      if (shouldAbort(distance)) {
+        break;
+      }
+      final double tentativeDistance = distance.getTentativeDistance();
+      provideEdgesToRelax(forward.mSearchView, distance).forEach(edge -> {
+        if (considerEdgeForRelaxation(edge, null)) {
+          statistics.incrementRelaxedEdges();
+          forward.reach(edge.getDestination(), edge, tentativeDistance + provideEdgeCost(edge, tentativeDistance), 0.0);
+        }
+      });
+    }
+    return forward.mNodeToSettledDistance;
+  }
+
+  /**
+   * Whether or not the given edge should be considered for relaxation. The
+   * algorithm will ignore the edge and not follow it if this method returns
+   * <code>false</code>. The method is used by both searches.
+   *
+   * @param edge            The edge in question
+   * @param pathDestination The destination of the shortest path computation or
+   *                        <code>null</code> if not present
+   * @return <code>True</code> if the edge should be considered, <code>false</code>
+   *         otherwise
+   */
+  @SuppressWarnings("unused")
+  protected boolean considerEdgeForRelaxation(final E edge, final N pathDestination) {
+    // Dijkstras algorithm considers every edge.
+    // This method may be used by extending classes to improve performance.
+    return true;
+  }
+
+  /**
+   * Gets an estimate about the shortest path distance from the given node to
+   * the given other node. The backward search uses it to estimate the distance
+   * from the sources.<br>
+   * <br>
+   * The estimate must be <i>monotone</i> and <i>admissible</i>.
+   *
+   * @param node            The node to estimate the distance from
+   * @param pathDestination The node to estimate the distance to
+   * @return An estimate about the shortest path distance
+   */
+  @SuppressWarnings("unused")
+  protected double getEstimatedDistance(final N node, final N pathDestination) {
+    // Dijkstras algorithm does not use estimations. It makes the worst possible
+    // guess of 0 for every node.
+    // This method may be used by extending classes to improve performance.
+    return 0.0;
+  }
+
+  /**
+   * Provides the cost of a given edge.<br>
+   * <br>
+   * The base is the result of {@link IEdge#getCost()}. Implementations are
+   * allowed to override this method in order to modify the cost, the cost must
+   * however not depend on the tentative distance if used by the backward
+   * search.
+   *
+   * @param edge              The edge whose cost to provide
+   * @param tentativeDistance The current tentative distance when relaxing this
+   *                          edge, from the sources or to the destination
+   *                          depending on the search
+   * @return The cost of the edge
+   */
+  protected double provideEdgeCost(final E edge, @SuppressWarnings("unused") final double tentativeDistance) {
+    return edge.getCost();
+  }
+
+  /**
+   * Generates a stream of edges to process for relaxation.<br>
+   * <br>
+   * The base are all outgoing edges of the given node, as seen by the view the
+   * search operates on. Implementations are allowed to override this method in
+   * order to further filter the stream. Additionally, the method
+   * {@link #considerEdgeForRelaxation(IEdge, INode)} will be called on each
+   * element of this stream.
+   *
+   * @param view              The view of the search that relaxes the edges
+   * @param tentativeDistance The tentative distance wrapper of the node to
+   *                          relax edges of
+   * @return Stream of edges to process for relaxation
+   */
+  protected Stream<E> provideEdgesToRelax(final IGraphView<N, E> view,
+      final TentativeDistance<N, E> tentativeDistance) {
+    return view.getOutgoingEdges(tentativeDistance.getNode());
+  }
+
+  /**
+   * Whether or not the algorithm should abort computation of the shortest path.
+   * The method is called right after the given node has been settled, by either
+   * of the searches.
+   *
+   * @param tentativeDistance The tentative distance wrapper of the node that
+   *                          was settled
+   * @return <code>True</code> if the computation should be aborted, <code>false</code>
+   *         if not
+   */
+  protected boolean shouldAbort(@SuppressWarnings("unused") final TentativeDistance<N, E> tentativeDistance) {
+    // The algorithm only aborts by its stopping criterion. However, the method
+    // can be used by subclasses to abort computation earlier, for example
+    // after exploring to a fixed distance.
+    return false;
+  }
+
+  /**
+   * Called at the start of every shortest path computation, before any node
+   * is visited.
+   *
+   * @param sources         The sources of the computation
+   * @param pathDestination The destination of the computation or
+   *                        <code>null</code> if not present
+   */
+  @SuppressWarnings("unused")
+  protected void startQuery(final Collection<N> sources, final N pathDestination) {
+    // The algorithm holds no state across computations.
+    // This method may be used by extending classes to prepare per query state.
+  }
+
+  /**
+   * Adds the parent edge of the given container to the path. The cost of the
+   * edge is the difference between the distances of its end nodes.
+   *
+   * @param path     The path to add the edge to
+   * @param search   The search the container belongs to
+   * @param distance The container whose parent edge to add
+   */
+  private void addParentEdge(final EdgePath<N, E> path, final Search search, final TentativeDistance<N, E> distance) {
+    final E edge = distance.getParentEdge();
+    final N parent = search.mSearchView.getSource(edge);
+    final double parentDistance = search.mNodeToSettledDistance.get(parent).getTentativeDistance();
+    path.addEdge(edge, distance.getTentativeDistance() - parentDistance);
+  }
+
+  /**
+   * Collects the containers of the given search by following the parent edges
+   * from the given node to a start node of the search.
+   *
+   * @param search The search to collect containers of
+   * @param node   The node to start at
+   * @return The containers of all nodes with a parent edge, starting with the
+   *         given node
+   */
+  private List<TentativeDistance<N, E>> collectChain(final Search search, final N node) {
+    final List<TentativeDistance<N, E>> chain = new ArrayList<>();
+    TentativeDistance<N, E> distance = search.mNodeToDistance.get(node);
+    while (distance.getParentEdge() != null) {
+      chain.add(distance);
+      distance = search.mNodeToDistance.get(search.mSearchView.getSource(distance.getParentEdge()));
+    }
+    return chain;
+  }
+
+  /**
+   * Constructs the path given by the meeting of both searches.
+   *
+   * @param forward     The forward search
+   * @param backward    The backward search
+   * @param meeting     The best connection of both searches, or
+   *                    <code>null</code> if there is none
+   * @param destination The destination of the computation
+   * @return The path if present, else empty
+   */
+  private Optional<IPath<N, E>> constructPath(final Search forward, final Search backward, final Meeting meeting,
+      final N destination) {
+    if (meeting == null) {
+      return Optional.empty();
+    }
+    // Destination is already a source node
+    if (meeting.mEdge == null) {
+      return Optional.of(new EmptyPath<>(destination));
+    }
+
+    // The forward part is found from the meeting edge back to one of the
+    // sources, the backward part in order from the meeting edge to the
+    // destination
+    final List<TentativeDistance<N, E>> forwardPart = collectChain(forward, meeting.mEdge.getSource());
+    final List<TentativeDistance<N, E>> backwardPart = collectChain(backward, meeting.mEdge.getDestination());
+
+    final EdgePath<N, E> path = new EdgePath<>();
+    for (int i = forwardPart.size() - 1; i >= 0; i--) {
+      addParentEdge(path, forward, forwardPart.get(i));
+    }
+    path.addEdge(meeting.mEdge, meeting.mEdgeCost);
+    for (final TentativeDistance<N, E> distance : backwardPart) {
+      addParentEdge(path, backward, distance);
+    }
+    return Optional.of(path);
+  }
+
+  /**
+   * Computes the potential of the given node for the forward search, the
+   * potential for the backward search is its negation. It is the average of
+   * the estimate to the destination and the negated estimate from the nearest
+   * source.
+   *
+   * @param node        The node in question
+   * @param sources     The sources of the computation
+   * @param destination The destination of the computation
+   * @param potentials  Cache of already computed potentials
+   * @return The forward potential of the node
+   */
+  private double getForwardPotential(final N node, final Collection<N> sources, final N destination,
+      final Map<N, Double> potentials) {
+    final Double cached = potentials.get(node);
+    if (cached != null) {
+      return cached;
+    }
+    double fromSources = Double.POSITIVE_INFINITY;
+    for (final N source : sources) {
+      fromSources = Math.min(fromSources, getEstimatedDistance(source, node));
+    }
+    final double potential = (getEstimatedDistance(node, destination) - fromSources) / 2;
+    potentials.put(node, potential);
+    return potential;
+  }
+
+  /**
+   * Runs both searches from the given sources to the given destination.
+   *
+   * @param forward     The forward search
+   * @param backward    The backward search
+   * @param sources     The sources of the computation
+   * @param destination The destination of the computation
+   * @return The best connection of both searches, or <code>null</code> if the
+   *         destination is not reachable or the search was stopped by its
+   *         deadline before the connection was proven to be the best
+   */
+  private Meeting search(final Search forward, final Search backward, final Collection<N> sources,
+      final N destination) {
+    forward.mStatistics.incrementQueries();
+    startQuery(sources, destination);
+    final Map<N, Double> potentials = new HashMap<>();
+    backward.reach(destination, null, 0.0, -getForwardPotential(destination, sources, destination, potentials));
+    for (final N source : sources) {
+      // Destination is already a source node
+      if (source.equals(destination)) {
+        return new Meeting(null, 0.0, 0.0);
+      }
+      forward.reach(source, null, 0.0, getForwardPotential(source, sources, destination, potentials));
+    }
+
+    Meeting best = null;
+    final QueryDeadline deadline = QueryDeadline.current();
+    int iterations = 0;
+    while (true) {
+      final double forwardKey = forward.peekKey();
+      final double backwardKey = backward.peekKey();
+      // Average potentials add up to zero, the keys of both searches are thus
+      // comparable to the cost of the best path directly
+      final double bestCost = best == null ? Double.POSITIVE_INFINITY : best.mCost;
+      if (forwardKey + backwardKey >= bestCost || forwardKey == Double.POSITIVE_INFINITY
+          || backwardKey == Double.POSITIVE_INFINITY) {
+        break;
+      }
+      // Stop with the nodes settled so far or fail if the deadline expired,
+      // the best connection found yet is not necessarily the shortest path
+      iterations++;
+      if (QueryDeadline.shouldCheck(iterations) && deadline.checkExpired()) {
+        return null;
+      }
+
+      final boolean isForward = forwardKey <= backwardKey;
+      final Search current = isForward ? forward : backward;
+      final Search other = isForward ? backward : forward;
+      final TentativeDistance<N, E> distance = current.settle();
+      if (shouldAbort(distance)) {
+        break;
+      }
+
+      final double tentativeDistance = distance.getTentativeDistance();
+      final List<Meeting> meetings = new ArrayList<>(1);
+      provideEdgesToRelax(current.mSearchView, distance).forEach(edge -> {
+        if (!considerEdgeForRelaxation(edge, destination)) {
+          return;
+        }
+        current.mStatistics.incrementRelaxedEdges();
+        final N edgeDestination = current.mSearchView.getDestination(edge);
+        final double edgeCost = provideEdgeCost(edge, tentativeDistance);
+        final double edgeDistance = tentativeDistance + edgeCost;
+        final double forwardPotential = getForwardPotential(edgeDestination, sources, destination, potentials);
+        current.reach(edgeDestination, edge, edgeDistance, isForward ? forwardPotential : -forwardPotential);
+
+        // Check if the edge connects both searches
+        final TentativeDistance<N, E> otherDistance = other.mNodeToDistance.get(edgeDestination);
+        if (otherDistance != null) {
+          meetings.add(new Meeting(edge, edgeCost, edgeDistance + otherDistance.getTentativeDistance()));
+        }
+      });
+      for (final Meeting meeting : meetings) {
+        if (best == null || meeting.mCost < best.mCost) {
+          best = meeting;
+        }
+      }
+    }
+    return best;
+  }
+}
@@ -0,0 +1,434 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra;
+
+import com.transitnet.rpdemo.model.ETransportationMode;
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.IHasId;
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.model.IPath;
+import com.transitnet.rpdemo.model.ISpatial;
+import com.transitnet.rpdemo.model.TransportationModeMask;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.AShortestPathComputation;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.CompactPath;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.EmptyPath;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IHasPathCost;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryDeadline;
+import com.transitnet.rpdemo.util.IndexedMinHeap;
+import org.eclipse.collections.api.block.procedure.primitive.IntDoubleProcedure;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Implementation of Dijkstras algorithm on the dense node and edge indices of
+ * a {@link FrozenRoadGraph}.<br>
+ * <br>
+ * Unlike {@link Dijkstra} the algorithm does not allocate per query. Labels are
+ * stored in primitive arrays indexed by node and active nodes are kept in an
+ * indexed 4-ary heap with decrease-key, so no stale entries accumulate. The
+ * arrays are held in a workspace per thread which is shared by all instances
+ * and reset lazily by stamping each label with the query it belongs to.<br>
+ * <br>
+ * Edge costs are resolved on creation, either the default costs of the graph
+ * or the costs when taking the cheapest of given transportation modes, which
+ * the graph caches per set of modes. Results that are objects, like paths,
+ * are only created at the end of a query. An instance can be shared between
+ * threads.
+ *
+ * @param <N> Type of the nodes
+ * @param <E> Type of the edges
+ */
+public final class CompactDijkstra<N extends INode & IHasId & ISpatial & Serializable,
+    E extends IEdge<N> & IHasId & Serializable> extends AShortestPathComputation<N, E> {
+  /**
+   * The arity of the heap used for active nodes.
+   */
+  private static final int HEAP_ARITY = 4;
+  /**
+   * Constant for a node that has no parent edge, i.e. a source.
+   */
+  private static final int NO_PARENT = -1;
+  /**
+   * The workspace of each thread, reallocated if a greater graph is queried.
+   */
+  private static final ThreadLocal<Workspace> WORKSPACE = new ThreadLocal<>();
+
+  /**
+   * Per-thread state of a query.
+   */
+  private static final class Workspace {
+    /**
+     * Tentative distance of each node.
+     */
+    private final double[] mDistance;
+    /**
+     * The index of the edge that lead to each node.
+     */
+    private final int[] mParentEdge;
+    /**
+     * Queue of active nodes.
+     */
+    private final IndexedMinHeap mQueue;
+    /**
+     * Nodes settled by the current query, in the order they were settled.
+     */
+    private final IntArrayList mSettled;
+    /**
+     * The stamp of the current query.
+     */
+    private int mStamp;
+    /**
+     * The query each label belongs to. Labels with another stamp are
+     * considered unreached.
+     */
+    private final int[] mStamps;
+
+    /**
+     * Creates a new workspace for the given amount of nodes.
+     *
+     * @param amountOfNodes The amount of nodes
+     */
+    Workspace(final int amountOfNodes) {
+      mDistance = new double[amountOfNodes];
+      mParentEdge = new int[amountOfNodes];
+      mStamps = new int[amountOfNodes];
+      mQueue = new IndexedMinHeap(amountOfNodes, HEAP_ARITY);
+      mSettled = new IntArrayList();
+    }
+
+    /**
+     * Gets the distance of the given node if it was settled. A search stopped
+     * early by its deadline may have reached nodes with a distance that is not
+     * yet the shortest, those are treated as unreached.
+     *
+     * @param node The node in question
+     * @return The distance, or {@link Double#POSITIVE_INFINITY} if the node was
+     *         not settled
+     */
+    double getSettledDistance(final int node) {
+      if (mStamps[node] != mStamp || mQueue.contains(node)) {
+        return Double.POSITIVE_INFINITY;
+      }
+      return mDistance[node];
+    }
+
+    /**
+     * Reaches the given node with the given distance if it improves its
+     * tentative distance.
+     *
+     * @param node       The node to reach
+     * @param distance   The distance to reach it with
+     * @param parentEdge The index of the edge it was reached by
+     */
+    void reach(final int node, final double distance, final int parentEdge) {
+      if (mStamps[node] == mStamp && mDistance[node] <= distance) {
+        return;
+      }
+      mStamps[node] = mStamp;
+      mDistance[node] = distance;
+      mParentEdge[node] = parentEdge;
+      mQueue.insertOrDecrease(node, distance);
+    }
+
+    /**
+     * Prepares the workspace for a new query.
+     */
+    void startQuery() {
+      mStamp++;
+      if (mStamp == 0) {
+        // Stamps wrapped around, old labels would be considered reached
+        Arrays.fill(mStamps, 0);
+        mStamp = 1;
+      }
+      mQueue.clear();
+      mSettled.clear();
+    }
+  }
+
+  /**
+   * Gets the workspace of the current thread for a graph of the given size.
+   *
+   * @param amountOfNodes The amount of nodes of the graph
+   * @return The workspace of the current thread
+   */
+  private static Workspace getWorkspace(final int amountOfNodes) {
+    Workspace workspace = WORKSPACE.get();
+    if (workspace == null || workspace.mDistance.length < amountOfNodes) {
+      workspace = new Workspace(amountOfNodes);
+      WORKSPACE.set(workspace);
+    }
+    return workspace;
+  }
+
+  /**
+   * The cost of each edge, indexed by edge index.
+   */
+  private final float[] mEdgeCost;
+  /**
+   * The graph to operate on.
+   */
+  private final FrozenRoadGraph<N, E> mGraph;
+
+  /**
+   * Creates a new instance which operates on the given graph using the default
+   * edge costs.
+   *
+   * @param graph The graph to operate on
+   */
+  public CompactDijkstra(final FrozenRoadGraph<N, E> graph) {
+    mGraph = graph;
+    mEdgeCost = new float[graph.getAmountOfEdges()];
+    for (int edge = 0; edge < mEdgeCost.length; edge++) {
+      mEdgeCost[edge] = graph.getEdgeCost(edge);
+    }
+  }
+
+  /**
+   * Creates a new instance which operates on the given graph and only takes
+   * edges allowing any of the given transportation modes. The cheapest of the
+   * allowed modes is used for each edge.
+   *
+   * @param graph The graph to operate on
+   * @param modes The transportation mode restrictions
+   */
+  public CompactDijkstra(final FrozenRoadGraph<N, E> graph, final Set<ETransportationMode> modes) {
+    mGraph = graph;
+    mEdgeCost = graph.getEdgeCosts(TransportationModeMask.of(modes));
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.shortestpath.
+   * IShortestPathComputation#computeSearchSpace(java.util.Collection,
+   * com.transitnet.rpdemo.model.INode)
+   */
+  @Override
+  public Collection<N> computeSearchSpace(final Collection<N> sources, final N destination) {
+    final Workspace workspace = getWorkspace(mGraph.size());
+    search(workspace, sources, mGraph.getIndex(destination));
+
+    final List<N> searchSpace = new ArrayList<>(workspace.mSettled.size());
+    workspace.mSettled.forEach(node -> searchSpace.add(mGraph.getNode(node)));
+    return searchSpace;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.shortestpath.
+   * IShortestPathComputation#computeShortestPath(java.util.Collection,
+   * com.transitnet.rpdemo.model.INode)
+   */
+  @Override
+  public Optional<IPath<N, E>> computeShortestPath(final Collection<N> sources, final N destination) {
+    final int destinationIndex = mGraph.getIndex(destination);
+    if (destinationIndex == FrozenRoadGraph.NO_INDEX) {
+      return Optional.empty();
+    }
+    final Workspace workspace = getWorkspace(mGraph.size());
+    search(workspace, sources, destinationIndex);
+
+    // Destination is not reachable from the given sources or the search was
+    // stopped before it was settled
+    if (workspace.getSettledDistance(destinationIndex) == Double.POSITIVE_INFINITY) {
+      return Optional.empty();
+    }
+    // Destination is already a source node
+    if (workspace.mParentEdge[destinationIndex] == NO_PARENT) {
+      return Optional.of(new EmptyPath<>(destination));
+    }
+
+    // Follow the parent edges from the destination to one of the sources
+    // twice, first to count and then to fill the path in travel order
+    int length = 0;
+    for (int edge = workspace.mParentEdge[destinationIndex]; edge != NO_PARENT;
+        edge = workspace.mParentEdge[mGraph.getEdgeSource(edge)]) {
+      length++;
+    }
+    final int[] edges = new int[length];
+    final float[] costs = new float[length];
+    int position = length;
+    for (int edge = workspace.mParentEdge[destinationIndex]; edge != NO_PARENT;
+        edge = workspace.mParentEdge[mGraph.getEdgeSource(edge)]) {
+      position--;
+      edges[position] = edge;
+      costs[position] = mEdgeCost[edge];
+    }
+    return Optional.of(new CompactPath<>(mGraph, edges, costs));
+  }
+
+  /**
+   * Computes the cost of the shortest path between the nodes with the given
+   * dense indices. The computation does not allocate.
+   *
+   * @param source      The index of the source
+   * @param destination The index of the destination
+   * @return The cost of the shortest path, or {@link Double#POSITIVE_INFINITY}
+   *         if the destination is not reachable or the search was stopped by
+   *         its deadline before settling it
+   */
+  public double computeShortestPathCost(final int source, final int destination) {
+    final Workspace workspace = getWorkspace(mGraph.size());
+    workspace.startQuery();
+    workspace.reach(source, 0.0, NO_PARENT);
+    settleUntil(workspace, destination, Double.POSITIVE_INFINITY);
+    return workspace.getSettledDistance(destination);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.shortestpath.
+   * IShortestPathComputation#computeShortestPathCost(java.util.Collection,
+   * com.transitnet.rpdemo.model.INode)
+   */
+  @Override
+  public Optional<Double> computeShortestPathCost(final Collection<N> sources, final N destination) {
+    final int destinationIndex = mGraph.getIndex(destination);
+    if (destinationIndex == FrozenRoadGraph.NO_INDEX) {
+      return Optional.empty();
+    }
+    final Workspace workspace = getWorkspace(mGraph.size());
+    search(workspace, sources, destinationIndex);
+
+    final double distance = workspace.getSettledDistance(destinationIndex);
+    if (distance == Double.POSITIVE_INFINITY) {
+      return Optional.empty();
+    }
+    return Optional.of(distance);
+  }
+
+  /**
+   * Computes the shortest path costs to all reachable nodes. The workspace does
+   * not allocate, the resulting map however contains a container for each
+   * reachable node.
+   */
+  @Override
+  public Map<N, ? extends IHasPathCost> computeShortestPathCostsReachable(final Collection<N> sources) {
+    final Workspace workspace = getWorkspace(mGraph.size());
+    search(workspace, sources, FrozenRoadGraph.NO_INDEX);
+
+    final Map<N, TentativeDistance<N, E>> nodeToDistance = new HashMap<>(workspace.mSettled.size());
+    workspace.mSettled.forEach(node -> {
+      final int parentEdge = workspace.mParentEdge[node];
+      final N asNode = mGraph.getNode(node);
+      nodeToDistance.put(asNode, new TentativeDistance<>(asNode,
+          parentEdge == NO_PARENT ? null : mGraph.getEdge(parentEdge), workspace.mDistance[node]));
+    });
+    return nodeToDistance;
+  }
+
+  /**
+   * Computes the shortest path costs to all nodes reachable within the given
+   * budget. The computation does not allocate, the nodes are reported to the
+   * given action in the order they are settled, i.e. ascending in their cost.
+   *
+   * @param sources The sources to compute the costs from
+   * @param budget  The greatest cost to explore to, inclusive
+   * @param action  Action to call with the dense index and the cost of each
+   *                reached node
+   */
+  public void computeShortestPathCostsWithin(final Collection<N> sources, final double budget,
+      final IntDoubleProcedure action) {
+    final Workspace workspace = getWorkspace(mGraph.size());
+    workspace.startQuery();
+    for (final N source : sources) {
+      final int sourceIndex = mGraph.getIndex(source);
+      if (sourceIndex != FrozenRoadGraph.NO_INDEX) {
+        workspace.reach(sourceIndex, 0.0, NO_PARENT);
+      }
+    }
+    settleUntil(workspace, FrozenRoadGraph.NO_INDEX, budget);
+    final IntArrayList settled = workspace.mSettled;
+    for (int i = 0; i < settled.size(); i++) {
+      final int node = settled.get(i);
+      action.value(node, workspace.mDistance[node]);
+    }
+  }
+
+  /**
+   * Gets the cost this algorithm uses for the given edge.
+   *
+   * @param edge The index of the edge
+   * @return The cost of the edge, {@link Float#POSITIVE_INFINITY} if the edge
+   *         can not be taken
+   */
+  public float getEdgeCost(final int edge) {
+    return mEdgeCost[edge];
+  }
+
+  /**
+   * Gets the graph this algorithm operates on.
+   *
+   * @return The graph
+   */
+  public FrozenRoadGraph<N, E> getGraph() {
+    return mGraph;
+  }
+
+  /**
+   * Runs the search from the given sources until the given destination is
+   * settled.
+   *
+   * @param workspace   The workspace to use
+   * @param sources     The sources of the search
+   * @param destination The index of the destination, or
+   *                    {@link FrozenRoadGraph#NO_INDEX} to settle all
+   *                    reachable nodes
+   */
+  private void search(final Workspace workspace, final Collection<N> sources, final int destination) {
+    workspace.startQuery();
+    for (final N source : sources) {
+      final int sourceIndex = mGraph.getIndex(source);
+      if (sourceIndex != FrozenRoadGraph.NO_INDEX) {
+        workspace.reach(sourceIndex, 0.0, NO_PARENT);
+      }
+    }
+    settleUntil(workspace, destination, Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Settles active nodes until the given destination is settled, the next node
+   * exceeds the given budget or no active node is left.
+   *
+   * @param workspace   The workspace to use
+   * @param destination The index of the destination, or
+   *                    {@link FrozenRoadGraph#NO_INDEX} to settle all
+   *                    reachable nodes
+   * @param budget      The greatest cost to settle nodes with, inclusive
+   */
+  private void settleUntil(final Workspace workspace, final int destination, final double budget) {
+    final IndexedMinHeap queue = workspace.mQueue;
+    final QueryDeadline deadline = QueryDeadline.current();
+    int iterations = 0;
+    while (!queue.isEmpty() && queue.peekKey() <= budget) {
+      // Stop with the nodes settled so far or fail if the deadline expired
+      iterations++;
+      if (QueryDeadline.shouldCheck(iterations) && deadline.checkExpired()) {
+        return;
+      }
+
+      final int node = queue.poll();
+      workspace.mSettled.add(node);
+      if (node == destination) {
+        return;
+      }
+
+      // Settled nodes are never improved again, costs are non-negative
+      final double distance = workspace.mDistance[node];
+      final int edgeEnd = mGraph.getFirstOutgoingEdge(node + 1);
+      for (int edge = mGraph.getFirstOutgoingEdge(node); edge < edgeEnd; edge++) {
+        final float cost = mEdgeCost[edge];
+        if (cost != Float.POSITIVE_INFINITY) {
+          workspace.reach(mGraph.getEdgeTarget(edge), distance + cost, edge);
+        }
+      }
+    }
+  }
+}
@@ -2,12 +2,16 @@ package com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra;
 
 import com.transitnet.rpdemo.model.IEdge;
 import com.transitnet.rpdemo.model.IGraph;
+import com.transitnet.rpdemo.model.IGraphView;
 import com.transitnet.rpdemo.model.INode;
 import com.transitnet.rpdemo.model.IPath;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.AShortestPathComputation;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.EdgePath;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.EQueryPhase;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.EmptyPath;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IHasPathCost;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryDeadline;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryStatistics;
 
 
 import java.util.*;
@@ -23,7 +27,12 @@ import java.util.stream.Stream;
  * <br>
  * Subclasses can override {@link #considerEdgeForRelaxation(IEdge, INode)} and
  * {@link #getEstimatedDistance(INode, INode)} to speedup the algorithm by
- * giving it a sense of goal direction or exploiting precomputed knowledge.
+ * giving it a sense of goal direction or exploiting precomputed knowledge.<br>
+ * <br>
+ * The algorithm operates on a {@link IGraphView}. A search on
+ * {@link IGraph#backwardView()} follows all edges against their direction,
+ * without modifying the graph. Paths are always returned in the direction of
+ * the underlying graph.
  *
  * @author Daniel Tischner {@literal <zabuza.dev@gmail.com>}
  * @param <N> Type of the node
@@ -31,17 +40,28 @@ import java.util.stream.Stream;
  */
 public class Dijkstra<N extends INode, E extends IEdge<N>> extends AShortestPathComputation<N, E> {
   /**
-   * The graph to operate on.
+   * The view on the graph to operate on.
    */
-  private final IGraph<N, E> mGraph;
+  private final IGraphView<N, E> mView;
 
   /**
-   * Creates a new Dijkstra instance which operates on the given graph.
+   * Creates a new Dijkstra instance which operates on the given graph in
+   * forward direction.
    *
    * @param graph The graph to operate on
    */
   public Dijkstra(final IGraph<N, E> graph) {
-    mGraph = graph;
+    this(graph.forwardView());
+  }
+
+  /**
+   * Creates a new Dijkstra instance which operates on the given view of a
+   * graph.
+   *
+   * @param view The view on the graph to operate on
+   */
+  public Dijkstra(final IGraphView<N, E> view) {
+    mView = view;
   }
 
   /*
@@ -63,7 +83,62 @@ public class Dijkstra<N extends INode, E extends IEdge<N>> extends AShortestPath
    */
   @Override
   public Optional<IPath<N, E>> computeShortestPath(final Collection<N> sources, final N destination) {
+    return computeShortestPath(sources, destination, new QueryStatistics());
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.transitnet.rpdemo.service.route.algotithms.shortestpath.
+   * IShortestPathComputation#computeShortestPath(java.util.Collection,
+   * com.transitnet.rpdemo.model.INode,
+   * com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryStatistics)
+   */
+  @Override
+  public Optional<IPath<N, E>> computeShortestPath(final Collection<N> sources, final N destination,
+      final QueryStatistics statistics) {
+    final long searchStart = System.nanoTime();
+    final Map<N, TentativeDistance<N, E>> nodeToDistance =
+        computeShortestPathCostHelper(sources, destination, statistics);
+    final long constructionStart = System.nanoTime();
+    statistics.addPhaseTime(EQueryPhase.SEARCH, constructionStart - searchStart);
+    final Optional<IPath<N, E>> path = constructPath(nodeToDistance, destination);
+    statistics.addPhaseTime(EQueryPhase.PATH_CONSTRUCTION, System.nanoTime() - constructionStart);
+    return path;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see de.unifreiburg.informatik.cobweb.routing.algorithms.shortestpath.
+   * IShortestPathComputation# computeShortestPathCost(java.util.Collection,
+   * de.unifreiburg.informatik.cobweb.routing.model.graph.INode)
+   */
+  @Override
+  public Optional<Double> computeShortestPathCost(final Collection<N> sources, final N destination) {
     final Map<N, TentativeDistance<N, E>> nodeToDistance = computeShortestPathCostHelper(sources, destination);
+    return Optional.ofNullable(nodeToDistance.get(destination)).map(TentativeDistance::getTentativeDistance);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see de.unifreiburg.informatik.cobweb.routing.algorithms.shortestpath.
+   * IShortestPathComputation#
+   * computeShortestPathCostsReachable(java.util.Collection)
+   */
+  @Override
+  public Map<N, ? extends IHasPathCost> computeShortestPathCostsReachable(final Collection<N> sources) {
+    return computeShortestPathCostHelper(sources, null);
+  }
+
+  /**
+   * Constructs the shortest path to the given destination by following the
+   * parent edges of the given tentative distances.
+   *
+   * @param nodeToDistance The tentative distances of all settled nodes
+   * @param destination    The destination of the path
+   * @return The shortest path if present, else empty
+   */
+  private Optional<IPath<N, E>> constructPath(final Map<N, TentativeDistance<N, E>> nodeToDistance,
+      final N destination) {
     final TentativeDistance<N, E> destinationDistance = nodeToDistance.get(destination);
 
     // Destination is not reachable from the given sources
@@ -78,14 +153,15 @@ public class Dijkstra<N extends INode, E extends IEdge<N>> extends AShortestPath
     }
 
     // Build the path reversely by following the pointers from the destination
-    // to one of the sources
-    final EdgePath<N, E> path = new EdgePath<>(true);
+    // to one of the sources. On a backward view this already is the direction
+    // of the underlying graph.
+    final EdgePath<N, E> path = new EdgePath<>(!mView.isBackward());
     TentativeDistance<N, E> currentDistanceContainer = destinationDistance;
     E currentEdge = parentEdge;
     while (currentEdge != null) {
       // Add the edge
       final double distance = currentDistanceContainer.getTentativeDistance();
-      final N parent = currentEdge.getSource();
+      final N parent = mView.getSource(currentEdge);
       final TentativeDistance<N, E> parentDistanceContainer = nodeToDistance.get(parent);
       final double parentDistance = parentDistanceContainer.getTentativeDistance();
 
@@ -98,29 +174,6 @@ public class Dijkstra<N extends INode, E extends IEdge<N>> extends AShortestPath
     return Optional.of(path);
   }
 
-  /*
-   * (non-Javadoc)
-   * @see de.unifreiburg.informatik.cobweb.routing.algorithms.shortestpath.
-   * IShortestPathComputation# computeShortestPathCost(java.util.Collection,
-   * de.unifreiburg.informatik.cobweb.routing.model.graph.INode)
-   */
-  @Override
-  public Optional<Double> computeShortestPathCost(final Collection<N> sources, final N destination) {
-    final Map<N, TentativeDistance<N, E>> nodeToDistance = computeShortestPathCostHelper(sources, destination);
-    return Optional.ofNullable(nodeToDistance.get(destination)).map(TentativeDistance::getTentativeDistance);
-  }
-
-  /*
-   * (non-Javadoc)
-   * @see de.unifreiburg.informatik.cobweb.routing.algorithms.shortestpath.
-   * IShortestPathComputation#
-   * computeShortestPathCostsReachable(java.util.Collection)
-   */
-  @Override
-  public Map<N, ? extends IHasPathCost> computeShortestPathCostsReachable(final Collection<N> sources) {
-    return computeShortestPathCostHelper(sources, null);
-  }
-
   /**
    * Creates a tentative distance container for the given node.<br>
    * <br>
@@ -165,6 +218,24 @@ public class Dijkstra<N extends INode, E extends IEdge<N>> extends AShortestPath
    */
   protected Map<N, TentativeDistance<N, E>> computeShortestPathCostHelper(final Collection<N> sources,
       final N pathDestination) {
+    return computeShortestPathCostHelper(sources, pathDestination, new QueryStatistics());
+  }
+
+  /**
+   * Computes the shortest path from the given sources to the given destination
+   * and to all other nodes that were visited in the mean time, recording the
+   * work in the given statistics.
+   *
+   * @param sources         The sources to compute the shortest path from
+   * @param pathDestination The destination to compute the shortest path to or
+   *                        <code>null</code> if not present
+   * @param statistics      The statistics to record the computation in
+   * @return A map connecting all visited nodes to their tentative distance
+   *         container
+   * @see #computeShortestPathCostHelper(Collection, INode)
+   */
+  protected Map<N, TentativeDistance<N, E>> computeShortestPathCostHelper(final Collection<N> sources,
+      final N pathDestination, final QueryStatistics statistics) {
     // TODO Evaluate if maps should be exchanged against IdMap if Dijkstra is
     // about to settle all reachable nodes. Note that node IDs may have gaps
     // since the set of reachable nodes is in general not equal to all nodes of
@@ -172,6 +243,10 @@ public class Dijkstra<N extends INode, E extends IEdge<N>> extends AShortestPath
     final Map<N, TentativeDistance<N, E>> nodeToDistance = new HashMap<>(sources.size());
     final Map<N, TentativeDistance<N, E>> nodeToSettledDistance = new HashMap<>(sources.size());
     final PriorityQueue<TentativeDistance<N, E>> activeNodes = new PriorityQueue<>(sources.size());
+    statistics.incrementQueries();
+    final QueryDeadline deadline = QueryDeadline.current();
+    int iterations = 0;
+    startQuery(sources, pathDestination);
 
     // Sources are initial active nodes
     for (final N source : sources) {
@@ -180,11 +255,19 @@ public class Dijkstra<N extends INode, E extends IEdge<N>> extends AShortestPath
       // Put the distance as active node
       nodeToDistance.put(source, distance);
       activeNodes.add(distance);
+      statistics.incrementQueuePushes();
     }
 
     // Poll and settle all active nodes
     while (!activeNodes.isEmpty()) {
+      // Stop with the nodes settled so far or fail if the deadline expired
+      iterations++;
+      if (QueryDeadline.shouldCheck(iterations) && deadline.checkExpired()) {
+        break;
+      }
+
       final TentativeDistance<N, E> distance = activeNodes.poll();
+      statistics.incrementQueuePops();
       final N node = distance.getNode();
       final double tentativeDistance = distance.getTentativeDistance();
 
@@ -192,11 +275,25 @@ public class Dijkstra<N extends INode, E extends IEdge<N>> extends AShortestPath
       // there was a better path to this node around and this path was
       // abandoned.
       if (nodeToSettledDistance.containsKey(node)) {
+        statistics.incrementStalePops();
+        continue;
+      }
+
+      // Queue the node again if its estimate has grown since it was queued,
+      // the node may not be the closest anymore
+      if (pathDestination != null && isEstimateOutdated(distance, pathDestination)) {
+        final TentativeDistance<N, E> updatedDistance =
+            createDistance(node, distance.getParentEdge(), tentativeDistance, pathDestination);
+        nodeToDistance.put(node, updatedDistance);
+        activeNodes.add(updatedDistance);
+        statistics.incrementStalePops();
+        statistics.incrementQueuePushes();
         continue;
       }
 
       // Settle the current node
       nodeToSettledDistance.put(node, distance);
+      statistics.incrementSettledNodes();
 
       // End the algorithm if destination was settled or a subclass
       // implementation demands it
@@ -210,8 +307,9 @@ public class Dijkstra<N extends INode, E extends IEdge<N>> extends AShortestPath
         if (!considerEdgeForRelaxation(edge, pathDestination)) {
           return;
         }
+        statistics.incrementRelaxedEdges();
 
-        final N destination = edge.getDestination();
+        final N destination = mView.getDestination(edge);
         final double tentativeEdgeDistance = tentativeDistance + provideEdgeCost(edge, tentativeDistance);
 
         // Check if the destination is visited for the first time
@@ -223,6 +321,7 @@ public class Dijkstra<N extends INode, E extends IEdge<N>> extends AShortestPath
           // Put the distance as active node
           nodeToDistance.put(destination, destinationDistance);
           activeNodes.add(destinationDistance);
+          statistics.incrementQueuePushes();
 
           // Relaxation has finished
           return;
@@ -246,6 +345,7 @@ public class Dijkstra<N extends INode, E extends IEdge<N>> extends AShortestPath
         // Replace the old distance by the new one and set as active
         nodeToDistance.put(destination, destinationDistance);
         activeNodes.add(destinationDistance);
+        statistics.incrementQueuePushes();
       });
     }
 
@@ -288,6 +388,26 @@ public class Dijkstra<N extends INode, E extends IEdge<N>> extends AShortestPath
     return 0.0;
   }
 
+  /**
+   * Whether or not the estimate of the given queued node has grown since it
+   * was computed. The method is called right before the node would be settled,
+   * the node is queued again with its current estimate if the method returns
+   * <code>true</code>.<br>
+   * <br>
+   * This allows estimates which grow during the computation, as long as they
+   * stay <i>monotone</i> and <i>admissible</i> at every point in time.
+   *
+   * @param tentativeDistance The tentative distance wrapper of the node
+   * @param pathDestination   The destination of the shortest path computation
+   * @return <code>True</code> if the estimate is outdated, <code>false</code>
+   *         otherwise
+   */
+  @SuppressWarnings("unused")
+  protected boolean isEstimateOutdated(final TentativeDistance<N, E> tentativeDistance, final N pathDestination) {
+    // Dijkstras algorithm does not use estimations, they never change.
+    return false;
+  }
+
   /**
    * Provides the cost of a given edge.<br>
    * <br>
@@ -306,7 +426,8 @@ public class Dijkstra<N extends INode, E extends IEdge<N>> extends AShortestPath
   /**
    * Generates a stream of edges to process for relaxation.<br>
    * <br>
-   * The base are all outgoing edges of the given node. Implementations are
+   * The base are all outgoing edges of the given node, as seen by the view the
+   * algorithm operates on. Implementations are
    * allowed to override this method in order to further filter the stream.
    * Additionally, the method {@link #considerEdgeForRelaxation(IEdge, INode)}
    * will be called on each element of this stream.
@@ -316,7 +437,7 @@ public class Dijkstra<N extends INode, E extends IEdge<N>> extends AShortestPath
    * @return Stream of edges to process for relaxation
    */
   protected Stream<E> provideEdgesToRelax(final TentativeDistance<N, E> tentativeDistance) {
-    return mGraph.getOutgoingEdges(tentativeDistance.getNode());
+    return mView.getOutgoingEdges(tentativeDistance.getNode());
   }
 
   /**
@@ -336,4 +457,18 @@ public class Dijkstra<N extends INode, E extends IEdge<N>> extends AShortestPath
     return false;
   }
 
+  /**
+   * Called at the start of every shortest path computation, before any node
+   * is visited.
+   *
+   * @param sources         The sources of the computation
+   * @param pathDestination The destination of the computation or
+   *                        <code>null</code> if not present
+   */
+  @SuppressWarnings("unused")
+  protected void startQuery(final Collection<N> sources, final N pathDestination) {
+    // Dijkstras algorithm holds no state across computations.
+    // This method may be used by extending classes to prepare per query state.
+  }
+
 }
@@ -5,7 +5,6 @@ import com.transitnet.rpdemo.model.INode;
 import com.transitnet.rpdemo.service.route.algotithms.metrics.IMetric;
 
 
-import java.util.OptionalDouble;
 
 /**
  * Implementation of the A-Star algorithm as {@link IModule} for a
@@ -57,8 +56,8 @@ public final class AStarModule<N extends INode, E extends IEdge<N>> implements I
    * Therefore, it estimates the distance by using the given metric.
    */
   @Override
-  public OptionalDouble getEstimatedDistance(final N node, final N pathDestination) {
-    return OptionalDouble.of(mMetric.distance(node, pathDestination));
+  public double getEstimatedDistance(final N node, final N pathDestination) {
+    return mMetric.distance(node, pathDestination);
   }
 
 }
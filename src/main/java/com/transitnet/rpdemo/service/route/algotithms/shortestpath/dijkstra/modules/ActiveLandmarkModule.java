@@ -0,0 +1,110 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.modules;
+
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.service.route.algotithms.metrics.landmark.ActiveLandmarkMetric;
+import com.transitnet.rpdemo.service.route.algotithms.metrics.landmark.LandmarkMetric;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.TentativeDistance;
+
+import java.util.Collection;
+
+/**
+ * Implementation of the ALT algorithm with active landmarks as {@link IModule}
+ * for a {@link ModuleDijkstra}. Each query estimates distances with its own
+ * {@link ActiveLandmarkMetric}, which only scans a few landmarks selected for
+ * the source and destination of the query.<br>
+ * <br>
+ * When the metric activates further landmarks during a query, queued nodes are
+ * queued again with their grown estimate before being settled. This keeps the
+ * computed paths exact.<br>
+ * <br>
+ * The per query metric is held per thread, the module can thus be shared
+ * between threads. The factory method {@link #of(LandmarkMetric, int)} can be
+ * used for convenient instance creation.
+ *
+ * @param <N> Type of node
+ * @param <E> Type of edge
+ */
+public final class ActiveLandmarkModule<N extends INode, E extends IEdge<N>> implements IModule<N, E> {
+  /**
+   * Creates an active landmark module using the given metric.
+   *
+   * @param        <N> Type of the node
+   * @param        <E> Type of the edge
+   * @param metric The metric providing the landmarks
+   * @param amount The amount of landmarks to activate initially per query
+   * @return The created module
+   */
+  public static <N extends INode, E extends IEdge<N>> ActiveLandmarkModule<N, E> of(
+      final LandmarkMetric<N, ?, ?> metric, final int amount) {
+    return new ActiveLandmarkModule<>(metric, amount);
+  }
+
+  /**
+   * The amount of landmarks to activate initially per query.
+   */
+  private final int mAmount;
+  /**
+   * The metric providing the landmarks.
+   */
+  private final LandmarkMetric<N, ?, ?> mMetric;
+  /**
+   * The metric of the query currently running on each thread, or
+   * <code>null</code> if the query has no destination.
+   */
+  private final ThreadLocal<ActiveLandmarkMetric<N>> mQueryMetric;
+
+  /**
+   * Creates a new active landmark module using the given metric.
+   *
+   * @param metric The metric providing the landmarks
+   * @param amount The amount of landmarks to activate initially per query
+   */
+  public ActiveLandmarkModule(final LandmarkMetric<N, ?, ?> metric, final int amount) {
+    mMetric = metric;
+    mAmount = amount;
+    mQueryMetric = new ThreadLocal<>();
+  }
+
+  /**
+   * Gets an estimate about the shortest path distance from the given node to
+   * the destination of the shortest path computation.<br>
+   * <br>
+   * Therefore, it estimates the distance by using the active landmarks of the
+   * current query.
+   */
+  @Override
+  public double getEstimatedDistance(final N node, final N pathDestination) {
+    final ActiveLandmarkMetric<N> metric = mQueryMetric.get();
+    if (metric == null) {
+      return NO_VALUE;
+    }
+    return metric.distance(node, pathDestination);
+  }
+
+  /**
+   * Whether or not the estimate of the given queued node has grown since it
+   * was computed. This can only be the case after the metric of the current
+   * query activated further landmarks.
+   */
+  @Override
+  public boolean isEstimateOutdated(final TentativeDistance<N, E> tentativeDistance, final N pathDestination) {
+    final ActiveLandmarkMetric<N> metric = mQueryMetric.get();
+    if (metric == null || metric.getAmountOfUpdates() == 0) {
+      return false;
+    }
+    return metric.distance(tentativeDistance.getNode(), pathDestination) > tentativeDistance.getEstimatedDistance();
+  }
+
+  /**
+   * Selects the active landmarks for the query, using the first source.
+   */
+  @Override
+  public void startQuery(final Collection<N> sources, final N pathDestination) {
+    if (pathDestination == null || sources.isEmpty()) {
+      mQueryMetric.remove();
+      return;
+    }
+    mQueryMetric.set(mMetric.createActiveMetric(sources.iterator().next(), pathDestination, mAmount));
+  }
+}
@@ -0,0 +1,186 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.modules;
+
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.IGraph;
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.BidirectionalDijkstra;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.TentativeDistance;
+
+import java.util.Collection;
+
+
+/**
+ * A bidirectional Dijkstra algorithm for shortest path computation that can be
+ * modified by using modules.<br>
+ * <br>
+ * Modules are consulted by both searches. Using an {@link AStarModule} with a
+ * landmark metric results in the bidirectional ALT algorithm. Modules must not
+ * provide edge costs that depend on the tentative distance, like the
+ * {@link TransitModule}, since the backward search does not know the distance
+ * from the sources. Modules whose estimates grow during a query, like the
+ * {@link ActiveLandmarkModule}, are rejected.<br>
+ * <br>
+ * Use {@link #addModule(IModule)} and {@link #removeModule(IModule)} to
+ * register and unregister modules. Alternatively use the factory method
+ * {@link #of(IGraph, IModule...)} for convenient instance creation.
+ *
+ * @param <N> Type of the nodes
+ * @param <E> Type of the edges
+ */
+public final class BidirectionalModuleDijkstra<N extends INode, E extends IEdge<N>>
+    extends BidirectionalDijkstra<N, E> {
+  /**
+   * Creates a new bidirectional module Dijkstra instance routing on the given
+   * graph and using the given modules.
+   *
+   * @param         <N> Type of the nodes
+   * @param         <E> Type of the edges
+   * @param graph   The graph to route on
+   * @param modules The modules to use
+   * @return The created bidirectional module Dijkstra instance
+   * @throws IllegalArgumentException If the estimates of a module may grow
+   *                                  during a query
+   */
+  @SafeVarargs
+  public static <N extends INode, E extends IEdge<N>> BidirectionalModuleDijkstra<N, E> of(
+      final IGraph<N, E> graph, final IModule<N, E>... modules) {
+    final BidirectionalModuleDijkstra<N, E> moduleDijkstra = new BidirectionalModuleDijkstra<>(graph);
+    if (modules != null) {
+      for (final IModule<N, E> module : modules) {
+        moduleDijkstra.addModule(module);
+      }
+    }
+    return moduleDijkstra;
+  }
+
+  /**
+   * The modules to use, composed into an ordered pipeline.
+   */
+  private final ModulePipeline<N, E> mModules;
+
+  /**
+   * Creates a new bidirectional module Dijkstra instance routing on the given
+   * graph.
+   *
+   * @param graph The graph to route on
+   */
+  public BidirectionalModuleDijkstra(final IGraph<N, E> graph) {
+    super(graph);
+    mModules = new ModulePipeline<>();
+  }
+
+  /**
+   * Adds the given module. Modules are consulted in the order they were added.
+   * Must not be called while a computation is running.
+   *
+   * @param module The module to add
+   * @throws IllegalArgumentException If the estimates of the module may grow
+   *                                  during a query
+   */
+  public void addModule(final IModule<N, E> module) throws IllegalArgumentException {
+    // Both searches share the average potentials, queued nodes can not be
+    // queued again one by one when the estimates grow
+    if (ModulePipeline.hasGrowingEstimates(module)) {
+      throw new IllegalArgumentException("Modules with estimates that grow during a query are not supported");
+    }
+    mModules.add(module);
+  }
+
+  /**
+   * Removes the given module. Must not be called while a computation is
+   * running.
+   *
+   * @param module The module to remove
+   */
+  public void removeModule(final IModule<N, E> module) {
+    mModules.remove(module);
+  }
+
+  /**
+   * Whether or not the given edge should be considered for relaxation. The
+   * algorithm will ignore the edge and not follow it if this method returns
+   * <code>false</code>.<br>
+   * <br>
+   * This will be the case if any modules
+   * {@link IModule#considerEdgeForRelaxation(IEdge, INode)} method returns
+   * <code>false</code>.
+   */
+  @Override
+  protected boolean considerEdgeForRelaxation(final E edge, final N pathDestination) {
+    // Ignore the base, it always considers all edges
+    // Ask all modules and accumulate with logical and
+    return mModules.considerEdgeForRelaxation(edge, pathDestination);
+  }
+
+  /**
+   * Gets an estimate about the shortest path distance from the given node to
+   * the destination of the shortest path computation.<br>
+   * <br>
+   * Therefore, {@link IModule#getEstimatedDistance(INode, INode)} is called on
+   * all modules and the greatest estimate is chosen. If there is no module
+   * estimate the method falls back to the base implementation.
+   */
+  @Override
+  protected double getEstimatedDistance(final N node, final N pathDestination) {
+    // Choose greatest estimate
+    final double maxEstimate = mModules.getEstimatedDistance(node, pathDestination);
+    if (maxEstimate != ModulePipeline.NO_VALUE) {
+      return maxEstimate;
+    }
+
+    // Fallback to base implementation
+    return super.getEstimatedDistance(node, pathDestination);
+  }
+
+  /**
+   * Provides the cost of a given edge.<br>
+   * <br>
+   * Therefore, {@link IModule#provideEdgeCost(IEdge, double)} is called on all
+   * modules and the greatest cost is chosen. If no module provides a cost the
+   * method falls back to the base implementation.
+   */
+  @Override
+  protected double provideEdgeCost(final E edge, final double tentativeDistance) {
+    // Choose greatest cost
+    final double maxEdgeCost = mModules.provideEdgeCost(edge, tentativeDistance);
+    if (maxEdgeCost != ModulePipeline.NO_VALUE) {
+      return maxEdgeCost;
+    }
+
+    // Fallback to base implementation
+    return super.provideEdgeCost(edge, tentativeDistance);
+  }
+
+  /**
+   * Whether or not the algorithm should abort computation of the shortest path.
+   * The method is called right after the given node has been settled.<br>
+   * <br>
+   * This will be the case if any modules
+   * {@link IModule#shouldAbort(TentativeDistance)} method returns
+   * <code>true</code>.
+   *
+   * @param tentativeDistance The tentative distance wrapper of the node that
+   *                          was settled
+   * @return <code>True</code> if the computation should be aborted, <code>false</code>
+   *         if not
+   */
+  @Override
+  protected boolean shouldAbort(final TentativeDistance<N, E> tentativeDistance) {
+    // Ignore the base, it never aborts computation
+    // Ask all modules and accumulate with logical or
+    return mModules.shouldAbort(tentativeDistance);
+  }
+
+  /**
+   * Called at the start of every shortest path computation, before any node
+   * is visited.<br>
+   * <br>
+   * Therefore, {@link IModule#startQuery(Collection, INode)} is called on all
+   * modules.
+   */
+  @Override
+  protected void startQuery(final Collection<N> sources, final N pathDestination) {
+    mModules.startQuery(sources, pathDestination);
+  }
+
+}
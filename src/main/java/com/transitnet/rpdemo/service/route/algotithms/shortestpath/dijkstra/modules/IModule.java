@@ -5,7 +5,7 @@ import com.transitnet.rpdemo.model.INode;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.TentativeDistance;
 
 
-import java.util.OptionalDouble;
+import java.util.Collection;
 
 /**
  * Interface for Dijkstra modules used by {@link ModuleDijkstra}. Defines
@@ -17,6 +17,13 @@ import java.util.OptionalDouble;
  * @param <E> Type of the edges
  */
 public interface IModule<N extends INode, E extends IEdge<N>> {
+  /**
+   * Value returned by {@link #getEstimatedDistance(INode, INode)} and
+   * {@link #provideEdgeCost(IEdge, double)} if the module does not provide a
+   * value. It is not a number and thus never greater than any value.
+   */
+  double NO_VALUE = Double.NaN;
+
   /**
    * Whether or not the given edge should be considered for relaxation. The
    * algorithm will ignore the edge and not follow it if this method returns
@@ -41,12 +48,28 @@ public interface IModule<N extends INode, E extends IEdge<N>> {
    *
    * @param node            The node to estimate the distance from
    * @param pathDestination The destination to estimate the distance to
-   * @return An estimate about the shortest path distance or empty if the module
-   *         has no estimate
+   * @return An estimate about the shortest path distance or {@link #NO_VALUE}
+   *         if the module has no estimate
+   */
+  default double getEstimatedDistance(@SuppressWarnings("unused") final N node,
+      @SuppressWarnings("unused") final N pathDestination) {
+    return NO_VALUE;
+  }
+
+  /**
+   * Whether or not the estimate of the given queued node has grown since it
+   * was computed, see {@link #getEstimatedDistance(INode, INode)}. The node is
+   * queued again with its current estimate if the method returns
+   * <code>true</code>.
+   *
+   * @param tentativeDistance The tentative distance wrapper of the node
+   * @param pathDestination   The destination of the shortest path computation
+   * @return <code>True</code> if the estimate is outdated, <code>false</code>
+   *         otherwise
    */
-  default OptionalDouble getEstimatedDistance(@SuppressWarnings("unused") final N node,
+  default boolean isEstimateOutdated(@SuppressWarnings("unused") final TentativeDistance<N, E> tentativeDistance,
       @SuppressWarnings("unused") final N pathDestination) {
-    return OptionalDouble.empty();
+    return false;
   }
 
   /**
@@ -58,12 +81,12 @@ public interface IModule<N extends INode, E extends IEdge<N>> {
    * @param edge              The edge whose cost to provide
    * @param tentativeDistance The current tentative distance when relaxing this
    *                          edge
-   * @return The cost of the given edge or empty if the module does not provide
-   *         a cost
+   * @return The cost of the given edge or {@link #NO_VALUE} if the module does
+   *         not provide a cost
    */
-  default OptionalDouble provideEdgeCost(@SuppressWarnings("unused") final E edge,
+  default double provideEdgeCost(@SuppressWarnings("unused") final E edge,
       @SuppressWarnings("unused") final double tentativeDistance) {
-    return OptionalDouble.empty();
+    return NO_VALUE;
   }
 
   /**
@@ -78,4 +101,17 @@ public interface IModule<N extends INode, E extends IEdge<N>> {
   default boolean shouldAbort(@SuppressWarnings("unused") final TentativeDistance<N, E> tentativeDistance) {
     return false;
   }
+
+  /**
+   * Called at the start of every shortest path computation, before any node
+   * is visited. Modules holding per query state should prepare it here.
+   *
+   * @param sources         The sources of the computation
+   * @param pathDestination The destination of the computation or
+   *                        <code>null</code> if not present
+   */
+  default void startQuery(@SuppressWarnings("unused") final Collection<N> sources,
+      @SuppressWarnings("unused") final N pathDestination) {
+    // Most modules hold no per query state
+  }
 }
@@ -2,13 +2,12 @@ package com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.mod
 
 import com.transitnet.rpdemo.model.IEdge;
 import com.transitnet.rpdemo.model.IGraph;
+import com.transitnet.rpdemo.model.IGraphView;
 import com.transitnet.rpdemo.model.INode;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.Dijkstra;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.TentativeDistance;
 
-import java.util.HashSet;
-import java.util.OptionalDouble;
-import java.util.Set;
+import java.util.Collection;
 
 /**
  * A Dijkstra algorithm for shortest path computation that can be modified by
@@ -46,9 +45,9 @@ public final class ModuleDijkstra<N extends INode, E extends IEdge<N>> extends D
   }
 
   /**
-   * The modules to use.
+   * The modules to use, composed into an ordered pipeline.
    */
-  private final Set<IModule<N, E>> mModules;
+  private final ModulePipeline<N, E> mModules;
 
   /**
    * Creates a new module Dijkstra instance routing on the given graph.
@@ -57,11 +56,23 @@ public final class ModuleDijkstra<N extends INode, E extends IEdge<N>> extends D
    */
   public ModuleDijkstra(final IGraph<N, E> graph) {
     super(graph);
-    mModules = new HashSet<>();
+    mModules = new ModulePipeline<>();
   }
 
   /**
-   * Adds the given module.
+   * Creates a new module Dijkstra instance routing on the given view of a
+   * graph.
+   *
+   * @param view The view on the graph to route on
+   */
+  public ModuleDijkstra(final IGraphView<N, E> view) {
+    super(view);
+    mModules = new ModulePipeline<>();
+  }
+
+  /**
+   * Adds the given module. Modules are consulted in the order they were added.
+   * Must not be called while a computation is running.
    *
    * @param module The module to add
    */
@@ -70,7 +81,8 @@ public final class ModuleDijkstra<N extends INode, E extends IEdge<N>> extends D
   }
 
   /**
-   * Removes the given module.
+   * Removes the given module. Must not be called while a computation is
+   * running.
    *
    * @param module The module to remove
    */
@@ -91,14 +103,7 @@ public final class ModuleDijkstra<N extends INode, E extends IEdge<N>> extends D
   protected boolean considerEdgeForRelaxation(final E edge, final N pathDestination) {
     // Ignore the base, it always considers all edges
     // Ask all modules and accumulate with logical and
-    for (final IModule<N, E> module : mModules) {
-      final boolean consider = module.considerEdgeForRelaxation(edge, pathDestination);
-      if (!consider) {
-        return false;
-      }
-    }
-
-    return true;
+    return mModules.considerEdgeForRelaxation(edge, pathDestination);
   }
 
   /**
@@ -112,17 +117,28 @@ public final class ModuleDijkstra<N extends INode, E extends IEdge<N>> extends D
   @Override
   protected double getEstimatedDistance(final N node, final N pathDestination) {
     // Choose greatest estimate
-    final OptionalDouble maxEstimate =
-        mModules.stream().map(module -> module.getEstimatedDistance(node, pathDestination))
-            .filter(OptionalDouble::isPresent).mapToDouble(OptionalDouble::getAsDouble).max();
-    if (maxEstimate.isPresent()) {
-      return maxEstimate.getAsDouble();
+    final double maxEstimate = mModules.getEstimatedDistance(node, pathDestination);
+    if (maxEstimate != ModulePipeline.NO_VALUE) {
+      return maxEstimate;
     }
 
     // Fallback to base implementation
     return super.getEstimatedDistance(node, pathDestination);
   }
 
+  /**
+   * Whether or not the estimate of the given queued node has grown since it
+   * was computed.<br>
+   * <br>
+   * This will be the case if any modules
+   * {@link IModule#isEstimateOutdated(TentativeDistance, INode)} method returns
+   * <code>true</code>.
+   */
+  @Override
+  protected boolean isEstimateOutdated(final TentativeDistance<N, E> tentativeDistance, final N pathDestination) {
+    return mModules.isEstimateOutdated(tentativeDistance, pathDestination);
+  }
+
   /**
    * Provides the cost of a given edge.<br>
    * <br>
@@ -133,10 +149,9 @@ public final class ModuleDijkstra<N extends INode, E extends IEdge<N>> extends D
   @Override
   protected double provideEdgeCost(final E edge, final double tentativeDistance) {
     // Choose greatest cost
-    final OptionalDouble maxEdgeCost = mModules.stream().map(module -> module.provideEdgeCost(edge, tentativeDistance))
-        .filter(OptionalDouble::isPresent).mapToDouble(OptionalDouble::getAsDouble).max();
-    if (maxEdgeCost.isPresent()) {
-      return maxEdgeCost.getAsDouble();
+    final double maxEdgeCost = mModules.provideEdgeCost(edge, tentativeDistance);
+    if (maxEdgeCost != ModulePipeline.NO_VALUE) {
+      return maxEdgeCost;
     }
 
     // Fallback to base implementation
@@ -160,14 +175,18 @@ public final class ModuleDijkstra<N extends INode, E extends IEdge<N>> extends D
   protected boolean shouldAbort(final TentativeDistance<N, E> tentativeDistance) {
     // Ignore the base, it never aborts computation
     // Ask all modules and accumulate with logical or
-    for (final IModule<N, E> module : mModules) {
-      final boolean abort = module.shouldAbort(tentativeDistance);
-      if (abort) {
-        return true;
-      }
-    }
+    return mModules.shouldAbort(tentativeDistance);
+  }
 
-    return false;
+  /**
+   * Called at the start of every shortest path computation, before any node
+   * is visited.<br>
+   * <br>
+   * Forwards to {@link IModule#startQuery(Collection, INode)} of all modules.
+   */
+  @Override
+  protected void startQuery(final Collection<N> sources, final N pathDestination) {
+    mModules.startQuery(sources, pathDestination);
   }
 
 }
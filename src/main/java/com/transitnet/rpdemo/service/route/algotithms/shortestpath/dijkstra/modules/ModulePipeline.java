@@ -0,0 +1,251 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.modules;
+
+import com.transitnet.rpdemo.model.IEdge;
+import com.transitnet.rpdemo.model.INode;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.TentativeDistance;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Ordered composition of {@link IModule}s as used by the module based
+ * Dijkstra algorithms.<br>
+ * <br>
+ * For every hook of {@link IModule} the pipeline keeps an array of exactly the
+ * modules overriding it, in the order the modules were added. Hooks no module
+ * overrides thus cost nothing and the remaining ones iterate a plain array.
+ * The arrays are rebuilt whenever modules are added or removed, which must not
+ * happen while a computation is running. Estimates and edge costs are folded
+ * as primitives, {@link IModule#NO_VALUE} never exceeds the maximum found so
+ * far and is thus skipped without a check.
+ *
+ * @param <N> Type of the nodes
+ * @param <E> Type of the edges
+ */
+final class ModulePipeline<N extends INode, E extends IEdge<N>> {
+  /**
+   * Value returned by the accumulating hooks if no module provided a value.
+   */
+  static final double NO_VALUE = Double.NEGATIVE_INFINITY;
+
+  /**
+   * Whether the estimates of the given module may grow during a query, i.e.
+   * whether it overrides {@link IModule#isEstimateOutdated(TentativeDistance, INode)}.
+   *
+   * @param module The module in question
+   * @return <code>True</code> if the estimates may grow, <code>false</code>
+   *         otherwise
+   */
+  static boolean hasGrowingEstimates(final IModule<?, ?> module) {
+    return ModulePipeline.overrides(module, "isEstimateOutdated", TentativeDistance.class, INode.class);
+  }
+
+  /**
+   * Whether the given module overrides the given method of {@link IModule}.
+   *
+   * @param module         The module in question
+   * @param name           The name of the method
+   * @param parameterTypes The erased parameter types of the method
+   * @return <code>True</code> if the module overrides the method,
+   *         <code>false</code> if it uses the default implementation
+   */
+  private static boolean overrides(final IModule<?, ?> module, final String name, final Class<?>... parameterTypes) {
+    try {
+      return module.getClass().getMethod(name, parameterTypes).getDeclaringClass() != IModule.class;
+    } catch (final NoSuchMethodException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * The modules which decide whether edges are relaxed.
+   */
+  private IModule<N, E>[] mConsiderEdgeModules;
+  /**
+   * The modules which provide edge costs.
+   */
+  private IModule<N, E>[] mEdgeCostModules;
+  /**
+   * The modules which provide estimates.
+   */
+  private IModule<N, E>[] mEstimateModules;
+  /**
+   * The modules, in the order they were added.
+   */
+  private final List<IModule<N, E>> mModules;
+  /**
+   * The modules which check estimates for being outdated.
+   */
+  private IModule<N, E>[] mOutdatedEstimateModules;
+  /**
+   * The modules which may abort the computation.
+   */
+  private IModule<N, E>[] mShouldAbortModules;
+  /**
+   * The modules which prepare per query state.
+   */
+  private IModule<N, E>[] mStartQueryModules;
+
+  /**
+   * Creates a new empty pipeline.
+   */
+  ModulePipeline() {
+    mModules = new ArrayList<>();
+    rebuild();
+  }
+
+  /**
+   * Adds the given module at the end of the pipeline, unless it is already
+   * contained.
+   *
+   * @param module The module to add
+   */
+  void add(final IModule<N, E> module) {
+    if (!mModules.contains(module)) {
+      mModules.add(module);
+      rebuild();
+    }
+  }
+
+  /**
+   * Whether the given edge should be relaxed, i.e. whether no module rejects
+   * it.
+   *
+   * @param edge            The edge in question
+   * @param pathDestination The destination of the computation or
+   *                        <code>null</code> if not present
+   * @return <code>True</code> if the edge should be considered,
+   *         <code>false</code> otherwise
+   */
+  boolean considerEdgeForRelaxation(final E edge, final N pathDestination) {
+    for (final IModule<N, E> module : mConsiderEdgeModules) {
+      if (!module.considerEdgeForRelaxation(edge, pathDestination)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets the greatest estimate of all modules.
+   *
+   * @param node            The node to estimate the distance from
+   * @param pathDestination The destination to estimate the distance to
+   * @return The greatest estimate or {@link #NO_VALUE} if no module provided
+   *         one
+   */
+  double getEstimatedDistance(final N node, final N pathDestination) {
+    double maxEstimate = NO_VALUE;
+    for (final IModule<N, E> module : mEstimateModules) {
+      final double estimate = module.getEstimatedDistance(node, pathDestination);
+      if (estimate > maxEstimate) {
+        maxEstimate = estimate;
+      }
+    }
+    return maxEstimate;
+  }
+
+  /**
+   * Whether the estimate of the given queued node is outdated according to
+   * any module.
+   *
+   * @param tentativeDistance The tentative distance wrapper of the node
+   * @param pathDestination   The destination of the computation
+   * @return <code>True</code> if the estimate is outdated, <code>false</code>
+   *         otherwise
+   */
+  boolean isEstimateOutdated(final TentativeDistance<N, E> tentativeDistance, final N pathDestination) {
+    for (final IModule<N, E> module : mOutdatedEstimateModules) {
+      if (module.isEstimateOutdated(tentativeDistance, pathDestination)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gets the greatest edge cost of all modules.
+   *
+   * @param edge              The edge whose cost to provide
+   * @param tentativeDistance The current tentative distance when relaxing the
+   *                          edge
+   * @return The greatest cost or {@link #NO_VALUE} if no module provided one
+   */
+  double provideEdgeCost(final E edge, final double tentativeDistance) {
+    double maxEdgeCost = NO_VALUE;
+    for (final IModule<N, E> module : mEdgeCostModules) {
+      final double edgeCost = module.provideEdgeCost(edge, tentativeDistance);
+      if (edgeCost > maxEdgeCost) {
+        maxEdgeCost = edgeCost;
+      }
+    }
+    return maxEdgeCost;
+  }
+
+  /**
+   * Removes the given module from the pipeline.
+   *
+   * @param module The module to remove
+   */
+  void remove(final IModule<N, E> module) {
+    if (mModules.remove(module)) {
+      rebuild();
+    }
+  }
+
+  /**
+   * Whether any module demands to abort the computation.
+   *
+   * @param tentativeDistance The tentative distance wrapper of the node that
+   *                          was settled
+   * @return <code>True</code> if the computation should be aborted,
+   *         <code>false</code> if not
+   */
+  boolean shouldAbort(final TentativeDistance<N, E> tentativeDistance) {
+    for (final IModule<N, E> module : mShouldAbortModules) {
+      if (module.shouldAbort(tentativeDistance)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Prepares the per query state of all modules.
+   *
+   * @param sources         The sources of the computation
+   * @param pathDestination The destination of the computation or
+   *                        <code>null</code> if not present
+   */
+  void startQuery(final Collection<N> sources, final N pathDestination) {
+    for (final IModule<N, E> module : mStartQueryModules) {
+      module.startQuery(sources, pathDestination);
+    }
+  }
+
+  /**
+   * Collects the modules which override the given method of {@link IModule}.
+   *
+   * @param name           The name of the method
+   * @param parameterTypes The erased parameter types of the method
+   * @return The overriding modules, in order
+   */
+  @SuppressWarnings("unchecked")
+  private IModule<N, E>[] collect(final String name, final Class<?>... parameterTypes) {
+    return mModules.stream().filter(module -> ModulePipeline.overrides(module, name, parameterTypes))
+        .toArray(IModule[]::new);
+  }
+
+  /**
+   * Rebuilds the arrays of modules for all hooks.
+   */
+  private void rebuild() {
+    mConsiderEdgeModules = collect("considerEdgeForRelaxation", IEdge.class, INode.class);
+    mEstimateModules = collect("getEstimatedDistance", INode.class, INode.class);
+    mOutdatedEstimateModules = collect("isEstimateOutdated", TentativeDistance.class, INode.class);
+    mEdgeCostModules = collect("provideEdgeCost", IEdge.class, double.class);
+    mShouldAbortModules = collect("shouldAbort", TentativeDistance.class);
+    mStartQueryModules = collect("startQuery", Collection.class, INode.class);
+  }
+}
@@ -4,9 +4,7 @@ import com.transitnet.rpdemo.model.*;
 import com.transitnet.rpdemo.model.road.IRoadEdge;
 
 
-import java.util.Collections;
 import java.util.EnumSet;
-import java.util.OptionalDouble;
 import java.util.Set;
 
 /**
@@ -40,15 +38,10 @@ public final class MultiModalModule<N extends INode, E extends IEdge<N>> impleme
   }
 
   /**
-   * The transportation mode restrictions. Only modes listed in the set are
-   * allowed to be taken by the routing.
+   * The transportation mode restrictions, encoded as bit mask. Only modes
+   * contained in the mask are allowed to be taken by the routing.
    */
-  private final Set<ETransportationMode> mModes;
-  /**
-   * Comparator to be used to determine the fastest available transportation
-   * mode.
-   */
-  private final SpeedTransportationModeComparator mSpeedComparator;
+  private final byte mModes;
 
   /**
    * Creates a multi-modal module instance with the given transportation mode
@@ -60,8 +53,7 @@ public final class MultiModalModule<N extends INode, E extends IEdge<N>> impleme
    *              efficiency.
    */
   public MultiModalModule(final Set<ETransportationMode> modes) {
-    mModes = modes;
-    mSpeedComparator = new SpeedTransportationModeComparator();
+    mModes = TransportationModeMask.of(modes);
   }
 
   /**
@@ -77,9 +69,9 @@ public final class MultiModalModule<N extends INode, E extends IEdge<N>> impleme
     if (!(edge instanceof IHasTransportationMode)) {
       return true;
     }
-    final Set<ETransportationMode> edgeModes = ((IHasTransportationMode) edge).getTransportationModes();
+    final byte edgeModes = ((IHasTransportationMode) edge).getTransportationModeMask();
     // Consider edge if it has any mode in common with the mode restrictions
-    return mModes.stream().anyMatch(edgeModes::contains);
+    return (edgeModes & mModes) != 0;
   }
 
   /**
@@ -90,13 +82,13 @@ public final class MultiModalModule<N extends INode, E extends IEdge<N>> impleme
    * available transportation mode is chosen.
    */
   @Override
-  public OptionalDouble provideEdgeCost(final E edge, final double tentativeDistance) {
+  public double provideEdgeCost(final E edge, final double tentativeDistance) {
     // Only interested in edges that have transportation modes
     if (!(edge instanceof IHasTransportationMode)) {
-      return OptionalDouble.empty();
+      return NO_VALUE;
     }
 
-    final Set<ETransportationMode> edgeModes = ((IHasTransportationMode) edge).getTransportationModes();
+    final byte edgeModes = ((IHasTransportationMode) edge).getTransportationModeMask();
     return computeEdgeCost(edge, edgeModes);
   }
 
@@ -106,39 +98,37 @@ public final class MultiModalModule<N extends INode, E extends IEdge<N>> impleme
    * restrictions.
    *
    * @param edge      The edge in question
-   * @param edgeModes The transportation modes with which the edge can be taken.
-   *                  If possible pass an {@link EnumSet} of a similar efficient
-   *                  set for efficiency.
+   * @param edgeModes The transportation modes with which the edge can be taken,
+   *                  encoded as bit mask
    * @return The cost of the given edge when taken with the fastest available
-   *         mode, in seconds interpreted as travel time.
+   *         mode, in seconds interpreted as travel time. {@link #NO_VALUE} if
+   *         the cost of the edge needs no adjustment.
    */
-  private OptionalDouble computeEdgeCost(final E edge, final Set<ETransportationMode> edgeModes) {
+  private double computeEdgeCost(final E edge, final byte edgeModes) {
     // No adjustment needed if edge only supports one mode, the cost is then
     // correct already
-    if (edgeModes.size() == 1) {
-      return OptionalDouble.empty();
+    if (TransportationModeMask.size(edgeModes) == 1) {
+      return NO_VALUE;
     }
 
     // Pick the fastest mode that is available after applying the restrictions
-    final Set<ETransportationMode> availableModes = EnumSet.copyOf(edgeModes);
-    availableModes.retainAll(mModes);
-    if (availableModes.isEmpty()) {
-      return OptionalDouble.empty();
+    final ETransportationMode fastestMode = TransportationModeMask.getFastestMode((byte) (edgeModes & mModes));
+    if (fastestMode == null) {
+      return NO_VALUE;
     }
-    final ETransportationMode fastestMode = Collections.max(availableModes, mSpeedComparator);
 
     // Edge cost is already laid out for car or tram (depending on road or
     // transit edge)
     if (fastestMode == ETransportationMode.CAR || fastestMode == ETransportationMode.TRAM) {
-      return OptionalDouble.empty();
+      return NO_VALUE;
     }
     if (edge instanceof IRoadEdge) {
       final IRoadEdge asRoadEdge = (IRoadEdge) edge;
       // Recompute using the given mode
-      return OptionalDouble.of(asRoadEdge.getCost(fastestMode));
+      return asRoadEdge.getCost(fastestMode);
     }
 
-    return OptionalDouble.empty();
+    return NO_VALUE;
   }
 
 }
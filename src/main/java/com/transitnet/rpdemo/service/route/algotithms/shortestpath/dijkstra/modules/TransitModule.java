@@ -7,7 +7,6 @@ import com.transitnet.rpdemo.model.transit.ITransitNode;
 import com.transitnet.rpdemo.util.RoutingUtil;
 
 import java.time.*;
-import java.util.OptionalDouble;
 
 /**
  * Module for a {@link ModuleDijkstra} that dynamically provides the correct
@@ -97,15 +96,15 @@ public final class TransitModule<N extends INode, E extends IEdge<N>> implements
    * represented by the destination is available again.
    */
   @Override
-  public OptionalDouble provideEdgeCost(final E edge, final double tentativeDistance) {
+  public double provideEdgeCost(final E edge, final double tentativeDistance) {
     // Only interested in link edges entering the transit graph
     if (!(edge instanceof LinkEdge && edge.getDestination() instanceof ITransitNode)) {
-      return OptionalDouble.empty();
+      return NO_VALUE;
     }
 
     final ITransitNode destination = (ITransitNode) edge.getDestination();
     final int connectionTime = destination.getTime();
-    return OptionalDouble.of(TransitModule.computeWaitTime(mDepTime, tentativeDistance, connectionTime));
+    return TransitModule.computeWaitTime(mDepTime, tentativeDistance, connectionTime);
   }
 
 }
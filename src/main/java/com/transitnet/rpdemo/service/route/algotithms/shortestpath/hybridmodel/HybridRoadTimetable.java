@@ -7,8 +7,10 @@ import com.transitnet.rpdemo.model.IPath;
 import com.transitnet.rpdemo.model.transit.TransitNode;
 import com.transitnet.rpdemo.service.route.algotithms.nearestneighbor.INearestNeighborComputation;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.AShortestPathComputation;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.EQueryPhase;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IHasPathCost;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IShortestPathComputation;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryStatistics;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.TripletonPath;
 import com.transitnet.rpdemo.util.NestedMap;
 import com.transitnet.rpdemo.util.RoutingUtil;
@@ -46,6 +48,22 @@ public final class HybridRoadTimetable extends AShortestPathComputation<ICoreNod
     return dateTimeAt.toLocalTime().toSecondOfDay();
   }
 
+  /**
+   * Adds the time since the given start to the given phase.
+   *
+   * @param statistics The statistics to record the phase in
+   * @param phase      The phase to record
+   * @param phaseStart The start of the phase, as given by
+   *                   {@link System#nanoTime()}
+   * @return The end of the phase, to be used as start of the next phase
+   */
+  private static long recordPhase(final QueryStatistics statistics, final EQueryPhase phase,
+      final long phaseStart) {
+    final long phaseEnd = System.nanoTime();
+    statistics.addPhaseTime(phase, phaseEnd - phaseStart);
+    return phaseEnd;
+  }
+
   /**
    * Object used to compute access nodes.
    */
@@ -121,8 +139,56 @@ public final class HybridRoadTimetable extends AShortestPathComputation<ICoreNod
   @Override
   public Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> computeShortestPath(final Collection<ICoreNode> sources,
                                                                               final ICoreNode destination) {
+    return computeShortestPath(sources, destination, new QueryStatistics());
+  }
+
+  /**
+   * Computes the shortest path from the given sources to the given destination
+   * and records the work the query did in the given statistics.<br>
+   * <br>
+   * The counters of all nested road and transit queries are added to the
+   * statistics. Their time is recorded in the phase they belong to, i.e.
+   * {@link EQueryPhase#ROAD}, {@link EQueryPhase#ACCESS} and
+   * {@link EQueryPhase#TRANSIT}.
+   */
+  @Override
+  public Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> computeShortestPath(final Collection<ICoreNode> sources,
+      final ICoreNode destination, final QueryStatistics statistics) {
+    final QueryStatistics nestedStatistics = new QueryStatistics();
+    try {
+      return computeShortestPathHelper(sources, destination, statistics, nestedStatistics);
+    } finally {
+      statistics.addCounters(nestedStatistics);
+    }
+  }
+
+  @Override
+  public Optional<Double> computeShortestPathCost(final Collection<ICoreNode> sources, final ICoreNode destination) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Map<ICoreNode, ? extends IHasPathCost> computeShortestPathCostsReachable(final Collection<ICoreNode> sources) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Computes the shortest path from the given sources to the given destination.
+   *
+   * @param sources          The sources to compute the shortest path from
+   * @param destination      The destination to compute the shortest path to
+   * @param statistics       The statistics to record the phases in
+   * @param nestedStatistics The statistics to record the nested queries in
+   * @return The shortest path if present, else empty
+   */
+  private Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> computeShortestPathHelper(
+      final Collection<ICoreNode> sources, final ICoreNode destination, final QueryStatistics statistics,
+      final QueryStatistics nestedStatistics) {
+    statistics.incrementQueries();
+    long phaseStart = System.nanoTime();
     final Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> roadOnlyPath =
-        mRoadComputationFallback.computeShortestPath(sources, destination);
+        mRoadComputationFallback.computeShortestPath(sources, destination, nestedStatistics);
+    phaseStart = HybridRoadTimetable.recordPhase(statistics, EQueryPhase.ROAD, phaseStart);
     if (mUseRoadOnly) {
       return roadOnlyPath;
     }
@@ -144,8 +210,8 @@ public final class HybridRoadTimetable extends AShortestPathComputation<ICoreNod
         if (!roadRepresentative.isPresent()) {
           continue;
         }
-        final Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> path =
-            mRoadComputationToAccessNodes.computeShortestPath(source, roadRepresentative.get());
+        final Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> path = mRoadComputationToAccessNodes
+            .computeShortestPath(Collections.singletonList(source), roadRepresentative.get(), nestedStatistics);
         if (!path.isPresent()) {
           continue;
         }
@@ -161,6 +227,7 @@ public final class HybridRoadTimetable extends AShortestPathComputation<ICoreNod
     }
 
     if (reachableSourceAccessNodes.isEmpty()) {
+      HybridRoadTimetable.recordPhase(statistics, EQueryPhase.ACCESS, phaseStart);
       return roadOnlyPath;
     }
 
@@ -170,8 +237,8 @@ public final class HybridRoadTimetable extends AShortestPathComputation<ICoreNod
       if (!roadRepresentative.isPresent()) {
         continue;
       }
-      final Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> path =
-          mRoadComputationToAccessNodes.computeShortestPath(roadRepresentative.get(), destination);
+      final Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> path = mRoadComputationToAccessNodes
+          .computeShortestPath(Collections.singletonList(roadRepresentative.get()), destination, nestedStatistics);
       if (!path.isPresent()) {
         continue;
       }
@@ -179,6 +246,7 @@ public final class HybridRoadTimetable extends AShortestPathComputation<ICoreNod
       destinationAccessPaths.put(destinationAccess, path.get());
     }
 
+    phaseStart = HybridRoadTimetable.recordPhase(statistics, EQueryPhase.ACCESS, phaseStart);
     if (reachableDestinationAccessNodes.isEmpty()) {
       return roadOnlyPath;
     }
@@ -195,8 +263,8 @@ public final class HybridRoadTimetable extends AShortestPathComputation<ICoreNod
           sourceAccess.getLongitude(), HybridRoadTimetable.millisSinceEpochToSecondsSinceMidnight(depTimeAtAccess));
 
       for (final ICoreNode destinationAccess : reachableDestinationAccessNodes) {
-        final Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> path =
-            mTransitComputation.computeShortestPath(sourceAccessQuery, destinationAccess);
+        final Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> path = mTransitComputation
+            .computeShortestPath(Collections.singletonList(sourceAccessQuery), destinationAccess, nestedStatistics);
         if (!path.isPresent()) {
           continue;
         }
@@ -205,6 +273,7 @@ public final class HybridRoadTimetable extends AShortestPathComputation<ICoreNod
       }
     }
 
+    phaseStart = HybridRoadTimetable.recordPhase(statistics, EQueryPhase.TRANSIT, phaseStart);
     if (!isThereATransitPath) {
       return roadOnlyPath;
     }
@@ -230,17 +299,8 @@ public final class HybridRoadTimetable extends AShortestPathComputation<ICoreNod
       }
     }
 
+    HybridRoadTimetable.recordPhase(statistics, EQueryPhase.PATH_CONSTRUCTION, phaseStart);
     return Optional.ofNullable(shortestPath);
   }
 
-  @Override
-  public Optional<Double> computeShortestPathCost(final Collection<ICoreNode> sources, final ICoreNode destination) {
-    throw new UnsupportedOperationException();
-  }
-
-  @Override
-  public Map<ICoreNode, ? extends IHasPathCost> computeShortestPathCostsReachable(final Collection<ICoreNode> sources) {
-    throw new UnsupportedOperationException();
-  }
-
 }
@@ -0,0 +1,792 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.raptor;
+
+import com.transitnet.rpdemo.model.ICoreEdge;
+import com.transitnet.rpdemo.model.ICoreNode;
+import com.transitnet.rpdemo.model.IPath;
+import com.transitnet.rpdemo.model.timetable.FootpathStore;
+import com.transitnet.rpdemo.model.timetable.RouteStore;
+import com.transitnet.rpdemo.model.timetable.Stop;
+import com.transitnet.rpdemo.model.timetable.Timetable;
+import com.transitnet.rpdemo.model.transit.IHasTime;
+import com.transitnet.rpdemo.model.transit.TransitNode;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.AShortestPathComputation;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.EQueryPhase;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IHasPathCost;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.PathCost;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryDeadline;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryStatistics;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.connectionscan.ConnectionScanPath;
+
+import org.eclipse.collections.impl.list.mutable.primitive.BooleanArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import java.util.*;
+
+/**
+ * Implementation of the Round-Based Public Transit Routing algorithm that is
+ * able to compute shortest paths on a given timetable. Trips are grouped into
+ * routes by the {@link RouteStore} of the timetable.<br>
+ * <br>
+ * Round <code>k</code> computes the earliest arrival at every stop using at
+ * most <code>k</code> trips, by scanning each route serving a stop improved in
+ * the previous round once. The amount of rounds bounds the amount of
+ * transfers. Besides the earliest arrival, which is used for the
+ * {@link AShortestPathComputation} methods, the Pareto set of journeys
+ * regarding arrival time and amount of transfers is available by
+ * {@link #computeParetoJourneys(Collection, ICoreNode)}.<br>
+ * <br>
+ * Like {@link com.transitnet.rpdemo.service.route.algotithms.shortestpath.connectionscan.ConnectionScan
+ * ConnectionScan}, transfer times are given by the footpaths of the timetable,
+ * including self-loops, and only trips departing within a day after the
+ * starting time are taken.<br>
+ * <br>
+ * For details refer to:
+ * <ul>
+ * <li><code>Round-Based Public Transit Routing</code> - Delling D., Pajor T.
+ * and Werneck R. - 2015 - Transportation Science 49(3)</li>
+ * </ul>
+ */
+public final class Raptor extends AShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> {
+  /**
+   * Index used for routes not marked for scanning.
+   */
+  private static final int NOT_MARKED = Integer.MAX_VALUE;
+  /**
+   * Index used for stops if there is no destination and for routes on which no
+   * trip was boarded yet.
+   */
+  private static final int NO_INDEX = -1;
+  /**
+   * Amount of seconds of a day.
+   */
+  private static final int SECONDS_OF_DAY = 24 * 60 * 60;
+  /**
+   * The workspace of each thread, reallocated if a greater timetable or more
+   * rounds are queried.
+   */
+  private static final ThreadLocal<Workspace> WORKSPACE = new ThreadLocal<>();
+
+  /**
+   * Per-thread state of a query.<br>
+   * <br>
+   * Labels are stored per round and stop. The footpath label of a stop in a
+   * round is its arrival after walking, the trip label its arrival by the trip
+   * of the round. A label is only set if it improves the best arrival of any
+   * previous round, the arrival with at most <code>k</code> trips is thus the
+   * label of the latest round not after <code>k</code>.
+   */
+  private static final class Workspace {
+    /**
+     * The amount of rounds labels are stored for.
+     */
+    private final int mAmountOfRounds;
+    /**
+     * The amount of stops labels are stored for, also the distance between
+     * the labels of consecutive rounds.
+     */
+    private final int mAmountOfStops;
+    /**
+     * The arrival time of each footpath label, in seconds since midnight.
+     */
+    private final int[] mArrTime;
+    /**
+     * The index of the stop in the route each trip label alighted at.
+     */
+    private final int[] mAlightIndex;
+    /**
+     * The earliest arrival at each stop after walking, over all rounds.
+     */
+    private final int[] mBestArrTime;
+    /**
+     * The query the best arrivals of each stop belong to.
+     */
+    private final int[] mBestStamps;
+    /**
+     * The earliest arrival at each stop by a trip, over all rounds.
+     */
+    private final int[] mBestTripArrTime;
+    /**
+     * The index of the stop in the route each trip label boarded at.
+     */
+    private final int[] mBoardIndex;
+    /**
+     * The index of the footpath of each footpath label.
+     */
+    private final int[] mFootpath;
+    /**
+     * Whether each stop is contained in {@link #mMarkedStops}.
+     */
+    private final boolean[] mIsMarked;
+    /**
+     * Routes marked for scanning in the current round.
+     */
+    private final IntArrayList mMarkedRoutes;
+    /**
+     * Stops whose arrival improved in the current round, their routes are
+     * scanned in the next round.
+     */
+    private final IntArrayList mMarkedStops;
+    /**
+     * Stops reached by the current query, in the order they were first
+     * reached.
+     */
+    private final IntArrayList mReached;
+    /**
+     * The route of each trip label.
+     */
+    private final int[] mRoute;
+    /**
+     * The index of the first marked stop of each route, or
+     * {@link #NOT_MARKED}.
+     */
+    private final int[] mRouteFirstIndex;
+    /**
+     * The shift of the times of the trip of each trip label, in seconds. Trips
+     * of the day before or after are taken with a shift of a day.
+     */
+    private final int[] mShift;
+    /**
+     * The stamp of the current query.
+     */
+    private int mStamp;
+    /**
+     * The query each footpath label belongs to. Labels with another stamp are
+     * considered unset.
+     */
+    private final int[] mStopStamps;
+    /**
+     * The index of the trip in the route of each trip label.
+     */
+    private final int[] mTrip;
+    /**
+     * Stops whose trip label was set in the current round.
+     */
+    private final IntArrayList mTripReached;
+    /**
+     * The query each trip label belongs to. Labels with another stamp are
+     * considered unset.
+     */
+    private final int[] mTripStamps;
+
+    /**
+     * Creates a new workspace for the given amount of rounds, stops and
+     * routes.
+     *
+     * @param amountOfRounds The amount of rounds
+     * @param amountOfStops  The amount of stops
+     * @param amountOfRoutes The amount of routes
+     */
+    Workspace(final int amountOfRounds, final int amountOfStops, final int amountOfRoutes) {
+      mAmountOfRounds = amountOfRounds;
+      mAmountOfStops = amountOfStops;
+      final int amountOfLabels = amountOfRounds * amountOfStops;
+      mArrTime = new int[amountOfLabels];
+      mFootpath = new int[amountOfLabels];
+      mStopStamps = new int[amountOfLabels];
+      mRoute = new int[amountOfLabels];
+      mTrip = new int[amountOfLabels];
+      mBoardIndex = new int[amountOfLabels];
+      mAlightIndex = new int[amountOfLabels];
+      mShift = new int[amountOfLabels];
+      mTripStamps = new int[amountOfLabels];
+      mBestArrTime = new int[amountOfStops];
+      mBestTripArrTime = new int[amountOfStops];
+      mBestStamps = new int[amountOfStops];
+      mIsMarked = new boolean[amountOfStops];
+      mRouteFirstIndex = new int[amountOfRoutes];
+      Arrays.fill(mRouteFirstIndex, NOT_MARKED);
+      mMarkedRoutes = new IntArrayList();
+      mMarkedStops = new IntArrayList();
+      mReached = new IntArrayList();
+      mTripReached = new IntArrayList();
+    }
+
+    /**
+     * Gets the earliest arrival at the given stop after walking, over all
+     * rounds so far.
+     *
+     * @param stop The ID of the stop
+     * @return The arrival time in seconds since midnight, or
+     *         {@link Integer#MAX_VALUE} if the stop was not reached
+     */
+    int getArrTime(final int stop) {
+      if (mBestStamps[stop] != mStamp) {
+        return Integer.MAX_VALUE;
+      }
+      return mBestArrTime[stop];
+    }
+
+    /**
+     * Gets the index of the labels of the given stop in the given round.
+     *
+     * @param round The round
+     * @param stop  The ID of the stop
+     * @return The index of the labels
+     */
+    int getLabel(final int round, final int stop) {
+      return round * mAmountOfStops + stop;
+    }
+
+    /**
+     * Gets the latest round, not after the given one, in which the footpath
+     * label of the given stop was set.
+     *
+     * @param round The round to start searching at
+     * @param stop  The ID of the stop
+     * @return The round, or {@link #NO_INDEX} if the stop was not reached
+     */
+    int getLabelRound(final int round, final int stop) {
+      for (int labelRound = round; labelRound >= 0; labelRound--) {
+        if (mStopStamps[getLabel(labelRound, stop)] == mStamp) {
+          return labelRound;
+        }
+      }
+      return NO_INDEX;
+    }
+
+    /**
+     * Gets the earliest arrival at the given stop by a trip, over all rounds
+     * so far.
+     *
+     * @param stop The ID of the stop
+     * @return The arrival time in seconds since midnight, or
+     *         {@link Integer#MAX_VALUE} if the stop was not reached by a trip
+     */
+    int getTripArrTime(final int stop) {
+      if (mBestStamps[stop] != mStamp) {
+        return Integer.MAX_VALUE;
+      }
+      return mBestTripArrTime[stop];
+    }
+
+    /**
+     * Reaches the given stop by walking in the given round if it improves its
+     * earliest arrival. The stop is then marked.
+     *
+     * @param round    The round
+     * @param stop     The ID of the stop to reach
+     * @param arrTime  The time to reach it at, in seconds since midnight
+     * @param footpath The index of the footpath used to reach the stop
+     */
+    void reachByFoot(final int round, final int stop, final int arrTime, final int footpath) {
+      touch(stop);
+      if (mBestArrTime[stop] <= arrTime) {
+        return;
+      }
+      if (mBestArrTime[stop] == Integer.MAX_VALUE) {
+        mReached.add(stop);
+      }
+      mBestArrTime[stop] = arrTime;
+      final int label = getLabel(round, stop);
+      mStopStamps[label] = mStamp;
+      mArrTime[label] = arrTime;
+      mFootpath[label] = footpath;
+      if (!mIsMarked[stop]) {
+        mIsMarked[stop] = true;
+        mMarkedStops.add(stop);
+      }
+    }
+
+    /**
+     * Reaches the given stop by a trip in the given round. The caller ensures
+     * that it improves the earliest arrival by a trip.
+     *
+     * @param round       The round
+     * @param stop        The ID of the stop to reach
+     * @param arrTime     The time to reach it at, in seconds since midnight
+     * @param route       The route of the trip
+     * @param trip        The index of the trip in the route
+     * @param boardIndex  The index of the stop in the route the trip was
+     *                    boarded at
+     * @param alightIndex The index of the stop in the route, i.e. of the given
+     *                    stop
+     * @param shift       The shift of the times of the trip, in seconds
+     */
+    void reachByTrip(final int round, final int stop, final int arrTime, final int route, final int trip,
+        final int boardIndex, final int alightIndex, final int shift) {
+      touch(stop);
+      mBestTripArrTime[stop] = arrTime;
+      final int label = getLabel(round, stop);
+      if (mTripStamps[label] != mStamp) {
+        mTripStamps[label] = mStamp;
+        mTripReached.add(stop);
+      }
+      mRoute[label] = route;
+      mTrip[label] = trip;
+      mBoardIndex[label] = boardIndex;
+      mAlightIndex[label] = alightIndex;
+      mShift[label] = shift;
+    }
+
+    /**
+     * Prepares the workspace for a new query.
+     */
+    void startQuery() {
+      mStamp++;
+      if (mStamp == 0) {
+        // Stamps wrapped around, old labels would be considered set
+        Arrays.fill(mStopStamps, 0);
+        Arrays.fill(mTripStamps, 0);
+        Arrays.fill(mBestStamps, 0);
+        mStamp = 1;
+      }
+      // A previous query may have ended with marks left
+      for (int i = 0; i < mMarkedStops.size(); i++) {
+        mIsMarked[mMarkedStops.get(i)] = false;
+      }
+      for (int i = 0; i < mMarkedRoutes.size(); i++) {
+        mRouteFirstIndex[mMarkedRoutes.get(i)] = NOT_MARKED;
+      }
+      mMarkedStops.clear();
+      mMarkedRoutes.clear();
+      mReached.clear();
+      mTripReached.clear();
+    }
+
+    /**
+     * Resets the best arrivals of the given stop if they belong to a previous
+     * query.
+     *
+     * @param stop The ID of the stop
+     */
+    private void touch(final int stop) {
+      if (mBestStamps[stop] != mStamp) {
+        mBestStamps[stop] = mStamp;
+        mBestArrTime[stop] = Integer.MAX_VALUE;
+        mBestTripArrTime[stop] = Integer.MAX_VALUE;
+      }
+    }
+  }
+
+  /**
+   * Extracts the time from the given node.
+   *
+   * @param node The node to extract the time from
+   * @return The extracted time
+   * @throws IllegalArgumentException If the given node has no time
+   */
+  private static int extractStartingTime(final ICoreNode node) throws IllegalArgumentException {
+    if (!(node instanceof IHasTime)) {
+      throw new IllegalArgumentException();
+    }
+    return ((IHasTime) node).getTime();
+  }
+
+  /**
+   * Gets the workspace of the current thread for the given sizes.
+   *
+   * @param amountOfRounds The amount of rounds of the query
+   * @param amountOfStops  The amount of stops of the timetable
+   * @param amountOfRoutes The amount of routes of the timetable
+   * @return The workspace of the current thread
+   */
+  private static Workspace getWorkspace(final int amountOfRounds, final int amountOfStops,
+      final int amountOfRoutes) {
+    Workspace workspace = WORKSPACE.get();
+    if (workspace == null || workspace.mAmountOfRounds < amountOfRounds || workspace.mAmountOfStops < amountOfStops
+        || workspace.mRouteFirstIndex.length < amountOfRoutes) {
+      workspace = new Workspace(amountOfRounds, amountOfStops, amountOfRoutes);
+      WORKSPACE.set(workspace);
+    }
+    return workspace;
+  }
+
+  /**
+   * The amount of rounds of a query. Round zero only walks from the sources,
+   * each further round takes one more trip.
+   */
+  private final int mAmountOfRounds;
+  /**
+   * The timetable data to route on.
+   */
+  private final Timetable mTable;
+
+  /**
+   * Creates a new Round-Based Public Transit Routing algorithm.
+   *
+   * @param table        The timetable data to route on
+   * @param maxTransfers The greatest amount of transfers between trips of a
+   *                     journey, not negative
+   */
+  public Raptor(final Timetable table, final int maxTransfers) {
+    mTable = table;
+    mAmountOfRounds = maxTransfers + 2;
+  }
+
+  /**
+   * Computes the Pareto set of journeys from the given sources to the given
+   * destination regarding arrival time and amount of transfers. The starting
+   * time is taken from the first source.
+   *
+   * @param sources     The sources to compute the journeys from, must not be
+   *                    empty
+   * @param destination The destination to compute the journeys to
+   * @return The journeys, ascending in their amount of transfers and thus
+   *         descending in their arrival time. Empty if the destination is not
+   *         reachable.
+   */
+  public List<RaptorJourney> computeParetoJourneys(final Collection<ICoreNode> sources,
+      final ICoreNode destination) {
+    final int startingTime = Raptor.extractStartingTime(sources.iterator().next());
+    final Workspace workspace = computeShortestPathHelper(sources, destination, startingTime, new QueryStatistics());
+
+    final int destinationId = destination.getId();
+    final List<RaptorJourney> journeys = new ArrayList<>();
+    for (int round = 0; round < mAmountOfRounds; round++) {
+      final int label = workspace.getLabel(round, destinationId);
+      if (workspace.mStopStamps[label] != workspace.mStamp) {
+        continue;
+      }
+      // Walking directly and taking a single trip both have no transfers, the
+      // trip arrives earlier if it was found
+      final int amountOfTransfers = Math.max(0, round - 1);
+      if (!journeys.isEmpty()
+          && journeys.get(journeys.size() - 1).getAmountOfTransfers() == amountOfTransfers) {
+        journeys.remove(journeys.size() - 1);
+      }
+      journeys.add(new RaptorJourney(constructPath(destination, startingTime, round, workspace),
+          workspace.mArrTime[label], amountOfTransfers));
+    }
+    return journeys;
+  }
+
+  @Override
+  public Collection<ICoreNode> computeSearchSpace(final Collection<ICoreNode> sources, final ICoreNode destination) {
+    final int startingTime = Raptor.extractStartingTime(sources.iterator().next());
+    final Workspace workspace = computeShortestPathHelper(sources, destination, startingTime, new QueryStatistics());
+
+    // Collect all visited stops
+    final IntArrayList reached = workspace.mReached;
+    final Collection<ICoreNode> searchSpace = new ArrayList<>(reached.size());
+    for (int i = 0; i < reached.size(); i++) {
+      final int stopId = reached.get(i);
+      searchSpace.add(createNodeForStop(stopId, workspace.getArrTime(stopId)));
+    }
+
+    return searchSpace;
+  }
+
+  @Override
+  public Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> computeShortestPath(final Collection<ICoreNode> sources,
+      final ICoreNode destination) {
+    return computeShortestPath(sources, destination, new QueryStatistics());
+  }
+
+  @Override
+  public Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> computeShortestPath(final Collection<ICoreNode> sources,
+      final ICoreNode destination, final QueryStatistics statistics) {
+    final long searchStart = System.nanoTime();
+    final int startingTime = Raptor.extractStartingTime(sources.iterator().next());
+    final Workspace workspace = computeShortestPathHelper(sources, destination, startingTime, statistics);
+    final long constructionStart = System.nanoTime();
+    statistics.addPhaseTime(EQueryPhase.SEARCH, constructionStart - searchStart);
+
+    // The label of the latest round is the earliest arrival, using the least
+    // transfers among the earliest
+    final int round = workspace.getLabelRound(mAmountOfRounds - 1, destination.getId());
+    final Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> path = round == NO_INDEX ? Optional.empty()
+        : Optional.of(constructPath(destination, startingTime, round, workspace));
+    statistics.addPhaseTime(EQueryPhase.PATH_CONSTRUCTION, System.nanoTime() - constructionStart);
+    return path;
+  }
+
+  @Override
+  public Optional<Double> computeShortestPathCost(final Collection<ICoreNode> sources, final ICoreNode destination) {
+    final int startingTime = Raptor.extractStartingTime(sources.iterator().next());
+    final Workspace workspace = computeShortestPathHelper(sources, destination, startingTime, new QueryStatistics());
+
+    final int arrTime = workspace.getArrTime(destination.getId());
+
+    // Not reachable
+    if (arrTime == Integer.MAX_VALUE) {
+      return Optional.empty();
+    }
+
+    return Optional.of((double) (arrTime - startingTime));
+  }
+
+  @Override
+  public Map<ICoreNode, ? extends IHasPathCost> computeShortestPathCostsReachable(final Collection<ICoreNode> sources) {
+    final int startingTime = Raptor.extractStartingTime(sources.iterator().next());
+    final Workspace workspace = computeShortestPathHelper(sources, null, startingTime, new QueryStatistics());
+
+    // Collect all reachable stops
+    final IntArrayList reached = workspace.mReached;
+    final Map<ICoreNode, PathCost> stopToCost = new HashMap<>(reached.size());
+    for (int i = 0; i < reached.size(); i++) {
+      final int stopId = reached.get(i);
+      final int arrTime = workspace.getArrTime(stopId);
+      stopToCost.put(createNodeForStop(stopId, arrTime), new PathCost(arrTime - startingTime));
+    }
+
+    return stopToCost;
+  }
+
+  /**
+   * Helper method to compute the labels of all rounds from the given sources
+   * to a possible destination.
+   *
+   * @param sources         The sources to start computation from, must not be
+   *                        empty.
+   * @param pathDestination The destination to route to or <code>null</code> if
+   *                        routing to all reachable stops is desired
+   * @param startingTime    The time to start routing at in seconds since
+   *                        midnight
+   * @param statistics      The statistics to record the computation in
+   * @return The workspace of the current thread, containing the results of the
+   *         algorithm until the next query
+   */
+  private Workspace computeShortestPathHelper(final Collection<ICoreNode> sources, final ICoreNode pathDestination,
+      final int startingTime, final QueryStatistics statistics) {
+    statistics.incrementQueries();
+    final int destinationStop = pathDestination == null ? NO_INDEX : pathDestination.getId();
+
+    // Initialize data-structures
+    final RouteStore routes = mTable.getRouteStore();
+    final FootpathStore footpaths = mTable.getFootpathStore();
+    final Workspace workspace =
+        Raptor.getWorkspace(mAmountOfRounds, mTable.getGreatestStopId() + 1, routes.size());
+    workspace.startQuery();
+    final int latestDepTime = startingTime + SECONDS_OF_DAY;
+
+    // Round zero relaxes all initial footpaths
+    for (final ICoreNode source : sources) {
+      final int sourceId = source.getId();
+      final int lastFootpath = footpaths.getLastOutgoing(sourceId);
+      for (int footpath = footpaths.getFirstOutgoing(sourceId); footpath < lastFootpath; footpath++) {
+        statistics.incrementRelaxedFootpaths();
+        workspace.reachByFoot(0, footpaths.getArrStopId(footpath), startingTime + footpaths.getDuration(footpath),
+            footpath);
+      }
+    }
+
+    final QueryDeadline deadline = QueryDeadline.current();
+    int iterations = 0;
+    for (int round = 1; round < mAmountOfRounds && !workspace.mMarkedStops.isEmpty(); round++) {
+      // Nothing arriving after the destination was reached can improve it
+      final int destinationArrTime =
+          destinationStop == NO_INDEX ? Integer.MAX_VALUE : workspace.getArrTime(destinationStop);
+
+      // Collect the routes serving the stops improved in the previous round,
+      // each route is scanned from the first of them
+      final IntArrayList markedStops = workspace.mMarkedStops;
+      for (int i = 0; i < markedStops.size(); i++) {
+        final int stopId = markedStops.get(i);
+        workspace.mIsMarked[stopId] = false;
+        final int lastRoute = routes.getLastRouteOf(stopId);
+        for (int position = routes.getFirstRouteOf(stopId); position < lastRoute; position++) {
+          final int route = routes.getRouteAt(position);
+          if (workspace.mRouteFirstIndex[route] == NOT_MARKED) {
+            workspace.mMarkedRoutes.add(route);
+          }
+          workspace.mRouteFirstIndex[route] =
+              Math.min(workspace.mRouteFirstIndex[route], routes.getStopIndexAt(position));
+        }
+      }
+      markedStops.clear();
+
+      // Scan the marked routes
+      final IntArrayList markedRoutes = workspace.mMarkedRoutes;
+      for (int i = 0; i < markedRoutes.size(); i++) {
+        // Stop with the arrival times found so far or fail if the deadline
+        // expired
+        iterations++;
+        if (QueryDeadline.shouldCheck(iterations) && deadline.checkExpired()) {
+          return workspace;
+        }
+
+        final int route = markedRoutes.get(i);
+        scanRoute(workspace, routes, route, workspace.mRouteFirstIndex[route], round, latestDepTime,
+            destinationArrTime, statistics);
+        workspace.mRouteFirstIndex[route] = NOT_MARKED;
+      }
+      markedRoutes.clear();
+
+      // Relax all outgoing footpaths of stops reached by a trip, the improved
+      // stops are marked for the next round
+      final IntArrayList tripReached = workspace.mTripReached;
+      for (int i = 0; i < tripReached.size(); i++) {
+        final int stopId = tripReached.get(i);
+        final int arrTime = workspace.getTripArrTime(stopId);
+        final int lastFootpath = footpaths.getLastOutgoing(stopId);
+        for (int footpath = footpaths.getFirstOutgoing(stopId); footpath < lastFootpath; footpath++) {
+          statistics.incrementRelaxedFootpaths();
+          final int footpathArrTime = arrTime + footpaths.getDuration(footpath);
+          if (footpathArrTime < destinationArrTime) {
+            workspace.reachByFoot(round, footpaths.getArrStopId(footpath), footpathArrTime, footpath);
+          }
+        }
+      }
+      tripReached.clear();
+    }
+
+    return workspace;
+  }
+
+  /**
+   * Constructs the path of the journey to the given destination using the
+   * trips of the given round by backtracking the labels of the given
+   * workspace.
+   *
+   * @param destination  The destination of the path
+   * @param startingTime The time the query started at in seconds since
+   *                     midnight
+   * @param round        The round in which the footpath label of the
+   *                     destination was set
+   * @param workspace    The workspace containing the result of the search
+   * @return The path of the journey
+   */
+  private IPath<ICoreNode, ICoreEdge<ICoreNode>> constructPath(final ICoreNode destination, final int startingTime,
+      final int round, final Workspace workspace) {
+    final RouteStore routes = mTable.getRouteStore();
+    final FootpathStore footpaths = mTable.getFootpathStore();
+    // The visited stops are collected reversely, from the destination to the
+    // source. The hop starting at a stop is walked if its flag is set.
+    final IntArrayList stops = new IntArrayList();
+    final IntArrayList times = new IntArrayList();
+    final BooleanArrayList byFoot = new BooleanArrayList();
+    int currentStopId = destination.getId();
+    int currentRound = round;
+    stops.add(currentStopId);
+    times.add(workspace.mArrTime[workspace.getLabel(currentRound, currentStopId)]);
+
+    // Backtrack the rounds, each walked from the exit of its trip
+    while (currentRound > 0) {
+      final int footpath = workspace.mFootpath[workspace.getLabel(currentRound, currentStopId)];
+      final int exitStopId = footpaths.getDepStopId(footpath);
+      final int tripLabel = workspace.getLabel(currentRound, exitStopId);
+      final int route = workspace.mRoute[tripLabel];
+      final int trip = workspace.mTrip[tripLabel];
+      final int boardIndex = workspace.mBoardIndex[tripLabel];
+      final int alightIndex = workspace.mAlightIndex[tripLabel];
+      final int shift = workspace.mShift[tripLabel];
+
+      // Departure of footpath, arrival of trip exit
+      stops.add(exitStopId);
+      times.add(routes.getArrTime(routes.getStopTimes(route, alightIndex) + trip) + shift);
+      byFoot.add(true);
+
+      // Traverse the used part of the trip reversely
+      for (int stopIndex = alightIndex - 1; stopIndex >= boardIndex; stopIndex--) {
+        stops.add(routes.getStopId(route, stopIndex));
+        times.add(routes.getDepTime(routes.getStopTimes(route, stopIndex) + trip) + shift);
+        byFoot.add(false);
+      }
+
+      // The trip was boarded with the arrival of a previous round
+      currentStopId = routes.getStopId(route, boardIndex);
+      currentRound = workspace.getLabelRound(currentRound - 1, currentStopId);
+    }
+
+    // Add the initial footpath from the source to the first trip. This also
+    // handles the special case were the journey only consists of a direct
+    // footpath between the source and destination.
+    final int initialFootpath = workspace.mFootpath[workspace.getLabel(0, currentStopId)];
+    stops.add(footpaths.getDepStopId(initialFootpath));
+    times.add(startingTime);
+    byFoot.add(true);
+
+    stops.reverseThis();
+    times.reverseThis();
+    byFoot.reverseThis();
+    return new ConnectionScanPath(mTable, stops.toArray(), times.toArray(), byFoot.toArray());
+  }
+
+  /**
+   * Creates and returns a node for the given stop at the given time.
+   *
+   * @param stopId The ID of the stop to create a node for
+   * @param time   The time at the stop to create a node for
+   * @return The created node
+   */
+  private TransitNode createNodeForStop(final int stopId, final int time) {
+    final Stop stop = mTable.getStop(stopId);
+    return new TransitNode(stopId, stop.getLatitude(), stop.getLongitude(), time);
+  }
+
+  /**
+   * Scans the given route in the given round, starting at the given stop. The
+   * earliest trip that can be boarded at a stop reached in a previous round is
+   * ridden, stops reached earlier by it get a trip label.
+   *
+   * @param workspace          The workspace of the query
+   * @param routes             The routes of the timetable
+   * @param route              The route to scan
+   * @param firstStopIndex     The index of the first stop of the route
+   *                           improved in the previous round
+   * @param round              The current round
+   * @param latestDepTime      The time after which no trip is boarded
+   *                           anymore, in seconds since midnight
+   * @param destinationArrTime The earliest arrival at the destination before
+   *                           the round, in seconds since midnight
+   * @param statistics         The statistics to record the scan in
+   */
+  private void scanRoute(final Workspace workspace, final RouteStore routes, final int route,
+      final int firstStopIndex, final int round, final int latestDepTime, final int destinationArrTime,
+      final QueryStatistics statistics) {
+    final int amountOfStops = routes.getAmountOfStops(route);
+    final int amountOfTrips = routes.getAmountOfTrips(route);
+    int trip = NO_INDEX;
+    int shift = 0;
+    int boardIndex = 0;
+    // The times of all trips at a stop are consecutive, followed by those at
+    // the next stop of the route
+    for (int stopIndex = firstStopIndex, stopTimes = routes.getStopTimes(route, firstStopIndex);
+        stopIndex < amountOfStops; stopIndex++, stopTimes += amountOfTrips) {
+      final int stopId = routes.getStopId(route, stopIndex);
+
+      // Only take arrivals improving the stop. They are not compared to the
+      // arrival after walking, footpaths need not obey the triangle
+      // inequality. Times only increase along a trip, so once it arrives after
+      // the destination was reached it is left.
+      if (trip != NO_INDEX) {
+        statistics.incrementScannedConnections();
+        final int arrTime = routes.getArrTime(stopTimes + trip) + shift;
+        if (arrTime >= destinationArrTime) {
+          trip = NO_INDEX;
+        } else if (arrTime < workspace.getTripArrTime(stopId)) {
+          workspace.reachByTrip(round, stopId, arrTime, route, trip, boardIndex, stopIndex, shift);
+        }
+      }
+
+      // An earlier trip can only be caught if the stop was reached before the
+      // current trip departs. The best arrival of the stop is still the one of
+      // the previous round since it is only updated after all routes. Trips
+      // departing after the destination was reached can not improve it.
+      final int stopArrTime = workspace.getArrTime(stopId);
+      if (stopArrTime >= destinationArrTime || stopIndex == amountOfStops - 1) {
+        continue;
+      }
+      int earliestDepTime = Math.min(latestDepTime, destinationArrTime);
+      if (trip != NO_INDEX) {
+        earliestDepTime = routes.getDepTime(stopTimes + trip) + shift;
+        if (stopArrTime >= earliestDepTime) {
+          continue;
+        }
+      }
+
+      // Trip times are relative to the day the trip departs, which might be
+      // the day before, of or after the arrival at the stop. Trips of a route
+      // never overtake each other, so the first and last trip bound the
+      // departures of every day and most days need no search.
+      final int firstDepTime = routes.getDepTime(stopTimes);
+      final int lastDepTime = routes.getDepTime(stopTimes + amountOfTrips - 1);
+      final int day = stopArrTime / SECONDS_OF_DAY;
+      for (int dayShift = (day - 1) * SECONDS_OF_DAY; dayShift <= (day + 1) * SECONDS_OF_DAY;
+          dayShift += SECONDS_OF_DAY) {
+        if (lastDepTime + dayShift < stopArrTime || firstDepTime + dayShift >= earliestDepTime) {
+          continue;
+        }
+        final int candidate = firstDepTime + dayShift >= stopArrTime ? 0
+            : routes.indexOfFirstDepartingSince(route, stopIndex, stopArrTime - dayShift);
+        final int depTime = routes.getDepTime(stopTimes + candidate) + dayShift;
+        if (depTime < earliestDepTime) {
+          earliestDepTime = depTime;
+          trip = candidate;
+          shift = dayShift;
+          boardIndex = stopIndex;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.raptor;
+
+import com.transitnet.rpdemo.model.ICoreEdge;
+import com.transitnet.rpdemo.model.ICoreNode;
+import com.transitnet.rpdemo.model.IPath;
+
+/**
+ * A journey of the Pareto set computed by {@link Raptor}, i.e. a path together
+ * with its arrival time and its amount of transfers. No other journey of the
+ * set arrives earlier with at most as many transfers.
+ */
+public final class RaptorJourney {
+  /**
+   * The amount of transfers between trips.
+   */
+  private final int mAmountOfTransfers;
+  /**
+   * The arrival time at the destination in seconds since midnight, possibly
+   * shifted by a day.
+   */
+  private final int mArrTime;
+  /**
+   * The path of the journey.
+   */
+  private final IPath<ICoreNode, ICoreEdge<ICoreNode>> mPath;
+
+  /**
+   * Creates a new journey.
+   *
+   * @param path              The path of the journey
+   * @param arrTime           The arrival time at the destination in seconds
+   *                          since midnight, possibly shifted by a day
+   * @param amountOfTransfers The amount of transfers between trips
+   */
+  public RaptorJourney(final IPath<ICoreNode, ICoreEdge<ICoreNode>> path, final int arrTime,
+      final int amountOfTransfers) {
+    mPath = path;
+    mArrTime = arrTime;
+    mAmountOfTransfers = amountOfTransfers;
+  }
+
+  /**
+   * Gets the amount of transfers between trips. Journeys using a single trip
+   * or none have no transfers.
+   *
+   * @return The amount of transfers
+   */
+  public int getAmountOfTransfers() {
+    return mAmountOfTransfers;
+  }
+
+  /**
+   * Gets the arrival time at the destination.
+   *
+   * @return The arrival time in seconds since midnight, possibly shifted by a
+   *         day
+   */
+  public int getArrTime() {
+    return mArrTime;
+  }
+
+  /**
+   * Gets the path of the journey.
+   *
+   * @return The path
+   */
+  public IPath<ICoreNode, ICoreEdge<ICoreNode>> getPath() {
+    return mPath;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+    builder.append("RaptorJourney [arrTime=");
+    builder.append(mArrTime);
+    builder.append(", amountOfTransfers=");
+    builder.append(mAmountOfTransfers);
+    builder.append("]");
+    return builder.toString();
+  }
+}
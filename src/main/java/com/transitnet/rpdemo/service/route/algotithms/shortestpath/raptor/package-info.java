@@ -0,0 +1,5 @@
+/**
+ * Contains the Round-Based Public Transit Routing algorithm for answering
+ * queries on timetable models.
+ */
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.raptor;
@@ -3,7 +3,7 @@ package com.transitnet.rpdemo.service.route;
 import com.transitnet.rpdemo.model.ICoreEdge;
 import com.transitnet.rpdemo.model.ICoreNode;
 import com.transitnet.rpdemo.model.IGetNodeById;
-import com.transitnet.rpdemo.model.IGraph;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
 import com.transitnet.rpdemo.model.road.RoadGraph;
 import com.transitnet.rpdemo.model.timetable.Timetable;
 import com.transitnet.rpdemo.service.parse.ParseException;
@@ -12,11 +12,14 @@ import com.transitnet.rpdemo.service.parse.osm.databaseOprator;
 import com.transitnet.rpdemo.service.parse.osm.osmRoadBuilder;
 import com.transitnet.rpdemo.service.parse.osm.osmRoadHandler;
 import com.transitnet.rpdemo.service.route.algotithms.metrics.AsTheCrowFliesMetric;
+import com.transitnet.rpdemo.service.route.algotithms.metrics.IMetric;
+import com.transitnet.rpdemo.service.route.algotithms.metrics.landmark.ELandmarkStrategy;
 import com.transitnet.rpdemo.service.route.algotithms.nearestneighbor.CoverTree;
 import com.transitnet.rpdemo.service.route.algotithms.nearestneighbor.INearestNeighborComputation;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.ShortestPathComputationFactory;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.hybridmodel.IAccessNodeComputation;
 import com.transitnet.rpdemo.service.route.algotithms.shortestpath.hybridmodel.RoadToKNearestTransitAccess;
+import com.transitnet.rpdemo.service.route.snapshot.ModelSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +27,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
@@ -38,22 +43,38 @@ public class routingModelService {
     private int AbortTravelTimeToAccessNodes;
     @Value("${routingmodel.amountOfLandmarks}")
     private int AmountOfLandmarks;
+    @Value("${routingmodel.landmarkStrategy}")
+    private ELandmarkStrategy LandmarkStrategy;
     @Value("${routingmodel.transferDelay}")
     private int TransferDelay;
     @Value("${routingmodel.footpathReachability}")
     private int FootpathReachability;
+    @Value("${routingmodel.snapshotFile}")
+    private String SnapshotFile;
     @Autowired
     private databaseOprator mDatabase;
     @Autowired
     private osmRoadHandler osmRoadHandler;
+    /**
+     * 冻结后的路网图(CSR布局)，用于查询服务；在{@link #finishModel()}之前为<code>null</code>
+     */
+    private FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> mFrozenRoadGraph;
     /**
      * 最近邻road nodes计算器
      */
     private INearestNeighborComputation<ICoreNode> mNearestRoadNodeComputation;
     /**
-     * 路网图
+     * 从快照中加载的landmark度量，未从快照加载时为<code>null</code>
+     */
+    private IMetric<ICoreNode> mPreloadedMetric;
+    /**
+     * 解析OSM数据时构建的可变路网图，在{@link #configOsmHandler()}之前以及冻结之后为<code>null</code>
      */
     private RoadGraph<ICoreNode, ICoreEdge<ICoreNode>> mRoadGraph;
+    /**
+     * 最短路径算法工厂，在模型准备完成之前为<code>null</code>
+     */
+    private ShortestPathComputationFactory mShortestPathComputationFactory;
     /**
      * 时刻表模型
      */
@@ -62,10 +83,10 @@ public class routingModelService {
     public routingModelService() {
         LOGGER.info("Initializing model");
         mTimetable = new Timetable();
-        mRoadGraph = new RoadGraph<>();
     }
 
     public void configOsmHandler(){
+        mRoadGraph = new RoadGraph<>();
         final IosmRoadBuilder<ICoreNode, ICoreEdge<ICoreNode>> roadBuilder = new osmRoadBuilder<>(mRoadGraph, mRoadGraph);
         osmRoadHandler.setBuilderAndGraph(roadBuilder, mRoadGraph);
     }
@@ -81,10 +102,15 @@ public class routingModelService {
         final ShortestPathComputationFactory factory;
         final IAccessNodeComputation<ICoreNode, ICoreNode> accessNodeComputation =
                 new RoadToKNearestTransitAccess(mTimetable, AccessNodesMaximum);
-        factory = new ShortestPathComputationFactory(mRoadGraph, mTimetable, accessNodeComputation,
-                        mNearestRoadNodeComputation,AbortTravelTimeToAccessNodes,AmountOfLandmarks);
+        factory = new ShortestPathComputationFactory(getQueryGraph(), mTimetable, accessNodeComputation,
+                        mNearestRoadNodeComputation,AbortTravelTimeToAccessNodes,AmountOfLandmarks,
+                        LandmarkStrategy);
 
-        factory.initialize();
+        if (mPreloadedMetric != null) {
+            factory.initialize(mPreloadedMetric);
+        } else {
+            factory.initialize();
+        }
 
         final Instant preCompTimeEnd = Instant.now();
         LOGGER.info("Precomputation took: {}", Duration.between(preCompTimeStart, preCompTimeEnd));
@@ -93,7 +119,22 @@ public class routingModelService {
     }
 
     /**
-     * Finishes the preparation of the model. This may serialize the model.
+     * 删除模型快照文件（如果存在）
+     *
+     * @throws IOException If an I/O exception occurred while deleting
+     */
+    public void deleteSnapshot() throws IOException {
+        if (Files.deleteIfExists(Path.of(SnapshotFile))) {
+            LOGGER.info("Deleted model snapshot {}", SnapshotFile);
+        }
+    }
+
+    /**
+     * Finishes the preparation of the model. That is, the road graph is frozen
+     * and the mutable graph is released, the nearest road node computation and
+     * the shortest path computation factory are created and the model is
+     * serialized as snapshot, such that it can be loaded by
+     * {@link #loadModel()} on the next start.
      *
      * @throws ParseException If an exception occurred while parsing data like
      *                        configuration files or if an exception at
@@ -102,7 +143,30 @@ public class routingModelService {
     public void finishModel() throws ParseException {
         final int currentGraphSize;
         currentGraphSize = mRoadGraph.size();
-        //增加cache缓存逻辑
+        // 将路网图冻结为不可变的CSR结构，之后的查询都在冻结图上进行
+        LOGGER.info("Freezing road graph with {} nodes", currentGraphSize);
+        final Instant freezeStartTime = Instant.now();
+        mFrozenRoadGraph = mRoadGraph.freeze();
+        LOGGER.info("Freezing road graph took: {}", Duration.between(freezeStartTime, Instant.now()));
+        // 冻结图只共享节点与边对象，释放可变图及其邻接结构，解析器也不再持有它
+        mRoadGraph = null;
+        osmRoadHandler.release();
+
+        initializeNearestRoadNodeComputation();
+
+        mShortestPathComputationFactory = createShortestPathComputationFactory();
+
+        // 将模型写入快照，下次启动时可以跳过OSM解析
+        LOGGER.info("Writing model snapshot to {}", SnapshotFile);
+        final Instant snapshotStartTime = Instant.now();
+        final ModelSnapshot snapshot = new ModelSnapshot(mFrozenRoadGraph, mTimetable, mNearestRoadNodeComputation,
+                mShortestPathComputationFactory.getMetric());
+        try {
+            snapshot.writeTo(Path.of(SnapshotFile));
+        } catch (final IOException e) {
+            throw new ParseException(e);
+        }
+        LOGGER.info("Writing model snapshot took: {}", Duration.between(snapshotStartTime, Instant.now()));
     }
 
 
@@ -115,23 +179,43 @@ public class routingModelService {
         return mNearestRoadNodeComputation;
     }
 
+    /**
+     * Gets the factory used for creating shortest path computation algorithms.
+     *
+     * @return The factory, or <code>null</code> if the model is not prepared yet
+     */
+    public ShortestPathComputationFactory getShortestPathComputationFactory() {
+        return mShortestPathComputationFactory;
+    }
+
+    /**
+     * Gets the timetable of the model.
+     *
+     * @return The timetable
+     */
+    public Timetable getTimetable() {
+        return mTimetable;
+    }
+
     /**
      * Gets a node provider that is able to get nodes by their ID.
      *
-     * @return A node provider
+     * @return A node provider, or <code>null</code> if the road graph is not
+     *         frozen yet
      */
     public IGetNodeById<ICoreNode> getNodeProvider() {
-        return mRoadGraph;
+        return mFrozenRoadGraph;
     }
 
     /**
      * Gets the query graph used by this model. That is the graph that provides
      * the nodes to query on.
      *
-     * @return The query graph used by this model
+     * @return The query graph used by this model, or <code>null</code> if the
+     *         road graph is not frozen yet
      */
-    public IGraph<ICoreNode, ICoreEdge<ICoreNode>> getQueryGraph() {
-        return mRoadGraph;
+    public FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> getQueryGraph() {
+        return mFrozenRoadGraph;
     }
 
     /**
@@ -144,10 +228,32 @@ public class routingModelService {
     }
 
 
+    /**
+     * 从快照文件加载模型，代替OSM解析与预计算。快照中不包含的部分会重新计算。
+     *
+     * @throws IOException If an I/O exception occurred while reading the
+     *                     snapshot or if the snapshot is not valid
+     */
+    public void loadModel() throws IOException {
+        LOGGER.info("Loading model snapshot from {}", SnapshotFile);
+        final Instant loadStartTime = Instant.now();
+        final ModelSnapshot snapshot = ModelSnapshot.readFrom(Path.of(SnapshotFile));
+        mFrozenRoadGraph = snapshot.getRoadGraph();
+        mTimetable = snapshot.getTimetable();
+        mNearestRoadNodeComputation = snapshot.getNearestRoadNodeComputation();
+        mPreloadedMetric = snapshot.getMetric();
+        LOGGER.info("Loading model snapshot took: {}", Duration.between(loadStartTime, Instant.now()));
+
+        if (mNearestRoadNodeComputation == null) {
+            initializeNearestRoadNodeComputation();
+        }
+        mShortestPathComputationFactory = createShortestPathComputationFactory();
+    }
+
     public void prepareModelAfterData() {
-        initializeNearestRoadNodeComputation();
         // Road graph is implicitly linked by access node computation which is
-        // done on-the-fly
+        // done on-the-fly. The nearest road node computation is initialized
+        // on the frozen graph, see finishModel()
         // Correct the footpath model of the timetable
         mTimetable.correctFootpaths(TransferDelay, FootpathReachability);
     }
@@ -161,7 +267,7 @@ public class routingModelService {
         final Instant nearestNeighborsStartTime = Instant.now();
 
         final CoverTree<ICoreNode> nearestRoadNodeComputation = new CoverTree<>(new AsTheCrowFliesMetric<>());
-        for (final ICoreNode node : mRoadGraph.getNodes()) {
+        for (final ICoreNode node : mFrozenRoadGraph.getNodes()) {
             nearestRoadNodeComputation.insert(node);
         }
 
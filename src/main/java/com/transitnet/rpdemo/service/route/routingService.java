@@ -1,4 +1,446 @@
 package com.transitnet.rpdemo.service.route;
 
+import com.transitnet.rpdemo.model.ETransportationMode;
+import com.transitnet.rpdemo.model.EdgeCost;
+import com.transitnet.rpdemo.model.ICoreEdge;
+import com.transitnet.rpdemo.model.ICoreNode;
+import com.transitnet.rpdemo.model.IPath;
+import com.transitnet.rpdemo.model.TransportationModeMask;
+import com.transitnet.rpdemo.model.road.RoadNode;
+import com.transitnet.rpdemo.model.timetable.Stop;
+import com.transitnet.rpdemo.model.transit.TransitNode;
+import com.transitnet.rpdemo.pojo.ProfileElement;
+import com.transitnet.rpdemo.pojo.ProfileResponse;
+import com.transitnet.rpdemo.pojo.RouteElement;
+import com.transitnet.rpdemo.pojo.RouteResponse;
+import com.transitnet.rpdemo.service.route.algotithms.metrics.AsTheCrowFliesMetric;
+import com.transitnet.rpdemo.service.route.algotithms.nearestneighbor.CoverTree;
+import com.transitnet.rpdemo.service.route.algotithms.nearestneighbor.INearestNeighborComputation;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.CompactPath;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IShortestPathComputation;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryDeadline;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.QueryTimeoutException;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.ShortestPathComputationFactory;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.connectionscan.ConnectionScan;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.connectionscan.ConnectionScanPath;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.connectionscan.ConnectionScanProfile;
+import org.eclipse.collections.impl.list.mutable.primitive.ByteArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.FloatArrayList;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * 进程内的路径查询服务，供REST接口和其他服务直接调用。<br>
+ * <br>
+ * 查询坐标会被吸附到最近的路网节点或站点上。路径查询是CPU密集型的，同时进行的查询数量
+ * 由一个信号量限制，多余的请求线程会等待，直到有空闲名额或查询超时。所有查询都使用
+ * 模型中线程安全的算法实例，服务本身不保存查询状态。
+ */
+@Service
 public class routingService {
+    /**
+     * Converts the given time in milliseconds since epoch to seconds since
+     * midnight at the given date.
+     *
+     * @param millis The time in milliseconds since epoch to convert
+     * @return The time in seconds since midnight at the given date
+     */
+    private static int millisSinceEpochToSecondsSinceMidnight(final long millis) {
+        final LocalDateTime dateTimeAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        return dateTimeAt.toLocalTime().toSecondOfDay();
+    }
+
+    /**
+     * Splits the given path into parts of the same transportation mode.<br>
+     * <br>
+     * Paths of the compact engines provide their geometry, modes and costs
+     * directly, only other paths are iterated edge by edge.
+     *
+     * @param path     The path to split
+     * @param modeMask The allowed transportation modes. An edge is travelled
+     *                 with its fastest mode among them.
+     * @return The parts of the path, in travel order
+     */
+    private static List<RouteElement> toRouteElements(final IPath<ICoreNode, ICoreEdge<ICoreNode>> path,
+            final byte modeMask) {
+        if (path instanceof CompactPath<ICoreNode, ICoreEdge<ICoreNode>> compactPath) {
+            return routingService.toRouteElements(compactPath.getGeometry(), compactPath::getEdgeModes,
+                    compactPath::getEdgeCost, path.length(), modeMask);
+        }
+        if (path instanceof ConnectionScanPath connectionScanPath) {
+            return routingService.toRouteElements(connectionScanPath.getGeometry(), connectionScanPath::getEdgeModes,
+                    connectionScanPath::getEdgeCost, path.length(), modeMask);
+        }
+
+        final FloatArrayList geometry = new FloatArrayList();
+        final ByteArrayList edgeModes = new ByteArrayList();
+        final DoubleArrayList edgeCosts = new DoubleArrayList();
+        for (final EdgeCost<ICoreNode, ICoreEdge<ICoreNode>> edgeCost : path) {
+            final ICoreEdge<ICoreNode> edge = edgeCost.getEdge();
+            if (geometry.isEmpty()) {
+                geometry.add(edge.getSource().getLatitude());
+                geometry.add(edge.getSource().getLongitude());
+            }
+            geometry.add(edge.getDestination().getLatitude());
+            geometry.add(edge.getDestination().getLongitude());
+            edgeModes.add(edge.getTransportationModeMask());
+            edgeCosts.add(edgeCost.getCost());
+        }
+        return routingService.toRouteElements(geometry.toArray(), edgeModes::get, edgeCosts::get, edgeModes.size(),
+                modeMask);
+    }
+
+    /**
+     * Splits a path, given by the coordinates of its nodes and the modes and
+     * costs of its edges, into parts of the same transportation mode.
+     *
+     * @param geometry      The latitude and longitude of each node of the path,
+     *                      interleaved, in travel order
+     * @param edgeModes     Gets the modes allowed on the edge at the given
+     *                      position, as bit mask
+     * @param edgeCosts     Gets the cost of the edge at the given position
+     * @param amountOfEdges The amount of edges of the path
+     * @param modeMask      The allowed transportation modes. An edge is
+     *                      travelled with its fastest mode among them.
+     * @return The parts of the path, in travel order
+     */
+    private static List<RouteElement> toRouteElements(final float[] geometry, final IntUnaryOperator edgeModes,
+            final IntToDoubleFunction edgeCosts, final int amountOfEdges, final byte modeMask) {
+        final List<RouteElement> route = new ArrayList<>();
+        ETransportationMode currentMode = null;
+        double currentDuration = 0.0;
+        int currentStart = 0;
+        for (int i = 0; i < amountOfEdges; i++) {
+            final byte edgeMask = (byte) edgeModes.applyAsInt(i);
+            final byte usedMask = (byte) (edgeMask & modeMask);
+            // Edges not allowing any of the modes, like transit edges, keep their own
+            final ETransportationMode fastestMode = TransportationModeMask
+                    .getFastestMode(usedMask == TransportationModeMask.EMPTY ? edgeMask : usedMask);
+            final ETransportationMode mode = fastestMode == null ? ETransportationMode.IRRELEVANT : fastestMode;
+
+            if (mode != currentMode) {
+                if (currentMode != null) {
+                    route.add(new RouteElement(currentMode.getValue(), currentDuration,
+                            Arrays.copyOfRange(geometry, 2 * currentStart, 2 * i + 2)));
+                }
+                currentMode = mode;
+                currentDuration = 0.0;
+                currentStart = i;
+            }
+            currentDuration += edgeCosts.applyAsDouble(i);
+        }
+        if (currentMode != null) {
+            route.add(new RouteElement(currentMode.getValue(), currentDuration,
+                    Arrays.copyOfRange(geometry, 2 * currentStart, 2 * amountOfEdges + 2)));
+        }
+        return route;
+    }
+
+    /**
+     * 最近站点计算器，第一次公交查询时构建
+     */
+    private volatile INearestNeighborComputation<Stop> mNearestStopComputation;
+    /**
+     * 限制同时进行的查询数量
+     */
+    private final Semaphore mQueryPermits;
+    /**
+     * 单次查询的最长时间，包括等待查询名额的时间
+     */
+    private final Duration mQueryTimeout;
+    /**
+     * 路由模型
+     */
+    private final routingModelService mRoutingModel;
+
+    /**
+     * Creates a new routing service on the given model.
+     *
+     * @param routingModel         The model to route on
+     * @param maxConcurrentQueries The greatest amount of queries computed at the
+     *                             same time
+     * @param queryTimeout         The greatest time a query may take, including
+     *                             the time waiting for a query slot, in
+     *                             milliseconds
+     */
+    public routingService(final routingModelService routingModel,
+            @Value("${routingservice.maxConcurrentQueries}") final int maxConcurrentQueries,
+            @Value("${routingservice.queryTimeout}") final long queryTimeout) {
+        mRoutingModel = routingModel;
+        mQueryPermits = new Semaphore(maxConcurrentQueries);
+        mQueryTimeout = Duration.ofMillis(queryTimeout);
+    }
+
+    /**
+     * Computes a route which combines roads and transit, departing at the given
+     * time. Roads are only taken if they allow one of the given modes, transit
+     * is only taken if the modes contain {@link ETransportationMode#TRAM}.
+     *
+     * @param fromLatitude  The latitude to start at
+     * @param fromLongitude The longitude to start at
+     * @param toLatitude    The latitude to route to
+     * @param toLongitude   The longitude to route to
+     * @param depTime       The departure time in milliseconds since epoch
+     * @param modes         The transportation mode restrictions
+     * @return The route if present, else empty
+     * @throws ModelNotPreparedException If the model is not prepared yet
+     * @throws InterruptedException       If the thread was interrupted while
+     *                                    waiting for a free query slot
+     */
+    public Optional<RouteResponse> computeMultimodalRoute(final float fromLatitude, final float fromLongitude,
+            final float toLatitude, final float toLongitude, final long depTime,
+            final Set<ETransportationMode> modes) throws InterruptedException {
+        final ShortestPathComputationFactory factory = getFactory();
+        return computeRoadRoute(factory.createAlgorithm(depTime, modes), fromLatitude, fromLongitude, toLatitude,
+                toLongitude, depTime, modes);
+    }
+
+    /**
+     * Computes a route on roads which allow one of the given modes.
+     *
+     * @param fromLatitude  The latitude to start at
+     * @param fromLongitude The longitude to start at
+     * @param toLatitude    The latitude to route to
+     * @param toLongitude   The longitude to route to
+     * @param modes         The transportation mode restrictions
+     * @return The route if present, else empty
+     * @throws ModelNotPreparedException If the model is not prepared yet
+     * @throws InterruptedException       If the thread was interrupted while
+     *                                    waiting for a free query slot
+     */
+    public Optional<RouteResponse> computeRoute(final float fromLatitude, final float fromLongitude,
+            final float toLatitude, final float toLongitude, final Set<ETransportationMode> modes)
+            throws InterruptedException {
+        final ShortestPathComputationFactory factory = getFactory();
+        return computeRoadRoute(factory.createAlgorithmCustomizableContractionHierarchy(modes), fromLatitude,
+                fromLongitude, toLatitude, toLongitude, System.currentTimeMillis(), modes);
+    }
+
+    /**
+     * Computes the profile of routes on the timetable departing within the given
+     * window, i.e. the earliest arrival for every departure time in it, in a
+     * single query. The coordinates are snapped to the nearest stops.
+     *
+     * @param fromLatitude    The latitude to start at
+     * @param fromLongitude   The longitude to start at
+     * @param toLatitude      The latitude to route to
+     * @param toLongitude     The longitude to route to
+     * @param earliestDepTime The begin of the departure window in milliseconds
+     *                        since epoch
+     * @param latestDepTime   The end of the departure window in milliseconds
+     *                        since epoch
+     * @return The profile if the destination is reachable, else empty
+     * @throws IllegalArgumentException  If the window is empty or not shorter
+     *                                   than a day
+     * @throws ModelNotPreparedException If the model is not prepared yet
+     * @throws InterruptedException      If the thread was interrupted while
+     *                                   waiting for a free query slot
+     */
+    public Optional<ProfileResponse> computeTransitProfile(final float fromLatitude, final float fromLongitude,
+            final float toLatitude, final float toLongitude, final long earliestDepTime, final long latestDepTime)
+            throws InterruptedException {
+        if (latestDepTime < earliestDepTime || latestDepTime - earliestDepTime >= TimeUnit.DAYS.toMillis(1)) {
+            throw new IllegalArgumentException("The departure window must not be empty and be shorter than a day");
+        }
+        final ShortestPathComputationFactory factory = getFactory();
+        final Optional<Stop> source = getNearestStop(fromLatitude, fromLongitude);
+        final Optional<Stop> destination = getNearestStop(toLatitude, toLongitude);
+        if (source.isEmpty() || destination.isEmpty()) {
+            return Optional.empty();
+        }
+
+        final long startTime = System.currentTimeMillis();
+        final int earliestSeconds = routingService.millisSinceEpochToSecondsSinceMidnight(earliestDepTime);
+        final int latestSeconds = earliestSeconds + (int) ((latestDepTime - earliestDepTime) / 1000);
+        final ConnectionScan computation = factory.createAlgorithmCsa();
+        final ConnectionScanProfile profile = runQuery(() -> computation.computeProfile(source.get(),
+                destination.get(), earliestSeconds, latestSeconds));
+
+        // 将相对于窗口起点的秒数换算回自epoch以来的毫秒数
+        final List<ProfileElement> journeys = new ArrayList<>(profile.size());
+        for (int i = 0; i < profile.size(); i++) {
+            journeys.add(new ProfileElement(earliestDepTime + 1000L * (profile.getDepTime(i) - earliestSeconds),
+                    earliestDepTime + 1000L * (profile.getArrTime(i) - earliestSeconds)));
+        }
+        final OptionalInt walkingDuration = profile.getWalkingDuration();
+        if (journeys.isEmpty() && walkingDuration.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new ProfileResponse(journeys,
+                walkingDuration.isPresent() ? Double.valueOf(walkingDuration.getAsInt()) : null,
+                System.currentTimeMillis() - startTime));
+    }
+
+    /**
+     * Computes a route on the timetable, departing at the given time. The
+     * coordinates are snapped to the nearest stops.
+     *
+     * @param fromLatitude  The latitude to start at
+     * @param fromLongitude The longitude to start at
+     * @param toLatitude    The latitude to route to
+     * @param toLongitude   The longitude to route to
+     * @param depTime       The departure time in milliseconds since epoch
+     * @return The route if present, else empty
+     * @throws ModelNotPreparedException If the model is not prepared yet
+     * @throws InterruptedException       If the thread was interrupted while
+     *                                    waiting for a free query slot
+     */
+    public Optional<RouteResponse> computeTransitRoute(final float fromLatitude, final float fromLongitude,
+            final float toLatitude, final float toLongitude, final long depTime) throws InterruptedException {
+        final ShortestPathComputationFactory factory = getFactory();
+        final Optional<Stop> source = getNearestStop(fromLatitude, fromLongitude);
+        final Optional<Stop> destination = getNearestStop(toLatitude, toLongitude);
+        if (source.isEmpty() || destination.isEmpty()) {
+            return Optional.empty();
+        }
+
+        final TransitNode sourceAtTime = new TransitNode(source.get().getId(), source.get().getLatitude(),
+                source.get().getLongitude(), routingService.millisSinceEpochToSecondsSinceMidnight(depTime));
+        return computeRoute(factory.createAlgorithmCsa(), sourceAtTime, destination.get(), depTime,
+                TransportationModeMask.of(ETransportationMode.TRAM));
+    }
+
+    /**
+     * Computes a route between the road nodes nearest to the given coordinates.
+     *
+     * @param computation   The algorithm to use
+     * @param fromLatitude  The latitude to start at
+     * @param fromLongitude The longitude to start at
+     * @param toLatitude    The latitude to route to
+     * @param toLongitude   The longitude to route to
+     * @param depTime       The departure time in milliseconds since epoch
+     * @param modes         The transportation mode restrictions
+     * @return The route if present, else empty
+     * @throws InterruptedException If the thread was interrupted while waiting
+     *                              for a free query slot
+     */
+    private Optional<RouteResponse> computeRoadRoute(
+            final IShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> computation, final float fromLatitude,
+            final float fromLongitude, final float toLatitude, final float toLongitude, final long depTime,
+            final Set<ETransportationMode> modes) throws InterruptedException {
+        final INearestNeighborComputation<ICoreNode> nearestRoadNodeComputation =
+                mRoutingModel.getNearestRoadNodeComputation();
+        final Optional<ICoreNode> source =
+                nearestRoadNodeComputation.getNearestNeighbor(new RoadNode(0, fromLatitude, fromLongitude));
+        final Optional<ICoreNode> destination =
+                nearestRoadNodeComputation.getNearestNeighbor(new RoadNode(0, toLatitude, toLongitude));
+        if (source.isEmpty() || destination.isEmpty()) {
+            return Optional.empty();
+        }
+        return computeRoute(computation, source.get(), destination.get(), depTime, TransportationModeMask.of(modes));
+    }
+
+    /**
+     * Computes a route between the given nodes, once a query slot is free. The
+     * query is aborted once it exceeds the configured timeout.
+     *
+     * @param computation The algorithm to use
+     * @param source      The node to start at
+     * @param destination The node to route to
+     * @param depTime     The departure time in milliseconds since epoch
+     * @param modeMask    The allowed transportation modes, used to tell which
+     *                    mode an edge was travelled with
+     * @return The route if present, else empty
+     * @throws InterruptedException  If the thread was interrupted while waiting
+     *                               for a free query slot
+     * @throws QueryTimeoutException If no query slot got free or the query did
+     *                               not finish in time
+     */
+    private Optional<RouteResponse> computeRoute(
+            final IShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> computation, final ICoreNode source,
+            final ICoreNode destination, final long depTime, final byte modeMask)
+            throws InterruptedException, QueryTimeoutException {
+        final long startTime = System.currentTimeMillis();
+        final Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> path =
+                runQuery(() -> computation.computeShortestPath(source, destination));
+        return path.map(presentPath -> new RouteResponse(depTime, presentPath.getTotalCost(),
+                routingService.toRouteElements(presentPath, modeMask), System.currentTimeMillis() - startTime));
+    }
+
+    /**
+     * Gets the factory of the model.
+     *
+     * @return The factory
+     * @throws ModelNotPreparedException If the model is not prepared yet
+     */
+    private ShortestPathComputationFactory getFactory() {
+        final ShortestPathComputationFactory factory = mRoutingModel.getShortestPathComputationFactory();
+        if (factory == null) {
+            throw new ModelNotPreparedException();
+        }
+        return factory;
+    }
+
+    /**
+     * Gets the stop nearest to the given coordinates.
+     *
+     * @param latitude  The latitude to snap
+     * @param longitude The longitude to snap
+     * @return The nearest stop if there is any, else empty
+     */
+    private Optional<Stop> getNearestStop(final float latitude, final float longitude) {
+        return getNearestStopComputation().getNearestNeighbor(new Stop(0, latitude, longitude));
+    }
+
+    /**
+     * Gets the nearest stop computation, builds it on first usage.
+     *
+     * @return The nearest stop computation
+     */
+    private INearestNeighborComputation<Stop> getNearestStopComputation() {
+        INearestNeighborComputation<Stop> nearestStopComputation = mNearestStopComputation;
+        if (nearestStopComputation == null) {
+            synchronized (this) {
+                nearestStopComputation = mNearestStopComputation;
+                if (nearestStopComputation == null) {
+                    final CoverTree<Stop> coverTree = new CoverTree<>(new AsTheCrowFliesMetric<>());
+                    mRoutingModel.getTimetable().getStops().forEach(coverTree::insert);
+                    nearestStopComputation = coverTree;
+                    mNearestStopComputation = nearestStopComputation;
+                }
+            }
+        }
+        return nearestStopComputation;
+    }
+
+    /**
+     * Runs the given query once a query slot is free. The query is aborted once
+     * it exceeds the configured timeout.
+     *
+     * @param query The query to run
+     * @param <T>   The type of the result of the query
+     * @return The result of the query
+     * @throws InterruptedException  If the thread was interrupted while waiting
+     *                               for a free query slot
+     * @throws QueryTimeoutException If no query slot got free or the query did
+     *                               not finish in time
+     */
+    private <T> T runQuery(final Supplier<T> query) throws InterruptedException, QueryTimeoutException {
+        final QueryDeadline deadline = QueryDeadline.after(mQueryTimeout);
+        if (!mQueryPermits.tryAcquire(deadline.getRemainingNanos(), TimeUnit.NANOSECONDS)) {
+            throw new QueryTimeoutException();
+        }
+        try {
+            return deadline.run(query);
+        } finally {
+            mQueryPermits.release();
+        }
+    }
 }
@@ -0,0 +1,573 @@
+package com.transitnet.rpdemo.service.route.snapshot;
+
+import com.transitnet.rpdemo.model.Footpath;
+import com.transitnet.rpdemo.model.ICoreEdge;
+import com.transitnet.rpdemo.model.ICoreNode;
+import com.transitnet.rpdemo.model.IGraph;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
+import com.transitnet.rpdemo.model.road.RoadEdge;
+import com.transitnet.rpdemo.model.road.RoadNode;
+import com.transitnet.rpdemo.model.timetable.Connection;
+import com.transitnet.rpdemo.model.timetable.Stop;
+import com.transitnet.rpdemo.model.timetable.Timetable;
+import com.transitnet.rpdemo.model.timetable.Trip;
+import com.transitnet.rpdemo.service.parse.osm.EHighwayType;
+import com.transitnet.rpdemo.service.route.algotithms.metrics.AsTheCrowFliesMetric;
+import com.transitnet.rpdemo.service.route.algotithms.metrics.IMetric;
+import com.transitnet.rpdemo.service.route.algotithms.metrics.landmark.LandmarkMetric;
+import com.transitnet.rpdemo.service.route.algotithms.nearestneighbor.CoverTree;
+import com.transitnet.rpdemo.service.route.algotithms.nearestneighbor.INearestNeighborComputation;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A snapshot of the routing model which can be written to and restored from a
+ * versioned binary file. It covers the frozen road graph, the timetable, the
+ * nearest road node index and the landmark tables.<br>
+ * <br>
+ * The file consists of a header with a magic number and the format version,
+ * followed by one section per model part. All values are stored in big-endian
+ * byte order, as produced by {@link DataOutput}. Arrays are stored column-wise,
+ * such that they can be read in bulk from the memory-mapped file. Nodes are
+ * referenced by their dense index in the {@link FrozenRoadGraph}. The road
+ * graph is stored in its compressed sparse row layout and restored without
+ * building adjacency structures again.<br>
+ * <br>
+ * The road graph must consist of {@link RoadNode}s and {@link RoadEdge}s. The
+ * nearest neighbor computation is only stored if it is a {@link CoverTree} and
+ * the metric only if it is a {@link LandmarkMetric}, otherwise they are
+ * restored as <code>null</code> and need to be recomputed.
+ */
+public final class ModelSnapshot {
+  /**
+   * The version of the file format. Must be increased whenever the format
+   * changes, files of other versions are rejected.
+   */
+  public static final int FORMAT_VERSION = 2;
+  /**
+   * Magic number at the start of each snapshot file, <code>RPSNAPSH</code> in
+   * ASCII.
+   */
+  private static final long MAGIC = 0x5250534E41505348L;
+  /**
+   * Tag of the section containing the landmark tables, <code>LMRK</code> in
+   * ASCII.
+   */
+  private static final int SECTION_LANDMARKS = 0x4C4D524B;
+  /**
+   * Tag of the section containing the nearest road node index,
+   * <code>NNIX</code> in ASCII.
+   */
+  private static final int SECTION_NEAREST_NEIGHBOR = 0x4E4E4958;
+  /**
+   * Tag of the section containing the road graph, <code>ROAD</code> in ASCII.
+   */
+  private static final int SECTION_ROAD = 0x524F4144;
+  /**
+   * Tag of the section containing the timetable, <code>TTBL</code> in ASCII.
+   */
+  private static final int SECTION_TIMETABLE = 0x5454424C;
+  /**
+   * Value used to encode a highway type of <code>null</code>.
+   */
+  private static final byte UNKNOWN_HIGHWAY_TYPE = -1;
+
+  /**
+   * Restores a model snapshot from the given file. The file is read using
+   * memory-mapped I/O.
+   *
+   * @param file The file to read
+   * @return The restored snapshot
+   * @throws IOException If an I/O exception occurred while reading or if the
+   *                     file is not a snapshot of the supported version
+   */
+  public static ModelSnapshot readFrom(final Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Snapshot files larger than 2 GiB are not supported: " + file);
+      }
+      final ByteBuffer input = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+      if (input.getLong() != MAGIC) {
+        throw new IOException("The file is not a model snapshot: " + file);
+      }
+      final int version = input.getInt();
+      if (version != FORMAT_VERSION) {
+        throw new IOException("Unsupported snapshot version " + version + ", expected " + FORMAT_VERSION);
+      }
+
+      ModelSnapshot.expectSection(input, SECTION_ROAD);
+      final FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> graph = ModelSnapshot.readRoadGraph(input);
+
+      ModelSnapshot.expectSection(input, SECTION_TIMETABLE);
+      final Timetable table = ModelSnapshot.readTimetable(input);
+
+      ModelSnapshot.expectSection(input, SECTION_NEAREST_NEIGHBOR);
+      CoverTree<ICoreNode> nearestRoadNodeComputation = null;
+      if (input.get() != 0) {
+        nearestRoadNodeComputation =
+            CoverTree.readFrom(input, graph::getNode, new AsTheCrowFliesMetric<>());
+      }
+
+      ModelSnapshot.expectSection(input, SECTION_LANDMARKS);
+      final IMetric<ICoreNode> metric = ModelSnapshot.readLandmarkMetric(input, graph);
+
+      return new ModelSnapshot(graph, table, nearestRoadNodeComputation, metric);
+    } catch (final BufferUnderflowException | IllegalArgumentException e) {
+      throw new IOException("The snapshot file is corrupted: " + file, e);
+    }
+  }
+
+  /**
+   * Reads the next section tag from the input and ensures that it matches the
+   * expected tag.
+   *
+   * @param input       The input to read from
+   * @param expectedTag The expected tag
+   * @throws IOException If the tag does not match
+   */
+  private static void expectSection(final ByteBuffer input, final int expectedTag) throws IOException {
+    final int tag = input.getInt();
+    if (tag != expectedTag) {
+      throw new IOException("Unexpected snapshot section " + Integer.toHexString(tag) + ", expected "
+          + Integer.toHexString(expectedTag));
+    }
+  }
+
+  /**
+   * Reads an array of bytes in bulk.
+   *
+   * @param input  The input to read from
+   * @param length The length of the array
+   * @return The array
+   */
+  private static byte[] readByteArray(final ByteBuffer input, final int length) {
+    final byte[] values = new byte[length];
+    input.get(values);
+    return values;
+  }
+
+  /**
+   * Reads an array of floats in bulk.
+   *
+   * @param input  The input to read from
+   * @param length The length of the array
+   * @return The array
+   */
+  private static float[] readFloatArray(final ByteBuffer input, final int length) {
+    final float[] values = new float[length];
+    input.asFloatBuffer().get(values);
+    input.position(input.position() + length * Float.BYTES);
+    return values;
+  }
+
+  /**
+   * Reads an array of integers in bulk.
+   *
+   * @param input  The input to read from
+   * @param length The length of the array
+   * @return The array
+   */
+  private static int[] readIntArray(final ByteBuffer input, final int length) {
+    final int[] values = new int[length];
+    input.asIntBuffer().get(values);
+    input.position(input.position() + length * Integer.BYTES);
+    return values;
+  }
+
+  /**
+   * Reads the landmark section.
+   *
+   * @param input The input to read from
+   * @param graph The graph the landmarks belong to
+   * @return The landmark metric or <code>null</code> if not contained
+   */
+  private static IMetric<ICoreNode> readLandmarkMetric(final ByteBuffer input,
+      final FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> graph) {
+    final int amountOfLandmarks = input.getInt();
+    if (amountOfLandmarks == 0) {
+      return null;
+    }
+    final int amountOfNodes = graph.size();
+    final int[] landmarkIndices = ModelSnapshot.readIntArray(input, amountOfLandmarks);
+    final float[][] landmarkToNode = new float[amountOfLandmarks][];
+    final float[][] nodeToLandmark = new float[amountOfLandmarks][];
+    final Map<ICoreNode, Integer> landmarkToPosition = new HashMap<>();
+    final List<ICoreNode> landmarks = new ArrayList<>(amountOfLandmarks);
+    for (int i = 0; i < amountOfLandmarks; i++) {
+      final ICoreNode landmark = graph.getNode(landmarkIndices[i]);
+      landmarks.add(landmark);
+      landmarkToPosition.put(landmark, i);
+      landmarkToNode[i] = ModelSnapshot.readFloatArray(input, amountOfNodes);
+      nodeToLandmark[i] = ModelSnapshot.readFloatArray(input, amountOfNodes);
+    }
+
+    return new LandmarkMetric<ICoreNode, ICoreEdge<ICoreNode>, IGraph<ICoreNode, ICoreEdge<ICoreNode>>>(landmarks,
+        graph.getNodes(),
+        (landmark, node) -> landmarkToNode[landmarkToPosition.get(landmark)][graph.getIndex(node)],
+        (node, landmark) -> nodeToLandmark[landmarkToPosition.get(landmark)][graph.getIndex(node)]);
+  }
+
+  /**
+   * Reads the road graph section.
+   *
+   * @param input The input to read from
+   * @return The frozen road graph
+   */
+  @SuppressWarnings("unchecked")
+  private static FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> readRoadGraph(final ByteBuffer input) {
+    final int amountOfNodes = input.getInt();
+    final int[] ids = ModelSnapshot.readIntArray(input, amountOfNodes);
+    final float[] latitudes = ModelSnapshot.readFloatArray(input, amountOfNodes);
+    final float[] longitudes = ModelSnapshot.readFloatArray(input, amountOfNodes);
+    final ICoreNode[] nodes = new ICoreNode[amountOfNodes];
+    for (int i = 0; i < amountOfNodes; i++) {
+      nodes[i] = new RoadNode(ids[i], latitudes[i], longitudes[i]);
+    }
+
+    final int amountOfEdges = input.getInt();
+    final int[] firstOutgoingEdge = ModelSnapshot.readIntArray(input, amountOfNodes + 1);
+    final int[] targets = ModelSnapshot.readIntArray(input, amountOfEdges);
+    final int[] wayIds = ModelSnapshot.readIntArray(input, amountOfEdges);
+    final int[] maxSpeeds = ModelSnapshot.readIntArray(input, amountOfEdges);
+    final byte[] types = ModelSnapshot.readByteArray(input, amountOfEdges);
+    final byte[] modes = ModelSnapshot.readByteArray(input, amountOfEdges);
+    final EHighwayType[] allTypes = EHighwayType.values();
+    final ICoreEdge<ICoreNode>[] edges = new ICoreEdge[amountOfEdges];
+    // Offsets of a corrupted file are clamped here and rejected by the graph
+    for (int source = 0; source < amountOfNodes; source++) {
+      final int lastEdge = Math.min(firstOutgoingEdge[source + 1], amountOfEdges);
+      for (int i = Math.max(firstOutgoingEdge[source], 0); i < lastEdge; i++) {
+        final EHighwayType type = types[i] == UNKNOWN_HIGHWAY_TYPE ? null : allTypes[types[i]];
+        edges[i] = new RoadEdge<>(wayIds[i], nodes[source], nodes[targets[i]], type, maxSpeeds[i], modes[i]);
+      }
+    }
+
+    return new FrozenRoadGraph<>(nodes, edges, firstOutgoingEdge, targets);
+  }
+
+  /**
+   * Reads the timetable section.
+   *
+   * @param input The input to read from
+   * @return The timetable
+   */
+  private static Timetable readTimetable(final ByteBuffer input) {
+    final Timetable table = new Timetable();
+
+    final int amountOfStops = input.getInt();
+    final int[] stopIds = ModelSnapshot.readIntArray(input, amountOfStops);
+    final float[] latitudes = ModelSnapshot.readFloatArray(input, amountOfStops);
+    final float[] longitudes = ModelSnapshot.readFloatArray(input, amountOfStops);
+    for (int i = 0; i < amountOfStops; i++) {
+      table.addStop(new Stop(stopIds[i], latitudes[i], longitudes[i]));
+    }
+
+    final int amountOfConnections = input.getInt();
+    final int[] tripIds = ModelSnapshot.readIntArray(input, amountOfConnections);
+    final int[] sequenceIndices = ModelSnapshot.readIntArray(input, amountOfConnections);
+    final int[] depStopIds = ModelSnapshot.readIntArray(input, amountOfConnections);
+    final int[] arrStopIds = ModelSnapshot.readIntArray(input, amountOfConnections);
+    final int[] depTimes = ModelSnapshot.readIntArray(input, amountOfConnections);
+    final int[] arrTimes = ModelSnapshot.readIntArray(input, amountOfConnections);
+    final List<Connection> connections = new ArrayList<>(amountOfConnections);
+    for (int i = 0; i < amountOfConnections; i++) {
+      connections.add(new Connection(tripIds[i], sequenceIndices[i], depStopIds[i], arrStopIds[i], depTimes[i],
+          arrTimes[i]));
+    }
+    table.addConnections(connections);
+
+    final int amountOfTrips = input.getInt();
+    for (int i = 0; i < amountOfTrips; i++) {
+      final Trip trip = new Trip(input.getInt());
+      final int sequenceLength = input.getInt();
+      for (int j = 0; j < sequenceLength; j++) {
+        trip.addConnectionToSequence(connections.get(input.getInt()));
+      }
+      table.addTrip(trip);
+    }
+
+    final int amountOfFootpaths = input.getInt();
+    final int[] footpathDepStopIds = ModelSnapshot.readIntArray(input, amountOfFootpaths);
+    final int[] footpathArrStopIds = ModelSnapshot.readIntArray(input, amountOfFootpaths);
+    final int[] durations = ModelSnapshot.readIntArray(input, amountOfFootpaths);
+    for (int i = 0; i < amountOfFootpaths; i++) {
+      table.addFootpath(new Footpath(footpathDepStopIds[i], footpathArrStopIds[i], durations[i]));
+    }
+
+    return table;
+  }
+
+  /**
+   * The metric used for the A-star heuristic, or <code>null</code> if not
+   * present.
+   */
+  private final IMetric<ICoreNode> mMetric;
+  /**
+   * The nearest road node computation, or <code>null</code> if not present.
+   */
+  private final INearestNeighborComputation<ICoreNode> mNearestRoadNodeComputation;
+  /**
+   * The frozen road graph.
+   */
+  private final FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> mRoadGraph;
+  /**
+   * The timetable.
+   */
+  private final Timetable mTimetable;
+
+  /**
+   * Creates a new model snapshot.
+   *
+   * @param roadGraph                  The frozen road graph
+   * @param timetable                  The timetable
+   * @param nearestRoadNodeComputation The nearest road node computation, or
+   *                                   <code>null</code> if not present. Only a
+   *                                   {@link CoverTree} is written.
+   * @param metric                     The metric used for the A-star heuristic,
+   *                                   or <code>null</code> if not present. Only a
+   *                                   {@link LandmarkMetric} is written.
+   */
+  public ModelSnapshot(final FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> roadGraph, final Timetable timetable,
+      final INearestNeighborComputation<ICoreNode> nearestRoadNodeComputation, final IMetric<ICoreNode> metric) {
+    mRoadGraph = roadGraph;
+    mTimetable = timetable;
+    mNearestRoadNodeComputation = nearestRoadNodeComputation;
+    mMetric = metric;
+  }
+
+  /**
+   * Gets the metric used for the A-star heuristic.
+   *
+   * @return The metric, or <code>null</code> if not present
+   */
+  public IMetric<ICoreNode> getMetric() {
+    return mMetric;
+  }
+
+  /**
+   * Gets the nearest road node computation.
+   *
+   * @return The nearest road node computation, or <code>null</code> if not
+   *         present
+   */
+  public INearestNeighborComputation<ICoreNode> getNearestRoadNodeComputation() {
+    return mNearestRoadNodeComputation;
+  }
+
+  /**
+   * Gets the frozen road graph.
+   *
+   * @return The frozen road graph
+   */
+  public FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> getRoadGraph() {
+    return mRoadGraph;
+  }
+
+  /**
+   * Gets the timetable.
+   *
+   * @return The timetable
+   */
+  public Timetable getTimetable() {
+    return mTimetable;
+  }
+
+  /**
+   * Writes this snapshot to the given file. The file is first written to a
+   * temporary file next to it, which then replaces the given file. Thus, an
+   * existing snapshot is not corrupted if writing fails.
+   *
+   * @param file The file to write to
+   * @throws IOException If an I/O exception occurred while writing
+   */
+  public void writeTo(final Path file) throws IOException {
+    final Path directory = file.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    final Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile), 1 << 16))) {
+        output.writeLong(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+
+        output.writeInt(SECTION_ROAD);
+        writeRoadGraph(output);
+
+        output.writeInt(SECTION_TIMETABLE);
+        writeTimetable(output);
+
+        output.writeInt(SECTION_NEAREST_NEIGHBOR);
+        final boolean hasCoverTree = mNearestRoadNodeComputation instanceof CoverTree;
+        output.writeBoolean(hasCoverTree);
+        if (hasCoverTree) {
+          ((CoverTree<ICoreNode>) mNearestRoadNodeComputation).writeTo(output, mRoadGraph::getIndex);
+        }
+
+        output.writeInt(SECTION_LANDMARKS);
+        writeLandmarkMetric(output);
+      }
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /**
+   * Writes the landmark section.
+   *
+   * @param output The output to write to
+   * @throws IOException If an I/O exception occurred while writing
+   */
+  @SuppressWarnings("unchecked")
+  private void writeLandmarkMetric(final DataOutput output) throws IOException {
+    if (!(mMetric instanceof LandmarkMetric)) {
+      output.writeInt(0);
+      return;
+    }
+    final LandmarkMetric<ICoreNode, ?, ?> metric = (LandmarkMetric<ICoreNode, ?, ?>) mMetric;
+    final Collection<ICoreNode> landmarks = metric.getLandmarks();
+    output.writeInt(landmarks.size());
+    for (final ICoreNode landmark : landmarks) {
+      output.writeInt(mRoadGraph.getIndex(landmark));
+    }
+    final int amountOfNodes = mRoadGraph.size();
+    for (final ICoreNode landmark : landmarks) {
+      for (int i = 0; i < amountOfNodes; i++) {
+        output.writeFloat((float) metric.getLandmarkToNodeDistance(landmark, mRoadGraph.getNode(i)));
+      }
+      for (int i = 0; i < amountOfNodes; i++) {
+        output.writeFloat((float) metric.getNodeToLandmarkDistance(mRoadGraph.getNode(i), landmark));
+      }
+    }
+  }
+
+  /**
+   * Writes the road graph section.
+   *
+   * @param output The output to write to
+   * @throws IOException If an I/O exception occurred while writing
+   */
+  private void writeRoadGraph(final DataOutput output) throws IOException {
+    final int amountOfNodes = mRoadGraph.size();
+    output.writeInt(amountOfNodes);
+    for (int i = 0; i < amountOfNodes; i++) {
+      output.writeInt(mRoadGraph.getNode(i).getId());
+    }
+    for (int i = 0; i < amountOfNodes; i++) {
+      output.writeFloat(mRoadGraph.getLatitude(i));
+    }
+    for (int i = 0; i < amountOfNodes; i++) {
+      output.writeFloat(mRoadGraph.getLongitude(i));
+    }
+
+    // Edges are written in the order of their index, grouped by source
+    final int amountOfEdges = mRoadGraph.getAmountOfEdges();
+    final RoadEdge<?>[] edges = new RoadEdge<?>[amountOfEdges];
+    for (int i = 0; i < amountOfEdges; i++) {
+      final ICoreEdge<ICoreNode> edge = mRoadGraph.getEdge(i);
+      if (!(edge instanceof RoadEdge)) {
+        throw new IllegalArgumentException("Only road edges can be written to a snapshot, got: " + edge);
+      }
+      edges[i] = (RoadEdge<?>) edge;
+    }
+    output.writeInt(amountOfEdges);
+    for (int i = 0; i <= amountOfNodes; i++) {
+      output.writeInt(mRoadGraph.getFirstOutgoingEdge(i));
+    }
+    for (int i = 0; i < amountOfEdges; i++) {
+      output.writeInt(mRoadGraph.getEdgeTarget(i));
+    }
+    for (final RoadEdge<?> edge : edges) {
+      output.writeInt(edge.getId());
+    }
+    for (final RoadEdge<?> edge : edges) {
+      output.writeInt(edge.getMaxSpeed());
+    }
+    for (final RoadEdge<?> edge : edges) {
+      final EHighwayType type = edge.getHighwayType();
+      output.writeByte(type == null ? UNKNOWN_HIGHWAY_TYPE : type.ordinal());
+    }
+    for (int i = 0; i < amountOfEdges; i++) {
+      output.writeByte(mRoadGraph.getEdgeModes(i));
+    }
+  }
+
+  /**
+   * Writes the timetable section.
+   *
+   * @param output The output to write to
+   * @throws IOException If an I/O exception occurred while writing
+   */
+  private void writeTimetable(final DataOutput output) throws IOException {
+    final List<Stop> stops = new ArrayList<>(mTimetable.getStops());
+    output.writeInt(stops.size());
+    for (final Stop stop : stops) {
+      output.writeInt(stop.getId());
+    }
+    for (final Stop stop : stops) {
+      output.writeFloat(stop.getLatitude());
+    }
+    for (final Stop stop : stops) {
+      output.writeFloat(stop.getLongitude());
+    }
+
+    final List<Connection> connections = mTimetable.getConnections();
+    output.writeInt(connections.size());
+    for (final Connection connection : connections) {
+      output.writeInt(connection.getTripId());
+    }
+    for (final Connection connection : connections) {
+      output.writeInt(connection.getSequenceIndex());
+    }
+    for (final Connection connection : connections) {
+      output.writeInt(connection.getDepStopId());
+    }
+    for (final Connection connection : connections) {
+      output.writeInt(connection.getArrStopId());
+    }
+    for (final Connection connection : connections) {
+      output.writeInt(connection.getDepTime());
+    }
+    for (final Connection connection : connections) {
+      output.writeInt(connection.getArrTime());
+    }
+
+    // Trips reference their connections by the position in the sorted list
+    final Map<Connection, Integer> connectionToPosition = new IdentityHashMap<>(connections.size());
+    for (int i = 0; i < connections.size(); i++) {
+      connectionToPosition.put(connections.get(i), i);
+    }
+    final Collection<Trip> trips = mTimetable.getTrips();
+    output.writeInt(trips.size());
+    for (final Trip trip : trips) {
+      output.writeInt(trip.getId());
+      output.writeInt(trip.getSequence().size());
+      for (final Connection connection : trip.getSequence()) {
+        output.writeInt(connectionToPosition.get(connection));
+      }
+    }
+
+    final List<Footpath> footpaths = new ArrayList<>();
+    mTimetable.getFootpaths().forEach(footpaths::add);
+    output.writeInt(footpaths.size());
+    for (final Footpath footpath : footpaths) {
+      output.writeInt(footpath.getDepStopId());
+    }
+    for (final Footpath footpath : footpaths) {
+      output.writeInt(footpath.getArrStopId());
+    }
+    for (final Footpath footpath : footpaths) {
+      output.writeInt(footpath.getDuration());
+    }
+  }
+}
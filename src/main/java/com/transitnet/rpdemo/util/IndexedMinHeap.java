@@ -0,0 +1,281 @@
+package com.transitnet.rpdemo.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Indexed <i>d</i>-ary min-heap over the integers <code>[0, capacity)</code>
+ * with <code>double</code> keys. Each element is contained at most once, its
+ * key can be decreased in place.<br>
+ * <br>
+ * A greater arity makes the heap shallower, which speeds up the frequent
+ * decrease-key operations of shortest path computations at the cost of
+ * comparing more children when polling.<br>
+ * <br>
+ * The heap does not allocate after creation and is meant to be reused across
+ * many shortest path computations, for example with dense node indices as
+ * elements. The class is not thread-safe.
+ */
+public final class IndexedMinHeap {
+  /**
+   * The arity used if none is given.
+   */
+  private static final int DEFAULT_ARITY = 2;
+  /**
+   * Position of elements which are not contained in the heap.
+   */
+  private static final int NOT_CONTAINED = -1;
+
+  /**
+   * The amount of children of each element.
+   */
+  private final int mArity;
+  /**
+   * The elements of the heap in heap order.
+   */
+  private final int[] mHeap;
+  /**
+   * The key of each element, indexed by the element.
+   */
+  private final double[] mKeys;
+  /**
+   * The position of each element in {@link #mHeap}, or {@link #NOT_CONTAINED}.
+   */
+  private final int[] mPositions;
+  /**
+   * The amount of elements contained in the heap.
+   */
+  private int mSize;
+
+  /**
+   * Creates a new empty binary heap for elements in <code>[0, capacity)</code>.
+   *
+   * @param capacity The exclusive upper bound of the elements
+   */
+  public IndexedMinHeap(final int capacity) {
+    this(capacity, DEFAULT_ARITY);
+  }
+
+  /**
+   * Creates a new empty heap with the given arity for elements in
+   * <code>[0, capacity)</code>.
+   *
+   * @param capacity The exclusive upper bound of the elements
+   * @param arity    The amount of children of each element, at least
+   *                 <code>2</code>
+   */
+  public IndexedMinHeap(final int capacity, final int arity) {
+    if (arity < 2) {
+      throw new IllegalArgumentException("The arity must be at least 2, was " + arity);
+    }
+    mArity = arity;
+    mHeap = new int[capacity];
+    mKeys = new double[capacity];
+    mPositions = new int[capacity];
+    Arrays.fill(mPositions, NOT_CONTAINED);
+  }
+
+  /**
+   * Removes all elements from the heap. Runs in the amount of contained
+   * elements.
+   */
+  public void clear() {
+    for (int i = 0; i < mSize; i++) {
+      mPositions[mHeap[i]] = NOT_CONTAINED;
+    }
+    mSize = 0;
+  }
+
+  /**
+   * Whether the heap contains the given element.
+   *
+   * @param element The element in question
+   * @return <code>True</code> if the element is contained, <code>false</code>
+   *         otherwise
+   */
+  public boolean contains(final int element) {
+    return mPositions[element] != NOT_CONTAINED;
+  }
+
+  /**
+   * Gets the arity of the heap, i.e. the amount of children of each element.
+   *
+   * @return The arity of the heap
+   */
+  public int getArity() {
+    return mArity;
+  }
+
+  /**
+   * Gets the capacity of the heap, i.e. the exclusive upper bound of the
+   * elements.
+   *
+   * @return The capacity of the heap
+   */
+  public int getCapacity() {
+    return mPositions.length;
+  }
+
+  /**
+   * Inserts the given element with the given key, or decreases its key if it is
+   * already contained with a greater key. Nothing happens if it is already
+   * contained with a smaller or equal key.
+   *
+   * @param element The element to insert
+   * @param key     The key of the element
+   * @return <code>True</code> if the heap changed, <code>false</code> otherwise
+   */
+  public boolean insertOrDecrease(final int element, final double key) {
+    final int position = mPositions[element];
+    if (position == NOT_CONTAINED) {
+      mKeys[element] = key;
+      mHeap[mSize] = element;
+      mPositions[element] = mSize;
+      mSize++;
+      siftUp(mSize - 1);
+      return true;
+    }
+    if (key >= mKeys[element]) {
+      return false;
+    }
+    mKeys[element] = key;
+    siftUp(position);
+    return true;
+  }
+
+  /**
+   * Whether the heap is empty.
+   *
+   * @return <code>True</code> if the heap is empty, <code>false</code> otherwise
+   */
+  public boolean isEmpty() {
+    return mSize == 0;
+  }
+
+  /**
+   * Gets the smallest key of the heap.
+   *
+   * @return The smallest key, or {@link Double#POSITIVE_INFINITY} if the heap is
+   *         empty
+   */
+  public double peekKey() {
+    if (mSize == 0) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return mKeys[mHeap[0]];
+  }
+
+  /**
+   * Removes the element with the smallest key from the heap.
+   *
+   * @return The removed element
+   * @throws NoSuchElementException If the heap is empty
+   */
+  public int poll() {
+    if (mSize == 0) {
+      throw new NoSuchElementException();
+    }
+    final int element = mHeap[0];
+    mPositions[element] = NOT_CONTAINED;
+    mSize--;
+    if (mSize > 0) {
+      final int last = mHeap[mSize];
+      mHeap[0] = last;
+      mPositions[last] = 0;
+      siftDown(0);
+    }
+    return element;
+  }
+
+  /**
+   * Gets the amount of elements contained in the heap.
+   *
+   * @return The amount of contained elements
+   */
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * Inserts the given element with the given key, or changes its key if it is
+   * already contained. Unlike {@link #insertOrDecrease(int, double)} the key may
+   * also increase.
+   *
+   * @param element The element to insert or update
+   * @param key     The new key of the element
+   */
+  public void update(final int element, final double key) {
+    final int position = mPositions[element];
+    if (position == NOT_CONTAINED) {
+      insertOrDecrease(element, key);
+      return;
+    }
+    final double oldKey = mKeys[element];
+    mKeys[element] = key;
+    if (key < oldKey) {
+      siftUp(position);
+    } else {
+      siftDown(position);
+    }
+  }
+
+  /**
+   * Moves the element at the given position down until the heap property is
+   * restored.
+   *
+   * @param startPosition The position of the element to move
+   */
+  private void siftDown(final int startPosition) {
+    int position = startPosition;
+    final int element = mHeap[position];
+    final double key = mKeys[element];
+    while (true) {
+      final int firstChild = mArity * position + 1;
+      if (firstChild >= mSize) {
+        break;
+      }
+      // Find the child with the smallest key
+      int child = firstChild;
+      double childKey = mKeys[mHeap[child]];
+      final int childEnd = Math.min(firstChild + mArity, mSize);
+      for (int otherChild = firstChild + 1; otherChild < childEnd; otherChild++) {
+        final double otherKey = mKeys[mHeap[otherChild]];
+        if (otherKey < childKey) {
+          child = otherChild;
+          childKey = otherKey;
+        }
+      }
+      if (childKey >= key) {
+        break;
+      }
+      mHeap[position] = mHeap[child];
+      mPositions[mHeap[position]] = position;
+      position = child;
+    }
+    mHeap[position] = element;
+    mPositions[element] = position;
+  }
+
+  /**
+   * Moves the element at the given position up until the heap property is
+   * restored.
+   *
+   * @param startPosition The position of the element to move
+   */
+  private void siftUp(final int startPosition) {
+    int position = startPosition;
+    final int element = mHeap[position];
+    final double key = mKeys[element];
+    while (position > 0) {
+      final int parent = (position - 1) / mArity;
+      if (mKeys[mHeap[parent]] <= key) {
+        break;
+      }
+      mHeap[position] = mHeap[parent];
+      mPositions[mHeap[position]] = position;
+      position = parent;
+    }
+    mHeap[position] = element;
+    mPositions[element] = position;
+  }
+}
@@ -3,6 +3,7 @@ package com.transitnet.rpdemo.util;
 import com.transitnet.rpdemo.service.parse.osm.EHighwayType;
 import com.transitnet.rpdemo.model.ETransportationMode;
 import com.transitnet.rpdemo.model.ISpatial;
+import com.transitnet.rpdemo.model.TransportationModeMask;
 
 import java.util.EnumSet;
 import java.util.Set;
@@ -13,6 +14,14 @@ import java.util.Set;
  * @author Daniel Tischner {@literal <zabuza.dev@gmail.com>}
  */
 public final class RoutingUtil {
+  /**
+   * Bit mask of the modes allowed on cycleways.
+   */
+  private static final byte BIKE_MASK = TransportationModeMask.of(ETransportationMode.BIKE);
+  /**
+   * Bit mask of the modes allowed on motorways.
+   */
+  private static final byte CAR_MASK = TransportationModeMask.of(ETransportationMode.CAR);
   /**
    * The mean of the earth radius in metres.
    */
@@ -42,6 +51,11 @@ public final class RoutingUtil {
    * <code>km/h</code> (kilometres per hour).
    */
   private static final double MPH_TO_KMH = 1.60934;
+  /**
+   * Bit mask of the modes allowed on regular roads.
+   */
+  private static final byte ROAD_MASK = TransportationModeMask
+      .of(EnumSet.of(ETransportationMode.CAR, ETransportationMode.BIKE, ETransportationMode.FOOT));
 
   /**
    * Factor to multiply with to convert <code>m/s</code> (metres per second) into
@@ -139,6 +153,24 @@ public final class RoutingUtil {
     return EnumSet.of(ETransportationMode.CAR, ETransportationMode.BIKE, ETransportationMode.FOOT);
   }
 
+  /**
+   * Gets the allowed transportation modes for the given highway type, encoded
+   * as bit mask as defined by {@link TransportationModeMask}. Unlike
+   * {@link #getTransportationModesOfHighway(EHighwayType)} the method does not
+   * allocate.
+   *
+   * @param type The type of the highway
+   * @return The allowed transportation modes as bit mask
+   */
+  public static byte getTransportationModeMaskOfHighway(final EHighwayType type) {
+    if (type == EHighwayType.MOTORWAY || type == EHighwayType.MOTORWAY_LINK) {
+      return CAR_MASK;
+    } else if (type == EHighwayType.CYCLEWAY) {
+      return BIKE_MASK;
+    }
+    return ROAD_MASK;
+  }
+
   /**
    * Gets the maximal walking speed in <code>km/h</code>.
    *
@@ -0,0 +1,74 @@
+package com.transitnet.rpdemo.service.parse.gtfs;
+
+import com.transitnet.rpdemo.model.timetable.Connection;
+import com.transitnet.rpdemo.model.timetable.Stop;
+import com.transitnet.rpdemo.model.timetable.Timetable;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GtfsImporterTest {
+
+    /**
+     * Feed whose files contain quoted fields with commas, escaped quotes and
+     * line breaks.
+     */
+    private static final Path FEED = Path.of("src/test/resources/gtfs/quoted");
+
+    @Test
+    void importsFeedWithQuotedLineBreaks() throws Exception {
+        final Timetable table = new Timetable();
+        new GtfsImporter(table).importFeed(FEED);
+
+        assertEquals(4, table.getStops().size());
+        assertEquals(2, table.getTrips().size());
+        final int mainStreet = stopIdAt(table, 40.70f);
+        final int central = stopIdAt(table, 40.71f);
+        final int harbour = stopIdAt(table, 40.72f);
+        final int mill = stopIdAt(table, 40.73f);
+
+        final List<Connection> connections = table.getConnections();
+        assertEquals(3, connections.size());
+        // Sorted by departure, the trip past midnight departs last
+        assertConnection(connections.get(0), mainStreet, central, 8 * 3600, 8 * 3600 + 300);
+        assertConnection(connections.get(1), central, harbour, 8 * 3600 + 300, 8 * 3600 + 600);
+        assertConnection(connections.get(2), harbour, mill, 23 * 3600 + 55 * 60, 10 * 60);
+
+        final List<String> footpaths = table.getFootpaths()
+                .map(footpath -> footpath.getDepStopId() + "-" + footpath.getArrStopId() + ":" + footpath.getDuration())
+                .sorted().collect(Collectors.toList());
+        assertEquals(List.of(harbour + "-" + mill + ":0", mainStreet + "-" + central + ":120").stream().sorted()
+                .collect(Collectors.toList()), footpaths);
+    }
+
+    @Test
+    void chunkBoundariesRespectQuotedLineBreaks() throws Exception {
+        final Timetable expected = new Timetable();
+        new GtfsImporter(expected).importFeed(FEED);
+        final long size = Files.size(FEED.resolve(GtfsImporter.STOP_TIMES_FILE));
+        // Every chunk size lets some chunk start inside a quoted field
+        for (long chunkSize = 1; chunkSize <= size; chunkSize++) {
+            final Timetable table = new Timetable();
+            new GtfsImporter(table, chunkSize).importFeed(FEED);
+            assertEquals(expected.getConnections(), table.getConnections(), "chunk size " + chunkSize);
+        }
+    }
+
+    private static void assertConnection(final Connection connection, final int depStopId, final int arrStopId,
+            final int depTime, final int arrTime) {
+        assertEquals(depStopId, connection.getDepStopId(), connection::toString);
+        assertEquals(arrStopId, connection.getArrStopId(), connection::toString);
+        assertEquals(depTime, connection.getDepTime(), connection::toString);
+        assertEquals(arrTime, connection.getArrTime(), connection::toString);
+    }
+
+    private static int stopIdAt(final Timetable table, final float latitude) {
+        return table.getStops().stream().filter(stop -> stop.getLatitude() == latitude).mapToInt(Stop::getId)
+                .findAny().orElseThrow();
+    }
+}
@@ -0,0 +1,96 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath;
+
+import com.transitnet.rpdemo.model.ICoreEdge;
+import com.transitnet.rpdemo.model.ICoreNode;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.CompactDijkstra;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchShortestPathComputationTest {
+
+    /**
+     * More queries than fit into a single chunk, the last chunk is partial.
+     */
+    private static final int QUERIES = 2 * BatchShortestPathComputation.CHUNK_SIZE + 123;
+
+    private static FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> graph;
+
+    private static List<ShortestPathQuery<ICoreNode>> queries;
+
+    private static double[] expected;
+
+    @BeforeAll
+    static void computeSingleQueries() {
+        graph = TestRoadGraphs.grid(12, 12, 8);
+        final Random random = new Random(9);
+        final List<ICoreNode> sources = TestRoadGraphs.pickNodes(graph, QUERIES, random);
+        final List<ICoreNode> destinations = TestRoadGraphs.pickNodes(graph, QUERIES, random);
+        queries = new ArrayList<>(QUERIES);
+        expected = new double[QUERIES];
+        final IShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> dijkstra = new CompactDijkstra<>(graph);
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add(new ShortestPathQuery<>(sources.get(i), destinations.get(i)));
+            expected[i] = dijkstra.computeShortestPathCost(sources.get(i), destinations.get(i))
+                    .orElse(Double.POSITIVE_INFINITY);
+        }
+    }
+
+    @Test
+    void listResultsMatchSingleQueries() {
+        try (BatchShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> batch = createBatch()) {
+            assertArrayEquals(expected, batch.computeCosts(queries));
+        }
+    }
+
+    @Test
+    void orderedStreamResultsArriveInOrderAndMatchSingleQueries() {
+        final double[] costs = new double[QUERIES];
+        final AtomicInteger nextPosition = new AtomicInteger();
+        try (BatchShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> batch = createBatch()) {
+            batch.computeCosts(queries.stream(), true, (position, cost) -> {
+                assertEquals(nextPosition.getAndIncrement(), position);
+                costs[position] = cost;
+            });
+        }
+        assertEquals(QUERIES, nextPosition.get());
+        assertArrayEquals(expected, costs);
+    }
+
+    @Test
+    void unorderedStreamResultsMatchSingleQueries() {
+        final double[] costs = new double[QUERIES];
+        Arrays.fill(costs, Double.NaN);
+        final AtomicInteger amountOfResults = new AtomicInteger();
+        try (BatchShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> batch = createBatch()) {
+            batch.computeCosts(queries.stream(), false, (position, cost) -> {
+                amountOfResults.incrementAndGet();
+                costs[position] = cost;
+            });
+        }
+        assertEquals(QUERIES, amountOfResults.get());
+        assertArrayEquals(expected, costs);
+    }
+
+    @Test
+    void emptyStreamPassesNoResults() {
+        try (BatchShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> batch = createBatch()) {
+            batch.computeCosts(queries.stream().limit(0), true, (position, cost) -> {
+                throw new AssertionError("Unexpected result for position " + position);
+            });
+        }
+    }
+
+    private static BatchShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> createBatch() {
+        return new BatchShortestPathComputation<>(() -> new CompactDijkstra<>(graph), 3);
+    }
+}
@@ -0,0 +1,111 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath;
+
+import com.transitnet.rpdemo.model.ICoreEdge;
+import com.transitnet.rpdemo.model.ICoreNode;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
+import com.transitnet.rpdemo.model.road.RoadEdge;
+import com.transitnet.rpdemo.model.road.RoadGraph;
+import com.transitnet.rpdemo.model.road.RoadNode;
+import com.transitnet.rpdemo.service.parse.osm.EHighwayType;
+import com.transitnet.rpdemo.util.RoutingUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates road graphs for tests of the shortest path algorithms.
+ */
+public final class TestRoadGraphs {
+    /**
+     * The highway types to choose edges from, they differ in speed and in the
+     * transportation modes they allow.
+     */
+    private static final EHighwayType[] HIGHWAY_TYPES = { EHighwayType.RESIDENTIAL, EHighwayType.PRIMARY,
+            EHighwayType.MOTORWAY, EHighwayType.CYCLEWAY };
+
+    /**
+     * Generates a frozen grid graph with slightly jittered node positions.
+     * Neighbouring nodes are connected by an edge of a random highway type,
+     * some connections are missing and some are one-way only, so not every
+     * node is reachable from every other node.
+     *
+     * @param width  The amount of nodes in horizontal direction
+     * @param height The amount of nodes in vertical direction
+     * @param seed   The seed of the random generator
+     * @return The generated graph
+     */
+    public static FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> grid(final int width, final int height,
+            final long seed) {
+        final Random random = new Random(seed);
+        final RoadGraph<ICoreNode, ICoreEdge<ICoreNode>> graph = new RoadGraph<>();
+        final ICoreNode[][] nodes = new ICoreNode[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                nodes[x][y] = new RoadNode(graph.generateUniqueNodeId(), 40.7f + y * 0.002f + random.nextFloat() * 0.0005f,
+                        -74.0f + x * 0.002f + random.nextFloat() * 0.0005f);
+                graph.addNode(nodes[x][y]);
+            }
+        }
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (x + 1 < width) {
+                    TestRoadGraphs.connect(graph, nodes[x][y], nodes[x + 1][y], random);
+                }
+                if (y + 1 < height) {
+                    TestRoadGraphs.connect(graph, nodes[x][y], nodes[x][y + 1], random);
+                }
+            }
+        }
+        return graph.freeze();
+    }
+
+    /**
+     * Picks random nodes of the given graph.
+     *
+     * @param graph  The graph to pick from
+     * @param amount The amount of nodes to pick, nodes may be picked repeatedly
+     * @param random The random generator to use
+     * @return The picked nodes
+     */
+    public static List<ICoreNode> pickNodes(final FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> graph,
+            final int amount, final Random random) {
+        final List<ICoreNode> nodes = new ArrayList<>(graph.getNodes());
+        final List<ICoreNode> picked = new ArrayList<>(amount);
+        for (int i = 0; i < amount; i++) {
+            picked.add(nodes.get(random.nextInt(nodes.size())));
+        }
+        return picked;
+    }
+
+    /**
+     * Connects the two given nodes, unless the connection is randomly left out.
+     *
+     * @param graph  The graph to add the edges to
+     * @param first  The first node
+     * @param second The second node
+     * @param random The random generator to use
+     */
+    private static void connect(final RoadGraph<ICoreNode, ICoreEdge<ICoreNode>> graph, final ICoreNode first,
+            final ICoreNode second, final Random random) {
+        if (random.nextInt(10) == 0) {
+            return;
+        }
+        final EHighwayType type = HIGHWAY_TYPES[random.nextInt(HIGHWAY_TYPES.length)];
+        final int wayId = graph.generateUniqueWayId();
+        graph.addEdge(new RoadEdge<>(wayId, first, second, type, type.getAverageSpeed(),
+                RoutingUtil.getTransportationModesOfHighway(type)));
+        if (random.nextInt(8) != 0) {
+            graph.addEdge(new RoadEdge<>(wayId, second, first, type, type.getAverageSpeed(),
+                    RoutingUtil.getTransportationModesOfHighway(type)));
+        }
+    }
+
+    /**
+     * Utility class. No implementation.
+     */
+    private TestRoadGraphs() {
+
+    }
+}
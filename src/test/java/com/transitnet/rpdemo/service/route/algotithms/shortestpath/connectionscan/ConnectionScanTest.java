@@ -0,0 +1,106 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.connectionscan;
+
+import com.transitnet.rpdemo.model.ICoreNode;
+import com.transitnet.rpdemo.model.timetable.Connection;
+import com.transitnet.rpdemo.model.timetable.Stop;
+import com.transitnet.rpdemo.model.timetable.Timetable;
+import com.transitnet.rpdemo.model.timetable.Trip;
+import com.transitnet.rpdemo.model.transit.TransitNode;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.raptor.Raptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionScanTest {
+
+    private static final int SECONDS_OF_DAY = 24 * 60 * 60;
+
+    /**
+     * Arrivals include the self-loop footpath at the destination.
+     */
+    private static final int TRANSFER_DELAY = 120;
+
+    /**
+     * A single trip departing at its stops at the given times, possibly
+     * exceeding a day, and reaching its last stop ten minutes after the last
+     * departure. Stops are too far apart to walk between them.
+     */
+    private static Timetable createTimetable(final List<Stop> stops, final int... depTimes) {
+        final Timetable table = new Timetable();
+        for (int i = 0; i < depTimes.length + 1; i++) {
+            final Stop stop = new Stop(table.generateUniqueStopId(), 40.0f + 0.1f * i, -74.0f);
+            table.addStop(stop);
+            stops.add(stop);
+        }
+        final Trip trip = new Trip(table.generateUniqueTripId());
+        table.addTrip(trip);
+        final List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < depTimes.length; i++) {
+            final int arrTime = i + 1 < depTimes.length ? depTimes[i + 1] : depTimes[i] + 600;
+            final Connection connection = new Connection(trip.getId(), i, stops.get(i).getId(),
+                    stops.get(i + 1).getId(), depTimes[i] % SECONDS_OF_DAY, arrTime % SECONDS_OF_DAY);
+            trip.addConnectionToSequence(connection);
+            connections.add(connection);
+        }
+        table.addConnections(connections);
+        table.correctFootpaths(TRANSFER_DELAY, 500);
+        return table;
+    }
+
+    private static ICoreNode node(final Stop stop, final int time) {
+        return new TransitNode(stop.getId(), stop.getLatitude(), stop.getLongitude(), time);
+    }
+
+    @Test
+    void tripsOfTheNextDayAreNotContinuedUpstream() {
+        // A 10:00 -> D 10:10 -> B 10:20 -> C 10:30
+        final List<Stop> stops = new ArrayList<>();
+        final Timetable table = createTimetable(stops, 36000, 36600, 37200);
+        final Stop d = stops.get(1);
+        final Stop b = stops.get(2);
+        final ConnectionScan connectionScan = new ConnectionScan(table);
+
+        // D is only visited before B, the trip of the next day must be boarded
+        // at its first stop to get there
+        final ConnectionScanProfile profile = connectionScan.computeProfile(node(b, 36900), node(d, 36900),
+                36900, 39600);
+        assertFalse(profile.getEarliestArrTime(37000).isPresent());
+        assertFalse(connectionScan.computeShortestPathCost(node(b, 37000), node(d, 37000)).isPresent());
+        assertFalse(new Raptor(table, 5).computeShortestPathCost(node(b, 37000), node(d, 37000)).isPresent());
+
+        // Downstream the trip is still taken
+        final Stop c = stops.get(3);
+        final OptionalInt arrTime = connectionScan.computeProfile(node(b, 36900), node(c, 36900), 36900, 39600)
+                .getEarliestArrTime(37000);
+        assertTrue(arrTime.isPresent());
+        assertEquals(37800 + TRANSFER_DELAY, arrTime.getAsInt());
+        assertEquals(Optional.of(800.0 + TRANSFER_DELAY),
+                connectionScan.computeShortestPathCost(node(b, 37000), node(c, 37000)));
+    }
+
+    @Test
+    void tripsRunningPastMidnightAreContinued() {
+        // A 23:50 -> B 00:10 -> C 00:20 -> D 00:30
+        final List<Stop> stops = new ArrayList<>();
+        final Timetable table = createTimetable(stops, 85800, SECONDS_OF_DAY + 600, SECONDS_OF_DAY + 1200);
+        final Stop a = stops.get(0);
+        final Stop d = stops.get(3);
+        final ConnectionScan connectionScan = new ConnectionScan(table);
+
+        final OptionalInt arrTime = connectionScan.computeProfile(node(a, 84000), node(d, 84000), 84000, 86000)
+                .getEarliestArrTime(85000);
+        assertTrue(arrTime.isPresent());
+        assertEquals(SECONDS_OF_DAY + 1800 + TRANSFER_DELAY, arrTime.getAsInt());
+        assertEquals(Optional.of(SECONDS_OF_DAY + 1800 + TRANSFER_DELAY - 85000.0),
+                connectionScan.computeShortestPathCost(node(a, 85000), node(d, 85000)));
+        assertEquals(Optional.of(SECONDS_OF_DAY + 1800 + TRANSFER_DELAY - 85000.0),
+                new Raptor(table, 5).computeShortestPathCost(node(a, 85000), node(d, 85000)));
+    }
+}
@@ -0,0 +1,93 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy;
+
+import com.transitnet.rpdemo.model.ETransportationMode;
+import com.transitnet.rpdemo.model.EdgeCost;
+import com.transitnet.rpdemo.model.ICoreEdge;
+import com.transitnet.rpdemo.model.ICoreNode;
+import com.transitnet.rpdemo.model.IPath;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IShortestPathComputation;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.TestRoadGraphs;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.modules.ModuleDijkstra;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.modules.MultiModalModule;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContractionHierarchyTest {
+
+    private static final int QUERIES = 300;
+
+    private static final Set<ETransportationMode> ROAD_MODES =
+            EnumSet.of(ETransportationMode.CAR, ETransportationMode.BIKE, ETransportationMode.FOOT);
+
+    @Test
+    void costsMatchDijkstraForAllModes() {
+        assertMatchesDijkstra(TestRoadGraphs.grid(30, 30, 1), ROAD_MODES);
+    }
+
+    @Test
+    void costsMatchDijkstraForSingleModes() {
+        final FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> graph = TestRoadGraphs.grid(25, 25, 2);
+        for (final ETransportationMode mode : ROAD_MODES) {
+            assertMatchesDijkstra(graph, EnumSet.of(mode));
+        }
+    }
+
+    @Test
+    void pathsAreConnectedAndHaveTheQueriedCost() {
+        final FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> graph = TestRoadGraphs.grid(20, 20, 3);
+        final ContractionHierarchyQuery<ICoreNode, ICoreEdge<ICoreNode>> query = new ContractionHierarchyQuery<>(
+                ContractionHierarchy.build(graph, EnumSet.of(ETransportationMode.CAR, ETransportationMode.FOOT)));
+        final Random random = new Random(3);
+        final List<ICoreNode> sources = TestRoadGraphs.pickNodes(graph, QUERIES, random);
+        final List<ICoreNode> destinations = TestRoadGraphs.pickNodes(graph, QUERIES, random);
+        for (int i = 0; i < QUERIES; i++) {
+            final Optional<Double> cost = query.computeShortestPathCost(sources.get(i), destinations.get(i));
+            final Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> path =
+                    query.computeShortestPath(sources.get(i), destinations.get(i));
+            assertEquals(cost.isPresent(), path.isPresent());
+            if (path.isEmpty() || path.get().length() == 0) {
+                continue;
+            }
+            assertEquals(sources.get(i), path.get().getSource());
+            assertEquals(destinations.get(i), path.get().getDestination());
+            assertEquals(cost.get(), path.get().getTotalCost(), 1e-2);
+            ICoreNode previous = sources.get(i);
+            for (final EdgeCost<ICoreNode, ICoreEdge<ICoreNode>> entry : path.get()) {
+                assertEquals(previous, entry.getEdge().getSource());
+                previous = entry.getEdge().getDestination();
+            }
+        }
+    }
+
+    private static void assertMatchesDijkstra(final FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> graph,
+            final Set<ETransportationMode> modes) {
+        final IShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> hierarchy =
+                new ContractionHierarchyQuery<>(ContractionHierarchy.build(graph, modes));
+        final IShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> dijkstra =
+                ModuleDijkstra.of(graph, MultiModalModule.of(modes));
+        final Random random = new Random(modes.toString().hashCode());
+        final List<ICoreNode> sources = TestRoadGraphs.pickNodes(graph, QUERIES, random);
+        final List<ICoreNode> destinations = TestRoadGraphs.pickNodes(graph, QUERIES, random);
+        int reachable = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            final Optional<Double> expected = dijkstra.computeShortestPathCost(sources.get(i), destinations.get(i));
+            final Optional<Double> actual = hierarchy.computeShortestPathCost(sources.get(i), destinations.get(i));
+            assertEquals(expected.isPresent(), actual.isPresent(), () -> modes + ": reachability differs");
+            if (expected.isPresent()) {
+                assertEquals(expected.get(), actual.get(), 1e-3 * Math.max(1.0, expected.get()),
+                        () -> modes + ": cost differs");
+                reachable++;
+            }
+        }
+        assertTrue(reachable > 0, () -> modes + ": no query was reachable");
+    }
+}
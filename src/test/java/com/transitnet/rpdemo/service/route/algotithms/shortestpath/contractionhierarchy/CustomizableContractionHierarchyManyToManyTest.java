@@ -0,0 +1,71 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy;
+
+import com.transitnet.rpdemo.model.ETransportationMode;
+import com.transitnet.rpdemo.model.ICoreEdge;
+import com.transitnet.rpdemo.model.ICoreNode;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IShortestPathComputation;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.TestRoadGraphs;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.modules.ModuleDijkstra;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.modules.MultiModalModule;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CustomizableContractionHierarchyManyToManyTest {
+
+    @Test
+    void matrixMatchesDijkstraForEveryPair() {
+        final FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> graph = TestRoadGraphs.grid(25, 25, 4);
+        final CustomizableContractionHierarchy<ICoreNode, ICoreEdge<ICoreNode>> hierarchy =
+                CustomizableContractionHierarchy.build(graph);
+        final Set<ETransportationMode> modes = EnumSet.of(ETransportationMode.CAR, ETransportationMode.FOOT);
+        final CustomizableContractionHierarchyManyToMany<ICoreNode, ICoreEdge<ICoreNode>> manyToMany =
+                new CustomizableContractionHierarchyManyToMany<>(hierarchy, hierarchy.customize(modes));
+        final IShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> dijkstra =
+                ModuleDijkstra.of(graph, MultiModalModule.of(modes));
+
+        final Random random = new Random(5);
+        final List<ICoreNode> sources = TestRoadGraphs.pickNodes(graph, 20, random);
+        final List<ICoreNode> destinations = new ArrayList<>(TestRoadGraphs.pickNodes(graph, 25, random));
+        // A node that is both source and destination, and a repeated destination
+        destinations.add(sources.get(0));
+        destinations.add(destinations.get(0));
+
+        final double[][] matrix = manyToMany.computeCostMatrix(sources, destinations);
+        assertEquals(sources.size(), matrix.length);
+        for (int i = 0; i < sources.size(); i++) {
+            assertEquals(destinations.size(), matrix[i].length);
+            for (int j = 0; j < destinations.size(); j++) {
+                final double expected = dijkstra.computeShortestPathCost(sources.get(i), destinations.get(j))
+                        .orElse(Double.POSITIVE_INFINITY);
+                if (Double.isInfinite(expected)) {
+                    assertEquals(expected, matrix[i][j], "entry " + i + ", " + j);
+                } else {
+                    assertEquals(expected, matrix[i][j], 1e-3 * Math.max(1.0, expected), "entry " + i + ", " + j);
+                }
+            }
+        }
+        assertEquals(0.0, matrix[0][destinations.size() - 2]);
+    }
+
+    @Test
+    void emptyInputsYieldEmptyCosts() {
+        final FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> graph = TestRoadGraphs.grid(5, 5, 6);
+        final CustomizableContractionHierarchy<ICoreNode, ICoreEdge<ICoreNode>> hierarchy =
+                CustomizableContractionHierarchy.build(graph);
+        final CustomizableContractionHierarchyManyToMany<ICoreNode, ICoreEdge<ICoreNode>> manyToMany =
+                new CustomizableContractionHierarchyManyToMany<>(hierarchy,
+                        hierarchy.customize(EnumSet.of(ETransportationMode.CAR)));
+        final List<ICoreNode> nodes = TestRoadGraphs.pickNodes(graph, 3, new Random(7));
+
+        assertEquals(0, manyToMany.computeCosts(List.of(), nodes).length);
+        assertEquals(0, manyToMany.computeCosts(nodes, List.of()).length);
+    }
+}
@@ -0,0 +1,108 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.contractionhierarchy;
+
+import com.transitnet.rpdemo.model.ETransportationMode;
+import com.transitnet.rpdemo.model.EdgeCost;
+import com.transitnet.rpdemo.model.ICoreEdge;
+import com.transitnet.rpdemo.model.ICoreNode;
+import com.transitnet.rpdemo.model.IPath;
+import com.transitnet.rpdemo.model.road.FrozenRoadGraph;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.IShortestPathComputation;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.TestRoadGraphs;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.modules.ModuleDijkstra;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.dijkstra.modules.MultiModalModule;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomizableContractionHierarchyTest {
+
+    private static final int QUERIES = 200;
+
+    private static final List<Set<ETransportationMode>> MODE_SETS = List.of(
+            EnumSet.of(ETransportationMode.CAR),
+            EnumSet.of(ETransportationMode.BIKE),
+            EnumSet.of(ETransportationMode.FOOT),
+            EnumSet.of(ETransportationMode.CAR, ETransportationMode.BIKE),
+            EnumSet.of(ETransportationMode.CAR, ETransportationMode.FOOT),
+            EnumSet.of(ETransportationMode.BIKE, ETransportationMode.FOOT),
+            EnumSet.of(ETransportationMode.CAR, ETransportationMode.BIKE, ETransportationMode.FOOT));
+
+    private static FrozenRoadGraph<ICoreNode, ICoreEdge<ICoreNode>> graph;
+
+    private static CustomizableContractionHierarchy<ICoreNode, ICoreEdge<ICoreNode>> hierarchy;
+
+    @BeforeAll
+    static void buildHierarchy() {
+        graph = TestRoadGraphs.grid(30, 30, 1);
+        hierarchy = CustomizableContractionHierarchy.build(graph);
+        hierarchy.customizeAll(MODE_SETS);
+    }
+
+    @Test
+    void costsMatchDijkstraForEveryModeMask() {
+        for (final Set<ETransportationMode> modes : MODE_SETS) {
+            final IShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> query =
+                    new CustomizableContractionHierarchyQuery<>(hierarchy, hierarchy.customize(modes));
+            final IShortestPathComputation<ICoreNode, ICoreEdge<ICoreNode>> dijkstra =
+                    ModuleDijkstra.of(graph, MultiModalModule.of(modes));
+            final Random random = new Random(modes.toString().hashCode());
+            final List<ICoreNode> sources = TestRoadGraphs.pickNodes(graph, QUERIES, random);
+            final List<ICoreNode> destinations = TestRoadGraphs.pickNodes(graph, QUERIES, random);
+            int reachable = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                final Optional<Double> expected = dijkstra.computeShortestPathCost(sources.get(i), destinations.get(i));
+                final Optional<Double> actual = query.computeShortestPathCost(sources.get(i), destinations.get(i));
+                assertEquals(expected.isPresent(), actual.isPresent(), () -> modes + ": reachability differs");
+                if (expected.isPresent()) {
+                    assertEquals(expected.get(), actual.get(), 1e-3 * Math.max(1.0, expected.get()),
+                            () -> modes + ": cost differs");
+                    reachable++;
+                }
+            }
+            assertTrue(reachable > 0, () -> modes + ": no query was reachable");
+        }
+    }
+
+    @Test
+    void customizationsAreCachedPerModeMask() {
+        for (final Set<ETransportationMode> modes : MODE_SETS) {
+            assertSame(hierarchy.customize(modes), hierarchy.customize(EnumSet.copyOf(modes)));
+        }
+    }
+
+    @Test
+    void pathsAreConnectedAndHaveTheQueriedCost() {
+        final Set<ETransportationMode> modes = EnumSet.of(ETransportationMode.BIKE, ETransportationMode.FOOT);
+        final CustomizableContractionHierarchyQuery<ICoreNode, ICoreEdge<ICoreNode>> query =
+                new CustomizableContractionHierarchyQuery<>(hierarchy, hierarchy.customize(modes));
+        final Random random = new Random(3);
+        final List<ICoreNode> sources = TestRoadGraphs.pickNodes(graph, QUERIES, random);
+        final List<ICoreNode> destinations = TestRoadGraphs.pickNodes(graph, QUERIES, random);
+        for (int i = 0; i < QUERIES; i++) {
+            final Optional<Double> cost = query.computeShortestPathCost(sources.get(i), destinations.get(i));
+            final Optional<IPath<ICoreNode, ICoreEdge<ICoreNode>>> path =
+                    query.computeShortestPath(sources.get(i), destinations.get(i));
+            assertEquals(cost.isPresent(), path.isPresent());
+            if (path.isEmpty() || path.get().length() == 0) {
+                continue;
+            }
+            assertEquals(sources.get(i), path.get().getSource());
+            assertEquals(destinations.get(i), path.get().getDestination());
+            assertEquals(cost.get(), path.get().getTotalCost(), 1e-2);
+            ICoreNode previous = sources.get(i);
+            for (final EdgeCost<ICoreNode, ICoreEdge<ICoreNode>> entry : path.get()) {
+                assertEquals(previous, entry.getEdge().getSource());
+                previous = entry.getEdge().getDestination();
+            }
+        }
+    }
+}
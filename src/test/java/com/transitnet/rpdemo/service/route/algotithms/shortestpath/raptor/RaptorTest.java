@@ -0,0 +1,162 @@
+package com.transitnet.rpdemo.service.route.algotithms.shortestpath.raptor;
+
+import com.transitnet.rpdemo.model.ICoreNode;
+import com.transitnet.rpdemo.model.timetable.Connection;
+import com.transitnet.rpdemo.model.timetable.Stop;
+import com.transitnet.rpdemo.model.timetable.Timetable;
+import com.transitnet.rpdemo.model.timetable.Trip;
+import com.transitnet.rpdemo.model.transit.TransitNode;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.connectionscan.ConnectionScan;
+import com.transitnet.rpdemo.service.route.algotithms.shortestpath.connectionscan.ConnectionScanProfile;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RaptorTest {
+
+    private static final int SECONDS_OF_DAY = 24 * 60 * 60;
+
+    private static final int AMOUNT_OF_STOPS = 30;
+
+    private static final int AMOUNT_OF_LINES = 12;
+
+    /**
+     * Earliest arrival journeys never visit a stop twice, so they never take
+     * more trips than there are stops.
+     */
+    private static final int UNBOUNDED_TRANSFERS = AMOUNT_OF_STOPS;
+
+    private static Timetable table;
+
+    private static List<Stop> stops;
+
+    @BeforeAll
+    static void createTimetable() {
+        final Random random = new Random(11);
+        table = new Timetable();
+        for (int i = 0; i < AMOUNT_OF_STOPS; i++) {
+            table.addStop(new Stop(table.generateUniqueStopId(), 40.70f + random.nextFloat() * 0.03f,
+                    -74.0f + random.nextFloat() * 0.03f));
+        }
+        stops = new ArrayList<>(table.getStops());
+
+        // Lines run through random stops, their trips keep the same travel
+        // times and some of them run past midnight
+        final List<Connection> connections = new ArrayList<>();
+        for (int line = 0; line < AMOUNT_OF_LINES; line++) {
+            final List<Stop> lineStops = new ArrayList<>(stops);
+            Collections.shuffle(lineStops, random);
+            final int amountOfLineStops = 4 + random.nextInt(5);
+            final int[] travelTimes = new int[amountOfLineStops - 1];
+            for (int i = 0; i < travelTimes.length; i++) {
+                travelTimes[i] = 60 + random.nextInt(600);
+            }
+            final int headway = 600 + random.nextInt(3000);
+            int depTime = random.nextInt(SECONDS_OF_DAY);
+            final int amountOfTrips = 10 + random.nextInt(20);
+            for (int tripIndex = 0; tripIndex < amountOfTrips; tripIndex++) {
+                final Trip trip = new Trip(table.generateUniqueTripId());
+                table.addTrip(trip);
+                int time = depTime;
+                for (int i = 0; i < travelTimes.length; i++) {
+                    final Connection connection = new Connection(trip.getId(), i, lineStops.get(i).getId(),
+                            lineStops.get(i + 1).getId(), time % SECONDS_OF_DAY,
+                            (time + travelTimes[i]) % SECONDS_OF_DAY);
+                    trip.addConnectionToSequence(connection);
+                    connections.add(connection);
+                    // Dwell at the stop before departing again
+                    time += travelTimes[i] + 30;
+                }
+                depTime += headway;
+            }
+        }
+        table.addConnections(connections);
+        table.correctFootpaths(120, 500);
+    }
+
+    @Test
+    void earliestArrivalsMatchProfileConnectionScan() {
+        final Raptor raptor = new Raptor(table, UNBOUNDED_TRANSFERS);
+        final ConnectionScan connectionScan = new ConnectionScan(table);
+        final Random random = new Random(12);
+        int reachable = 0;
+        for (int query = 0; query < 30; query++) {
+            final Stop source = stops.get(random.nextInt(stops.size()));
+            final Stop destination = stops.get(random.nextInt(stops.size()));
+            final int earliestDepTime = random.nextInt(SECONDS_OF_DAY - 4 * 3600);
+            final int latestDepTime = earliestDepTime + 4 * 3600;
+            final ConnectionScanProfile profile = connectionScan.computeProfile(node(source, earliestDepTime),
+                    node(destination, earliestDepTime), earliestDepTime, latestDepTime);
+
+            for (int depTime = earliestDepTime; depTime <= latestDepTime; depTime += 600) {
+                final OptionalInt expected = profile.getEarliestArrTime(depTime);
+                final Optional<Double> cost = raptor.computeShortestPathCost(node(source, depTime),
+                        node(destination, depTime));
+                final String message = source.getId() + " -> " + destination.getId() + " at " + depTime;
+                assertEquals(expected.isPresent(), cost.isPresent(), message);
+                if (expected.isPresent()) {
+                    assertEquals(expected.getAsInt(), depTime + cost.get(), 1e-9, message);
+                    reachable++;
+                }
+            }
+        }
+        assertTrue(reachable > 0);
+    }
+
+    @Test
+    void paretoJourneysTradeTransfersForArrival() {
+        final int maxTransfers = 3;
+        final Raptor raptor = new Raptor(table, maxTransfers);
+        final List<Raptor> boundedRaptors = new ArrayList<>();
+        for (int transfers = 0; transfers <= maxTransfers; transfers++) {
+            boundedRaptors.add(new Raptor(table, transfers));
+        }
+        final Random random = new Random(13);
+        int multipleJourneys = 0;
+        for (int query = 0; query < 100; query++) {
+            final Stop source = stops.get(random.nextInt(stops.size()));
+            final Stop destination = stops.get(random.nextInt(stops.size()));
+            final int depTime = random.nextInt(SECONDS_OF_DAY);
+            final ICoreNode sourceNode = node(source, depTime);
+            final ICoreNode destinationNode = node(destination, depTime);
+            final List<RaptorJourney> journeys = raptor.computeParetoJourneys(List.of(sourceNode), destinationNode);
+            assertEquals(raptor.computeShortestPathCost(sourceNode, destinationNode).isEmpty(), journeys.isEmpty());
+            if (journeys.size() > 1) {
+                multipleJourneys++;
+            }
+
+            for (int i = 0; i < journeys.size(); i++) {
+                final RaptorJourney journey = journeys.get(i);
+                if (i > 0) {
+                    assertTrue(journey.getAmountOfTransfers() > journeys.get(i - 1).getAmountOfTransfers());
+                    assertTrue(journey.getArrTime() < journeys.get(i - 1).getArrTime());
+                }
+                // Each journey is the earliest arrival with at most its transfers
+                final Optional<Double> boundedCost = boundedRaptors.get(journey.getAmountOfTransfers())
+                        .computeShortestPathCost(sourceNode, destinationNode);
+                assertFalse(boundedCost.isEmpty());
+                assertEquals(journey.getArrTime(), depTime + boundedCost.get(), 1e-9);
+                assertEquals(journey.getArrTime() - depTime, journey.getPath().getTotalCost(), 1e-9);
+                if (journey.getPath().length() > 0) {
+                    assertEquals(source.getId(), journey.getPath().getSource().getId());
+                    assertEquals(destination.getId(), journey.getPath().getDestination().getId());
+                }
+            }
+        }
+        assertTrue(multipleJourneys > 0);
+    }
+
+    private static ICoreNode node(final Stop stop, final int time) {
+        return new TransitNode(stop.getId(), stop.getLatitude(), stop.getLongitude(), time);
+    }
+}